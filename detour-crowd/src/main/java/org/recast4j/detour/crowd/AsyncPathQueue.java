@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.recast4j.detour.NavMesh;
+import org.recast4j.detour.NavMeshQuery;
+import org.recast4j.detour.Status;
+
+/**
+ * Path queue serviced by {@link CrowdConfig#pathQueueThreads} workers running on {@link CrowdConfig#pathQueueExecutor}.
+ * Every worker owns a navmesh query which is reused for all of its requests. Searches run in slices of
+ * {@link CrowdConfig#maxFindPathIterations} iterations and stop early when the request is cancelled. Completed
+ * requests are published to their {@link PathQueryResult} only in {@link #update(NavMesh)}, so the crowd sees results
+ * at a fixed point of its update.
+ *
+ * The navmesh must not be modified while requests are being serviced.
+ */
+public class AsyncPathQueue extends PathQueue {
+
+    private final Queue<PathQuery> requests = new PriorityBlockingQueue<>(16, PRIORITY_ORDER);
+    private final Queue<PathQuery> completed = new ConcurrentLinkedQueue<>();
+    private final Worker[] workers;
+    private volatile NavMesh navMesh;
+
+    protected AsyncPathQueue(CrowdConfig config) {
+        super(config);
+        workers = new Worker[Math.max(1, config.pathQueueThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    @Override
+    protected void update(NavMesh navMesh) {
+        this.navMesh = navMesh;
+        for (PathQuery q = completed.poll(); q != null; q = completed.poll()) {
+            complete(q);
+        }
+        if (!requests.isEmpty()) {
+            for (Worker w : workers) {
+                if (w.running.compareAndSet(false, true)) {
+                    config.pathQueueExecutor.execute(w);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void submit(PathQuery q) {
+        requests.add(q);
+    }
+
+    private class Worker implements Runnable {
+
+        final AtomicBoolean running = new AtomicBoolean();
+        NavMeshQuery navQuery;
+
+        @Override
+        public void run() {
+            while (true) {
+                PathQuery q = requests.poll();
+                if (q == null) {
+                    running.set(false);
+                    // A request may have been added after the poll, keep going if no other worker picked it up.
+                    if (requests.isEmpty() || !running.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                process(q);
+                completed.add(q);
+            }
+        }
+
+        private void process(PathQuery q) {
+            NavMesh mesh = navMesh;
+            if (navQuery == null || navQuery.getAttachedNavMesh() != mesh) {
+                navQuery = new NavMeshQuery(mesh);
+            }
+            try {
+                while (true) {
+                    if (isAbandoned(q)) {
+                        q.status = Status.FAILURE;
+                        return;
+                    }
+                    step(q, navQuery, config.maxFindPathIterations);
+                    if (q.status.isFailed() || q.status.isSuccess()) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                q.status = Status.FAILURE;
+                q.path = null;
+            }
+        }
+    }
+}
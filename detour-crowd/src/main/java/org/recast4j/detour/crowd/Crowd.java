@@ -22,26 +22,29 @@ import static org.recast4j.detour.DetourCommon.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.IntFunction;
 
 import org.recast4j.detour.ClosestPointOnPolyResult;
 import org.recast4j.detour.DefaultQueryFilter;
 import org.recast4j.detour.FindNearestPolyResult;
+import org.recast4j.detour.FlowField;
 import org.recast4j.detour.NavMesh;
 import org.recast4j.detour.NavMeshQuery;
 import org.recast4j.detour.QueryFilter;
 import org.recast4j.detour.Result;
 import org.recast4j.detour.Status;
-import org.recast4j.detour.Tupple2;
+import org.recast4j.detour.WallSegmentCache;
+import org.recast4j.detour.crowd.CrowdAgent.CrowdAgentLod;
 import org.recast4j.detour.crowd.CrowdAgent.CrowdAgentState;
 import org.recast4j.detour.crowd.CrowdAgent.MoveRequestState;
+import org.recast4j.detour.crowd.CrowdMetrics.Phase;
 import org.recast4j.detour.crowd.ObstacleAvoidanceQuery.ObstacleAvoidanceParams;
 import org.recast4j.detour.crowd.debug.CrowdAgentDebugInfo;
 import org.recast4j.detour.crowd.debug.ObstacleAvoidanceDebugData;
@@ -158,19 +161,32 @@ public class Crowd {
     /// dtCrowdAgentParams::queryFilterType
     static final int DT_CROWD_MAX_QUERY_FILTER_TYPE = 16;
 
+    /// The initial number of entries of the proximity grid, it grows with the crowd.
+    static final int DT_CROWD_GRID_POOL_SIZE = 256;
+
     private final AtomicInteger agentId = new AtomicInteger();
-    private final Set<CrowdAgent> m_agents;
+    private final CrowdAgentStore m_store = new CrowdAgentStore();
     private final PathQueue m_pathq;
     private final ObstacleAvoidanceParams[] m_obstacleQueryParams = new ObstacleAvoidanceParams[DT_CROWD_MAX_OBSTAVOIDANCE_PARAMS];
     private final ObstacleAvoidanceQuery m_obstacleQuery;
-    private ProximityGrid m_grid;
+    private final Worker[] m_workers;
+    private final ProximityGrid m_grid;
+    private List<CrowdAgent> m_gridAgents = Collections.emptyList();
+    private final List<float[]> m_observers = new ArrayList<>();
+    private final List<CrowdAgent> m_steppedAgents = new ArrayList<>();
+    private long m_updateCount;
     private final float[] m_ext = new float[3];
     private final QueryFilter[] m_filters = new QueryFilter[DT_CROWD_MAX_QUERY_FILTER_TYPE];
     private NavMeshQuery navQuery;
     private NavMesh navMesh;
     private final CrowdConfig config;
-    private final CrowdTelemetry telemetry = new CrowdTelemetry();
+    private final CrowdMetrics metrics = new CrowdMetrics();
+    private final CrowdTelemetry telemetry = new CrowdTelemetry(metrics);
+    private final WallSegmentCache m_wallCache = new WallSegmentCache();
+    private final FlowFieldCache m_flowFields;
+    private NavMeshQuery m_flowFieldQuery;
     int m_velocitySampleCount;
+    private int m_replanCount;
 
     public Crowd(CrowdConfig config, NavMesh nav) {
         this(config, nav, i -> new DefaultQueryFilter());
@@ -182,6 +198,9 @@ public class Crowd {
         vSet(m_ext, config.maxAgentRadius * 2.0f, config.maxAgentRadius * 1.5f, config.maxAgentRadius * 2.0f);
 
         m_obstacleQuery = new ObstacleAvoidanceQuery(config.maxObstacleAvoidanceCircles, config.maxObstacleAvoidanceSegments);
+        m_workers = new Worker[Math.max(1, config.updateParallelism)];
+        m_grid = new ProximityGrid(DT_CROWD_GRID_POOL_SIZE, config.maxAgentRadius * 3);
+        m_flowFields = new FlowFieldCache(config.flowFieldCacheSize);
 
         for (int i = 0; i < DT_CROWD_MAX_QUERY_FILTER_TYPE; i++) {
             m_filters[i] = queryFilterFactory.apply(i);
@@ -192,17 +211,44 @@ public class Crowd {
         }
 
         // Allocate temp buffer for merging paths.
-        m_pathq = new PathQueue(config);
-        m_agents = new HashSet<>();
+        m_pathq = config.pathQueueThreads > 0 ? new AsyncPathQueue(config) : new PathQueue(config);
 
         // The navQuery is mostly used for local searches, no need for large node pool.
-        navMesh = nav;
-        navQuery = new NavMeshQuery(nav);
+        setNavMesh(nav);
     }
 
     public void setNavMesh(NavMesh nav) {
+        // Snapshots of the same nav mesh share its parameters and can keep using the cached walls.
+        if (navMesh != null && navMesh.getParams() != nav.getParams()) {
+            m_wallCache.clear();
+            m_flowFields.clear();
+        }
         navMesh = nav;
         navQuery = new NavMeshQuery(nav);
+        m_flowFieldQuery = null;
+        // The first worker runs on the calling thread and shares the crowd's queries.
+        m_workers[0] = new Worker(navQuery, m_obstacleQuery);
+        for (int i = 1; i < m_workers.length; i++) {
+            m_workers[i] = new Worker(new NavMeshQuery(nav), new ObstacleAvoidanceQuery(
+                    config.maxObstacleAvoidanceCircles, config.maxObstacleAvoidanceSegments));
+        }
+        if (config.cacheWallSegments) {
+            for (Worker w : m_workers) {
+                w.navQuery.setWallSegmentCache(m_wallCache);
+            }
+        }
+    }
+
+    /// Returns the wall segments shared by the agents' local boundaries. The cache must be cleared when a query filter
+    /// of the crowd is modified.
+    public WallSegmentCache getWallSegmentCache() {
+        return m_wallCache;
+    }
+
+    /// Returns the flow fields shared by agents with the DT_CROWD_SHARED_DESTINATION flag. The cache must be cleared
+    /// when a query filter of the crowd is modified.
+    public FlowFieldCache getFlowFieldCache() {
+        return m_flowFields;
     }
 
     /// Sets the shared avoidance configuration for the specified index.
@@ -244,7 +290,7 @@ public class Crowd {
      */
     public CrowdAgent addAgent(float[] pos, CrowdAgentParams params) {
         CrowdAgent ag = new CrowdAgent(agentId.getAndIncrement());
-        m_agents.add(ag);
+        m_store.add(ag);
         updateAgentParameters(ag, params);
 
         // Find nearest position on navmesh and place the agent there.
@@ -259,10 +305,10 @@ public class Crowd {
         ag.topologyOptTime = 0;
         ag.targetReplanTime = 0;
 
-        vSet(ag.dvel, 0, 0, 0);
-        vSet(ag.nvel, 0, 0, 0);
-        vSet(ag.vel, 0, 0, 0);
-        vCopy(ag.npos, nearest);
+        ag.setDesiredVelocity(new float[3]);
+        ag.setAvoidanceVelocity(new float[3]);
+        ag.setVelocity(new float[3]);
+        ag.setPosition(nearest);
 
         ag.desiredSpeed = 0;
 
@@ -284,7 +330,30 @@ public class Crowd {
      *            Agent to be removed
      */
     public void removeAgent(CrowdAgent agent) {
-        m_agents.remove(agent);
+        if (m_store.remove(agent)) {
+            agent.cancelPathQuery();
+        }
+    }
+
+    /**
+     * Adds an observer, agents with the DT_CROWD_LOD flag are simulated with less detail the further they are from the
+     * nearest observer.
+     *
+     * @param pos
+     *            Position of the observer, read on every update so it can be moved in place. [(x, y, z)]
+     */
+    public void addObserver(float[] pos) {
+        m_observers.add(pos);
+    }
+
+    /**
+     * Removes an observer.
+     *
+     * @param pos
+     *            Position previously passed to #addObserver()
+     */
+    public void removeObserver(float[] pos) {
+        m_observers.removeIf(o -> o == pos);
     }
 
     private boolean requestMoveTargetReplan(CrowdAgent ag, long ref, float[] pos) {
@@ -323,7 +392,7 @@ public class Crowd {
         // Initialize request.
         agent.targetRef = 0;
         vCopy(agent.targetPos, vel);
-        agent.targetPathQueryResult = null;
+        agent.cancelPathQuery();
         agent.targetReplan = false;
         agent.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY;
 
@@ -337,8 +406,8 @@ public class Crowd {
         // Initialize request.
         agent.targetRef = 0;
         vSet(agent.targetPos, 0, 0, 0);
-        vSet(agent.dvel, 0, 0, 0);
-        agent.targetPathQueryResult = null;
+        agent.setDesiredVelocity(new float[3]);
+        agent.cancelPathQuery();
         agent.targetReplan = false;
         agent.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_NONE;
         return true;
@@ -347,10 +416,21 @@ public class Crowd {
     /**
      * Gets the active agents int the agent pool.
      *
-     * @return List of active agents
+     * @return Unmodifiable list of active agents, not updated when agents are added or removed later
      */
     public List<CrowdAgent> getActiveAgents() {
-        return new ArrayList<>(m_agents);
+        return m_store.getActive();
+    }
+
+    /**
+     * Gets the agent with the handle.
+     *
+     * @param handle
+     *            Handle returned by {@link CrowdAgent#getHandle()}
+     * @return The agent, or null if it has been removed from the crowd
+     */
+    public CrowdAgent getAgent(int handle) {
+        return m_store.get(handle);
     }
 
     public float[] getQueryExtents() {
@@ -373,16 +453,26 @@ public class Crowd {
         return telemetry;
     }
 
+    /// Returns the cumulative metrics of all updates.
+    public CrowdMetrics metrics() {
+        return metrics;
+    }
+
     public CrowdConfig config() {
         return config;
     }
 
     public CrowdTelemetry update(float dt, CrowdAgentDebugInfo debug) {
         m_velocitySampleCount = 0;
+        m_replanCount = 0;
 
         telemetry.start();
+        telemetry.start(Phase.UPDATE);
+
+        List<CrowdAgent> agents = m_store.getActive();
 
-        Collection<CrowdAgent> agents = getActiveAgents();
+        // Select the level of detail of the agents and the agents stepped in this update.
+        List<CrowdAgent> stepped = updateLevelOfDetail(agents, dt);
 
         // Check that all agents still have valid paths.
         checkPathValidity(agents, dt);
@@ -397,212 +487,268 @@ public class Crowd {
         buildProximityGrid(agents);
 
         // Get nearby navmesh segments and agents to collide with.
-        buildNeighbours(agents);
+        buildNeighbours(stepped);
 
         // Find next corner to steer to.
-        findCorners(agents, debug);
+        findCorners(stepped, debug);
 
         // Trigger off-mesh connections (depends on corners).
-        triggerOffMeshConnections(agents);
+        triggerOffMeshConnections(stepped);
 
         // Calculate steering.
-        calculateSteering(agents);
+        calculateSteering(stepped);
 
         // Velocity planning.
-        planVelocity(debug, agents);
+        planVelocity(debug, stepped);
 
         // Integrate.
-        integrate(dt, agents);
+        integrate(stepped);
 
         // Handle collisions.
-        handleCollisions(agents);
+        handleCollisions(stepped);
 
-        moveAgents(agents);
+        moveAgents(stepped);
 
         // Update agents using off-mesh connection.
         updateOffMeshConnections(agents, dt);
+
+        telemetry.stop(Phase.UPDATE);
+        metrics.recordUpdate(m_velocitySampleCount, m_replanCount, m_pathq.getPendingCount(), agents.size(),
+                stepped.size());
         return telemetry;
     }
 
+    /**
+     * Runs a per-agent phase of the update. The agents are split into contiguous ranges, one per worker, and every
+     * worker uses its own queries. A phase only writes the state of the agent it processes and only reads the state of
+     * other agents which is not written in the same phase, so the result does not depend on the number of workers.
+     */
+    private void forEachAgent(List<CrowdAgent> agents, BiConsumer<CrowdAgent, Worker> action) {
+        int workers = Math.min(m_workers.length, agents.size() / Math.max(1, config.minAgentsPerWorker));
+        if (workers <= 1) {
+            for (CrowdAgent ag : agents) {
+                action.accept(ag, m_workers[0]);
+            }
+            return;
+        }
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers - 1];
+        for (int w = 1; w < workers; w++) {
+            Worker worker = m_workers[w];
+            int from = agents.size() * w / workers;
+            int to = agents.size() * (w + 1) / workers;
+            tasks[w - 1] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    action.accept(agents.get(i), worker);
+                }
+            }, config.updateExecutor);
+        }
+        // The calling thread processes the first range.
+        RuntimeException failure = null;
+        try {
+            for (int i = 0, to = agents.size() / workers; i < to; i++) {
+                action.accept(agents.get(i), m_workers[0]);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            if (failure == null) {
+                failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-    private void checkPathValidity(Collection<CrowdAgent> agents, float dt) {
-        telemetry.start("checkPathValidity");
-
+    /**
+     * Selects the level of detail of every agent from its distance to the nearest observer. Fully simulated agents are
+     * stepped every update, the other agents are stepped every few updates with the time elapsed since their last step.
+     * The steps are staggered by agent index to spread the cost over the updates.
+     */
+    private List<CrowdAgent> updateLevelOfDetail(List<CrowdAgent> agents, float dt) {
+        telemetry.start(Phase.UPDATE_LEVEL_OF_DETAIL);
+        m_updateCount++;
+        m_steppedAgents.clear();
         for (CrowdAgent ag : agents) {
-
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
+            ag.lod = selectLod(ag);
+            int interval = 1;
+            if (ag.lod == CrowdAgentLod.DT_CROWDAGENT_LOD_REDUCED) {
+                interval = config.lodReducedUpdateInterval;
+            } else if (ag.lod == CrowdAgentLod.DT_CROWDAGENT_LOD_CORRIDOR) {
+                interval = config.lodCorridorUpdateInterval;
             }
+            ag.lodElapsed += dt;
+            boolean step = interval <= 1 || (m_updateCount + ag.idx) % interval == 0;
+            if (step) {
+                ag.stepTime = ag.lodElapsed;
+                ag.lodElapsed = 0;
+                m_steppedAgents.add(ag);
+            }
+            telemetry.recordLod(ag.lod, step);
+        }
+        telemetry.stop(Phase.UPDATE_LEVEL_OF_DETAIL);
+        return m_steppedAgents;
+    }
 
-            ag.targetReplanTime += dt;
+    private CrowdAgentLod selectLod(CrowdAgent ag) {
+        if (m_observers.isEmpty() || (ag.params.updateFlags & CrowdAgentParams.DT_CROWD_LOD) == 0) {
+            return CrowdAgentLod.DT_CROWDAGENT_LOD_FULL;
+        }
+        float[] pos = m_store.pos;
+        int i = ag.slot * 3;
+        float minDistSqr = Float.MAX_VALUE;
+        for (float[] o : m_observers) {
+            float dx = o[0] - pos[i];
+            float dz = o[2] - pos[i + 2];
+            minDistSqr = Math.min(minDistSqr, dx * dx + dz * dz);
+        }
+        if (minDistSqr < sqr(config.lodFullRange)) {
+            return CrowdAgentLod.DT_CROWDAGENT_LOD_FULL;
+        }
+        if (minDistSqr < sqr(config.lodReducedRange)) {
+            return CrowdAgentLod.DT_CROWDAGENT_LOD_REDUCED;
+        }
+        return CrowdAgentLod.DT_CROWDAGENT_LOD_CORRIDOR;
+    }
 
-            boolean replan = false;
+    private void checkPathValidity(List<CrowdAgent> agents, float dt) {
+        telemetry.start(Phase.CHECK_PATH_VALIDITY);
+        for (Worker w : m_workers) {
+            w.replanCount = 0;
+        }
+        forEachAgent(agents, (ag, w) -> {
+            if (checkPathValidity(ag, dt, w)) {
+                w.replanCount++;
+            }
+        });
+        for (Worker w : m_workers) {
+            m_replanCount += w.replanCount;
+        }
+        telemetry.stop(Phase.CHECK_PATH_VALIDITY);
+    }
 
-            // First check that the current location is valid.
-            float[] agentPos = new float[3];
-            long agentRef = ag.corridor.getFirstPoly();
-            vCopy(agentPos, ag.npos);
-            if (!navQuery.isValidPolyRef(agentRef, m_filters[ag.params.queryFilterType])) {
-                // Current location is not valid, try to reposition.
-                // TODO: this can snap agents, how to handle that?
-                Result<FindNearestPolyResult> nearestPoly = navQuery.findNearestPoly(ag.npos, m_ext,
-                        m_filters[ag.params.queryFilterType]);
-                agentRef = nearestPoly.succeeded() ? nearestPoly.result.getNearestRef() : 0L;
-                if (nearestPoly.succeeded()) {
-                    vCopy(agentPos, nearestPoly.result.getNearestPos());
-                }
+    /// @return True if the path of the agent is replanned.
+    private boolean checkPathValidity(CrowdAgent ag, float dt, Worker w) {
+        NavMeshQuery navQuery = w.navQuery;
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return false;
+        }
 
-                if (agentRef == 0) {
-                    // Could not find location in navmesh, set state to invalid.
-                    ag.corridor.reset(0, agentPos);
-                    ag.partial = false;
-                    ag.boundary.reset();
-                    ag.state = CrowdAgentState.DT_CROWDAGENT_STATE_INVALID;
-                    continue;
-                }
+        ag.targetReplanTime += dt;
+
+        boolean replan = false;
+
+        // First check that the current location is valid.
+        float[] agentPos = w.pos;
+        vCopy(agentPos, m_store.pos, ag.slot * 3);
+        long agentRef = ag.corridor.getFirstPoly();
+        if (!navQuery.isValidPolyRef(agentRef, m_filters[ag.params.queryFilterType])) {
+            // Current location is not valid, try to reposition.
+            // TODO: this can snap agents, how to handle that?
+            Result<FindNearestPolyResult> nearestPoly = navQuery.findNearestPoly(agentPos, m_ext,
+                    m_filters[ag.params.queryFilterType]);
+            agentRef = nearestPoly.succeeded() ? nearestPoly.result.getNearestRef() : 0L;
+            if (nearestPoly.succeeded()) {
+                vCopy(agentPos, nearestPoly.result.getNearestPos());
+            }
 
-                // Make sure the first polygon is valid, but leave other valid
-                // polygons in the path so that replanner can adjust the path
-                // better.
-                ag.corridor.fixPathStart(agentRef, agentPos);
-                // ag.corridor.trimInvalidPath(agentRef, agentPos, m_navquery,
-                // &m_filter);
+            if (agentRef == 0) {
+                // Could not find location in navmesh, set state to invalid.
+                ag.corridor.reset(0, agentPos);
+                ag.partial = false;
                 ag.boundary.reset();
-                vCopy(ag.npos, agentPos);
-
-                replan = true;
+                ag.state = CrowdAgentState.DT_CROWDAGENT_STATE_INVALID;
+                return false;
             }
 
-            // If the agent does not have move target or is controlled by
-            // velocity, no need to recover the target nor replan.
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                continue;
-            }
+            // Make sure the first polygon is valid, but leave other valid
+            // polygons in the path so that replanner can adjust the path
+            // better.
+            ag.corridor.fixPathStart(agentRef, agentPos);
+            // ag.corridor.trimInvalidPath(agentRef, agentPos, m_navquery,
+            // &m_filter);
+            ag.boundary.reset();
+            ag.setPosition(agentPos);
 
-            // Try to recover move request position.
-            if (ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    && ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_FAILED) {
-                if (!navQuery.isValidPolyRef(ag.targetRef, m_filters[ag.params.queryFilterType])) {
-                    // Current target is not valid, try to reposition.
-                    Result<FindNearestPolyResult> fnp = navQuery.findNearestPoly(ag.targetPos, m_ext,
-                            m_filters[ag.params.queryFilterType]);
-                    ag.targetRef = fnp.succeeded() ? fnp.result.getNearestRef() : 0L;
-                    if (fnp.succeeded()) {
-                        vCopy(ag.targetPos, fnp.result.getNearestPos());
-                    }
-                    replan = true;
-                }
-                if (ag.targetRef == 0) {
-                    // Failed to reposition target, fail moverequest.
-                    ag.corridor.reset(agentRef, agentPos);
-                    ag.partial = false;
-                    ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_NONE;
-                }
-            }
+            replan = true;
+        }
+
+        // If the agent does not have move target or is controlled by
+        // velocity, no need to recover the target nor replan.
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            return false;
+        }
 
-            // If nearby corridor is not valid, replan.
-            if (!ag.corridor.isValid(config.checkLookAhead, navQuery, m_filters[ag.params.queryFilterType])) {
-                // Fix current path.
-                // ag.corridor.trimInvalidPath(agentRef, agentPos, m_navquery,
-                // &m_filter);
-                // ag.boundary.reset();
+        // Try to recover move request position.
+        if (ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                && ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_FAILED) {
+            if (!navQuery.isValidPolyRef(ag.targetRef, m_filters[ag.params.queryFilterType])) {
+                // Current target is not valid, try to reposition.
+                Result<FindNearestPolyResult> fnp = navQuery.findNearestPoly(ag.targetPos, m_ext,
+                        m_filters[ag.params.queryFilterType]);
+                ag.targetRef = fnp.succeeded() ? fnp.result.getNearestRef() : 0L;
+                if (fnp.succeeded()) {
+                    vCopy(ag.targetPos, fnp.result.getNearestPos());
+                }
                 replan = true;
             }
+            if (ag.targetRef == 0) {
+                // Failed to reposition target, fail moverequest.
+                ag.corridor.reset(agentRef, agentPos);
+                ag.partial = false;
+                ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_NONE;
+            }
+        }
 
-            // If the end of the path is near and it is not the requested
-            // location, replan.
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VALID) {
-                if (ag.targetReplanTime > config.targetReplanDelay && ag.corridor.getPathCount() < config.checkLookAhead
-                        && ag.corridor.getLastPoly() != ag.targetRef) {
-                    replan = true;
-                }
+        // If nearby corridor is not valid, replan.
+        if (!ag.corridor.isValid(config.checkLookAhead, navQuery, m_filters[ag.params.queryFilterType])) {
+            // Fix current path.
+            // ag.corridor.trimInvalidPath(agentRef, agentPos, m_navquery,
+            // &m_filter);
+            // ag.boundary.reset();
+            replan = true;
+        }
+
+        // If the end of the path is near and it is not the requested
+        // location, replan.
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VALID) {
+            if (ag.targetReplanTime > config.targetReplanDelay && ag.corridor.getPathCount() < config.checkLookAhead
+                    && ag.corridor.getLastPoly() != ag.targetRef) {
+                replan = true;
             }
+        }
 
-            // Try to replan path to goal.
-            if (replan) {
-                if (ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_NONE) {
-                    requestMoveTargetReplan(ag, ag.targetRef, ag.targetPos);
-                }
+        // Try to replan path to goal.
+        if (replan) {
+            if (ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_NONE) {
+                requestMoveTargetReplan(ag, ag.targetRef, ag.targetPos);
+                return true;
             }
         }
-        telemetry.stop("checkPathValidity");
+        return false;
     }
 
-    private void updateMoveRequest(Collection<CrowdAgent> agents, float dt) {
-        telemetry.start("updateMoveRequest");
-
-        PriorityQueue<CrowdAgent> queue = new PriorityQueue<>(
-                (a1, a2) -> Float.compare(a2.targetReplanTime, a1.targetReplanTime));
+    private void updateMoveRequest(List<CrowdAgent> agents, float dt) {
+        telemetry.start(Phase.UPDATE_MOVE_REQUEST);
 
-        // Fire off new requests.
+        // Agents moving to a shared destination take their paths from its flow field.
         for (CrowdAgent ag : agents) {
-            if (ag.state == CrowdAgentState.DT_CROWDAGENT_STATE_INVALID) {
-                continue;
+            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING
+                    && (ag.params.updateFlags & CrowdAgentParams.DT_CROWD_SHARED_DESTINATION) != 0) {
+                requestMoveTargetFromFlowField(ag);
             }
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                continue;
-            }
-
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING) {
-                List<Long> path = ag.corridor.getPath();
-                if (path.isEmpty()) {
-                    throw new IllegalArgumentException("Empty path");
-                }
-                // Quick search towards the goal.
-                navQuery.initSlicedFindPath(path.get(0), ag.targetRef, ag.npos, ag.targetPos,
-                        m_filters[ag.params.queryFilterType], 0);
-                navQuery.updateSlicedFindPath(config.maxTargetFindPathIterations);
-                Result<List<Long>> pathFound;
-                if (ag.targetReplan) // && npath > 10)
-                {
-                    // Try to use existing steady path during replan if
-                    // possible.
-                    pathFound = navQuery.finalizeSlicedFindPathPartial(path);
-                } else {
-                    // Try to move towards target when goal changes.
-                    pathFound = navQuery.finalizeSlicedFindPath();
-                }
-                List<Long> reqPath = pathFound.result;
-                float[] reqPos = new float[3];
-                if (pathFound.succeeded() && reqPath.size() > 0) {
-                    // In progress or succeed.
-                    if (reqPath.get(reqPath.size() - 1) != ag.targetRef) {
-                        // Partial path, constrain target position inside the
-                        // last polygon.
-                        Result<ClosestPointOnPolyResult> cr = navQuery.closestPointOnPoly(reqPath.get(reqPath.size() - 1),
-                                ag.targetPos);
-                        if (cr.succeeded()) {
-                            reqPos = cr.result.getClosest();
-                        } else {
-                            reqPath = new ArrayList<>();
-                        }
-                    } else {
-                        vCopy(reqPos, ag.targetPos);
-                    }
-                } else {
-                    // Could not find path, start the request from current
-                    // location.
-                    vCopy(reqPos, ag.npos);
-                    reqPath = new ArrayList<>();
-                    reqPath.add(path.get(0));
-                }
-
-                ag.corridor.setCorridor(reqPos, reqPath);
-                ag.boundary.reset();
-                ag.partial = false;
+        }
 
-                if (reqPath.get(reqPath.size() - 1) == ag.targetRef) {
-                    ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_VALID;
-                    ag.targetReplanTime = 0;
-                } else {
-                    // The path is longer or potentially unreachable, full plan.
-                    ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_WAITING_FOR_QUEUE;
-                }
-                ag.targetReplanWaitTime = 0;
-            }
+        // Fire off new requests.
+        forEachAgent(agents, (ag, w) -> requestMoveTarget(ag, w));
 
+        PriorityQueue<CrowdAgent> queue = new PriorityQueue<>(
+                (a1, a2) -> Float.compare(a2.targetReplanTime, a1.targetReplanTime));
+        for (CrowdAgent ag : agents) {
             if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_WAITING_FOR_QUEUE) {
                 queue.add(ag);
             }
@@ -611,7 +757,9 @@ public class Crowd {
         while (!queue.isEmpty()) {
             CrowdAgent ag = queue.poll();
             ag.targetPathQueryResult = m_pathq.request(ag.corridor.getLastPoly(), ag.targetRef, ag.corridor.getTarget(),
-                    ag.targetPos, m_filters[ag.params.queryFilterType]);
+                    ag.targetPos, m_filters[ag.params.queryFilterType], ag.params.pathQueryPriority,
+                    config.pathQueryTimeout);
+            metrics.recordPathRequest(ag.targetPathQueryResult != null);
             if (ag.targetPathQueryResult != null) {
                 ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_WAITING_FOR_PATH;
             } else {
@@ -621,9 +769,9 @@ public class Crowd {
         }
 
         // Update requests.
-        telemetry.start("pathQueueUpdate");
+        telemetry.start(Phase.PATH_QUEUE_UPDATE);
         m_pathq.update(navMesh);
-        telemetry.stop("pathQueueUpdate");
+        telemetry.stop(Phase.PATH_QUEUE_UPDATE);
 
         // Process path results.
         for (CrowdAgent ag : agents) {
@@ -633,9 +781,11 @@ public class Crowd {
             }
 
             if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_WAITING_FOR_PATH) {
-                // telemetry.recordPathWaitTime(ag.targetReplanTime);
                 // Poll path queue.
                 Status status = ag.targetPathQueryResult.status;
+                if (status != null && (status.isFailed() || status.isSuccess())) {
+                    metrics.recordPathWaitTime(ag.targetReplanWaitTime);
+                }
                 if (status != null && status.isFailed()) {
                     // Path find failed, retry if the target location is still
                     // valid.
@@ -728,14 +878,109 @@ public class Crowd {
                 ag.targetReplanWaitTime += dt;
             }
         }
-        telemetry.stop("updateMoveRequest");
+        telemetry.stop(Phase.UPDATE_MOVE_REQUEST);
     }
 
-    private void updateTopologyOptimization(Collection<CrowdAgent> agents, float dt) {
-        telemetry.start("updateTopologyOptimization");
+    private void requestMoveTargetFromFlowField(CrowdAgent ag) {
+        if (ag.state == CrowdAgentState.DT_CROWDAGENT_STATE_INVALID) {
+            return;
+        }
+        if (m_flowFieldQuery == null) {
+            m_flowFieldQuery = new NavMeshQuery(navMesh, config.maxFlowFieldNodes);
+        }
+        FlowField field = m_flowFields.get(m_flowFieldQuery, ag.targetRef, ag.targetPos,
+                m_filters[ag.params.queryFilterType]);
+        if (field == null) {
+            return;
+        }
+        // Agents outside of the field fall back to their own path requests.
+        List<Long> path = field.getPath(ag.corridor.getFirstPoly(), Integer.MAX_VALUE);
+        if (path.isEmpty()) {
+            return;
+        }
+        ag.corridor.setCorridor(ag.targetPos, path);
+        ag.boundary.reset();
+        ag.partial = false;
+        ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_VALID;
+        ag.targetReplanTime = 0;
+        ag.targetReplanWaitTime = 0;
+    }
+
+    private void requestMoveTarget(CrowdAgent ag, Worker w) {
+        NavMeshQuery navQuery = w.navQuery;
+        if (ag.state == CrowdAgentState.DT_CROWDAGENT_STATE_INVALID) {
+            return;
+        }
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            return;
+        }
+
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING) {
+            List<Long> path = ag.corridor.getPath();
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("Empty path");
+            }
+            // Quick search towards the goal.
+            float[] agentPos = w.pos;
+            vCopy(agentPos, m_store.pos, ag.slot * 3);
+            navQuery.initSlicedFindPath(path.get(0), ag.targetRef, agentPos, ag.targetPos,
+                    m_filters[ag.params.queryFilterType], 0);
+            navQuery.updateSlicedFindPath(config.maxTargetFindPathIterations);
+            Result<List<Long>> pathFound;
+            if (ag.targetReplan) // && npath > 10)
+            {
+                // Try to use existing steady path during replan if
+                // possible.
+                pathFound = navQuery.finalizeSlicedFindPathPartial(path);
+            } else {
+                // Try to move towards target when goal changes.
+                pathFound = navQuery.finalizeSlicedFindPath();
+            }
+            List<Long> reqPath = pathFound.result;
+            float[] reqPos = new float[3];
+            if (pathFound.succeeded() && reqPath.size() > 0) {
+                // In progress or succeed.
+                if (reqPath.get(reqPath.size() - 1) != ag.targetRef) {
+                    // Partial path, constrain target position inside the
+                    // last polygon.
+                    Result<ClosestPointOnPolyResult> cr = navQuery.closestPointOnPoly(reqPath.get(reqPath.size() - 1),
+                            ag.targetPos);
+                    if (cr.succeeded()) {
+                        reqPos = cr.result.getClosest();
+                    } else {
+                        reqPath = new ArrayList<>();
+                    }
+                } else {
+                    vCopy(reqPos, ag.targetPos);
+                }
+            } else {
+                // Could not find path, start the request from current
+                // location.
+                reqPos = agentPos;
+                reqPath = new ArrayList<>();
+                reqPath.add(path.get(0));
+            }
+
+            ag.corridor.setCorridor(reqPos, reqPath);
+            ag.boundary.reset();
+            ag.partial = false;
+
+            if (reqPath.get(reqPath.size() - 1) == ag.targetRef) {
+                ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_VALID;
+                ag.targetReplanTime = 0;
+            } else {
+                // The path is longer or potentially unreachable, full plan.
+                ag.targetState = MoveRequestState.DT_CROWDAGENT_TARGET_WAITING_FOR_QUEUE;
+            }
+            ag.targetReplanWaitTime = 0;
+        }
+    }
 
-        PriorityQueue<CrowdAgent> queue = new PriorityQueue<>((a1, a2) -> Float.compare(a2.topologyOptTime, a1.topologyOptTime));
+    private void updateTopologyOptimization(List<CrowdAgent> agents, float dt) {
+        telemetry.start(Phase.UPDATE_TOPOLOGY_OPTIMIZATION);
 
+        List<CrowdAgent> queue = new ArrayList<>();
         for (CrowdAgent ag : agents) {
             if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
                 continue;
@@ -744,7 +989,7 @@ public class Crowd {
                     || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
                 continue;
             }
-            if ((ag.params.updateFlags & CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO) == 0) {
+            if ((ag.lodUpdateFlags() & CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO) == 0) {
                 continue;
             }
             ag.topologyOptTime += dt;
@@ -753,388 +998,459 @@ public class Crowd {
             }
         }
 
-        while (!queue.isEmpty()) {
-            CrowdAgent ag = queue.poll();
-            ag.corridor.optimizePathTopology(navQuery, m_filters[ag.params.queryFilterType], config.maxTopologyOptimizationIterations);
+        forEachAgent(queue, (ag, w) -> {
+            ag.corridor.optimizePathTopology(w.navQuery, m_filters[ag.params.queryFilterType],
+                    config.maxTopologyOptimizationIterations);
             ag.topologyOptTime = 0;
-        }
-        telemetry.stop("updateTopologyOptimization");
-
+        });
+        telemetry.stop(Phase.UPDATE_TOPOLOGY_OPTIMIZATION);
     }
 
-    private void buildProximityGrid(Collection<CrowdAgent> agents) {
-        telemetry.start("buildProximityGrid");
-        m_grid = new ProximityGrid(config.maxAgentRadius * 3);
-        for (CrowdAgent ag : agents) {
-            float[] p = ag.npos;
+    private void buildProximityGrid(List<CrowdAgent> agents) {
+        telemetry.start(Phase.BUILD_PROXIMITY_GRID);
+        m_grid.clear();
+        // Agents are registered by their index in the list of active agents.
+        float[] pos = m_store.pos;
+        for (int i = 0; i < agents.size(); i++) {
+            CrowdAgent ag = agents.get(i);
+            int p = ag.slot * 3;
             float r = ag.params.radius;
-            m_grid.addItem(ag, p[0] - r, p[2] - r, p[0] + r, p[2] + r);
+            m_grid.addItem(i, pos[p] - r, pos[p + 2] - r, pos[p] + r, pos[p + 2] + r);
         }
-        telemetry.stop("buildProximityGrid");
+        m_gridAgents = agents;
+        telemetry.stop(Phase.BUILD_PROXIMITY_GRID);
     }
 
-    private void buildNeighbours(Collection<CrowdAgent> agents) {
-        telemetry.start("buildNeighbours");
-        for (CrowdAgent ag : agents) {
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
+    private void buildNeighbours(List<CrowdAgent> agents) {
+        telemetry.start(Phase.BUILD_NEIGHBOURS);
+        // Neighbours are looked up among all agents in the grid, not only the stepped ones.
+        for (Worker w : m_workers) {
+            if (w.neighbourIds.length < m_gridAgents.size()) {
+                w.neighbourIds = new int[m_gridAgents.size()];
             }
+        }
+        forEachAgent(agents, (ag, w) -> buildNeighbours(ag, w));
+        telemetry.stop(Phase.BUILD_NEIGHBOURS);
+    }
 
-            // Update the collision boundary after certain distance has been passed or
-            // if it has become invalid.
-            float updateThr = ag.params.collisionQueryRange * 0.25f;
-            if (vDist2DSqr(ag.npos, ag.boundary.getCenter()) > sqr(updateThr)
-                    || !ag.boundary.isValid(navQuery, m_filters[ag.params.queryFilterType])) {
-                ag.boundary.update(ag.corridor.getFirstPoly(), ag.npos, ag.params.collisionQueryRange, navQuery,
-                        m_filters[ag.params.queryFilterType]);
-            }
-            // Query neighbour agents
-            ag.neis = getNeighbours(ag.npos, ag.params.height, ag.params.collisionQueryRange, ag, m_grid);
+    private void buildNeighbours(CrowdAgent ag, Worker w) {
+        NavMeshQuery navQuery = w.navQuery;
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
+        // Agents following their corridor do not interact with other agents.
+        if (ag.lod == CrowdAgentLod.DT_CROWDAGENT_LOD_CORRIDOR) {
+            ag.neis.clear();
+            return;
+        }
+
+        // Update the collision boundary after certain distance has been passed or
+        // if it has become invalid. The boundary is only used by obstacle avoidance.
+        float updateThr = ag.params.collisionQueryRange * 0.25f;
+        float[] pos = w.pos;
+        vCopy(pos, m_store.pos, ag.slot * 3);
+        if (ag.lod == CrowdAgentLod.DT_CROWDAGENT_LOD_FULL
+                && (vDist2DSqr(pos, ag.boundary.getCenter()) > sqr(updateThr)
+                        || !ag.boundary.isValid(navQuery, m_filters[ag.params.queryFilterType]))) {
+            ag.boundary.update(ag.corridor.getFirstPoly(), pos, ag.params.collisionQueryRange, navQuery,
+                    m_filters[ag.params.queryFilterType]);
         }
-        telemetry.stop("buildNeighbours");
+        // Query neighbour agents
+        ag.neis = getNeighbours(pos, ag.params.height, ag.params.collisionQueryRange, ag, w.neighbourIds);
     }
 
-    private List<CrowdNeighbour> getNeighbours(float[] pos, float height, float range, CrowdAgent skip, ProximityGrid grid) {
+    private List<CrowdNeighbour> getNeighbours(float[] pos, float height, float range, CrowdAgent skip, int[] ids) {
 
         List<CrowdNeighbour> result = new ArrayList<>();
-        Set<CrowdAgent> proxAgents = grid.queryItems(pos[0] - range, pos[2] - range, pos[0] + range, pos[2] + range);
+        int nids = m_grid.queryItems(pos[0] - range, pos[2] - range, pos[0] + range, pos[2] + range, ids, ids.length);
 
-        for (CrowdAgent ag : proxAgents) {
+        for (int i = 0; i < nids; ++i) {
+            CrowdAgent ag = m_gridAgents.get(ids[i]);
 
             if (ag == skip) {
                 continue;
             }
 
             // Check for overlap.
-            float[] diff = vSub(pos, ag.npos);
-            if (Math.abs(diff[1]) >= (height + ag.params.height) / 2.0f) {
+            int i1 = ag.slot * 3;
+            float diffx = pos[0] - m_store.pos[i1];
+            float diffy = pos[1] - m_store.pos[i1 + 1];
+            float diffz = pos[2] - m_store.pos[i1 + 2];
+            if (Math.abs(diffy) >= (height + ag.params.height) / 2.0f) {
                 continue;
             }
-            diff[1] = 0;
-            float distSqr = vLenSqr(diff);
+            float distSqr = diffx * diffx + diffz * diffz;
             if (distSqr > sqr(range)) {
                 continue;
             }
 
             result.add(new CrowdNeighbour(ag, distSqr));
         }
-        Collections.sort(result, (o1, o2) -> Float.compare(o1.dist, o2.dist));
+        // Break ties by agent index so that the order does not depend on the grid iteration order.
+        Collections.sort(result, (o1, o2) -> {
+            int c = Float.compare(o1.dist, o2.dist);
+            return c != 0 ? c : Long.compare(o1.agent.idx, o2.agent.idx);
+        });
         return result;
 
     }
 
-    private void findCorners(Collection<CrowdAgent> agents, CrowdAgentDebugInfo debug) {
-        telemetry.start("findCorners");
+    private void findCorners(List<CrowdAgent> agents, CrowdAgentDebugInfo debug) {
+        telemetry.start(Phase.FIND_CORNERS);
         CrowdAgent debugAgent = debug != null ? debug.agent : null;
-        for (CrowdAgent ag : agents) {
-
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
-            }
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                continue;
-            }
-
-            // Find corners for steering
-            ag.corners = ag.corridor.findCorners(DT_CROWDAGENT_MAX_CORNERS, navQuery, m_filters[ag.params.queryFilterType]);
+        forEachAgent(agents, (ag, w) -> findCorners(ag, w, debug, debugAgent));
+        telemetry.stop(Phase.FIND_CORNERS);
+    }
 
-            // Check to see if the corner after the next corner is directly visible,
-            // and short cut to there.
-            if ((ag.params.updateFlags & CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS) != 0 && ag.corners.size() > 0) {
-                float[] target = ag.corners.get(Math.min(1, ag.corners.size() - 1)).getPos();
-                ag.corridor.optimizePathVisibility(target, ag.params.pathOptimizationRange, navQuery,
-                        m_filters[ag.params.queryFilterType]);
+    private void findCorners(CrowdAgent ag, Worker w, CrowdAgentDebugInfo debug, CrowdAgent debugAgent) {
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            return;
+        }
 
-                // Copy data for debug purposes.
-                if (debugAgent == ag) {
-                    vCopy(debug.optStart, ag.corridor.getPos());
-                    vCopy(debug.optEnd, target);
-                }
-            } else {
-                // Copy data for debug purposes.
-                if (debugAgent == ag) {
-                    vSet(debug.optStart, 0, 0, 0);
-                    vSet(debug.optEnd, 0, 0, 0);
-                }
+        // Find corners for steering
+        ag.ncorners = ag.corridor.findCorners(ag.cornerVerts, ag.cornerFlags, ag.cornerPolys, DT_CROWDAGENT_MAX_CORNERS,
+                w.navQuery, m_filters[ag.params.queryFilterType]);
+
+        // Check to see if the corner after the next corner is directly visible,
+        // and short cut to there.
+        if ((ag.lodUpdateFlags() & CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS) != 0 && ag.ncorners > 0) {
+            float[] target = w.target;
+            System.arraycopy(ag.cornerVerts, Math.min(1, ag.ncorners - 1) * 3, target, 0, 3);
+            ag.corridor.optimizePathVisibility(target, ag.params.pathOptimizationRange, w.navQuery,
+                    m_filters[ag.params.queryFilterType]);
+
+            // Copy data for debug purposes.
+            if (debugAgent == ag) {
+                vCopy(debug.optStart, ag.corridor.getPos());
+                vCopy(debug.optEnd, target);
+            }
+        } else {
+            // Copy data for debug purposes.
+            if (debugAgent == ag) {
+                vSet(debug.optStart, 0, 0, 0);
+                vSet(debug.optEnd, 0, 0, 0);
             }
         }
-        telemetry.stop("findCorners");
     }
 
-    private void triggerOffMeshConnections(Collection<CrowdAgent> agents) {
-        telemetry.start("triggerOffMeshConnections");
-        for (CrowdAgent ag : agents) {
+    private void triggerOffMeshConnections(List<CrowdAgent> agents) {
+        telemetry.start(Phase.TRIGGER_OFF_MESH_CONNECTIONS);
+        forEachAgent(agents, (ag, w) -> triggerOffMeshConnection(ag, w.navQuery));
+        telemetry.stop(Phase.TRIGGER_OFF_MESH_CONNECTIONS);
+    }
 
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
-            }
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                continue;
-            }
+    private void triggerOffMeshConnection(CrowdAgent ag, NavMeshQuery navQuery) {
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            return;
+        }
 
-            // Check
-            float triggerRadius = ag.params.radius * 2.25f;
-            if (ag.overOffmeshConnection(triggerRadius)) {
-                // Prepare to off-mesh connection.
-                CrowdAgentAnimation anim = ag.animation;
-
-                // Adjust the path over the off-mesh connection.
-                long[] refs = new long[2];
-                if (ag.corridor.moveOverOffmeshConnection(ag.corners.get(ag.corners.size() - 1).getRef(), refs, anim.startPos,
-                        anim.endPos, navQuery)) {
-                    vCopy(anim.initPos, ag.npos);
-                    anim.polyRef = refs[1];
-                    anim.active = true;
-                    anim.t = 0.0f;
-                    anim.tmax = (vDist2D(anim.startPos, anim.endPos) / ag.params.maxSpeed) * 0.5f;
-
-                    ag.state = CrowdAgentState.DT_CROWDAGENT_STATE_OFFMESH;
-                    ag.corners.clear();
-                    ag.neis.clear();
-                    continue;
-                } else {
-                    // Path validity check will ensure that bad/blocked connections will be replanned.
-                }
+        // Check
+        float triggerRadius = ag.params.radius * 2.25f;
+        if (ag.overOffmeshConnection(triggerRadius)) {
+            // Prepare to off-mesh connection.
+            CrowdAgentAnimation anim = ag.animation;
+
+            // Adjust the path over the off-mesh connection.
+            long[] refs = new long[2];
+            if (ag.corridor.moveOverOffmeshConnection(ag.cornerPolys[ag.ncorners - 1], refs, anim.startPos,
+                    anim.endPos, navQuery)) {
+                vCopy(anim.initPos, m_store.pos, ag.slot * 3);
+                anim.polyRef = refs[1];
+                anim.active = true;
+                anim.t = 0.0f;
+                anim.tmax = (vDist2D(anim.startPos, anim.endPos) / ag.params.maxSpeed) * 0.5f;
+
+                ag.state = CrowdAgentState.DT_CROWDAGENT_STATE_OFFMESH;
+                ag.ncorners = 0;
+                ag.neis.clear();
+                return;
+            } else {
+                // Path validity check will ensure that bad/blocked connections will be replanned.
             }
         }
-        telemetry.stop("triggerOffMeshConnections");
     }
 
-    private void calculateSteering(Collection<CrowdAgent> agents) {
-        telemetry.start("calculateSteering");
-        for (CrowdAgent ag : agents) {
+    private void calculateSteering(List<CrowdAgent> agents) {
+        telemetry.start(Phase.CALCULATE_STEERING);
+        forEachAgent(agents, (ag, w) -> calculateSteering(ag));
+        telemetry.stop(Phase.CALCULATE_STEERING);
+    }
 
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
-            }
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE) {
-                continue;
-            }
+    private void calculateSteering(CrowdAgent ag) {
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE) {
+            return;
+        }
 
-            float[] dvel = new float[3];
+        float[] dvel = new float[3];
 
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                vCopy(dvel, ag.targetPos);
-                ag.desiredSpeed = vLen(ag.targetPos);
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            vCopy(dvel, ag.targetPos);
+            ag.desiredSpeed = vLen(ag.targetPos);
+        } else {
+            // Calculate steering direction.
+            if ((ag.lodUpdateFlags() & CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS) != 0) {
+                dvel = ag.calcSmoothSteerDirection();
             } else {
-                // Calculate steering direction.
-                if ((ag.params.updateFlags & CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS) != 0) {
-                    dvel = ag.calcSmoothSteerDirection();
-                } else {
-                    dvel = ag.calcStraightSteerDirection();
-                }
-                // Calculate speed scale, which tells the agent to slowdown at the end of the path.
-                float slowDownRadius = ag.params.radius * 2; // TODO: make less hacky.
-                float speedScale = ag.getDistanceToGoal(slowDownRadius) / slowDownRadius;
-
-                ag.desiredSpeed = ag.params.maxSpeed;
-                dvel = vScale(dvel, ag.desiredSpeed * speedScale);
+                dvel = ag.calcStraightSteerDirection();
             }
+            // Calculate speed scale, which tells the agent to slowdown at the end of the path.
+            float slowDownRadius = ag.params.radius * 2; // TODO: make less hacky.
+            float speedScale = ag.getDistanceToGoal(slowDownRadius) / slowDownRadius;
 
-            // Separation
-            if ((ag.params.updateFlags & CrowdAgentParams.DT_CROWD_SEPARATION) != 0) {
-                float separationDist = ag.params.collisionQueryRange;
-                float invSeparationDist = 1.0f / separationDist;
-                float separationWeight = ag.params.separationWeight;
+            ag.desiredSpeed = ag.params.maxSpeed;
+            dvel = vScale(dvel, ag.desiredSpeed * speedScale);
+        }
 
-                float w = 0;
-                float[] disp = new float[3];
+        // Separation
+        if ((ag.lodUpdateFlags() & CrowdAgentParams.DT_CROWD_SEPARATION) != 0) {
+            float separationDist = ag.params.collisionQueryRange;
+            float invSeparationDist = 1.0f / separationDist;
+            float separationWeight = ag.params.separationWeight;
 
-                for (int j = 0; j < ag.neis.size(); ++j) {
-                    CrowdAgent nei = ag.neis.get(j).agent;
+            float w = 0;
+            float dispx = 0;
+            float dispz = 0;
 
-                    float[] diff = vSub(ag.npos, nei.npos);
-                    diff[1] = 0;
+            float[] pos = m_store.pos;
+            int i0 = ag.slot * 3;
+            for (int j = 0; j < ag.neis.size(); ++j) {
+                int i1 = ag.neis.get(j).agent.slot * 3;
 
-                    float distSqr = vLenSqr(diff);
-                    if (distSqr < 0.00001f) {
-                        continue;
-                    }
-                    if (distSqr > sqr(separationDist)) {
-                        continue;
-                    }
-                    float dist = (float) Math.sqrt(distSqr);
-                    float weight = separationWeight * (1.0f - sqr(dist * invSeparationDist));
+                float diffx = pos[i0] - pos[i1];
+                float diffz = pos[i0 + 2] - pos[i1 + 2];
 
-                    disp = vMad(disp, diff, weight / dist);
-                    w += 1.0f;
+                float distSqr = diffx * diffx + diffz * diffz;
+                if (distSqr < 0.00001f) {
+                    continue;
                 }
-
-                if (w > 0.0001f) {
-                    // Adjust desired velocity.
-                    dvel = vMad(dvel, disp, 1.0f / w);
-                    // Clamp desired velocity to desired speed.
-                    float speedSqr = vLenSqr(dvel);
-                    float desiredSqr = sqr(ag.desiredSpeed);
-                    if (speedSqr > desiredSqr) {
-                        dvel = vScale(dvel, desiredSqr / speedSqr);
-                    }
+                if (distSqr > sqr(separationDist)) {
+                    continue;
                 }
+                float dist = (float) Math.sqrt(distSqr);
+                float weight = separationWeight * (1.0f - sqr(dist * invSeparationDist));
+
+                float s = weight / dist;
+                dispx += diffx * s;
+                dispz += diffz * s;
+                w += 1.0f;
             }
 
-            // Set the desired velocity.
-            vCopy(ag.dvel, dvel);
+            if (w > 0.0001f) {
+                // Adjust desired velocity.
+                float iw = 1.0f / w;
+                dvel[0] += dispx * iw;
+                dvel[2] += dispz * iw;
+                // Clamp desired velocity to desired speed.
+                float speedSqr = vLenSqr(dvel);
+                float desiredSqr = sqr(ag.desiredSpeed);
+                if (speedSqr > desiredSqr) {
+                    dvel = vScale(dvel, desiredSqr / speedSqr);
+                }
+            }
         }
-        telemetry.stop("calculateSteering");
+
+        // Set the desired velocity.
+        ag.setDesiredVelocity(dvel);
     }
 
-    private void planVelocity(CrowdAgentDebugInfo debug, Collection<CrowdAgent> agents) {
-        telemetry.start("planVelocity");
+    private void planVelocity(CrowdAgentDebugInfo debug, List<CrowdAgent> agents) {
+        telemetry.start(Phase.PLAN_VELOCITY);
         CrowdAgent debugAgent = debug != null ? debug.agent : null;
-        for (CrowdAgent ag : agents) {
+        for (Worker w : m_workers) {
+            w.velocitySampleCount = 0;
+        }
+        forEachAgent(agents, (ag, w) -> planVelocity(ag, w, debug, debugAgent));
+        for (Worker w : m_workers) {
+            m_velocitySampleCount += w.velocitySampleCount;
+        }
+        telemetry.stop(Phase.PLAN_VELOCITY);
+    }
 
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
-            }
+    private void planVelocity(CrowdAgent ag, Worker w, CrowdAgentDebugInfo debug, CrowdAgent debugAgent) {
+        ObstacleAvoidanceQuery obstacleQuery = w.obstacleQuery;
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
 
-            if ((ag.params.updateFlags & CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE) != 0) {
-                m_obstacleQuery.reset();
+        if ((ag.lodUpdateFlags() & CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE) != 0) {
+            obstacleQuery.reset();
 
-                // Add neighbours as obstacles.
-                for (int j = 0; j < ag.neis.size(); ++j) {
-                    CrowdAgent nei = ag.neis.get(j).agent;
-                    m_obstacleQuery.addCircle(nei.npos, nei.params.radius, nei.vel, nei.dvel);
-                }
+            // Add neighbours as obstacles.
+            for (int j = 0; j < ag.neis.size(); ++j) {
+                CrowdAgent nei = ag.neis.get(j).agent;
+                obstacleQuery.addCircle(m_store.pos, m_store.vel, m_store.dvel, nei.slot * 3, nei.params.radius);
+            }
 
-                // Append neighbour segments as obstacles.
-                for (int j = 0; j < ag.boundary.getSegmentCount(); ++j) {
-                    float[] s = ag.boundary.getSegment(j);
-                    float[] s3 = Arrays.copyOfRange(s, 3, 6);
-                    if (triArea2D(ag.npos, s, s3) < 0.0f) {
-                        continue;
-                    }
-                    m_obstacleQuery.addSegment(s, s3);
+            // Append neighbour segments as obstacles.
+            float[] pos = w.pos;
+            vCopy(pos, m_store.pos, ag.slot * 3);
+            for (int j = 0; j < ag.boundary.getSegmentCount(); ++j) {
+                float[] s = ag.boundary.getSegment(j);
+                float[] s3 = Arrays.copyOfRange(s, 3, 6);
+                if (triArea2D(pos, s, s3) < 0.0f) {
+                    continue;
                 }
+                obstacleQuery.addSegment(s, s3);
+            }
 
-                ObstacleAvoidanceDebugData vod = null;
-                if (debugAgent == ag) {
-                    vod = debug.vod;
-                }
+            ObstacleAvoidanceDebugData vod = null;
+            if (debugAgent == ag) {
+                vod = debug.vod;
+            }
 
-                // Sample new safe velocity.
-                boolean adaptive = true;
-                int ns = 0;
+            // Sample new safe velocity.
+            boolean adaptive = true;
+            int ns = 0;
 
-                ObstacleAvoidanceParams params = m_obstacleQueryParams[ag.params.obstacleAvoidanceType];
+            ObstacleAvoidanceParams params = m_obstacleQueryParams[ag.params.obstacleAvoidanceType];
 
-                if (adaptive) {
-                    Tupple2<Integer, float[]> nsnvel = m_obstacleQuery.sampleVelocityAdaptive(ag.npos, ag.params.radius,
-                            ag.desiredSpeed, ag.vel, ag.dvel, params, vod);
-                    ns = nsnvel.first;
-                    ag.nvel = nsnvel.second;
-                } else {
-                    Tupple2<Integer, float[]> nsnvel = m_obstacleQuery.sampleVelocityGrid(ag.npos, ag.params.radius,
-                            ag.desiredSpeed, ag.vel, ag.dvel, params, vod);
-                    ns = nsnvel.first;
-                    ag.nvel = nsnvel.second;
-                }
-                m_velocitySampleCount += ns;
+            float[] vel = w.vel;
+            float[] dvel = w.dvel;
+            vCopy(vel, m_store.vel, ag.slot * 3);
+            vCopy(dvel, m_store.dvel, ag.slot * 3);
+            float[] nvel = w.velocity;
+            if (adaptive) {
+                ns = obstacleQuery.sampleVelocityAdaptive(pos, ag.params.radius, ag.desiredSpeed, vel, dvel, nvel,
+                        params, vod);
             } else {
-                // If not using velocity planning, new velocity is directly the desired velocity.
-                vCopy(ag.nvel, ag.dvel);
+                ns = obstacleQuery.sampleVelocityGrid(pos, ag.params.radius, ag.desiredSpeed, vel, dvel, nvel, params,
+                        vod);
             }
+            ag.setAvoidanceVelocity(nvel);
+            w.velocitySampleCount += ns;
+        } else {
+            // If not using velocity planning, new velocity is directly the desired velocity.
+            System.arraycopy(m_store.dvel, ag.slot * 3, m_store.nvel, ag.slot * 3, 3);
         }
-        telemetry.stop("planVelocity");
     }
 
-    private void integrate(float dt, Collection<CrowdAgent> agents) {
-        telemetry.start("integrate");
-        for (CrowdAgent ag : agents) {
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
+    private void integrate(List<CrowdAgent> agents) {
+        telemetry.start(Phase.INTEGRATE);
+        forEachAgent(agents, (ag, w) -> {
+            if (ag.state == CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+                ag.integrate(ag.stepTime);
             }
-            ag.integrate(dt);
-        }
-        telemetry.stop("integrate");
+        });
+        telemetry.stop(Phase.INTEGRATE);
     }
 
-    private void handleCollisions(Collection<CrowdAgent> agents) {
-        telemetry.start("handleCollisions");
+    private void handleCollisions(List<CrowdAgent> agents) {
+        telemetry.start(Phase.HANDLE_COLLISIONS);
         for (int iter = 0; iter < 4; ++iter) {
-            for (CrowdAgent ag : agents) {
-                long idx0 = ag.idx;
-                if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                    continue;
+            // Displacements are computed from the positions of the previous iteration and applied afterwards.
+            forEachAgent(agents, (ag, w) -> calculateCollisionDisplacement(ag));
+            forEachAgent(agents, (ag, w) -> {
+                if (ag.state == CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+                    float[] pos = m_store.pos;
+                    float[] disp = m_store.disp;
+                    int i = ag.slot * 3;
+                    pos[i] += disp[i];
+                    pos[i + 1] += disp[i + 1];
+                    pos[i + 2] += disp[i + 2];
                 }
+            });
+        }
 
-                vSet(ag.disp, 0, 0, 0);
-
-                float w = 0;
+        telemetry.stop(Phase.HANDLE_COLLISIONS);
+    }
 
-                for (int j = 0; j < ag.neis.size(); ++j) {
-                    CrowdAgent nei = ag.neis.get(j).agent;
-                    long idx1 = nei.idx;
-                    float[] diff = vSub(ag.npos, nei.npos);
-                    diff[1] = 0;
+    private void calculateCollisionDisplacement(CrowdAgent ag) {
+        long idx0 = ag.idx;
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
 
-                    float dist = vLenSqr(diff);
-                    if (dist > sqr(ag.params.radius + nei.params.radius)) {
-                        continue;
-                    }
-                    dist = (float) Math.sqrt(dist);
-                    float pen = (ag.params.radius + nei.params.radius) - dist;
-                    if (dist < 0.0001f) {
-                        // Agents on top of each other, try to choose diverging separation directions.
-                        if (idx0 > idx1) {
-                            vSet(diff, -ag.dvel[2], 0, ag.dvel[0]);
-                        } else {
-                            vSet(diff, ag.dvel[2], 0, -ag.dvel[0]);
-                        }
-                        pen = 0.01f;
-                    } else {
-                        pen = (1.0f / dist) * (pen * 0.5f) * config.collisionResolveFactor;
-                    }
+        float[] pos = m_store.pos;
+        float[] dvel = m_store.dvel;
+        int i0 = ag.slot * 3;
+        float dispx = 0;
+        float dispz = 0;
 
-                    ag.disp = vMad(ag.disp, diff, pen);
+        float w = 0;
 
-                    w += 1.0f;
-                }
+        for (int j = 0; j < ag.neis.size(); ++j) {
+            CrowdAgent nei = ag.neis.get(j).agent;
+            long idx1 = nei.idx;
+            int i1 = nei.slot * 3;
+            float diffx = pos[i0] - pos[i1];
+            float diffz = pos[i0 + 2] - pos[i1 + 2];
 
-                if (w > 0.0001f) {
-                    float iw = 1.0f / w;
-                    ag.disp = vScale(ag.disp, iw);
+            float dist = diffx * diffx + diffz * diffz;
+            if (dist > sqr(ag.params.radius + nei.params.radius)) {
+                continue;
+            }
+            dist = (float) Math.sqrt(dist);
+            float pen = (ag.params.radius + nei.params.radius) - dist;
+            if (dist < 0.0001f) {
+                // Agents on top of each other, try to choose diverging separation directions.
+                if (idx0 > idx1) {
+                    diffx = -dvel[i0 + 2];
+                    diffz = dvel[i0];
+                } else {
+                    diffx = dvel[i0 + 2];
+                    diffz = -dvel[i0];
                 }
+                pen = 0.01f;
+            } else {
+                pen = (1.0f / dist) * (pen * 0.5f) * config.collisionResolveFactor;
             }
 
-            for (CrowdAgent ag : agents) {
-                if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                    continue;
-                }
+            dispx += diffx * pen;
+            dispz += diffz * pen;
 
-                ag.npos = vAdd(ag.npos, ag.disp);
-            }
+            w += 1.0f;
         }
 
-        telemetry.stop("handleCollisions");
+        if (w > 0.0001f) {
+            float iw = 1.0f / w;
+            dispx *= iw;
+            dispz *= iw;
+        }
+        float[] disp = m_store.disp;
+        disp[i0] = dispx;
+        disp[i0 + 1] = 0;
+        disp[i0 + 2] = dispz;
     }
 
-    private void moveAgents(Collection<CrowdAgent> agents) {
-        telemetry.start("moveAgents");
-        for (CrowdAgent ag : agents) {
-            if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
-                continue;
-            }
-
-            // Move along navmesh.
-            ag.corridor.movePosition(ag.npos, navQuery, m_filters[ag.params.queryFilterType]);
-            // Get valid constrained position back.
-            vCopy(ag.npos, ag.corridor.getPos());
+    private void moveAgents(List<CrowdAgent> agents) {
+        telemetry.start(Phase.MOVE_AGENTS);
+        forEachAgent(agents, (ag, w) -> moveAgent(ag, w));
+        telemetry.stop(Phase.MOVE_AGENTS);
+    }
 
-            // If not using path, truncate the corridor to just one poly.
-            if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
-                    || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
-                ag.corridor.reset(ag.corridor.getFirstPoly(), ag.npos);
-                ag.partial = false;
-            }
+    private void moveAgent(CrowdAgent ag, Worker w) {
+        if (ag.state != CrowdAgentState.DT_CROWDAGENT_STATE_WALKING) {
+            return;
+        }
 
+        // Move along navmesh.
+        float[] pos = w.pos;
+        vCopy(pos, m_store.pos, ag.slot * 3);
+        ag.corridor.movePosition(pos, w.navQuery, m_filters[ag.params.queryFilterType]);
+        // Get valid constrained position back.
+        ag.setPosition(ag.corridor.getPos());
+
+        // If not using path, truncate the corridor to just one poly.
+        if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_NONE
+                || ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VELOCITY) {
+            ag.corridor.reset(ag.corridor.getFirstPoly(), ag.corridor.getPos());
+            ag.partial = false;
         }
-        telemetry.stop("moveAgents");
     }
 
-    private void updateOffMeshConnections(Collection<CrowdAgent> agents, float dt) {
-        telemetry.start("updateOffMeshConnections");
+    private void updateOffMeshConnections(List<CrowdAgent> agents, float dt) {
+        telemetry.start(Phase.UPDATE_OFF_MESH_CONNECTIONS);
         for (CrowdAgent ag : agents) {
             CrowdAgentAnimation anim = ag.animation;
             if (!anim.active) {
@@ -1155,23 +1471,43 @@ public class Crowd {
             float tb = anim.tmax;
             if (anim.t < ta) {
                 float u = tween(anim.t, 0.0f, ta);
-                ag.npos = vLerp(anim.initPos, anim.startPos, u);
+                ag.setPosition(vLerp(anim.initPos, anim.startPos, u));
             } else {
                 float u = tween(anim.t, ta, tb);
-                ag.npos = vLerp(anim.startPos, anim.endPos, u);
+                ag.setPosition(vLerp(anim.startPos, anim.endPos, u));
             }
 
             // Update velocity.
-            vSet(ag.vel, 0, 0, 0);
-            vSet(ag.dvel, 0, 0, 0);
+            ag.setVelocity(new float[3]);
+            ag.setDesiredVelocity(new float[3]);
         }
-        telemetry.stop("updateOffMeshConnections");
+        telemetry.stop(Phase.UPDATE_OFF_MESH_CONNECTIONS);
     }
 
     private float tween(float t, float t0, float t1) {
         return clamp((t - t0) / (t1 - t0), 0.0f, 1.0f);
     }
 
+    /// Per-thread state used by the parallel update phases.
+    private static class Worker {
+        NavMeshQuery navQuery;
+        final ObstacleAvoidanceQuery obstacleQuery;
+        int velocitySampleCount;
+        int replanCount;
+        int[] neighbourIds = new int[0];
+        final float[] target = new float[3];
+        final float[] velocity = new float[3];
+        /// Copies of the agent state read from the store.
+        final float[] pos = new float[3];
+        final float[] vel = new float[3];
+        final float[] dvel = new float[3];
+
+        Worker(NavMeshQuery navQuery, ObstacleAvoidanceQuery obstacleQuery) {
+            this.navQuery = navQuery;
+            this.obstacleQuery = obstacleQuery;
+        }
+    }
+
     /// Provides neighbor data for agents managed by the crowd.
     /// @ingroup crowd
     /// @see dtCrowdAgent::neis, dtCrowd
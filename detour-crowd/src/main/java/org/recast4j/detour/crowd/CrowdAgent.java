@@ -49,9 +49,31 @@ public class CrowdAgent {
         DT_CROWDAGENT_TARGET_VELOCITY,
     };
 
+    /// The level of detail the agent is simulated with. See Crowd#addObserver()
+    /// @ingroup crowd
+    public enum CrowdAgentLod {
+        DT_CROWDAGENT_LOD_FULL, /// < Full simulation, the agent is stepped every update.
+        DT_CROWDAGENT_LOD_REDUCED, /// < The agent is stepped less often and does not avoid obstacles.
+        DT_CROWDAGENT_LOD_CORRIDOR, /// < The agent only moves along the straight path of its corridor.
+    };
+
     public final long idx;
+    /// The store holding the position and velocities of the agent, null if the agent is not in a crowd. See
+    /// CrowdAgentStore.
+    CrowdAgentStore store;
+    /// The slot of the agent in its store, -1 if the agent is not in a crowd.
+    int slot = -1;
+    /// The state of the agent while it is not in a crowd. [pos, dvel, nvel, vel]
+    private final float[] detached = new float[12];
+    int handle = -1;
     /// The type of mesh polygon the agent is traversing. (See: #CrowdAgentState)
     public CrowdAgentState state;
+    /// The level of detail the agent is simulated with. (See: #CrowdAgentLod)
+    CrowdAgentLod lod = CrowdAgentLod.DT_CROWDAGENT_LOD_FULL;
+    /// Time since the agent was last stepped.
+    float lodElapsed;
+    /// The time step of the agent in the current update.
+    float stepTime;
     /// True if the agent has valid path (targetState == DT_CROWDAGENT_TARGET_VALID) and the path does not lead to the
     /// requested position, else false.
     boolean partial;
@@ -66,21 +88,16 @@ public class CrowdAgent {
     /// The desired speed.
     float desiredSpeed;
 
-    public float[] npos = new float[3]; /// < The current agent position. [(x, y, z)]
-    float[] disp = new float[3]; /// < A temporary value used to accumulate agent displacement during iterative
-                                 /// collision resolution. [(x, y, z)]
-    public float[] dvel = new float[3]; /// < The desired velocity of the agent. Based on the current path, calculated
-                                        /// from
-    /// scratch each frame. [(x, y, z)]
-    float[] nvel = new float[3]; /// < The desired velocity adjusted by obstacle avoidance, calculated from scratch each
-                                 /// frame. [(x, y, z)]
-    public float[] vel = new float[3]; /// < The actual velocity of the agent. The change from nvel -> vel is
-                                       /// constrained by max acceleration. [(x, y, z)]
-
     /// The agent's configuration parameters.
     public CrowdAgentParams params;
-    /// The local path corridor corners for the agent.
-    public List<StraightPathItem> corners = new ArrayList<>();
+    /// The local path corridor corners for the agent. (Staight path.) [(x, y, z) * #ncorners]
+    public final float[] cornerVerts = new float[Crowd.DT_CROWDAGENT_MAX_CORNERS * 3];
+    /// The local path corridor corner flags. (See: #dtStraightPathFlags) [(flags) * #ncorners]
+    public final int[] cornerFlags = new int[Crowd.DT_CROWDAGENT_MAX_CORNERS];
+    /// The reference id of the polygon being entered at the corner. [(polyRef) * #ncorners]
+    public final long[] cornerPolys = new long[Crowd.DT_CROWDAGENT_MAX_CORNERS];
+    /// The number of corners.
+    public int ncorners;
 
     public MoveRequestState targetState; /// < State of the movement request.
     public long targetRef; /// < Target polyref of the movement request.
@@ -100,30 +117,133 @@ public class CrowdAgent {
         animation = new CrowdAgentAnimation();
     }
 
+    /// Returns the current agent position. [(x, y, z)] The state of the agent is stored by its crowd, the getters
+    /// return copies. An agent removed from its crowd keeps its last state.
+    public float[] getPosition() {
+        return store != null ? get(store.pos, slot * 3) : get(detached, 0);
+    }
+
+    /// Returns the desired velocity of the agent. Based on the current path, calculated from scratch each frame.
+    /// [(x, y, z)]
+    public float[] getDesiredVelocity() {
+        return store != null ? get(store.dvel, slot * 3) : get(detached, 3);
+    }
+
+    /// Returns the desired velocity adjusted by obstacle avoidance, calculated from scratch each frame. [(x, y, z)]
+    public float[] getAvoidanceVelocity() {
+        return store != null ? get(store.nvel, slot * 3) : get(detached, 6);
+    }
+
+    /// Returns the actual velocity of the agent. The change from the avoidance velocity is constrained by max
+    /// acceleration. [(x, y, z)]
+    public float[] getVelocity() {
+        return store != null ? get(store.vel, slot * 3) : get(detached, 9);
+    }
+
+    /// Returns a copy of the local path corridor corners, see #cornerVerts.
+    public List<StraightPathItem> getCorners() {
+        List<StraightPathItem> corners = new ArrayList<>(ncorners);
+        for (int i = 0; i < ncorners; i++) {
+            corners.add(new StraightPathItem(get(cornerVerts, i * 3), cornerFlags[i], cornerPolys[i]));
+        }
+        return corners;
+    }
+
+    void setPosition(float[] p) {
+        System.arraycopy(p, 0, store.pos, slot * 3, 3);
+    }
+
+    void setDesiredVelocity(float[] v) {
+        System.arraycopy(v, 0, store.dvel, slot * 3, 3);
+    }
+
+    void setAvoidanceVelocity(float[] v) {
+        System.arraycopy(v, 0, store.nvel, slot * 3, 3);
+    }
+
+    void setVelocity(float[] v) {
+        System.arraycopy(v, 0, store.vel, slot * 3, 3);
+    }
+
+    /// Copies the state of the agent out of its store when it is removed from the crowd.
+    void detach() {
+        int i = slot * 3;
+        System.arraycopy(store.pos, i, detached, 0, 3);
+        System.arraycopy(store.dvel, i, detached, 3, 3);
+        System.arraycopy(store.nvel, i, detached, 6, 3);
+        System.arraycopy(store.vel, i, detached, 9, 3);
+        store = null;
+        slot = -1;
+    }
+
+    private static float[] get(float[] values, int i) {
+        return new float[] { values[i], values[i + 1], values[i + 2] };
+    }
+
     void integrate(float dt) {
+        float[] pos = store.pos;
+        float[] vel = store.vel;
+        float[] nvel = store.nvel;
+        int i = slot * 3;
         // Fake dynamic constraint.
         float maxDelta = params.maxAcceleration * dt;
-        float[] dv = vSub(nvel, vel);
-        float ds = vLen(dv);
-        if (ds > maxDelta)
-            dv = vScale(dv, maxDelta / ds);
-        vel = vAdd(vel, dv);
+        float dvx = nvel[i] - vel[i];
+        float dvy = nvel[i + 1] - vel[i + 1];
+        float dvz = nvel[i + 2] - vel[i + 2];
+        float ds = (float) Math.sqrt(dvx * dvx + dvy * dvy + dvz * dvz);
+        if (ds > maxDelta) {
+            float s = maxDelta / ds;
+            dvx *= s;
+            dvy *= s;
+            dvz *= s;
+        }
+        vel[i] += dvx;
+        vel[i + 1] += dvy;
+        vel[i + 2] += dvz;
 
         // Integrate
-        if (vLen(vel) > 0.0001f)
-            npos = vMad(npos, vel, dt);
-        else
-            vSet(vel, 0, 0, 0);
+        if ((float) Math.sqrt(vel[i] * vel[i] + vel[i + 1] * vel[i + 1] + vel[i + 2] * vel[i + 2]) > 0.0001f) {
+            pos[i] += vel[i] * dt;
+            pos[i + 1] += vel[i + 1] * dt;
+            pos[i + 2] += vel[i + 2] * dt;
+        } else {
+            vel[i] = 0;
+            vel[i + 1] = 0;
+            vel[i + 2] = 0;
+        }
+    }
+
+    /// Returns a handle which stays valid while the agent is in the crowd. See Crowd#getAgent(int)
+    public int getHandle() {
+        return handle;
+    }
+
+    public CrowdAgentLod getLod() {
+        return lod;
+    }
+
+    /// Returns the update flags reduced to the features simulated at the agent's level of detail.
+    int lodUpdateFlags() {
+        switch (lod) {
+        case DT_CROWDAGENT_LOD_REDUCED:
+            return params.updateFlags & ~CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE;
+        case DT_CROWDAGENT_LOD_CORRIDOR:
+            return params.updateFlags & ~(CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS
+                    | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE | CrowdAgentParams.DT_CROWD_SEPARATION
+                    | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS | CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO);
+        default:
+            return params.updateFlags;
+        }
     }
 
     boolean overOffmeshConnection(float radius) {
-        if (corners.isEmpty())
+        if (ncorners == 0)
             return false;
 
-        boolean offMeshConnection = ((corners.get(corners.size() - 1).getFlags()
+        boolean offMeshConnection = ((cornerFlags[ncorners - 1]
                 & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0) ? true : false;
         if (offMeshConnection) {
-            float distSq = vDist2DSqr(npos, corners.get(corners.size() - 1).getPos());
+            float distSq = distToCornerSqr(ncorners - 1);
             if (distSq < radius * radius)
                 return true;
         }
@@ -131,30 +251,36 @@ public class CrowdAgent {
         return false;
     }
 
+    private float distToCornerSqr(int corner) {
+        float dx = cornerVerts[corner * 3] - store.pos[slot * 3];
+        float dz = cornerVerts[corner * 3 + 2] - store.pos[slot * 3 + 2];
+        return dx * dx + dz * dz;
+    }
+
     float getDistanceToGoal(float range) {
-        if (corners.isEmpty())
+        if (ncorners == 0)
             return range;
 
-        boolean endOfPath = ((corners.get(corners.size() - 1).getFlags() & NavMeshQuery.DT_STRAIGHTPATH_END) != 0) ? true : false;
+        boolean endOfPath = ((cornerFlags[ncorners - 1] & NavMeshQuery.DT_STRAIGHTPATH_END) != 0) ? true : false;
         if (endOfPath)
-            return Math.min(vDist2D(npos, corners.get(corners.size() - 1).getPos()), range);
+            return Math.min((float) Math.sqrt(distToCornerSqr(ncorners - 1)), range);
 
         return range;
     }
 
     public float[] calcSmoothSteerDirection() {
         float[] dir = new float[3];
-        if (!corners.isEmpty()) {
+        if (ncorners > 0) {
 
             int ip0 = 0;
-            int ip1 = Math.min(1, corners.size() - 1);
-            float[] p0 = corners.get(ip0).getPos();
-            float[] p1 = corners.get(ip1).getPos();
+            int ip1 = Math.min(1, ncorners - 1);
+            int p0 = ip0 * 3;
+            int p1 = ip1 * 3;
 
-            float[] dir0 = vSub(p0, npos);
-            float[] dir1 = vSub(p1, npos);
-            dir0[1] = 0;
-            dir1[1] = 0;
+            float px = store.pos[slot * 3];
+            float pz = store.pos[slot * 3 + 2];
+            float[] dir0 = { cornerVerts[p0] - px, 0, cornerVerts[p0 + 2] - pz };
+            float[] dir1 = { cornerVerts[p1] - px, 0, cornerVerts[p1 + 2] - pz };
 
             float len0 = vLen(dir0);
             float len1 = vLen(dir1);
@@ -172,18 +298,25 @@ public class CrowdAgent {
 
     public float[] calcStraightSteerDirection() {
         float[] dir = new float[3];
-        if (!corners.isEmpty()) {
-            dir = vSub(corners.get(0).getPos(), npos);
-            dir[1] = 0;
+        if (ncorners > 0) {
+            dir[0] = cornerVerts[0] - store.pos[slot * 3];
+            dir[2] = cornerVerts[2] - store.pos[slot * 3 + 2];
             vNormalize(dir);
         }
         return dir;
     }
 
+    void cancelPathQuery() {
+        if (targetPathQueryResult != null) {
+            targetPathQueryResult.cancel();
+            targetPathQueryResult = null;
+        }
+    }
+
     void setTarget(long ref, float[] pos) {
         targetRef = ref;
         vCopy(targetPos, pos);
-        targetPathQueryResult = null;
+        cancelPathQuery();
         if (targetRef != 0) {
             targetState = MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING;
         } else {
@@ -42,6 +42,11 @@ public class CrowdAgentParams {
                                                        /// the agent path.
     public static final int DT_CROWD_OPTIMIZE_TOPO = 16; /// < Use dtPathCorridor::optimizePathTopology() to optimize
                                                          /// the agent path.
+    public static final int DT_CROWD_LOD = 32; /// < Reduce the simulation of the agent when no observer is near, see
+                                               /// Crowd#addObserver().
+    public static final int DT_CROWD_SHARED_DESTINATION = 64; /// < Take the path from a flow field shared by all
+                                                              /// agents moving to the same polygon, see
+                                                              /// Crowd#getFlowFieldCache().
 
     /// Flags that impact steering behavior. (See: #UpdateFlags)
     public int updateFlags;
@@ -53,6 +58,9 @@ public class CrowdAgentParams {
     /// The index of the query filter used by this agent.
     public int queryFilterType;
 
+    /// Priority of the agent's path requests, requests with higher priority are serviced first.
+    public int pathQueryPriority;
+
     /// User defined data attached to the agent.
     public Object userData;
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Slot based storage of the agents of a crowd. Each agent occupies a slot for its whole lifetime, slots of removed
+ * agents are reused. The slot is part of the agent handle, see {@link CrowdAgent#getHandle()}.
+ *
+ * The kinematic state of the agents is stored here, in dense arrays indexed by slot with three floats per agent, so the
+ * steering, integration and collision phases stream through memory. {@link CrowdAgent} reads and writes its position
+ * and velocities through its store. An agent removed from the crowd keeps a copy of its last state.
+ */
+class CrowdAgentStore {
+
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    private CrowdAgent[] agents;
+    private int[] generations;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private List<CrowdAgent> active = Collections.emptyList();
+    private boolean activeDirty;
+
+    float[] pos; /// < The current agent positions. [(x, y, z) * slot]
+    float[] disp; /// < The displacements accumulated during collision resolution. [(x, y, z) * slot]
+    float[] dvel; /// < The desired velocities. [(x, y, z) * slot]
+    float[] nvel; /// < The desired velocities adjusted by obstacle avoidance. [(x, y, z) * slot]
+    float[] vel; /// < The actual velocities. [(x, y, z) * slot]
+
+    CrowdAgentStore() {
+        this(16);
+    }
+
+    CrowdAgentStore(int capacity) {
+        agents = new CrowdAgent[capacity];
+        generations = new int[capacity];
+        freeSlots = new int[capacity];
+        pos = new float[capacity * 3];
+        disp = new float[capacity * 3];
+        dvel = new float[capacity * 3];
+        nvel = new float[capacity * 3];
+        vel = new float[capacity * 3];
+    }
+
+    void add(CrowdAgent ag) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == agents.length) {
+                grow(agents.length * 2);
+            }
+            slot = slotCount++;
+        }
+        agents[slot] = ag;
+        ag.store = this;
+        ag.slot = slot;
+        ag.handle = (generations[slot] << SLOT_BITS) | slot;
+        activeDirty = true;
+    }
+
+    boolean remove(CrowdAgent ag) {
+        int slot = ag.slot;
+        if (slot < 0 || slot >= slotCount || agents[slot] != ag) {
+            return false;
+        }
+        agents[slot] = null;
+        // Keep the state readable through the removed agent.
+        ag.detach();
+        generations[slot] = (generations[slot] + 1) & ((1 << (31 - SLOT_BITS)) - 1);
+        freeSlots[freeCount++] = slot;
+        activeDirty = true;
+        return true;
+    }
+
+    /// Returns the agent with the handle, or null if the agent has been removed.
+    CrowdAgent get(int handle) {
+        int slot = handle & SLOT_MASK;
+        if (slot >= slotCount || generations[slot] != handle >>> SLOT_BITS) {
+            return null;
+        }
+        return agents[slot];
+    }
+
+    /// Returns an unmodifiable list of the agents ordered by slot. The list is rebuilt only after agents have been
+    /// added or removed, lists returned earlier are not modified.
+    List<CrowdAgent> getActive() {
+        if (activeDirty) {
+            List<CrowdAgent> list = new ArrayList<>(slotCount - freeCount);
+            for (int i = 0; i < slotCount; i++) {
+                if (agents[i] != null) {
+                    list.add(agents[i]);
+                }
+            }
+            active = Collections.unmodifiableList(list);
+            activeDirty = false;
+        }
+        return active;
+    }
+
+    private void grow(int capacity) {
+        if (capacity > SLOT_MASK + 1) {
+            throw new IllegalStateException("Too many agents");
+        }
+        agents = Arrays.copyOf(agents, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        pos = Arrays.copyOf(pos, capacity * 3);
+        disp = Arrays.copyOf(disp, capacity * 3);
+        dvel = Arrays.copyOf(dvel, capacity * 3);
+        nvel = Arrays.copyOf(nvel, capacity * 3);
+        vel = Arrays.copyOf(vel, capacity * 3);
+    }
+}
@@ -18,6 +18,9 @@ freely, subject to the following restrictions:
 
 package org.recast4j.detour.crowd;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 public class CrowdConfig {
 
     public final float maxAgentRadius;
@@ -29,6 +32,18 @@ public class CrowdConfig {
      * Max number of sliced path finding iterations executed per update (used to handle longer paths and replans)
      */
     public int maxFindPathIterations = 100;
+    /**
+     * Number of threads servicing the path queue in the background, 0 to service it on the update thread
+     */
+    public int pathQueueThreads = 0;
+    /**
+     * Executor running the background path queue threads
+     */
+    public Executor pathQueueExecutor = ForkJoinPool.commonPool();
+    /**
+     * Max time a path request may wait in the queue before it is dropped (in seconds), 0 for no limit
+     */
+    public float pathQueryTimeout = 0;
     /**
      * Max number of sliced path finding iterations executed per agent to find the initial path to target
      */
@@ -58,6 +73,48 @@ public class CrowdConfig {
      * Max number of neighbour segments to consider in obstacle avoidance processing
      */
     public int maxObstacleAvoidanceSegments = 8;
+    /**
+     * Share the wall segments of polygons between the local boundaries of all agents, see Crowd#getWallSegmentCache()
+     */
+    public boolean cacheWallSegments = true;
+    /**
+     * Max number of threads used by the per-agent phases of the crowd update. Each thread has its own navmesh and
+     * obstacle avoidance queries. The result of the update does not depend on this value.
+     */
+    public int updateParallelism = 1;
+    /**
+     * Executor running the parallel update phases, the calling thread always processes one share of the agents
+     */
+    public Executor updateExecutor = ForkJoinPool.commonPool();
+    /**
+     * Min number of agents processed by a thread, smaller crowds are updated with fewer threads
+     */
+    public int minAgentsPerWorker = 64;
+    /**
+     * Agents with the DT_CROWD_LOD flag closer than this to an observer are fully simulated
+     */
+    public float lodFullRange = 30f;
+    /**
+     * Agents with the DT_CROWD_LOD flag closer than this to an observer are updated less often and without obstacle
+     * avoidance, agents further away only move along the straight path of their corridor
+     */
+    public float lodReducedRange = 80f;
+    /**
+     * Number of crowd updates between the steps of an agent with reduced level of detail
+     */
+    public int lodReducedUpdateInterval = 2;
+    /**
+     * Number of crowd updates between the steps of an agent which only follows its corridor
+     */
+    public int lodCorridorUpdateInterval = 4;
+    /**
+     * Max number of flow fields kept for agents with the DT_CROWD_SHARED_DESTINATION flag
+     */
+    public int flowFieldCacheSize = 8;
+    /**
+     * Size of the node pool of flow field searches, agents outside of the searched area plan their paths individually
+     */
+    public int maxFlowFieldNodes = 4096;
 
     public CrowdConfig(float maxAgentRadius) {
         this.maxAgentRadius = maxAgentRadius;
@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative metrics of a crowd: the duration of every update phase, path queue activity, velocity samples and
+ * replans. All counters and histograms are preallocated, recording does not allocate and is cheap enough to stay
+ * enabled. Metrics are written by the thread updating the crowd and can be pulled with
+ * {@link #export(CrowdMetricsExporter)} or cleared with {@link #reset()} from any thread. Every value is atomic on its
+ * own, but values read concurrently with an update may belong to different updates.
+ */
+public class CrowdMetrics {
+
+    /// The timed phases of a crowd update.
+    public enum Phase {
+        UPDATE("update"),
+        UPDATE_LEVEL_OF_DETAIL("updateLevelOfDetail"),
+        CHECK_PATH_VALIDITY("checkPathValidity"),
+        UPDATE_MOVE_REQUEST("updateMoveRequest"),
+        PATH_QUEUE_UPDATE("pathQueueUpdate"),
+        UPDATE_TOPOLOGY_OPTIMIZATION("updateTopologyOptimization"),
+        BUILD_PROXIMITY_GRID("buildProximityGrid"),
+        BUILD_NEIGHBOURS("buildNeighbours"),
+        FIND_CORNERS("findCorners"),
+        TRIGGER_OFF_MESH_CONNECTIONS("triggerOffMeshConnections"),
+        CALCULATE_STEERING("calculateSteering"),
+        PLAN_VELOCITY("planVelocity"),
+        INTEGRATE("integrate"),
+        HANDLE_COLLISIONS("handleCollisions"),
+        MOVE_AGENTS("moveAgents"),
+        UPDATE_OFF_MESH_CONNECTIONS("updateOffMeshConnections");
+
+        private final String label;
+        private final String metricName;
+
+        Phase(String label) {
+            this.label = label;
+            metricName = "crowd.phase." + label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] phaseDurations = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram pathWaitTime = new LatencyHistogram();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong velocitySamples = new AtomicLong();
+    private final AtomicLong replans = new AtomicLong();
+    private final AtomicLong pathRequests = new AtomicLong();
+    private final AtomicLong rejectedPathRequests = new AtomicLong();
+    private volatile int pathQueueDepth;
+    private volatile int activeAgents;
+    private volatile int steppedAgents;
+
+    public CrowdMetrics() {
+        for (int i = 0; i < phaseDurations.length; i++) {
+            phaseDurations[i] = new LatencyHistogram();
+        }
+    }
+
+    /** @return Durations of the phase in nanoseconds. */
+    public LatencyHistogram phaseDuration(Phase phase) {
+        return phaseDurations[phase.ordinal()];
+    }
+
+    /** @return Time from the move request of an agent until its path was found, in nanoseconds. */
+    public LatencyHistogram pathWaitTime() {
+        return pathWaitTime;
+    }
+
+    public long updates() {
+        return updates.get();
+    }
+
+    /** @return Number of candidate velocities sampled by obstacle avoidance. */
+    public long velocitySamples() {
+        return velocitySamples.get();
+    }
+
+    /** @return Number of replans triggered by invalid paths or targets. */
+    public long replans() {
+        return replans.get();
+    }
+
+    /** @return Number of path requests accepted by the path queue. */
+    public long pathRequests() {
+        return pathRequests.get();
+    }
+
+    /** @return Number of path requests rejected by a full path queue, the agents retry on the next update. */
+    public long rejectedPathRequests() {
+        return rejectedPathRequests.get();
+    }
+
+    /** @return Number of path requests waiting or in progress after the last update. */
+    public int pathQueueDepth() {
+        return pathQueueDepth;
+    }
+
+    public int activeAgents() {
+        return activeAgents;
+    }
+
+    public int steppedAgents() {
+        return steppedAgents;
+    }
+
+    /** Passes all metrics to the exporter. */
+    public void export(CrowdMetricsExporter exporter) {
+        exporter.counter("crowd.updates", updates.get());
+        exporter.counter("crowd.velocitySamples", velocitySamples.get());
+        exporter.counter("crowd.replans", replans.get());
+        exporter.counter("crowd.pathRequests", pathRequests.get());
+        exporter.counter("crowd.rejectedPathRequests", rejectedPathRequests.get());
+        exporter.gauge("crowd.pathQueueDepth", pathQueueDepth);
+        exporter.gauge("crowd.activeAgents", activeAgents);
+        exporter.gauge("crowd.steppedAgents", steppedAgents);
+        exporter.histogram("crowd.pathWaitTime", pathWaitTime);
+        for (Phase phase : PHASES) {
+            exporter.histogram(phase.metricName, phaseDurations[phase.ordinal()]);
+        }
+    }
+
+    /**
+     * Clears the counters and histograms, the gauges keep the values of the last update. Can be called from any
+     * thread, an update running concurrently may be partially counted after the reset.
+     */
+    public void reset() {
+        for (LatencyHistogram h : phaseDurations) {
+            h.reset();
+        }
+        pathWaitTime.reset();
+        updates.set(0);
+        velocitySamples.set(0);
+        replans.set(0);
+        pathRequests.set(0);
+        rejectedPathRequests.set(0);
+    }
+
+    void recordPhase(Phase phase, long nanos) {
+        phaseDurations[phase.ordinal()].record(nanos);
+    }
+
+    void recordPathRequest(boolean accepted) {
+        if (accepted) {
+            pathRequests.incrementAndGet();
+        } else {
+            rejectedPathRequests.incrementAndGet();
+        }
+    }
+
+    void recordPathWaitTime(float seconds) {
+        pathWaitTime.record((long) (seconds * 1e9));
+    }
+
+    void recordUpdate(int velocitySamples, int replans, int pathQueueDepth, int activeAgents, int steppedAgents) {
+        updates.incrementAndGet();
+        this.velocitySamples.addAndGet(velocitySamples);
+        this.replans.addAndGet(replans);
+        this.pathQueueDepth = pathQueueDepth;
+        this.activeAgents = activeAgents;
+        this.steppedAgents = steppedAgents;
+    }
+}
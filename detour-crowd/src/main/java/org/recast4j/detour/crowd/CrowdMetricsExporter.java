@@ -18,16 +18,17 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour.crowd;
 
-public class SweepCircleCircleResult {
+/**
+ * Receives the values of {@link CrowdMetrics} when they are pulled with
+ * {@link CrowdMetrics#export(CrowdMetricsExporter)}, e.g. by an adapter registering them with a monitoring library on
+ * every scrape. Counters are cumulative, gauges hold the value of the last update.
+ */
+public interface CrowdMetricsExporter {
 
-    final boolean intersection;
-    final float htmin;
-    final float htmax;
+    void counter(String name, long value);
 
-    public SweepCircleCircleResult(boolean intersection, float htmin, float htmax) {
-        this.intersection = intersection;
-        this.htmin = htmin;
-        this.htmax = htmax;
-    }
+    void gauge(String name, double value);
 
+    /** Durations in nanoseconds. */
+    void histogram(String name, LatencyHistogram histogram);
 }
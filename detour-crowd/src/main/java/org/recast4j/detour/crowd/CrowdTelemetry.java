@@ -18,18 +18,38 @@ freely, subject to the following restrictions:
 
 package org.recast4j.detour.crowd;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
+import org.recast4j.detour.crowd.CrowdAgent.CrowdAgentLod;
+import org.recast4j.detour.crowd.CrowdMetrics.Phase;
+
 public class CrowdTelemetry {
 
     private static final int TIMING_SAMPLES = 10;
+    private static final Phase[] PHASES = Phase.values();
     private float maxTimeToEnqueueRequest;
     private float maxTimeToFindPath;
-    private final Map<String, Long> executionTimings = new HashMap<>();
-    private final Map<String, List<Long>> executionTimingSamples = new HashMap<>();
+    private final CrowdMetrics metrics;
+    // Moving averages of the phase durations over the last TIMING_SAMPLES updates.
+    private final long[] phaseStart = new long[PHASES.length];
+    private final long[][] timingSamples = new long[PHASES.length][TIMING_SAMPLES];
+    private final int[] timingSampleCount = new int[PHASES.length];
+    private final int[] timingSampleNext = new int[PHASES.length];
+    private final long[] timingSampleSum = new long[PHASES.length];
+    private final long[] executionTimings = new long[PHASES.length];
+    private final boolean[] executed = new boolean[PHASES.length];
+    private final int[] lodAgentCounts = new int[CrowdAgentLod.values().length];
+    private int steppedAgents;
+
+    public CrowdTelemetry() {
+        this(new CrowdMetrics());
+    }
+
+    CrowdTelemetry(CrowdMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public float maxTimeToEnqueueRequest() {
         return maxTimeToEnqueueRequest;
@@ -39,14 +59,45 @@ public class CrowdTelemetry {
         return maxTimeToFindPath;
     }
 
+    /// Average durations in nanoseconds of the phases executed in the last update, by phase label.
     public Map<String, Long> executionTimings() {
-        return executionTimings;
+        Map<String, Long> timings = new HashMap<>();
+        for (Phase phase : PHASES) {
+            if (executed[phase.ordinal()]) {
+                timings.put(phase.label(), executionTimings[phase.ordinal()]);
+            }
+        }
+        return timings;
+    }
+
+    /// Average duration in nanoseconds of the phase over the last updates.
+    public long executionTiming(Phase phase) {
+        return executionTimings[phase.ordinal()];
+    }
+
+    /// Number of agents simulated with the given level of detail in the last update.
+    public int lodAgentCount(CrowdAgentLod lod) {
+        return lodAgentCounts[lod.ordinal()];
+    }
+
+    /// Number of agents stepped in the last update.
+    public int steppedAgents() {
+        return steppedAgents;
     }
 
     void start() {
         maxTimeToEnqueueRequest = 0;
         maxTimeToFindPath = 0;
-        executionTimings.clear();
+        Arrays.fill(executed, false);
+        Arrays.fill(lodAgentCounts, 0);
+        steppedAgents = 0;
+    }
+
+    void recordLod(CrowdAgentLod lod, boolean stepped) {
+        lodAgentCounts[lod.ordinal()]++;
+        if (stepped) {
+            steppedAgents++;
+        }
     }
 
     void recordMaxTimeToEnqueueRequest(float time) {
@@ -57,17 +108,26 @@ public class CrowdTelemetry {
         maxTimeToFindPath = Math.max(maxTimeToFindPath, time);
     }
 
-    void start(String name) {
-        executionTimings.put(name, System.nanoTime());
+    void start(Phase phase) {
+        phaseStart[phase.ordinal()] = System.nanoTime();
     }
 
-    void stop(String name) {
-        long duration = System.nanoTime() - executionTimings.get(name);
-        List<Long> s = executionTimingSamples.computeIfAbsent(name, __ -> new ArrayList<>());
-        if (s.size() == TIMING_SAMPLES) {
-            s.remove(0);
+    void stop(Phase phase) {
+        int i = phase.ordinal();
+        long duration = System.nanoTime() - phaseStart[i];
+        // Replace the oldest sample.
+        long[] samples = timingSamples[i];
+        int slot = timingSampleNext[i];
+        if (timingSampleCount[i] == TIMING_SAMPLES) {
+            timingSampleSum[i] -= samples[slot];
+        } else {
+            timingSampleCount[i]++;
         }
-        s.add(duration);
-        executionTimings.put(name, (long) s.stream().mapToLong(l -> l).average().orElse(0));
+        samples[slot] = duration;
+        timingSampleNext[i] = (slot + 1) % TIMING_SAMPLES;
+        timingSampleSum[i] += duration;
+        executionTimings[i] = timingSampleSum[i] / timingSampleCount[i];
+        executed[i] = true;
+        metrics.recordPhase(phase, duration);
     }
 }
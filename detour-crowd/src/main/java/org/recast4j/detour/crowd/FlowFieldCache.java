@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.recast4j.detour.FlowField;
+import org.recast4j.detour.NavMeshQuery;
+import org.recast4j.detour.QueryFilter;
+import org.recast4j.detour.Result;
+
+/**
+ * Flow fields of the most recently used destinations, see CrowdAgentParams#DT_CROWD_SHARED_DESTINATION. Fields are
+ * shared by all agents moving to the same polygon with the same query filter, so any number of agents costs a single
+ * search. A field is recomputed when the nav mesh has changed since it was computed.
+ * <p>
+ * Fields are keyed by the goal polygon only, the costs of a field are measured from the goal position of the request
+ * that searched it (see FlowField#getGoalPos()). Agents moving to other positions within the same polygon share that
+ * field, so the last step of their paths, into the goal polygon, is costed to that position rather than their own.
+ * The corridor of each agent still ends at its own target.
+ */
+public class FlowFieldCache {
+
+    private static class Key {
+        final long goalRef;
+        final QueryFilter filter;
+
+        Key(long goalRef, QueryFilter filter) {
+            this.goalRef = goalRef;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return goalRef == other.goalRef && filter == other.filter;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(goalRef, System.identityHashCode(filter));
+        }
+    }
+
+    private final Map<Key, FlowField> m_fields;
+    private long m_searches;
+
+    /**
+     * @param capacity
+     *            Max number of cached fields, the least recently used field is evicted first
+     */
+    public FlowFieldCache(int capacity) {
+        m_fields = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FlowField> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the field of the goal polygon, searching it with the query if it is not cached or out of date.
+     *
+     * @param goalPos
+     *            Position within the goal polygon, only used if the field is searched, a cached field keeps the
+     *            goal position it was searched with
+     * @return The field, or null if the search failed
+     */
+    public synchronized FlowField get(NavMeshQuery query, long goalRef, float[] goalPos, QueryFilter filter) {
+        Key key = new Key(goalRef, filter);
+        FlowField field = m_fields.get(key);
+        if (field != null && field.getNavMeshVersion() == query.getAttachedNavMesh().getVersion()) {
+            return field;
+        }
+        m_searches++;
+        Result<FlowField> result = query.findFlowField(goalRef, goalPos, filter);
+        if (result.failed()) {
+            m_fields.remove(key);
+            return null;
+        }
+        m_fields.put(key, result.result);
+        return result.result;
+    }
+
+    /** @return Number of searches run since the cache was created. */
+    public synchronized long searches() {
+        return m_searches;
+    }
+
+    public synchronized int size() {
+        return m_fields.size();
+    }
+
+    public synchronized void clear() {
+        m_fields.clear();
+    }
+}
@@ -58,6 +58,10 @@ public class LocalBoundary {
     }
 
     protected void addSegment(float dist, float[] s) {
+        // Segments beyond the closest MAX_LOCAL_SEGS are dropped.
+        if (m_segs.size() >= MAX_LOCAL_SEGS && dist >= m_segs.get(m_segs.size() - 1).d) {
+            return;
+        }
         // Insert neighbour based on the distance.
         Segment seg = new Segment();
         System.arraycopy(s, 0, seg.s, 0, 6);
@@ -65,9 +69,6 @@ public class LocalBoundary {
         if (m_segs.isEmpty()) {
             m_segs.add(seg);
         } else if (dist >= m_segs.get(m_segs.size() - 1).d) {
-            if (m_segs.size() >= MAX_LOCAL_SEGS) {
-                return;
-            }
             m_segs.add(seg);
         } else {
             // Insert inbetween.
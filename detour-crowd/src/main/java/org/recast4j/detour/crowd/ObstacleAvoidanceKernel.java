@@ -0,0 +1,44 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+/// Scores all candidate velocities of an obstacle avoidance query in one pass.
+interface ObstacleAvoidanceKernel {
+
+    String VECTOR_KERNEL_CLASS = "org.recast4j.detour.crowd.VectorObstacleAvoidanceKernel";
+
+    /// Computes the penalties of the first n candidates of the query into its penalty buffer.
+    void score(ObstacleAvoidanceQuery query, int n);
+
+    /// Loads the Vector API kernel, or returns null when the incubator module is not available or the kernel is
+    /// disabled with -Drecast4j.vector=false.
+    static ObstacleAvoidanceKernel loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("recast4j.vector", "true"))) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (ObstacleAvoidanceKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -20,11 +20,15 @@ package org.recast4j.detour.crowd;
 
 import static org.recast4j.detour.DetourCommon.*;
 
+import java.util.Arrays;
+
 import org.recast4j.detour.Tupple2;
 import org.recast4j.detour.crowd.debug.ObstacleAvoidanceDebugData;
 
 public class ObstacleAvoidanceQuery {
 
+    private static final ObstacleAvoidanceKernel VECTOR_KERNEL = ObstacleAvoidanceKernel.loadVectorKernel();
+
     private static final int DT_MAX_PATTERN_DIVS = 32; /// < Max numver of adaptive divs.
     private static final int DT_MAX_PATTERN_RINGS = 4; /// < Max number of adaptive rings.
 
@@ -90,20 +94,44 @@ public class ObstacleAvoidanceQuery {
         }
     };
 
-    private ObstacleAvoidanceParams m_params;
-    private float m_invHorizTime;
+    ObstacleAvoidanceParams m_params;
+    float m_invHorizTime;
     private float m_vmax;
-    private float m_invVmax;
+    float m_invVmax;
 
     private final int m_maxCircles;
     private final ObstacleCircle[] m_circles;
-    private int m_ncircles;
+    int m_ncircles;
 
     private final int m_maxSegments;
     private final ObstacleSegment[] m_segments;
-    private int m_nsegments;
+    int m_nsegments;
+
+    /// Prepared obstacles in structure of arrays layout, used by the sampling kernels.
+    final float[] m_cpx, m_cpz, m_crad, m_cvelx, m_cvelz, m_cdpx, m_cdpz, m_cnpx, m_cnpz;
+    final float[] m_spx, m_spz, m_sqx, m_sqz;
+    final boolean[] m_stouch;
+
+    /// The agent being sampled.
+    float m_posx, m_posz, m_rad, m_velx, m_velz, m_dvelx, m_dvelz;
+
+    /// Candidate velocities and their penalties.
+    float[] m_candx = new float[64];
+    float[] m_candz = new float[64];
+    float[] m_candPen = new float[64];
+    private final float[] m_pat = new float[(DT_MAX_PATTERN_DIVS * DT_MAX_PATTERN_RINGS + 1) * 2];
+    private final float[] m_vcand = new float[3];
+    private final ObstacleAvoidanceKernel m_kernel;
 
     public ObstacleAvoidanceQuery(int maxCircles, int maxSegments) {
+        this(maxCircles, maxSegments, VECTOR_KERNEL);
+    }
+
+    /**
+     * @param kernel
+     *            Kernel scoring the candidate velocities in bulk, null to score them one by one
+     */
+    ObstacleAvoidanceQuery(int maxCircles, int maxSegments, ObstacleAvoidanceKernel kernel) {
         m_maxCircles = maxCircles;
         m_ncircles = 0;
         m_circles = new ObstacleCircle[m_maxCircles];
@@ -116,6 +144,26 @@ public class ObstacleAvoidanceQuery {
         for (int i = 0; i < m_maxSegments; i++) {
             m_segments[i] = new ObstacleSegment();
         }
+        m_cpx = new float[maxCircles];
+        m_cpz = new float[maxCircles];
+        m_crad = new float[maxCircles];
+        m_cvelx = new float[maxCircles];
+        m_cvelz = new float[maxCircles];
+        m_cdpx = new float[maxCircles];
+        m_cdpz = new float[maxCircles];
+        m_cnpx = new float[maxCircles];
+        m_cnpz = new float[maxCircles];
+        m_spx = new float[maxSegments];
+        m_spz = new float[maxSegments];
+        m_sqx = new float[maxSegments];
+        m_sqz = new float[maxSegments];
+        m_stouch = new boolean[maxSegments];
+        m_kernel = kernel;
+    }
+
+    /// Returns true if the candidate velocities are scored with the Vector API.
+    public static boolean isVectorKernelAvailable() {
+        return VECTOR_KERNEL != null;
     }
 
     public void reset() {
@@ -124,14 +172,19 @@ public class ObstacleAvoidanceQuery {
     }
 
     public void addCircle(float[] pos, float rad, float[] vel, float[] dvel) {
+        addCircle(pos, vel, dvel, 0, rad);
+    }
+
+    /// Adds a circle whose position and velocities are stored at index i of the arrays.
+    public void addCircle(float[] pos, float[] vel, float[] dvel, int i, float rad) {
         if (m_ncircles >= m_maxCircles)
             return;
 
         ObstacleCircle cir = m_circles[m_ncircles++];
-        vCopy(cir.p, pos);
+        vCopy(cir.p, pos, i);
         cir.rad = rad;
-        vCopy(cir.vel, vel);
-        vCopy(cir.dvel, dvel);
+        vCopy(cir.vel, vel, i);
+        vCopy(cir.dvel, dvel, i);
     }
 
     public void addSegment(float[] p, float[] q) {
@@ -158,22 +211,28 @@ public class ObstacleAvoidanceQuery {
         return m_segments[i];
     }
 
-    private void prepare(float[] pos, float[] dvel) {
+    private void prepare(float[] pos, float rad, float[] vel, float[] dvel) {
+        m_posx = pos[0];
+        m_posz = pos[2];
+        m_rad = rad;
+        m_velx = vel[0];
+        m_velz = vel[2];
+        m_dvelx = dvel[0];
+        m_dvelz = dvel[2];
+
         // Prepare obstacles
         for (int i = 0; i < m_ncircles; ++i) {
             ObstacleCircle cir = m_circles[i];
 
             // Side
-            float[] pa = pos;
-            float[] pb = cir.p;
-
-            float[] orig = { 0f, 0f, 0f };
-            float[] dv = new float[3];
-            vCopy(cir.dp, vSub(pb, pa));
+            cir.dp[0] = cir.p[0] - pos[0];
+            cir.dp[1] = cir.p[1] - pos[1];
+            cir.dp[2] = cir.p[2] - pos[2];
             vNormalize(cir.dp);
-            dv = vSub(cir.dvel, dvel);
+            float dvx = cir.dvel[0] - dvel[0];
+            float dvz = cir.dvel[2] - dvel[2];
 
-            float a = triArea2D(orig, cir.dp, dv);
+            float a = dvx * cir.dp[2] - cir.dp[0] * dvz;
             if (a < 0.01f) {
                 cir.np[0] = -cir.dp[2];
                 cir.np[2] = cir.dp[0];
@@ -181,6 +240,16 @@ public class ObstacleAvoidanceQuery {
                 cir.np[0] = cir.dp[2];
                 cir.np[2] = -cir.dp[0];
             }
+
+            m_cpx[i] = cir.p[0];
+            m_cpz[i] = cir.p[2];
+            m_crad[i] = cir.rad;
+            m_cvelx[i] = cir.vel[0];
+            m_cvelz[i] = cir.vel[2];
+            m_cdpx[i] = cir.dp[0];
+            m_cdpz[i] = cir.dp[2];
+            m_cnpx[i] = cir.np[0];
+            m_cnpz[i] = cir.np[2];
         }
 
         for (int i = 0; i < m_nsegments; ++i) {
@@ -188,61 +257,52 @@ public class ObstacleAvoidanceQuery {
 
             // Precalc if the agent is really close to the segment.
             float r = 0.01f;
-            Tupple2<Float, Float> dt = distancePtSegSqr2D(pos, seg.p, seg.q);
-            seg.touch = dt.first < sqr(r);
-        }
-    }
+            seg.touch = distancePtSegSqr2D(pos[0], pos[2], seg.p, seg.q) < sqr(r);
 
-    SweepCircleCircleResult sweepCircleCircle(float[] c0, float r0, float[] v, float[] c1, float r1) {
-        final float EPS = 0.0001f;
-        float[] s = vSub(c1, c0);
-        float r = r0 + r1;
-        float c = vDot2D(s, s) - r * r;
-        float a = vDot2D(v, v);
-        if (a < EPS)
-            return new SweepCircleCircleResult(false, 0f, 0f); // not moving
-
-        // Overlap, calc time to exit.
-        float b = vDot2D(v, s);
-        float d = b * b - a * c;
-        if (d < 0.0f)
-            return new SweepCircleCircleResult(false, 0f, 0f); // no intersection.
-        a = 1.0f / a;
-        float rd = (float) Math.sqrt(d);
-        return new SweepCircleCircleResult(true, (b - rd) * a, (b + rd) * a);
+            m_spx[i] = seg.p[0];
+            m_spz[i] = seg.p[2];
+            m_sqx[i] = seg.q[0];
+            m_sqz[i] = seg.q[2];
+            m_stouch[i] = seg.touch;
+        }
     }
 
-    Tupple2<Boolean, Float> isectRaySeg(float[] ap, float[] u, float[] bp, float[] bq) {
-        float[] v = vSub(bq, bp);
-        float[] w = vSub(ap, bp);
-        float d = vPerp2D(u, v);
-        if (Math.abs(d) < 1e-6f)
-            return new Tupple2<>(false, 0f);
-        d = 1.0f / d;
-        float t = vPerp2D(v, w) * d;
-        if (t < 0 || t > 1)
-            return new Tupple2<>(false, 0f);
-        float s = vPerp2D(u, w) * d;
-        if (s < 0 || s > 1)
-            return new Tupple2<>(false, 0f);
-        return new Tupple2<>(true, t);
+    private static float distancePtSegSqr2D(float ptx, float ptz, float[] p, float[] q) {
+        float pqx = q[0] - p[0];
+        float pqz = q[2] - p[2];
+        float dx = ptx - p[0];
+        float dz = ptz - p[2];
+        float d = pqx * pqx + pqz * pqz;
+        float t = pqx * dx + pqz * dz;
+        if (d > 0) {
+            t /= d;
+        }
+        if (t < 0) {
+            t = 0;
+        } else if (t > 1) {
+            t = 1;
+        }
+        dx = p[0] + t * pqx - ptx;
+        dz = p[2] + t * pqz - ptz;
+        return dx * dx + dz * dz;
     }
 
     /**
      * Calculate the collision penalty for a given velocity vector
      *
-     * @param vcand
+     * @param vcx
      *            sampled velocity
-     * @param dvel
-     *            desired velocity
      * @param minPenalty
      *            threshold penalty for early out
      */
-    private float processSample(float[] vcand, float cs, float[] pos, float rad, float[] vel, float[] dvel,
-            float minPenalty, ObstacleAvoidanceDebugData debug) {
+    private float processSample(float vcx, float vcz, float cs, float minPenalty, ObstacleAvoidanceDebugData debug) {
         // penalty for straying away from the desired and current velocities
-        float vpen = m_params.weightDesVel * (vDist2D(vcand, dvel) * m_invVmax);
-        float vcpen = m_params.weightCurVel * (vDist2D(vcand, vel) * m_invVmax);
+        float dx = m_dvelx - vcx;
+        float dz = m_dvelz - vcz;
+        float vpen = m_params.weightDesVel * ((float) Math.sqrt(dx * dx + dz * dz) * m_invVmax);
+        dx = m_velx - vcx;
+        dz = m_velz - vcz;
+        float vcpen = m_params.weightCurVel * ((float) Math.sqrt(dx * dx + dz * dz) * m_invVmax);
 
         // find the threshold hit time to bail out based on the early out penalty
         // (see how the penalty is calculated below to understand)
@@ -257,21 +317,32 @@ public class ObstacleAvoidanceQuery {
         int nside = 0;
 
         for (int i = 0; i < m_ncircles; ++i) {
-            ObstacleCircle cir = m_circles[i];
-
             // RVO
-            float[] vab = vScale(vcand, 2);
-            vab = vSub(vab, vel);
-            vab = vSub(vab, cir.vel);
+            float vabx = vcx * 2 - m_velx - m_cvelx[i];
+            float vabz = vcz * 2 - m_velz - m_cvelz[i];
 
             // Side
-            side += clamp(Math.min(vDot2D(cir.dp, vab) * 0.5f + 0.5f, vDot2D(cir.np, vab) * 2), 0.0f, 1.0f);
+            side += clamp(Math.min((m_cdpx[i] * vabx + m_cdpz[i] * vabz) * 0.5f + 0.5f,
+                    (m_cnpx[i] * vabx + m_cnpz[i] * vabz) * 2), 0.0f, 1.0f);
             nside++;
 
-            SweepCircleCircleResult sres = sweepCircleCircle(pos, rad, vab, cir.p, cir.rad);
-            if (!sres.intersection)
-                continue;
-            float htmin = sres.htmin, htmax = sres.htmax;
+            // Sweep circle against circle.
+            final float EPS = 0.0001f;
+            float sx = m_cpx[i] - m_posx;
+            float sz = m_cpz[i] - m_posz;
+            float r = m_rad + m_crad[i];
+            float c = sx * sx + sz * sz - r * r;
+            float a = vabx * vabx + vabz * vabz;
+            if (a < EPS)
+                continue; // not moving
+            // Overlap, calc time to exit.
+            float b = vabx * sx + vabz * sz;
+            float d = b * b - a * c;
+            if (d < 0.0f)
+                continue; // no intersection.
+            a = 1.0f / a;
+            float rd = (float) Math.sqrt(d);
+            float htmin = (b - rd) * a, htmax = (b + rd) * a;
 
             // Handle overlapping obstacles.
             if (htmin < 0.0f && htmax > 0.0f) {
@@ -290,25 +361,32 @@ public class ObstacleAvoidanceQuery {
         }
 
         for (int i = 0; i < m_nsegments; ++i) {
-            ObstacleSegment seg = m_segments[i];
             float htmin = 0;
+            float vx = m_sqx[i] - m_spx[i];
+            float vz = m_sqz[i] - m_spz[i];
 
-            if (seg.touch) {
+            if (m_stouch[i]) {
                 // Special case when the agent is very close to the segment.
-                float[] sdir = vSub(seg.q, seg.p);
-                float[] snorm = new float[3];
-                snorm[0] = -sdir[2];
-                snorm[2] = sdir[0];
                 // If the velocity is pointing towards the segment, no collision.
-                if (vDot2D(snorm, vcand) < 0.0f)
+                if (-vz * vcx + vx * vcz < 0.0f)
                     continue;
                 // Else immediate collision.
                 htmin = 0.0f;
             } else {
-                Tupple2<Boolean, Float> ires = isectRaySeg(pos, vcand, seg.p, seg.q);
-                if (!ires.first)
+                // Intersect ray with segment.
+                float wx = m_posx - m_spx[i];
+                float wz = m_posz - m_spz[i];
+                float d = vcz * vx - vcx * vz;
+                if (Math.abs(d) < 1e-6f)
+                    continue;
+                d = 1.0f / d;
+                float t = (vz * wx - vx * wz) * d;
+                if (t < 0 || t > 1)
                     continue;
-                htmin = ires.second;
+                float s = (vcz * wx - vcx * wz) * d;
+                if (s < 0 || s > 1)
+                    continue;
+                htmin = t;
             }
 
             // Avoid less when facing walls.
@@ -331,21 +409,73 @@ public class ObstacleAvoidanceQuery {
 
         float penalty = vpen + vcpen + spen + tpen;
         // Store different penalties for debug viewing
-        if (debug != null)
-            debug.addSample(vcand, cs, penalty, vpen, vcpen, spen, tpen);
+        if (debug != null) {
+            vSet(m_vcand, vcx, 0f, vcz);
+            debug.addSample(m_vcand, cs, penalty, vpen, vcpen, spen, tpen);
+        }
 
         return penalty;
     }
 
+    private void addCandidate(int n, float vcx, float vcz) {
+        if (n == m_candx.length) {
+            m_candx = Arrays.copyOf(m_candx, n * 2);
+            m_candz = Arrays.copyOf(m_candz, n * 2);
+            m_candPen = Arrays.copyOf(m_candPen, n * 2);
+        }
+        m_candx[n] = vcx;
+        m_candz[n] = vcz;
+    }
+
+    /// Finds the candidate with the lowest penalty.
+    /// @return The index of the best candidate, or -1 if none was found.
+    private int selectCandidate(int n, float cs, ObstacleAvoidanceDebugData debug) {
+        float minPenalty = Float.MAX_VALUE;
+        int best = -1;
+        if (m_kernel != null && debug == null) {
+            // All candidates are scored without the early out, the penalties of candidates which the early out
+            // would skip are not lower than the best penalty so the same candidate is selected.
+            m_kernel.score(this, n);
+            for (int i = 0; i < n; ++i) {
+                if (m_candPen[i] < minPenalty) {
+                    minPenalty = m_candPen[i];
+                    best = i;
+                }
+            }
+        } else {
+            for (int i = 0; i < n; ++i) {
+                float penalty = processSample(m_candx[i], m_candz[i], cs, minPenalty, debug);
+                if (penalty < minPenalty) {
+                    minPenalty = penalty;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
     public Tupple2<Integer, float[]> sampleVelocityGrid(float[] pos, float rad, float vmax, float[] vel, float[] dvel,
             ObstacleAvoidanceParams params, ObstacleAvoidanceDebugData debug) {
-        prepare(pos, dvel);
+        float[] nvel = new float[3];
+        int ns = sampleVelocityGrid(pos, rad, vmax, vel, dvel, nvel, params, debug);
+        return new Tupple2<>(ns, nvel);
+    }
+
+    /**
+     * Samples the velocities on a grid, without allocating.
+     *
+     * @param nvel
+     *            Receives the selected velocity
+     * @return The number of sampled velocities
+     */
+    public int sampleVelocityGrid(float[] pos, float rad, float vmax, float[] vel, float[] dvel, float[] nvel,
+            ObstacleAvoidanceParams params, ObstacleAvoidanceDebugData debug) {
+        prepare(pos, rad, vel, dvel);
         m_params = params;
         m_invHorizTime = 1.0f / m_params.horizTime;
         m_vmax = vmax;
         m_invVmax = vmax > 0 ? 1.0f / vmax : Float.MAX_VALUE;
 
-        float[] nvel = new float[3];
         vSet(nvel, 0f, 0f, 0f);
 
         if (debug != null)
@@ -356,68 +486,56 @@ public class ObstacleAvoidanceQuery {
         float cs = vmax * 2 * (1 - m_params.velBias) / (m_params.gridSize - 1);
         float half = (m_params.gridSize - 1) * cs * 0.5f;
 
-        float minPenalty = Float.MAX_VALUE;
         int ns = 0;
 
         for (int y = 0; y < m_params.gridSize; ++y) {
             for (int x = 0; x < m_params.gridSize; ++x) {
-                float[] vcand = new float[3];
-                vSet(vcand, cvx + x * cs - half, 0f, cvz + y * cs - half);
+                float vcx = cvx + x * cs - half;
+                float vcz = cvz + y * cs - half;
 
-                if (sqr(vcand[0]) + sqr(vcand[2]) > sqr(vmax + cs / 2))
+                if (sqr(vcx) + sqr(vcz) > sqr(vmax + cs / 2))
                     continue;
 
-                float penalty = processSample(vcand, cs, pos, rad, vel, dvel, minPenalty, debug);
-                ns++;
-                if (penalty < minPenalty) {
-                    minPenalty = penalty;
-                    vCopy(nvel, vcand);
-                }
+                addCandidate(ns++, vcx, vcz);
             }
         }
 
-        return new Tupple2<>(ns, nvel);
-    }
-
-    // vector normalization that ignores the y-component.
-    void dtNormalize2D(float[] v) {
-        float d = (float) Math.sqrt(v[0] * v[0] + v[2] * v[2]);
-        if (d == 0)
-            return;
-        d = 1.0f / d;
-        v[0] *= d;
-        v[2] *= d;
-    }
-
-    // vector normalization that ignores the y-component.
-    float[] dtRotate2D(float[] v, float ang) {
-        float[] dest = new float[3];
-        float c = (float) Math.cos(ang);
-        float s = (float) Math.sin(ang);
-        dest[0] = v[0] * c - v[2] * s;
-        dest[2] = v[0] * s + v[2] * c;
-        dest[1] = v[1];
-        return dest;
+        int best = selectCandidate(ns, cs, debug);
+        if (best >= 0) {
+            vSet(nvel, m_candx[best], 0f, m_candz[best]);
+        }
+        return ns;
     }
 
     static final float DT_PI = 3.14159265f;
 
     public Tupple2<Integer, float[]> sampleVelocityAdaptive(float[] pos, float rad, float vmax, float[] vel,
             float[] dvel, ObstacleAvoidanceParams params, ObstacleAvoidanceDebugData debug) {
-        prepare(pos, dvel);
+        float[] nvel = new float[3];
+        int ns = sampleVelocityAdaptive(pos, rad, vmax, vel, dvel, nvel, params, debug);
+        return new Tupple2<>(ns, nvel);
+    }
+
+    /**
+     * Samples the velocities on an adaptive pattern aligned to the desired velocity, without allocating.
+     *
+     * @param nvel
+     *            Receives the selected velocity
+     * @return The number of sampled velocities
+     */
+    public int sampleVelocityAdaptive(float[] pos, float rad, float vmax, float[] vel, float[] dvel, float[] nvel,
+            ObstacleAvoidanceParams params, ObstacleAvoidanceDebugData debug) {
+        prepare(pos, rad, vel, dvel);
         m_params = params;
         m_invHorizTime = 1.0f / m_params.horizTime;
         m_vmax = vmax;
         m_invVmax = vmax > 0 ? 1.0f / vmax : Float.MAX_VALUE;
 
-        float[] nvel = new float[3];
-        vSet(nvel, 0f, 0f, 0f);
-
         if (debug != null)
             debug.reset();
 
         // Build sampling pattern aligned to desired velocity.
-        float[] pat = new float[(DT_MAX_PATTERN_DIVS * DT_MAX_PATTERN_RINGS + 1) * 2];
+        float[] pat = m_pat;
         int npat = 0;
 
         int ndivs = m_params.adaptiveDivs;
@@ -431,13 +549,19 @@ public class ObstacleAvoidanceQuery {
         float sa = (float) Math.sin(da);
 
         // desired direction
-        float[] ddir = new float[6];
-        vCopy(ddir, dvel);
-        dtNormalize2D(ddir);
-        float[] rotated = dtRotate2D(ddir, da * 0.5f); // rotated by da/2
-        ddir[3] = rotated[0];
-        ddir[4] = rotated[1];
-        ddir[5] = rotated[2];
+        float ddirx = dvel[0];
+        float ddirz = dvel[2];
+        float dd = (float) Math.sqrt(ddirx * ddirx + ddirz * ddirz);
+        if (dd != 0) {
+            dd = 1.0f / dd;
+            ddirx *= dd;
+            ddirz *= dd;
+        }
+        // rotated by da/2
+        float rc = (float) Math.cos(da * 0.5f);
+        float rs = (float) Math.sin(da * 0.5f);
+        float rdirx = ddirx * rc - ddirz * rs;
+        float rdirz = ddirx * rs + ddirz * rc;
 
         // Always add sample at zero
         pat[npat * 2 + 0] = 0;
@@ -446,8 +570,8 @@ public class ObstacleAvoidanceQuery {
 
         for (int j = 0; j < nr; ++j) {
             float r = (float) (nr - j) / (float) nr;
-            pat[npat * 2 + 0] = ddir[(j % 2) * 3] * r;
-            pat[npat * 2 + 1] = ddir[(j % 2) * 3 + 2] * r;
+            pat[npat * 2 + 0] = (j % 2 == 0 ? ddirx : rdirx) * r;
+            pat[npat * 2 + 1] = (j % 2 == 0 ? ddirz : rdirz) * r;
             int last1 = npat * 2;
             int last2 = last1;
             npat++;
@@ -474,34 +598,28 @@ public class ObstacleAvoidanceQuery {
 
         // Start sampling.
         float cr = vmax * (1.0f - m_params.velBias);
-        float[] res = new float[3];
-        vSet(res, dvel[0] * m_params.velBias, 0, dvel[2] * m_params.velBias);
+        float resx = dvel[0] * m_params.velBias;
+        float resz = dvel[2] * m_params.velBias;
         int ns = 0;
         for (int k = 0; k < depth; ++k) {
-            float minPenalty = Float.MAX_VALUE;
-            float[] bvel = new float[3];
-            vSet(bvel, 0, 0, 0);
-
+            int n = 0;
             for (int i = 0; i < npat; ++i) {
-                float[] vcand = new float[3];
-                vSet(vcand, res[0] + pat[i * 2 + 0] * cr, 0f, res[2] + pat[i * 2 + 1] * cr);
-                if (sqr(vcand[0]) + sqr(vcand[2]) > sqr(vmax + 0.001f))
+                float vcx = resx + pat[i * 2 + 0] * cr;
+                float vcz = resz + pat[i * 2 + 1] * cr;
+                if (sqr(vcx) + sqr(vcz) > sqr(vmax + 0.001f))
                     continue;
-
-                float penalty = processSample(vcand, cr / 10, pos, rad, vel, dvel, minPenalty, debug);
-                ns++;
-                if (penalty < minPenalty) {
-                    minPenalty = penalty;
-                    vCopy(bvel, vcand);
-                }
+                addCandidate(n++, vcx, vcz);
             }
+            ns += n;
 
-            vCopy(res, bvel);
+            int best = selectCandidate(n, cr / 10, debug);
+            resx = best >= 0 ? m_candx[best] : 0f;
+            resz = best >= 0 ? m_candz[best] : 0f;
 
             cr *= 0.5f;
         }
-        vCopy(nvel, res);
+        vSet(nvel, resx, 0f, resz);
 
-        return new Tupple2<>(ns, nvel);
+        return ns;
     }
 }
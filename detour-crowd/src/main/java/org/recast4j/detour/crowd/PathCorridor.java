@@ -22,17 +22,14 @@ import static org.recast4j.detour.DetourCommon.sqr;
 import static org.recast4j.detour.DetourCommon.vCopy;
 import static org.recast4j.detour.DetourCommon.vDist2D;
 import static org.recast4j.detour.DetourCommon.vDist2DSqr;
-import static org.recast4j.detour.DetourCommon.vMad;
-import static org.recast4j.detour.DetourCommon.vSub;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import org.recast4j.detour.MoveAlongSurfaceResult;
 import org.recast4j.detour.NavMesh;
 import org.recast4j.detour.NavMeshQuery;
 import org.recast4j.detour.QueryFilter;
-import org.recast4j.detour.RaycastHit;
 import org.recast4j.detour.Result;
 import org.recast4j.detour.StraightPathItem;
 import org.recast4j.detour.Tupple2;
@@ -73,12 +70,26 @@ import org.recast4j.detour.Tupple2;
  * large increment, then compare the desired and resulting polygon references. If the two do not match, then path
  * replanning may be needed. E.g. If you move the target, check #getLastPoly() to see if it is the expected polygon.
  *
+ * The path is stored in a primitive array starting at an offset which moves forward as the agent advances, so the
+ * per-update operations do not allocate.
  */
 public class PathCorridor {
 
+    private static final int INITIAL_PATH_CAPACITY = 32;
+    /// Free slots kept in front of the path when it is moved, so that moving backwards rarely shifts the path.
+    private static final int PATH_HEADROOM = 8;
+    /// The max number of polygons stored from local searches, bounded by their node pools.
+    private static final int MAX_VISITED = 64;
+
     private final float[] m_pos = new float[3];
     private final float[] m_target = new float[3];
-    private List<Long> m_path;
+    private long[] m_path = new long[INITIAL_PATH_CAPACITY];
+    private int m_pathStart;
+    private int m_npath;
+    private final long[] m_visited = new long[MAX_VISITED];
+    private final float[] m_movePos = new float[3];
+    private final float[] m_goal = new float[3];
+    private final float[] m_hit = new float[NavMeshQuery.RAYCAST_HIT_SIZE];
 
     public static List<Long> mergeCorridorStartMoved(List<Long> path, List<Long> visited) {
         int furthestPath = -1;
@@ -116,15 +127,16 @@ public class PathCorridor {
         return result;
     }
 
-    protected List<Long> mergeCorridorEndMoved(List<Long> path, List<Long> visited) {
+    /// In place variant of #mergeCorridorStartMoved(List, List).
+    private void mergeCorridorStartMoved(long[] visited, int nvisited) {
         int furthestPath = -1;
         int furthestVisited = -1;
 
         // Find furthest common polygon.
-        for (int i = 0; i < path.size(); ++i) {
+        for (int i = m_npath - 1; i >= 0; --i) {
             boolean found = false;
-            for (int j = visited.size() - 1; j >= 0; --j) {
-                if (path.get(i) == visited.get(j)) {
+            for (int j = nvisited - 1; j >= 0; --j) {
+                if (m_path[m_pathStart + i] == visited[j]) {
                     furthestPath = i;
                     furthestVisited = j;
                     found = true;
@@ -135,27 +147,68 @@ public class PathCorridor {
             }
         }
 
-        // If no intersection found just return current path.
+        // If no intersection found just keep current path.
         if (furthestPath == -1 || furthestVisited == -1) {
-            return path;
+            return;
         }
 
         // Concatenate paths.
-        List<Long> result = path.subList(0, furthestPath);
-        result.addAll(visited.subList(furthestVisited, visited.size()));
-        return result;
+
+        // Drop the polygons behind the furthest common polygon.
+        m_pathStart += furthestPath;
+        m_npath -= furthestPath;
+        // Adjust beginning of the buffer to include the visited.
+        int nprepend = nvisited - 1 - furthestVisited;
+        reserveFront(nprepend);
+        m_pathStart -= nprepend;
+        m_npath += nprepend;
+        // Store visited
+        for (int i = 0; i < nprepend; i++) {
+            m_path[m_pathStart + i] = visited[nvisited - 1 - i];
+        }
     }
 
-    protected List<Long> mergeCorridorStartShortcut(List<Long> path, List<Long> visited) {
+    private void mergeCorridorEndMoved(long[] visited, int nvisited) {
+        int furthestPath = -1;
+        int furthestVisited = -1;
+
+        // Find furthest common polygon.
+        for (int i = 0; i < m_npath; ++i) {
+            boolean found = false;
+            for (int j = nvisited - 1; j >= 0; --j) {
+                if (m_path[m_pathStart + i] == visited[j]) {
+                    furthestPath = i;
+                    furthestVisited = j;
+                    found = true;
+                }
+            }
+            if (found) {
+                break;
+            }
+        }
+
+        // If no intersection found just keep current path.
+        if (furthestPath == -1 || furthestVisited == -1) {
+            return;
+        }
+
+        // Concatenate paths.
+        int nappend = nvisited - furthestVisited;
+        reserveBack(furthestPath + nappend);
+        System.arraycopy(visited, furthestVisited, m_path, m_pathStart + furthestPath, nappend);
+        m_npath = furthestPath + nappend;
+    }
+
+    private void mergeCorridorStartShortcut(long[] visited, int nvisited) {
 
         int furthestPath = -1;
         int furthestVisited = -1;
 
         // Find furthest common polygon.
-        for (int i = path.size() - 1; i >= 0; --i) {
+        for (int i = m_npath - 1; i >= 0; --i) {
             boolean found = false;
-            for (int j = visited.size() - 1; j >= 0; --j) {
-                if (path.get(i) == visited.get(j)) {
+            for (int j = nvisited - 1; j >= 0; --j) {
+                if (m_path[m_pathStart + i] == visited[j]) {
                     furthestPath = i;
                     furthestVisited = j;
                     found = true;
@@ -166,24 +219,87 @@ public class PathCorridor {
             }
         }
 
-        // If no intersection found just return current path.
+        // If no intersection found just keep current path.
         if (furthestPath == -1 || furthestVisited <= 0) {
-            return path;
+            return;
         }
 
         // Concatenate paths.
 
         // Adjust beginning of the buffer to include the visited.
-        List<Long> result = visited.subList(0, furthestVisited);
-        result.addAll(path.subList(furthestPath, path.size()));
-        return result;
+        m_pathStart += furthestPath;
+        m_npath -= furthestPath;
+        reserveFront(furthestVisited);
+        m_pathStart -= furthestVisited;
+        m_npath += furthestVisited;
+        System.arraycopy(visited, 0, m_path, m_pathStart, furthestVisited);
+    }
+
+    /// Merges the polygons visited while moving the end of the corridor into the path, see
+    /// #mergeCorridorEndMoved(long[], int).
+    protected List<Long> mergeCorridorEndMoved(List<Long> path, List<Long> visited) {
+        PathCorridor corridor = copyOf(path);
+        long[] v = toArray(visited);
+        corridor.mergeCorridorEndMoved(v, v.length);
+        return corridor.getPath();
+    }
+
+    /// Merges a shortcut found from the start of the corridor into the path, see
+    /// #mergeCorridorStartShortcut(long[], int).
+    protected List<Long> mergeCorridorStartShortcut(List<Long> path, List<Long> visited) {
+        PathCorridor corridor = copyOf(path);
+        long[] v = toArray(visited);
+        corridor.mergeCorridorStartShortcut(v, v.length);
+        return corridor.getPath();
+    }
+
+    private static PathCorridor copyOf(List<Long> path) {
+        PathCorridor corridor = new PathCorridor();
+        corridor.setCorridor(new float[3], path);
+        return corridor;
+    }
+
+    private static long[] toArray(List<Long> refs) {
+        long[] a = new long[refs.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = refs.get(i);
+        }
+        return a;
+    }
+
+    /// Makes room for the number of polygons in front of the path, moving the path back in the buffer if needed.
+    private void reserveFront(int n) {
+        if (m_pathStart >= n) {
+            return;
+        }
+        int start = n + PATH_HEADROOM;
+        long[] path = m_path;
+        if (start + m_npath > path.length) {
+            path = new long[Math.max(path.length * 2, start + m_npath)];
+        }
+        System.arraycopy(m_path, m_pathStart, path, start, m_npath);
+        m_path = path;
+        m_pathStart = start;
+    }
+
+    /// Makes room for a path of the size, moving the path to the front of the buffer if needed.
+    private void reserveBack(int size) {
+        if (m_pathStart + size <= m_path.length) {
+            return;
+        }
+        long[] path = m_path;
+        if (size > path.length) {
+            path = new long[Math.max(path.length * 2, size)];
+        }
+        System.arraycopy(m_path, m_pathStart, path, 0, m_npath);
+        m_path = path;
+        m_pathStart = 0;
     }
 
     /**
      * Allocates the corridor's path buffer.
      */
     public PathCorridor() {
-        m_path = new ArrayList<>();
     }
 
     /**
@@ -195,8 +311,9 @@ public class PathCorridor {
      *            The new position in the corridor. [(x, y, z)]
      */
     public void reset(long ref, float[] pos) {
-        m_path.clear();
-        m_path.add(ref);
+        m_pathStart = 0;
+        m_path[0] = ref;
+        m_npath = 1;
         vCopy(m_pos, pos);
         vCopy(m_target, pos);
     }
@@ -221,31 +338,63 @@ public class PathCorridor {
      * @return Corners
      */
     public List<StraightPathItem> findCorners(int maxCorners, NavMeshQuery navquery, QueryFilter filter) {
-        List<StraightPathItem> path = new ArrayList<>();
-        Result<List<StraightPathItem>> result = navquery.findStraightPath(m_pos, m_target, m_path, maxCorners, 0);
-        if (result.succeeded()) {
-            path = result.result;
-            // Prune points in the beginning of the path which are too close.
-            int start = 0;
-            for (StraightPathItem spi : path) {
-                if ((spi.getFlags() & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0
-                        || vDist2DSqr(spi.getPos(), m_pos) > MIN_TARGET_DIST) {
-                    break;
-                }
-                start++;
+        int capacity = Math.min(maxCorners, m_npath + 2);
+        float[] cornerVerts = new float[capacity * 3];
+        int[] cornerFlags = new int[capacity];
+        long[] cornerPolys = new long[capacity];
+        int ncorners = findCorners(cornerVerts, cornerFlags, cornerPolys, capacity, navquery, filter);
+        List<StraightPathItem> path = new ArrayList<>(ncorners);
+        for (int i = 0; i < ncorners; i++) {
+            path.add(new StraightPathItem(Arrays.copyOfRange(cornerVerts, i * 3, i * 3 + 3), cornerFlags[i],
+                    cornerPolys[i]));
+        }
+        return path;
+    }
+
+    /**
+     * Allocation free variant of {@link #findCorners(int, NavMeshQuery, QueryFilter)} which writes the corners into
+     * the caller's buffers.
+     *
+     * @param cornerVerts
+     *            The corner vertices. [(x, y, z) * cornerCount] [Size: >= maxCorners * 3]
+     * @param cornerFlags
+     *            The flag for each corner. [(flag) * cornerCount] [Size: >= maxCorners]
+     * @param cornerPolys
+     *            The polygon reference for each corner. [(polyRef) * cornerCount] [Size: >= maxCorners]
+     * @param maxCorners
+     *            The maximum number of corners the buffers can hold.
+     * @return The number of corners.
+     */
+    public int findCorners(float[] cornerVerts, int[] cornerFlags, long[] cornerPolys, int maxCorners,
+            NavMeshQuery navquery, QueryFilter filter) {
+        int ncorners = navquery.findStraightPath(m_pos, m_target, m_path, m_pathStart, m_npath, cornerVerts,
+                cornerFlags, cornerPolys, maxCorners, 0);
+        if (ncorners <= 0) {
+            return 0;
+        }
+        // Prune points in the beginning of the path which are too close.
+        int start = 0;
+        while (start < ncorners) {
+            if ((cornerFlags[start] & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0
+                    || vDist2DSqr(m_pos, cornerVerts, start * 3) > MIN_TARGET_DIST) {
+                break;
             }
-            int end = path.size();
-            // Prune points after an off-mesh connection.
-            for (int i = start; i < path.size(); i++) {
-                StraightPathItem spi = path.get(i);
-                if ((spi.getFlags() & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0) {
-                    end = i + 1;
-                    break;
-                }
+            start++;
+        }
+        int end = ncorners;
+        // Prune points after an off-mesh connection.
+        for (int i = start; i < ncorners; i++) {
+            if ((cornerFlags[i] & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0) {
+                end = i + 1;
+                break;
             }
-            path = path.subList(start, end);
         }
-        return path;
+        if (start > 0) {
+            System.arraycopy(cornerVerts, start * 3, cornerVerts, 0, (end - start) * 3);
+            System.arraycopy(cornerFlags, start, cornerFlags, 0, end - start);
+            System.arraycopy(cornerPolys, start, cornerPolys, 0, end - start);
+        }
+        return end - start;
     }
 
     /**
@@ -291,14 +440,15 @@ public class PathCorridor {
         dist = Math.min(dist + 0.01f, pathOptimizationRange);
 
         // Adjust ray length.
-        float[] delta = vSub(next, m_pos);
-        float[] goal = vMad(m_pos, delta, pathOptimizationRange / dist);
+        float s = pathOptimizationRange / dist;
+        for (int i = 0; i < 3; i++) {
+            m_goal[i] = m_pos[i] + (next[i] - m_pos[i]) * s;
+        }
 
-        Result<RaycastHit> rc = navquery.raycast(m_path.get(0), m_pos, goal, filter, 0, 0);
-        if (rc.succeeded()) {
-            if (rc.result.path.size() > 1 && rc.result.t > 0.99f) {
-                m_path = mergeCorridorStartShortcut(m_path, rc.result.path);
-            }
+        int nvisited = navquery.raycast(m_path[m_pathStart], m_pos, m_goal, filter, 0, 0, m_hit, m_visited,
+                m_visited.length);
+        if (nvisited > 1 && m_hit[NavMeshQuery.RAYCAST_HIT_T] > 0.99f) {
+            mergeCorridorStartShortcut(m_visited, Math.min(nvisited, m_visited.length));
         }
     }
 
@@ -319,16 +469,21 @@ public class PathCorridor {
      *
      */
     boolean optimizePathTopology(NavMeshQuery navquery, QueryFilter filter, int maxIterations) {
-        if (m_path.size() < 3) {
+        if (m_npath < 3) {
             return false;
         }
 
-        navquery.initSlicedFindPath(m_path.get(0), m_path.get(m_path.size() - 1), m_pos, m_target, filter, 0);
+        navquery.initSlicedFindPath(m_path[m_pathStart], m_path[m_pathStart + m_npath - 1], m_pos, m_target, filter, 0);
         navquery.updateSlicedFindPath(maxIterations);
-        Result<List<Long>> fpr = navquery.finalizeSlicedFindPathPartial(m_path);
+        Result<List<Long>> fpr = navquery.finalizeSlicedFindPathPartial(getPath());
 
         if (fpr.succeeded() && fpr.result.size() > 0) {
-            m_path = mergeCorridorStartShortcut(m_path, fpr.result);
+            int nvisited = fpr.result.size();
+            long[] visited = nvisited <= m_visited.length ? m_visited : new long[nvisited];
+            for (int i = 0; i < nvisited; i++) {
+                visited[i] = fpr.result.get(i);
+            }
+            mergeCorridorStartShortcut(visited, nvisited);
             return true;
         }
 
@@ -338,20 +493,21 @@ public class PathCorridor {
     public boolean moveOverOffmeshConnection(long offMeshConRef, long[] refs, float[] start, float[] end,
             NavMeshQuery navquery) {
         // Advance the path up to and over the off-mesh connection.
-        long prevRef = 0, polyRef = m_path.get(0);
+        long prevRef = 0, polyRef = m_path[m_pathStart];
         int npos = 0;
-        while (npos < m_path.size() && polyRef != offMeshConRef) {
+        while (npos < m_npath && polyRef != offMeshConRef) {
             prevRef = polyRef;
-            polyRef = m_path.get(npos);
+            polyRef = m_path[m_pathStart + npos];
             npos++;
         }
-        if (npos == m_path.size()) {
+        if (npos == m_npath) {
             // Could not find offMeshConRef
             return false;
         }
 
         // Prune path
-        m_path = m_path.subList(npos, m_path.size());
+        m_pathStart += npos;
+        m_npath -= npos;
         refs[0] = prevRef;
         refs[1] = polyRef;
 
@@ -391,12 +547,13 @@ public class PathCorridor {
      */
     public boolean movePosition(float[] npos, NavMeshQuery navquery, QueryFilter filter) {
         // Move along navmesh and update new position.
-        Result<MoveAlongSurfaceResult> masResult = navquery.moveAlongSurface(m_path.get(0), m_pos, npos, filter);
-        if (masResult.succeeded()) {
-            m_path = mergeCorridorStartMoved(m_path, masResult.result.getVisited());
+        int nvisited = navquery.moveAlongSurface(m_path[m_pathStart], m_pos, npos, filter, m_movePos, m_visited,
+                m_visited.length);
+        if (nvisited >= 0) {
+            mergeCorridorStartMoved(m_visited, Math.min(nvisited, m_visited.length));
             // Adjust the position to stay on top of the navmesh.
-            vCopy(m_pos, masResult.result.getResultPos());
-            Result<Float> hr = navquery.getPolyHeight(m_path.get(0), masResult.result.getResultPos());
+            vCopy(m_pos, m_movePos);
+            Result<Float> hr = navquery.getPolyHeight(m_path[m_pathStart], m_movePos);
             if (hr.succeeded()) {
                 m_pos[1] = hr.result;
             }
@@ -424,17 +581,17 @@ public class PathCorridor {
      */
     public boolean moveTargetPosition(float[] npos, NavMeshQuery navquery, QueryFilter filter) {
         // Move along navmesh and update new position.
-        Result<MoveAlongSurfaceResult> masResult = navquery.moveAlongSurface(m_path.get(m_path.size() - 1), m_target,
-                npos, filter);
-        if (masResult.succeeded()) {
-            m_path = mergeCorridorEndMoved(m_path, masResult.result.getVisited());
+        int nvisited = navquery.moveAlongSurface(m_path[m_pathStart + m_npath - 1], m_target, npos, filter,
+                m_movePos, m_visited, m_visited.length);
+        if (nvisited >= 0) {
+            mergeCorridorEndMoved(m_visited, Math.min(nvisited, m_visited.length));
             // TODO: should we do that?
             // Adjust the position to stay on top of the navmesh.
             /*
              * float h = m_target[1]; navquery->getPolyHeight(m_path[m_npath-1],
              * result, &h); result[1] = h;
              */
-            vCopy(m_target, masResult.result.getResultPos());
+            vCopy(m_target, m_movePos);
             return true;
         }
         return false;
@@ -453,21 +610,46 @@ public class PathCorridor {
 
     public void setCorridor(float[] target, List<Long> path) {
         vCopy(m_target, target);
-        m_path = new ArrayList<>(path);
+        m_pathStart = 0;
+        m_npath = 0;
+        reserveBack(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            m_path[i] = path.get(i);
+        }
+        m_npath = path.size();
+    }
+
+    /**
+     * Loads a new path and target into the corridor, see {@link #setCorridor(float[], List)}.
+     *
+     * @param path
+     *            The path corridor. [(polyRef) * npath]
+     * @param npath
+     *            The number of polygons in the path.
+     */
+    public void setCorridor(float[] target, long[] path, int npath) {
+        vCopy(m_target, target);
+        m_pathStart = 0;
+        m_npath = 0;
+        reserveBack(npath);
+        System.arraycopy(path, 0, m_path, 0, npath);
+        m_npath = npath;
     }
 
     public void fixPathStart(long safeRef, float[] safePos) {
         vCopy(m_pos, safePos);
-        if (m_path.size() < 3 && m_path.size() > 0) {
-            Long p = m_path.get(m_path.size() - 1);
-            m_path.clear();
-            m_path.add(safeRef);
-            m_path.add(0L);
-            m_path.add(p);
+        if (m_npath < 3 && m_npath > 0) {
+            long p = m_path[m_pathStart + m_npath - 1];
+            m_pathStart = 0;
+            m_path[0] = safeRef;
+            m_path[1] = 0L;
+            m_path[2] = p;
+            m_npath = 3;
         } else {
-            m_path.clear();
-            m_path.add(safeRef);
-            m_path.add(0L);
+            m_pathStart = 0;
+            m_path[0] = safeRef;
+            m_path[1] = 0L;
+            m_npath = 2;
         }
 
     }
@@ -475,21 +657,22 @@ public class PathCorridor {
     public void trimInvalidPath(long safeRef, float[] safePos, NavMeshQuery navquery, QueryFilter filter) {
         // Keep valid path as far as possible.
         int n = 0;
-        while (n < m_path.size() && navquery.isValidPolyRef(m_path.get(n), filter)) {
+        while (n < m_npath && navquery.isValidPolyRef(m_path[m_pathStart + n], filter)) {
             n++;
         }
 
         if (n == 0) {
             // The first polyref is bad, use current safe values.
             vCopy(m_pos, safePos);
-            m_path.clear();
-            m_path.add(safeRef);
-        } else if (n < m_path.size()) {
-            m_path = m_path.subList(0, n);
+            m_pathStart = 0;
+            m_path[0] = safeRef;
+            m_npath = 1;
+        } else if (n < m_npath) {
             // The path is partially usable.
+            m_npath = n;
         }
         // Clamp target pos to last poly
-        Result<float[]> result = navquery.closestPointOnPolyBoundary(m_path.get(m_path.size() - 1), m_target);
+        Result<float[]> result = navquery.closestPointOnPolyBoundary(m_path[m_pathStart + m_npath - 1], m_target);
         if (result.succeeded()) {
             vCopy(m_target, result.result);
         }
@@ -510,9 +693,9 @@ public class PathCorridor {
      */
     boolean isValid(int maxLookAhead, NavMeshQuery navquery, QueryFilter filter) {
         // Check that all polygons still pass query filter.
-        int n = Math.min(m_path.size(), maxLookAhead);
+        int n = Math.min(m_npath, maxLookAhead);
         for (int i = 0; i < n; ++i) {
-            if (!navquery.isValidPolyRef(m_path.get(i), filter)) {
+            if (!navquery.isValidPolyRef(m_path[m_pathStart + i], filter)) {
                 return false;
             }
         }
@@ -544,7 +727,7 @@ public class PathCorridor {
      * @return The polygon reference id of the first polygon in the corridor. (Or zero if there is no path.)
      */
     public long getFirstPoly() {
-        return m_path.isEmpty() ? 0 : m_path.get(0);
+        return m_npath == 0 ? 0 : m_path[m_pathStart];
     }
 
     /**
@@ -553,14 +736,31 @@ public class PathCorridor {
      * @return The polygon reference id of the last polygon in the corridor. (Or zero if there is no path.)
      */
     public long getLastPoly() {
-        return m_path.isEmpty() ? 0 : m_path.get(m_path.size() - 1);
+        return m_npath == 0 ? 0 : m_path[m_pathStart + m_npath - 1];
     }
 
     /**
      * The corridor's path.
+     *
+     * @return A copy of the polygons in the corridor.
      */
     public List<Long> getPath() {
-        return m_path;
+        List<Long> path = new ArrayList<>(m_npath);
+        for (int i = 0; i < m_npath; i++) {
+            path.add(m_path[m_pathStart + i]);
+        }
+        return path;
+    }
+
+    /**
+     * Gets a polygon of the corridor's path.
+     *
+     * @param i
+     *            The index of the polygon. [Limits: 0 <= value < #getPathCount()]
+     * @return The polygon reference id.
+     */
+    public long getPathPoly(int i) {
+        return m_path[m_pathStart + i];
     }
 
     /**
@@ -569,6 +769,6 @@ public class PathCorridor {
      * @return The number of polygons in the current corridor path.
      */
     public int getPathCount() {
-        return m_path.size();
+        return m_npath;
     }
 }
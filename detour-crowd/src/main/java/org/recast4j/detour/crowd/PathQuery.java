@@ -18,8 +18,11 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour.crowd;
 
+import java.util.List;
+
 import org.recast4j.detour.NavMeshQuery;
 import org.recast4j.detour.QueryFilter;
+import org.recast4j.detour.Status;
 
 public class PathQuery {
     /// Path find start and end location.
@@ -28,5 +31,13 @@ public class PathQuery {
     QueryFilter filter; /// < TODO: This is potentially dangerous!
     final PathQueryResult result = new PathQueryResult();
     NavMeshQuery navQuery;
+    /// Requests with higher priority are serviced first, requests with equal priority in submission order.
+    int priority;
+    long seq;
+    /// System#nanoTime() after which the request is dropped if it has not been started, 0 for no deadline.
+    long deadline;
+    /// State of the search, copied to the result when the search completes.
+    Status status;
+    List<Long> path;
 
 }
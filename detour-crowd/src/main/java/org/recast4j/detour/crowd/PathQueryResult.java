@@ -26,4 +26,10 @@ import org.recast4j.detour.Status;
 public class PathQueryResult {
     Status status;
     List<Long> path = Collections.emptyList();
+    volatile boolean cancelled;
+
+    /// Abandons the request, the path queue drops it at the next opportunity.
+    void cancel() {
+        cancelled = true;
+    }
 }
@@ -20,19 +20,30 @@ package org.recast4j.detour.crowd;
 
 import static org.recast4j.detour.DetourCommon.vCopy;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
 
 import org.recast4j.detour.NavMesh;
 import org.recast4j.detour.NavMeshQuery;
 import org.recast4j.detour.QueryFilter;
 import org.recast4j.detour.Result;
+import org.recast4j.detour.Status;
 
 public class PathQueue {
 
-    private final CrowdConfig config;
-    private final Deque<PathQuery> queue = new LinkedList<>();
+    static final Comparator<PathQuery> PRIORITY_ORDER = (q1, q2) -> q1.priority != q2.priority
+            ? Integer.compare(q2.priority, q1.priority)
+            : Long.compare(q1.seq, q2.seq);
+
+    protected final CrowdConfig config;
+    private final Queue<PathQuery> queue = new PriorityQueue<>(PRIORITY_ORDER);
+    private PathQuery current;
+    private NavMeshQuery navQuery;
+    private long nextSeq;
+    /// Number of requests which have not been completed yet.
+    protected int pending;
 
     protected PathQueue(CrowdConfig config) {
         this.config = config;
@@ -43,35 +54,89 @@ public class PathQueue {
         // consumed.
         int iterCount = config.maxFindPathIterations;
         while (iterCount > 0) {
-            PathQuery q = queue.poll();
+            PathQuery q = current != null ? current : queue.poll();
+            current = null;
             if (q == null) {
                 break;
             }
-            // Handle query start.
-            if (q.result.status == null) {
-                q.navQuery = new NavMeshQuery(navMesh);
-                q.result.status = q.navQuery.initSlicedFindPath(q.startRef, q.endRef, q.startPos, q.endPos, q.filter, 0);
-            }
-            // Handle query in progress.
-            if (q.result.status.isInProgress()) {
-                Result<Integer> res = q.navQuery.updateSlicedFindPath(iterCount);
-                q.result.status = res.status;
-                iterCount -= res.result;
-            }
-            if (q.result.status.isSuccess()) {
-                Result<List<Long>> path = q.navQuery.finalizeSlicedFindPath();
-                q.result.status = path.status;
-                q.result.path = path.result;
+            if (isAbandoned(q)) {
+                q.status = Status.FAILURE;
+            } else {
+                if (q.status == null && (navQuery == null || navQuery.getAttachedNavMesh() != navMesh)) {
+                    navQuery = new NavMeshQuery(navMesh);
+                }
+                iterCount -= step(q, navQuery, iterCount);
             }
-            if (!(q.result.status.isFailed() || q.result.status.isSuccess())) {
-                queue.addFirst(q);
+            if (q.status.isFailed() || q.status.isSuccess()) {
+                complete(q);
+            } else {
+                current = q;
             }
         }
 
     }
 
+    /// Checks whether the query was cancelled or has not been started before its deadline.
+    static boolean isAbandoned(PathQuery q) {
+        return q.result.cancelled || (q.status == null && q.deadline != 0 && System.nanoTime() - q.deadline > 0);
+    }
+
+    /// Advances the search by up to maxIters iterations.
+    /// @return The number of iterations consumed.
+    static int step(PathQuery q, NavMeshQuery navQuery, int maxIters) {
+        int iters = 0;
+        // Handle query start.
+        if (q.status == null) {
+            q.navQuery = navQuery;
+            q.status = navQuery.initSlicedFindPath(q.startRef, q.endRef, q.startPos, q.endPos, q.filter, 0);
+        }
+        // Handle query in progress.
+        if (q.status.isInProgress()) {
+            Result<Integer> res = q.navQuery.updateSlicedFindPath(maxIters);
+            q.status = res.status;
+            iters = res.result;
+        }
+        if (q.status.isSuccess()) {
+            Result<List<Long>> path = q.navQuery.finalizeSlicedFindPath();
+            q.status = path.status;
+            q.path = path.result;
+        }
+        if (q.status.isFailed() || q.status.isSuccess()) {
+            q.navQuery = null;
+        }
+        return iters;
+    }
+
+    /// Publishes the outcome of the query to its result.
+    protected void complete(PathQuery q) {
+        if (q.path != null) {
+            q.result.path = q.path;
+        }
+        q.result.status = q.status;
+        pending--;
+    }
+
+    /// Returns the number of requests that are queued or being processed.
+    public int getPendingCount() {
+        return pending;
+    }
+
     protected PathQueryResult request(long startRef, long endRef, float[] startPos, float[] endPos, QueryFilter filter) {
-        if (queue.size() >= config.pathQueueSize) {
+        return request(startRef, endRef, startPos, endPos, filter, 0, 0);
+    }
+
+    /**
+     * Queues a path request.
+     *
+     * @param priority
+     *            Requests with higher priority are serviced first
+     * @param timeout
+     *            Max time in seconds the request may wait before it is started, 0 for no limit
+     * @return The result of the request, or null if the queue is full
+     */
+    protected PathQueryResult request(long startRef, long endRef, float[] startPos, float[] endPos, QueryFilter filter,
+            int priority, float timeout) {
+        if (pending >= config.pathQueueSize) {
             return null;
         }
         PathQuery q = new PathQuery();
@@ -81,8 +146,16 @@ public class PathQueue {
         q.endRef = endRef;
         q.result.status = null;
         q.filter = filter;
-        queue.add(q);
+        q.priority = priority;
+        q.seq = nextSeq++;
+        q.deadline = timeout > 0 ? System.nanoTime() + Math.max(1L, (long) (timeout * 1e9)) : 0;
+        pending++;
+        submit(q);
         return q.result;
     }
 
+    protected void submit(PathQuery q) {
+        queue.add(q);
+    }
+
 }
@@ -18,32 +18,62 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour.crowd;
 
-import static java.util.stream.Collectors.toList;
+import static org.recast4j.detour.DetourCommon.nextPow2;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
+/**
+ * Spatial hash of integer item ids, usually agent slots. Items are kept in a flat pool and chained per hash bucket, so
+ * clearing and rebuilding the grid does not allocate once the pool has grown to the number of items.
+ */
 public class ProximityGrid {
 
+    private static final int ITEM_ID = 0;
+    private static final int ITEM_X = 1;
+    private static final int ITEM_Y = 2;
+    private static final int ITEM_NEXT = 3;
+    private static final int ITEM_SIZE = 4;
+
     private final float m_cellSize;
     private final float m_invCellSize;
-    private final Map<ItemKey, List<CrowdAgent>> items;
+    private int[] m_pool;
+    private int m_poolHead;
+    private int[] m_buckets;
+    private int m_bucketsMask;
+
+    /**
+     * @param poolSize
+     *            Initial number of (item, cell) entries, the pool grows when it is exceeded
+     * @param cellSize
+     *            Size of the grid cells
+     */
+    public ProximityGrid(int poolSize, float cellSize) {
+        m_cellSize = cellSize;
+        m_invCellSize = 1.0f / cellSize;
+        m_pool = new int[Math.max(1, poolSize) * ITEM_SIZE];
+        m_buckets = new int[nextPow2(Math.max(1, poolSize))];
+        m_bucketsMask = m_buckets.length - 1;
+        clear();
+    }
 
-    public ProximityGrid(float m_cellSize) {
-        this.m_cellSize = m_cellSize;
-        m_invCellSize = 1.0f / m_cellSize;
-        items = new HashMap<>();
+    private static int hashPos2(int x, int y, int mask) {
+        return ((x * 73856093) ^ (y * 19349663)) & mask;
     }
 
     void clear() {
-        items.clear();
+        // Resize the buckets to the pool grown during the previous build.
+        int poolSize = m_pool.length / ITEM_SIZE;
+        if (m_buckets.length < poolSize) {
+            m_buckets = new int[nextPow2(poolSize)];
+            m_bucketsMask = m_buckets.length - 1;
+        }
+        Arrays.fill(m_buckets, -1);
+        m_poolHead = 0;
     }
 
-    void addItem(CrowdAgent agent, float minx, float miny, float maxx, float maxy) {
+    void addItem(int id, float minx, float miny, float maxx, float maxy) {
         int iminx = (int) Math.floor(minx * m_invCellSize);
         int iminy = (int) Math.floor(miny * m_invCellSize);
         int imaxx = (int) Math.floor(maxx * m_invCellSize);
@@ -51,79 +81,96 @@ public class ProximityGrid {
 
         for (int y = iminy; y <= imaxy; ++y) {
             for (int x = iminx; x <= imaxx; ++x) {
-                ItemKey key = new ItemKey(x, y);
-                List<CrowdAgent> ids = items.get(key);
-                if (ids == null) {
-                    ids = new ArrayList<>();
-                    items.put(key, ids);
+                if (m_poolHead * ITEM_SIZE == m_pool.length) {
+                    m_pool = Arrays.copyOf(m_pool, m_pool.length * 2);
                 }
-                ids.add(agent);
+                int idx = m_poolHead++;
+                int h = hashPos2(x, y, m_bucketsMask);
+                int i = idx * ITEM_SIZE;
+                m_pool[i + ITEM_ID] = id;
+                m_pool[i + ITEM_X] = x;
+                m_pool[i + ITEM_Y] = y;
+                m_pool[i + ITEM_NEXT] = m_buckets[h];
+                m_buckets[h] = idx;
             }
         }
     }
 
-    Set<CrowdAgent> queryItems(float minx, float miny, float maxx, float maxy) {
+    /**
+     * Finds the ids of the items overlapping the rectangle. Every id is reported once.
+     *
+     * @param ids
+     *            Buffer receiving the ids
+     * @param maxIds
+     *            Max number of ids to write
+     * @return Number of ids written to the buffer
+     */
+    int queryItems(float minx, float miny, float maxx, float maxy, int[] ids, int maxIds) {
         int iminx = (int) Math.floor(minx * m_invCellSize);
         int iminy = (int) Math.floor(miny * m_invCellSize);
         int imaxx = (int) Math.floor(maxx * m_invCellSize);
         int imaxy = (int) Math.floor(maxy * m_invCellSize);
 
-        Set<CrowdAgent> result = new HashSet<>();
+        int n = 0;
         for (int y = iminy; y <= imaxy; ++y) {
             for (int x = iminx; x <= imaxx; ++x) {
-                ItemKey key = new ItemKey(x, y);
-                List<CrowdAgent> ids = items.get(key);
-                if (ids != null) {
-                    result.addAll(ids);
+                int idx = m_buckets[hashPos2(x, y, m_bucketsMask)];
+                while (idx != -1) {
+                    int i = idx * ITEM_SIZE;
+                    if (m_pool[i + ITEM_X] == x && m_pool[i + ITEM_Y] == y) {
+                        // Check if the id exists already.
+                        int id = m_pool[i + ITEM_ID];
+                        int j = 0;
+                        while (j < n && ids[j] != id) {
+                            ++j;
+                        }
+                        // Item not found, add it.
+                        if (j == n) {
+                            if (n >= maxIds) {
+                                return n;
+                            }
+                            ids[n++] = id;
+                        }
+                    }
+                    idx = m_pool[i + ITEM_NEXT];
                 }
             }
         }
+        return n;
+    }
 
-        return result;
+    public int getItemCountAt(int x, int y) {
+        int n = 0;
+        int idx = m_buckets[hashPos2(x, y, m_bucketsMask)];
+        while (idx != -1) {
+            int i = idx * ITEM_SIZE;
+            if (m_pool[i + ITEM_X] == x && m_pool[i + ITEM_Y] == y) {
+                n++;
+            }
+            idx = m_pool[i + ITEM_NEXT];
+        }
+        return n;
     }
 
     public List<int[]> getItemCounts() {
-        return items.entrySet().stream().filter(e -> e.getValue() != null && e.getValue().size() > 0)
-                .map(e -> new int[] { e.getKey().x, e.getKey().y, e.getValue().size() }).collect(toList());
+        List<int[]> counts = new ArrayList<>();
+        for (int idx = 0; idx < m_poolHead; idx++) {
+            int i = idx * ITEM_SIZE;
+            int x = m_pool[i + ITEM_X];
+            int y = m_pool[i + ITEM_Y];
+            // Report each cell at the newest item in it, which is the first one in its bucket chain.
+            int first = m_buckets[hashPos2(x, y, m_bucketsMask)];
+            while (m_pool[first * ITEM_SIZE + ITEM_X] != x || m_pool[first * ITEM_SIZE + ITEM_Y] != y) {
+                first = m_pool[first * ITEM_SIZE + ITEM_NEXT];
+            }
+            if (first == idx) {
+                counts.add(new int[] { x, y, getItemCountAt(x, y) });
+            }
+        }
+        return counts;
     }
 
     public float getCellSize() {
         return m_cellSize;
     }
-
-    private static class ItemKey {
-
-        int x, y;
-
-        public ItemKey(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + x;
-            result = prime * result + y;
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            ItemKey other = (ItemKey) obj;
-            if (x != other.x)
-                return false;
-            if (y != other.y)
-                return false;
-            return true;
-        }
-
-    };
 }
@@ -121,7 +121,7 @@ public class AbstractCrowdTest {
         QueryFilter filter = crowd.getFilter(0);
         if (adjust) {
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                float[] vel = calcVel(ag.npos, pos, ag.params.maxSpeed);
+                float[] vel = calcVel(ag.getPosition(), pos, ag.params.maxSpeed);
                 crowd.requestMoveVelocity(ag, vel);
             }
         } else {
@@ -140,12 +140,30 @@ public class AbstractCrowdTest {
         return vel;
     }
 
+    protected float[][] simulate(int updateFlags, int ticks) {
+        addAgentGrid(4, 0.4f, updateFlags, 1, startPoss[0]);
+        setMoveTarget(endPoss[0], false);
+        for (int i = 0; i < ticks; i++) {
+            crowd.update(1 / 5f, null);
+        }
+        float[][] state = new float[agents.size()][];
+        for (int i = 0; i < agents.size(); i++) {
+            CrowdAgent ag = agents.get(i);
+            float[] pos = ag.getPosition();
+            float[] vel = ag.getVelocity();
+            state[i] = new float[] { pos[0], pos[1], pos[2], vel[0], vel[1], vel[2] };
+        }
+        return state;
+    }
+
     protected void dumpActiveAgents(int i) {
         System.out.println(crowd.getActiveAgents().size());
         for (CrowdAgent ag : crowd.getActiveAgents()) {
             System.out.println(ag.state + ", " + ag.targetState);
-            System.out.println(ag.npos[0] + ", " + ag.npos[1] + ", " + ag.npos[2]);
-            System.out.println(ag.nvel[0] + ", " + ag.nvel[1] + ", " + ag.nvel[2]);
+            float[] pos = ag.getPosition();
+            float[] nvel = ag.getAvoidanceVelocity();
+            System.out.println(pos[0] + ", " + pos[1] + ", " + pos[2]);
+            System.out.println(nvel[0] + ", " + nvel[1] + ", " + nvel[2]);
         }
     }
 
@@ -555,12 +555,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q0TVTA.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q0TVTA[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q0TVTA[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q0TVTA[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q0TVTA[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q0TVTA[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q0TVTA[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q0TVTA[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q0TVTA[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q0TVTA[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q0TVTA[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q0TVTA[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q0TVTA[i][5], offset(0.001f));
             }
         }
     }
@@ -575,12 +575,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q0TVT.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q0TVT[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q0TVT[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q0TVT[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q0TVT[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q0TVT[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q0TVT[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q0TVT[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q0TVT[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q0TVT[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q0TVT[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q0TVT[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q0TVT[i][5], offset(0.001f));
             }
         }
     }
@@ -594,12 +594,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q0TV.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q0TV[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q0TV[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q0TV[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q0TV[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q0TV[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q0TV[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q0TV[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q0TV[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q0TV[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q0TV[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q0TV[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q0TV[i][5], offset(0.001f));
             }
         }
     }
@@ -613,12 +613,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q0T.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q0T[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q0T[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q0T[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q0T[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q0T[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q0T[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q0T[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q0T[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q0T[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q0T[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q0T[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q0T[i][5], offset(0.001f));
             }
         }
     }
@@ -633,12 +633,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q1TVTA.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q1TVTA[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q1TVTA[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q1TVTA[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q1TVTA[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q1TVTA[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q1TVTA[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q1TVTA[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q1TVTA[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q1TVTA[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q1TVTA[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q1TVTA[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q1TVTA[i][5], offset(0.001f));
             }
         }
     }
@@ -653,12 +653,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q2TVTA.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][5], offset(0.001f));
             }
         }
     }
@@ -673,12 +673,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q3TVTA.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][5], offset(0.001f));
             }
         }
     }
@@ -694,12 +694,12 @@ public class Crowd1Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q3TVTAS.length; i++) {
             crowd.update(1 / 5f, null);
             for (CrowdAgent ag : crowd.getActiveAgents()) {
-                assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q3TVTAS[i][0], offset(0.001f));
-                assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q3TVTAS[i][1], offset(0.001f));
-                assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q3TVTAS[i][2], offset(0.001f));
-                assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q3TVTAS[i][3], offset(0.001f));
-                assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q3TVTAS[i][4], offset(0.001f));
-                assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q3TVTAS[i][5], offset(0.001f));
+                assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q3TVTAS[i][0], offset(0.001f));
+                assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q3TVTAS[i][1], offset(0.001f));
+                assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q3TVTAS[i][2], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q3TVTAS[i][3], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q3TVTAS[i][4], offset(0.001f));
+                assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q3TVTAS[i][5], offset(0.001f));
             }
         }
     }
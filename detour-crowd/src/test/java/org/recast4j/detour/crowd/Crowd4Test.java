@@ -306,12 +306,12 @@ public class Crowd4Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q2TVTA.length; i++) {
             crowd.update(1 / 5f, null);
             CrowdAgent ag = agents.get(2);
-            assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][0], offset(0.001f));
-            assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][1], offset(0.001f));
-            assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][2], offset(0.001f));
-            assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][3], offset(0.001f));
-            assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][4], offset(0.001f));
-            assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][5], offset(0.001f));
+            assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][0], offset(0.001f));
+            assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][1], offset(0.001f));
+            assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][2], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q2TVTA[i][3], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q2TVTA[i][4], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q2TVTA[i][5], offset(0.001f));
         }
     }
 
@@ -326,12 +326,12 @@ public class Crowd4Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q2TVTAS.length; i++) {
             crowd.update(1 / 5f, null);
             CrowdAgent ag = agents.get(2);
-            assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q2TVTAS[i][0], offset(0.001f));
-            assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q2TVTAS[i][1], offset(0.001f));
-            assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q2TVTAS[i][2], offset(0.001f));
-            assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q2TVTAS[i][3], offset(0.001f));
-            assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q2TVTAS[i][4], offset(0.001f));
-            assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q2TVTAS[i][5], offset(0.001f));
+            assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q2TVTAS[i][0], offset(0.001f));
+            assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q2TVTAS[i][1], offset(0.001f));
+            assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q2TVTAS[i][2], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q2TVTAS[i][3], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q2TVTAS[i][4], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q2TVTAS[i][5], offset(0.001f));
         }
     }
 
@@ -344,12 +344,12 @@ public class Crowd4Test extends AbstractCrowdTest {
         for (int i = 0; i < EXPECTED_A1Q2T.length; i++) {
             crowd.update(1 / 5f, null);
             CrowdAgent ag = agents.get(2);
-            assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q2T[i][0], offset(0.001f));
-            assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q2T[i][1], offset(0.001f));
-            assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q2T[i][2], offset(0.001f));
-            assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q2T[i][3], offset(0.001f));
-            assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q2T[i][4], offset(0.001f));
-            assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q2T[i][5], offset(0.001f));
+            assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q2T[i][0], offset(0.001f));
+            assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q2T[i][1], offset(0.001f));
+            assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q2T[i][2], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q2T[i][3], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q2T[i][4], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q2T[i][5], offset(0.001f));
         }
     }
 }
@@ -108,12 +108,12 @@ public class Crowd4VelocityTest extends AbstractCrowdTest {
                 setMoveTarget(startPoss[2], true);
             }
             CrowdAgent ag = agents.get(1);
-            assertThat(ag.npos[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][0], offset(0.001f));
-            assertThat(ag.npos[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][1], offset(0.001f));
-            assertThat(ag.npos[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][2], offset(0.001f));
-            assertThat(ag.nvel[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][3], offset(0.001f));
-            assertThat(ag.nvel[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][4], offset(0.001f));
-            assertThat(ag.nvel[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][5], offset(0.001f));
+            assertThat(ag.getPosition()[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][0], offset(0.001f));
+            assertThat(ag.getPosition()[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][1], offset(0.001f));
+            assertThat(ag.getPosition()[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][2], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[0]).isEqualTo(EXPECTED_A1Q3TVTA[i][3], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[1]).isEqualTo(EXPECTED_A1Q3TVTA[i][4], offset(0.001f));
+            assertThat(ag.getAvoidanceVelocity()[2]).isEqualTo(EXPECTED_A1Q3TVTA[i][5], offset(0.001f));
         }
     }
 
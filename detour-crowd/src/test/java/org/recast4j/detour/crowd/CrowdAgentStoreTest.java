@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CrowdAgentStoreTest extends AbstractCrowdTest {
+
+    @Test
+    public void testHandlesSurviveRemovalOfOtherAgents() {
+        addAgentGrid(2, 0.4f, 0, 0, startPoss[0]);
+        int handle = agents.get(3).getHandle();
+        crowd.removeAgent(agents.get(1));
+        assertThat(crowd.getAgent(handle)).isSameAs(agents.get(3));
+        assertThat(crowd.getAgent(agents.get(1).getHandle())).isNull();
+        assertThat(crowd.getActiveAgents()).containsExactly(agents.get(0), agents.get(2), agents.get(3));
+    }
+
+    @Test
+    public void testRemovedSlotIsReusedWithNewHandle() {
+        addAgentGrid(2, 0.4f, 0, 0, startPoss[0]);
+        CrowdAgent removed = agents.get(0);
+        List<CrowdAgent> before = crowd.getActiveAgents();
+        crowd.removeAgent(removed);
+        CrowdAgent added = crowd.addAgent(startPoss[0], getAgentParams(0, 0));
+        assertThat(added.getHandle()).isNotEqualTo(removed.getHandle());
+        assertThat(crowd.getAgent(removed.getHandle())).isNull();
+        assertThat(crowd.getAgent(added.getHandle())).isSameAs(added);
+        assertThat(crowd.getActiveAgents()).containsExactly(added, agents.get(1), agents.get(2), agents.get(3));
+        // Lists returned earlier are not affected, and the lists cannot be modified.
+        assertThat(before).containsExactly(agents.toArray());
+        assertThrows(UnsupportedOperationException.class, before::clear);
+        assertThrows(UnsupportedOperationException.class, () -> crowd.getActiveAgents().clear());
+    }
+
+    @Test
+    public void testStateSurvivesGrowthAndRemoval() {
+        addAgentGrid(5, 0.4f, 0, 0, startPoss[0]);
+        setMoveTarget(endPoss[0], false);
+        for (int i = 0; i < 5; i++) {
+            crowd.update(1 / 5f, null);
+        }
+        CrowdAgent removed = agents.get(0);
+        float[] pos = removed.getPosition();
+        float[] vel = removed.getVelocity();
+        assertThat(vel).isNotEqualTo(new float[3]);
+        crowd.removeAgent(removed);
+        // The reused slot does not change the removed agent.
+        CrowdAgent added = crowd.addAgent(startPoss[1], getAgentParams(0, 0));
+        assertThat(removed.getPosition()).isEqualTo(pos);
+        assertThat(removed.getVelocity()).isEqualTo(vel);
+        assertThat(added.getVelocity()).isEqualTo(new float[3]);
+        // Growing the store keeps the state of the agents.
+        pos = agents.get(24).getPosition();
+        addAgentGrid(5, 0.4f, 0, 0, startPoss[3]);
+        assertThat(agents.get(24).getPosition()).isEqualTo(pos);
+    }
+}
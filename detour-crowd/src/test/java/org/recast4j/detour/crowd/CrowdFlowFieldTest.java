@@ -0,0 +1,96 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.recast4j.detour.DetourCommon.vDist2D;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.crowd.CrowdAgent.MoveRequestState;
+
+public class CrowdFlowFieldTest extends AbstractCrowdTest {
+
+    private static final int UPDATE_FLAGS = CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS
+            | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE
+            | CrowdAgentParams.DT_CROWD_SHARED_DESTINATION;
+
+    @Test
+    public void testAgentsShareOneSearch() {
+        for (float[] startPos : startPoss) {
+            addAgentGrid(2, 0.4f, UPDATE_FLAGS, 1, startPos);
+        }
+        setMoveTarget(endPoss[0], false);
+        crowd.update(1 / 30f, null);
+
+        FlowFieldCache cache = crowd.getFlowFieldCache();
+        assertThat(cache.searches()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(crowd.metrics().pathRequests()).isEqualTo(0);
+        for (CrowdAgent ag : agents) {
+            assertThat(ag.targetState).isEqualTo(MoveRequestState.DT_CROWDAGENT_TARGET_VALID);
+            assertThat(ag.corridor.getLastPoly()).isEqualTo(ag.targetRef);
+        }
+
+        float[] dist = new float[agents.size()];
+        for (int i = 0; i < agents.size(); i++) {
+            dist[i] = vDist2D(agents.get(i).getPosition(), endPoss[0]);
+        }
+        for (int i = 0; i < 50; i++) {
+            crowd.update(1 / 30f, null);
+        }
+        for (int i = 0; i < agents.size(); i++) {
+            assertThat(vDist2D(agents.get(i).getPosition(), endPoss[0])).isLessThan(dist[i]);
+        }
+        assertThat(cache.searches()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFieldIsRecomputedWhenNavMeshChanges() {
+        addAgentGrid(2, 0.4f, UPDATE_FLAGS, 1, startPoss[0]);
+        setMoveTarget(endPoss[0], false);
+        crowd.update(1 / 30f, null);
+        assertThat(crowd.getFlowFieldCache().searches()).isEqualTo(1);
+
+        navmesh.setPolyFlags(startRefs[1], 1);
+        setMoveTarget(endPoss[0], false);
+        crowd.update(1 / 30f, null);
+        assertThat(crowd.getFlowFieldCache().searches()).isEqualTo(2);
+        for (CrowdAgent ag : agents) {
+            assertThat(ag.targetState).isEqualTo(MoveRequestState.DT_CROWDAGENT_TARGET_VALID);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFieldIsEvicted() {
+        crowd.config().flowFieldCacheSize = 2;
+        crowd = new Crowd(crowd.config(), navmesh);
+        addAgentGrid(1, 0.4f, UPDATE_FLAGS, 0, startPoss[0]);
+        for (int i = 0; i < 3; i++) {
+            setMoveTarget(endPoss[i], false);
+            crowd.update(1 / 30f, null);
+        }
+        assertThat(crowd.getFlowFieldCache().size()).isEqualTo(2);
+        setMoveTarget(endPoss[2], false);
+        crowd.update(1 / 30f, null);
+        assertThat(crowd.getFlowFieldCache().searches()).isEqualTo(3);
+        setMoveTarget(endPoss[0], false);
+        crowd.update(1 / 30f, null);
+        assertThat(crowd.getFlowFieldCache().searches()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.recast4j.detour.DetourCommon.vDist2D;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.crowd.CrowdAgent.CrowdAgentLod;
+
+public class CrowdLodTest extends AbstractCrowdTest {
+
+    private static final int UPDATE_FLAGS = CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS
+            | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS | CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO
+            | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE | CrowdAgentParams.DT_CROWD_SEPARATION;
+
+    @Test
+    public void testAgentsWithoutObserverAreFullySimulated() {
+        float[][] expected = simulate(UPDATE_FLAGS, 30);
+        agents.clear();
+        Crowd previous = crowd;
+        crowd = new Crowd(new CrowdConfig(0.6f), navmesh);
+        for (int i = 0; i < 4; i++) {
+            crowd.setObstacleAvoidanceParams(i, previous.getObstacleAvoidanceParams(i));
+        }
+        float[][] result = simulate(UPDATE_FLAGS | CrowdAgentParams.DT_CROWD_LOD, 30);
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(result[i]).containsExactly(expected[i]);
+        }
+        assertThat(crowd.telemetry().lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_FULL)).isEqualTo(16);
+        assertThat(crowd.telemetry().steppedAgents()).isEqualTo(16);
+    }
+
+    @Test
+    public void testTiersFollowObserverDistance() {
+        crowd.config().lodFullRange = 5f;
+        crowd.config().lodReducedRange = 20f;
+        float[] observer = { 1000f, 0f, 1000f };
+        crowd.addObserver(observer);
+        addAgentGrid(4, 0.4f, UPDATE_FLAGS | CrowdAgentParams.DT_CROWD_LOD, 1, startPoss[0]);
+        setMoveTarget(endPoss[0], false);
+
+        float dist = vDist2D(agents.get(0).getPosition(), endPoss[0]);
+        for (int i = 0; i < 20; i++) {
+            crowd.update(1 / 5f, null);
+            assertThat(crowd.telemetry().lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_CORRIDOR)).isEqualTo(16);
+            assertThat(crowd.telemetry().steppedAgents()).isEqualTo(4);
+        }
+        // Far agents still follow their corridor.
+        assertThat(vDist2D(agents.get(0).getPosition(), endPoss[0])).isLessThan(dist);
+        assertThat(agents.get(0).neis).isEmpty();
+
+        // Move the observer next to the agents.
+        observer[0] = agents.get(0).getPosition()[0] + 10f;
+        observer[2] = agents.get(0).getPosition()[2];
+        crowd.update(1 / 5f, null);
+        CrowdTelemetry telemetry = crowd.telemetry();
+        assertThat(telemetry.lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_FULL)
+                + telemetry.lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_REDUCED)).isEqualTo(16);
+        assertThat(telemetry.lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_REDUCED)).isGreaterThan(0);
+
+        crowd.removeObserver(observer);
+        crowd.update(1 / 5f, null);
+        assertThat(crowd.telemetry().lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_FULL)).isEqualTo(16);
+        for (CrowdAgent ag : agents) {
+            assertThat(ag.getLod()).isEqualTo(CrowdAgentLod.DT_CROWDAGENT_LOD_FULL);
+        }
+    }
+
+    @Test
+    public void testNeighboursIncludeAgentsNotStepped() {
+        crowd.config().lodFullRange = 0f;
+        crowd.config().lodReducedRange = 10000f;
+        crowd.addObserver(new float[] { 1000f, 0f, 1000f });
+        addAgentGrid(4, 0.4f, UPDATE_FLAGS | CrowdAgentParams.DT_CROWD_LOD, 1, startPoss[0]);
+        crowd.update(1 / 5f, null);
+        assertThat(crowd.telemetry().lodAgentCount(CrowdAgentLod.DT_CROWDAGENT_LOD_REDUCED)).isEqualTo(16);
+        assertThat(crowd.telemetry().steppedAgents()).isEqualTo(8);
+        // All agents are within the collision query range of each other, half of them are stepped in this update.
+        int withNeighbours = 0;
+        for (CrowdAgent ag : agents) {
+            if (!ag.neis.isEmpty()) {
+                assertThat(ag.neis).hasSize(15);
+                withNeighbours++;
+            }
+        }
+        assertThat(withNeighbours).isEqualTo(8);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.crowd.CrowdMetrics.Phase;
+
+public class CrowdMetricsTest extends AbstractCrowdTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.max()).isEqualTo(1_000_000);
+        assertThat(histogram.total()).isEqualTo(500_500_000L);
+        // Buckets are at most 1/8 of their lower bound wide
+        assertThat(histogram.percentile(0.5)).isBetween(500_000L, 562_500L);
+        assertThat(histogram.percentile(0.99)).isBetween(990_000L, 1_000_000L);
+        assertThat(histogram.percentile(1)).isEqualTo(1_000_000);
+        for (long v : new long[] { 0, 1, 7, 8, 9, 100, 12345, 1L << 30, 123_456_789_012L }) {
+            int index = LatencyHistogram.index(v);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(v);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(v);
+            }
+        }
+        histogram.reset();
+        assertThat(histogram.count()).isEqualTo(0);
+        assertThat(histogram.percentile(0.5)).isEqualTo(0);
+    }
+
+    @Test
+    public void testUpdateRecordsMetrics() {
+        int updateFlags = CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS
+                | CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE;
+        addAgentGrid(2, 0.3f, updateFlags, 1, startPoss[0]);
+        setMoveTarget(endPoss[0], false);
+        for (int i = 0; i < 10; i++) {
+            crowd.update(1 / 30f, null);
+        }
+        CrowdMetrics metrics = crowd.metrics();
+        assertThat(metrics.updates()).isEqualTo(10);
+        assertThat(metrics.phaseDuration(Phase.UPDATE).count()).isEqualTo(10);
+        assertThat(metrics.phaseDuration(Phase.PLAN_VELOCITY).count()).isEqualTo(10);
+        assertThat(metrics.velocitySamples()).isGreaterThan(0);
+        assertThat(metrics.pathRequests()).isEqualTo(4);
+        assertThat(metrics.rejectedPathRequests()).isEqualTo(0);
+        assertThat(metrics.pathWaitTime().count()).isEqualTo(4);
+        assertThat(metrics.pathQueueDepth()).isEqualTo(0);
+        assertThat(metrics.activeAgents()).isEqualTo(4);
+        assertThat(crowd.telemetry().executionTimings()).containsKey(Phase.PLAN_VELOCITY.label());
+
+        Map<String, Long> exported = new HashMap<>();
+        metrics.export(new CrowdMetricsExporter() {
+            @Override
+            public void counter(String name, long value) {
+                exported.put(name, value);
+            }
+
+            @Override
+            public void gauge(String name, double value) {
+                exported.put(name, (long) value);
+            }
+
+            @Override
+            public void histogram(String name, LatencyHistogram histogram) {
+                exported.put(name, histogram.count());
+            }
+        });
+        assertThat(exported.get("crowd.updates")).isEqualTo(10L);
+        assertThat(exported.get("crowd.activeAgents")).isEqualTo(4L);
+        assertThat(exported.get("crowd.phase.planVelocity")).isEqualTo(10L);
+
+        metrics.reset();
+        assertThat(metrics.updates()).isEqualTo(0);
+        assertThat(metrics.phaseDuration(Phase.UPDATE).count()).isEqualTo(0);
+    }
+}
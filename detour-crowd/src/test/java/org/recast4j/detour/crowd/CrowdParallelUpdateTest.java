@@ -0,0 +1,59 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+public class CrowdParallelUpdateTest extends AbstractCrowdTest {
+
+    @Test
+    public void testParallelUpdateMatchesSerialUpdate() {
+        int updateFlags = CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS
+                | CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE
+                | CrowdAgentParams.DT_CROWD_SEPARATION;
+        float[][] serial = simulate(updateFlags, 50);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CrowdConfig config = new CrowdConfig(0.6f);
+            config.updateParallelism = 4;
+            config.minAgentsPerWorker = 1;
+            config.updateExecutor = executor;
+            Crowd parallel = new Crowd(config, navmesh);
+            for (int i = 0; i < 4; i++) {
+                parallel.setObstacleAvoidanceParams(i, crowd.getObstacleAvoidanceParams(i));
+            }
+            crowd = parallel;
+            agents.clear();
+            float[][] result = simulate(updateFlags, 50);
+
+            assertThat(result.length).isEqualTo(serial.length);
+            for (int i = 0; i < serial.length; i++) {
+                assertThat(result[i]).containsExactly(serial[i]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
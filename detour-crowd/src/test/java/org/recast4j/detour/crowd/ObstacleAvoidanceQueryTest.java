@@ -0,0 +1,97 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.crowd.ObstacleAvoidanceQuery.ObstacleAvoidanceParams;
+import org.recast4j.detour.crowd.debug.ObstacleAvoidanceDebugData;
+
+public class ObstacleAvoidanceQueryTest {
+
+    @Test
+    public void testKernelMatchesScalarSampling() {
+        ObstacleAvoidanceQuery scalar = new ObstacleAvoidanceQuery(6, 8, null);
+        ObstacleAvoidanceQuery kernel = new ObstacleAvoidanceQuery(6, 8);
+        ObstacleAvoidanceParams params = new ObstacleAvoidanceParams();
+        Random random = new Random(42);
+        float[] expected = new float[3];
+        float[] actual = new float[3];
+        for (int i = 0; i < 500; i++) {
+            float[] pos = { random.nextFloat() * 10, 0, random.nextFloat() * 10 };
+            float[] vel = randomVelocity(random, 3.5f);
+            float[] dvel = randomVelocity(random, 3.5f);
+            float rad = 0.3f + random.nextFloat() * 0.5f;
+            scalar.reset();
+            kernel.reset();
+            int ncircles = random.nextInt(7);
+            for (int j = 0; j < ncircles; j++) {
+                float[] p = { pos[0] + random.nextFloat() * 6 - 3, 0, pos[2] + random.nextFloat() * 6 - 3 };
+                float[] v = randomVelocity(random, 3.5f);
+                float[] dv = randomVelocity(random, 3.5f);
+                float r = 0.3f + random.nextFloat() * 0.5f;
+                scalar.addCircle(p, r, v, dv);
+                kernel.addCircle(p, r, v, dv);
+            }
+            int nsegments = random.nextInt(9);
+            for (int j = 0; j < nsegments; j++) {
+                float[] p = { pos[0] + random.nextFloat() * 8 - 4, 0, pos[2] + random.nextFloat() * 8 - 4 };
+                float[] q = { p[0] + random.nextFloat() * 4 - 2, 0, p[2] + random.nextFloat() * 4 - 2 };
+                if (j == 0) {
+                    // Segment touching the agent
+                    q = new float[] { pos[0], 0, pos[2] };
+                }
+                scalar.addSegment(p, q);
+                kernel.addSegment(p, q);
+            }
+            params.gridSize = 9 + random.nextInt(25);
+            params.adaptiveDivs = 5 + random.nextInt(4);
+            params.adaptiveRings = 2 + random.nextInt(2);
+            params.adaptiveDepth = 1 + random.nextInt(5);
+
+            int ns = scalar.sampleVelocityGrid(pos, rad, 3.5f, vel, dvel, expected, params, null);
+            assertThat(kernel.sampleVelocityGrid(pos, rad, 3.5f, vel, dvel, actual, params, null)).isEqualTo(ns);
+            assertThat(actual).containsExactly(expected);
+
+            ns = scalar.sampleVelocityAdaptive(pos, rad, 3.5f, vel, dvel, expected, params, null);
+            assertThat(kernel.sampleVelocityAdaptive(pos, rad, 3.5f, vel, dvel, actual, params, null)).isEqualTo(ns);
+            assertThat(actual).containsExactly(expected);
+        }
+    }
+
+    @Test
+    public void testDebugDataRecordsScoredSamples() {
+        ObstacleAvoidanceQuery query = new ObstacleAvoidanceQuery(6, 8);
+        query.addCircle(new float[] { 1, 0, 0 }, 0.5f, new float[3], new float[3]);
+        ObstacleAvoidanceDebugData debug = new ObstacleAvoidanceDebugData(1024);
+        float[] nvel = new float[3];
+        int ns = query.sampleVelocityGrid(new float[3], 0.5f, 2f, new float[3], new float[] { 2, 0, 0 }, nvel,
+                new ObstacleAvoidanceParams(), debug);
+        assertThat(debug.getSampleCount()).isGreaterThan(0);
+        assertThat(debug.getSampleCount()).isLessThanOrEqualTo(ns);
+        assertThat(nvel[1]).isEqualTo(0f);
+    }
+
+    private static float[] randomVelocity(Random random, float vmax) {
+        return new float[] { (random.nextFloat() * 2 - 1) * vmax, 0, (random.nextFloat() * 2 - 1) * vmax };
+    }
+}
@@ -24,6 +24,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -34,13 +35,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.recast4j.detour.DefaultQueryFilter;
 import org.recast4j.detour.NavMeshQuery;
 import org.recast4j.detour.QueryFilter;
-import org.recast4j.detour.Result;
 import org.recast4j.detour.StraightPathItem;
 
 @ExtendWith(MockitoExtension.class)
 public class PathCorridorTest {
 
     private final PathCorridor corridor = new PathCorridor();
+    private static final int MAX_CORNERS = 8;
+
     private final QueryFilter filter = new DefaultQueryFilter();
     @Mock
     private NavMeshQuery query;
@@ -57,11 +59,15 @@ public class PathCorridorTest {
         straightPath.add(new StraightPathItem(new float[] { 12, 20, 30.00002f }, 0, 0));
         straightPath.add(new StraightPathItem(new float[] { 11f, 21, 32f }, 0, 0));
         straightPath.add(new StraightPathItem(new float[] { 11f, 21, 32f }, 0, 0));
-        Result<List<StraightPathItem>> result = Result.success(straightPath);
-        when(query.findStraightPath(any(), any(), any(), anyInt(), anyInt())).thenReturn(result);
-        List<StraightPathItem> path = corridor.findCorners(Integer.MAX_VALUE, query, filter);
-        assertThat(path).hasSize(4);
-        assertThat(path).containsExactlyElementsOf(straightPath);
+        mockStraightPath(straightPath);
+        float[] cornerVerts = new float[MAX_CORNERS * 3];
+        int[] cornerFlags = new int[MAX_CORNERS];
+        long[] cornerPolys = new long[MAX_CORNERS];
+        int ncorners = corridor.findCorners(cornerVerts, cornerFlags, cornerPolys, MAX_CORNERS, query, filter);
+        assertThat(ncorners).isEqualTo(4);
+        for (int i = 0; i < ncorners; i++) {
+            assertCorner(cornerVerts, cornerFlags, cornerPolys, i, straightPath.get(i));
+        }
     }
 
     @Test
@@ -72,11 +78,39 @@ public class PathCorridorTest {
         straightPath.add(new StraightPathItem(new float[] { 11f, 21, 32f }, 0, 0));
         straightPath.add(new StraightPathItem(new float[] { 12f, 22, 33f }, NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION, 0)); // offmesh
         straightPath.add(new StraightPathItem(new float[] { 11f, 21, 32f }, NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION, 0)); // offmesh
-        Result<List<StraightPathItem>> result = Result.success(straightPath);
-        when(query.findStraightPath(any(), any(), any(), anyInt(), anyInt())).thenReturn(result);
-        List<StraightPathItem> path = corridor.findCorners(Integer.MAX_VALUE, query, filter);
-        assertThat(path).hasSize(2);
-        assertThat(path).containsExactly(straightPath.get(2), straightPath.get(3));
+        mockStraightPath(straightPath);
+        float[] cornerVerts = new float[MAX_CORNERS * 3];
+        int[] cornerFlags = new int[MAX_CORNERS];
+        long[] cornerPolys = new long[MAX_CORNERS];
+        int ncorners = corridor.findCorners(cornerVerts, cornerFlags, cornerPolys, MAX_CORNERS, query, filter);
+        assertThat(ncorners).isEqualTo(2);
+        assertCorner(cornerVerts, cornerFlags, cornerPolys, 0, straightPath.get(2));
+        assertCorner(cornerVerts, cornerFlags, cornerPolys, 1, straightPath.get(3));
+    }
+
+    private void mockStraightPath(List<StraightPathItem> straightPath) {
+        when(query.findStraightPath(any(), any(), any(long[].class), anyInt(), anyInt(), any(float[].class),
+                any(int[].class), any(long[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+                    float[] verts = invocation.getArgument(5);
+                    int[] flags = invocation.getArgument(6);
+                    long[] refs = invocation.getArgument(7);
+                    int max = invocation.getArgument(8);
+                    int n = Math.min(max, straightPath.size());
+                    for (int i = 0; i < n; i++) {
+                        StraightPathItem item = straightPath.get(i);
+                        System.arraycopy(item.getPos(), 0, verts, i * 3, 3);
+                        flags[i] = item.getFlags();
+                        refs[i] = item.getRef();
+                    }
+                    return n;
+                });
+    }
+
+    private static void assertCorner(float[] cornerVerts, int[] cornerFlags, long[] cornerPolys, int i,
+            StraightPathItem expected) {
+        assertThat(Arrays.copyOfRange(cornerVerts, i * 3, i * 3 + 3)).containsExactly(expected.getPos());
+        assertThat(cornerFlags[i]).isEqualTo(expected.getFlags());
+        assertThat(cornerPolys[i]).isEqualTo(expected.getRef());
     }
 
     @Test
@@ -172,4 +206,20 @@ public class PathCorridorTest {
         assertThat(result).hasSize(3).containsExactly(3L, 1L, 2L);
     }
 
+    @Test
+    public void testMergeCorridorEndMovedAppendsVisitedPoints() {
+        List<Long> path = Arrays.asList(1L, 2L, 3L);
+        List<Long> visited = Arrays.asList(3L, 4L);
+        List<Long> result = corridor.mergeCorridorEndMoved(path, visited);
+        assertThat(result).hasSize(4).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void testMergeCorridorStartShortcutReplacesPathStart() {
+        List<Long> path = Arrays.asList(1L, 2L, 3L, 4L);
+        List<Long> visited = Arrays.asList(1L, 5L, 3L);
+        List<Long> result = corridor.mergeCorridorStartShortcut(path, visited);
+        assertThat(result).hasSize(4).containsExactly(1L, 5L, 3L, 4L);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.DefaultQueryFilter;
+import org.recast4j.detour.QueryFilter;
+import org.recast4j.detour.crowd.CrowdAgent.MoveRequestState;
+
+public class PathQueueTest extends AbstractCrowdTest {
+
+    @Test
+    public void testHigherPriorityIsServicedFirst() {
+        CrowdConfig config = new CrowdConfig(0.6f);
+        config.maxFindPathIterations = 1;
+        PathQueue queue = new PathQueue(config);
+        QueryFilter filter = new DefaultQueryFilter();
+        PathQueryResult low = queue.request(startRefs[0], endRefs[0], startPoss[0], endPoss[0], filter, 0, 0);
+        PathQueryResult high = queue.request(startRefs[1], endRefs[1], startPoss[1], endPoss[1], filter, 5, 0);
+        while (low.status == null && high.status == null) {
+            queue.update(navmesh);
+        }
+        assertThat(high.status).isNotNull();
+        assertThat(low.status).isNull();
+        while (low.status == null) {
+            queue.update(navmesh);
+        }
+        assertThat(high.status.isSuccess()).isTrue();
+        assertThat(low.status.isSuccess()).isTrue();
+    }
+
+    @Test
+    public void testCancelledRequestIsDropped() {
+        CrowdConfig config = new CrowdConfig(0.6f);
+        config.pathQueueSize = 2;
+        PathQueue queue = new PathQueue(config);
+        QueryFilter filter = new DefaultQueryFilter();
+        PathQueryResult cancelled = queue.request(startRefs[0], endRefs[0], startPoss[0], endPoss[0], filter, 0, 0);
+        PathQueryResult other = queue.request(startRefs[1], endRefs[1], startPoss[1], endPoss[1], filter, 0, 0);
+        assertThat(queue.request(startRefs[2], endRefs[2], startPoss[2], endPoss[2], filter, 0, 0)).isNull();
+        cancelled.cancel();
+        while (other.status == null) {
+            queue.update(navmesh);
+        }
+        assertThat(cancelled.status.isFailed()).isTrue();
+        assertThat(other.status.isSuccess()).isTrue();
+        assertThat(other.path).isNotEmpty();
+    }
+
+    @Test
+    public void testAsyncPathQueueDeliversResults() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CrowdConfig config = new CrowdConfig(0.6f);
+            config.pathQueueThreads = 2;
+            config.pathQueueExecutor = executor;
+            config.maxTargetFindPathIterations = 1;
+            crowd = new Crowd(config, navmesh);
+            addAgentGrid(3, 0.4f, CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS, 0, startPoss[0]);
+            setMoveTarget(endPoss[4], false);
+            for (int i = 0; i < 1000 && !allAgentsHaveValidTarget(); i++) {
+                crowd.update(1 / 30f, null);
+                Thread.sleep(1);
+            }
+            assertThat(allAgentsHaveValidTarget()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private boolean allAgentsHaveValidTarget() {
+        for (CrowdAgent ag : agents) {
+            if (ag.targetState != MoveRequestState.DT_CROWDAGENT_TARGET_VALID) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class ProximityGridTest {
+
+    @Test
+    public void testQueryReturnsEachItemOnce() {
+        ProximityGrid grid = new ProximityGrid(4, 1f);
+        // Item 0 spans four cells, the pool has to grow.
+        grid.addItem(0, 0.5f, 0.5f, 1.5f, 1.5f);
+        grid.addItem(1, 3.2f, 3.2f, 3.8f, 3.8f);
+        grid.addItem(2, -1.8f, 0.2f, -1.2f, 0.8f);
+
+        int[] ids = new int[8];
+        int n = grid.queryItems(0f, 0f, 4f, 4f, ids, ids.length);
+        int[] found = Arrays.copyOf(ids, n);
+        Arrays.sort(found);
+        assertThat(found).containsExactly(0, 1);
+
+        n = grid.queryItems(-2f, 0f, 0.6f, 0.6f, ids, ids.length);
+        found = Arrays.copyOf(ids, n);
+        Arrays.sort(found);
+        assertThat(found).containsExactly(0, 2);
+
+        assertThat(grid.getItemCountAt(1, 1)).isEqualTo(1);
+        assertThat(grid.getItemCounts()).hasSize(6);
+    }
+
+    @Test
+    public void testQueryIsLimitedToMaxIds() {
+        ProximityGrid grid = new ProximityGrid(16, 1f);
+        for (int i = 0; i < 5; i++) {
+            grid.addItem(i, 0.1f, 0.1f, 0.9f, 0.9f);
+        }
+        int[] ids = new int[5];
+        assertThat(grid.queryItems(0f, 0f, 1f, 1f, ids, 3)).isEqualTo(3);
+        assertThat(grid.queryItems(0f, 0f, 1f, 1f, ids, 5)).isEqualTo(5);
+    }
+
+    @Test
+    public void testClearRemovesItems() {
+        ProximityGrid grid = new ProximityGrid(1, 1f);
+        for (int i = 0; i < 10; i++) {
+            grid.addItem(i, i, 0f, i + 0.5f, 0.5f);
+        }
+        grid.clear();
+        int[] ids = new int[10];
+        assertThat(grid.queryItems(0f, 0f, 10f, 1f, ids, ids.length)).isEqualTo(0);
+        grid.addItem(7, 2.1f, 0.1f, 2.2f, 0.2f);
+        assertThat(grid.queryItems(0f, 0f, 10f, 1f, ids, ids.length)).isEqualTo(1);
+        assertThat(ids[0]).isEqualTo(7);
+    }
+}
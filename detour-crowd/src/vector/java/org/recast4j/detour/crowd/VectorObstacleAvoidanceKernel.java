@@ -0,0 +1,136 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.recast4j.detour.crowd.ObstacleAvoidanceQuery.ObstacleAvoidanceParams;
+
+/// Scores the candidate velocities with the Vector API, one candidate per lane. Every lane computes the same float
+/// operations as ObstacleAvoidanceQuery.processSample but without the early out, so the penalties are bit exact.
+class VectorObstacleAvoidanceKernel implements ObstacleAvoidanceKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final float EPS = 0.0001f;
+
+    @Override
+    public void score(ObstacleAvoidanceQuery q, int n) {
+        ObstacleAvoidanceParams params = q.m_params;
+        float[] candx = q.m_candx;
+        float[] candz = q.m_candz;
+        float[] pen = q.m_candPen;
+        for (int i = 0; i < n; i += SPECIES.length()) {
+            VectorMask<Float> m = SPECIES.indexInRange(i, n);
+            FloatVector vcx = FloatVector.fromArray(SPECIES, candx, i, m);
+            FloatVector vcz = FloatVector.fromArray(SPECIES, candz, i, m);
+
+            // penalty for straying away from the desired and current velocities
+            FloatVector vpen = dist(vcx, vcz, q.m_dvelx, q.m_dvelz).mul(q.m_invVmax).mul(params.weightDesVel);
+            FloatVector vcpen = dist(vcx, vcz, q.m_velx, q.m_velz).mul(q.m_invVmax).mul(params.weightCurVel);
+
+            FloatVector tmin = FloatVector.broadcast(SPECIES, params.horizTime);
+            FloatVector side = FloatVector.zero(SPECIES);
+
+            for (int c = 0; c < q.m_ncircles; ++c) {
+                // RVO
+                FloatVector vabx = vcx.mul(2f).sub(q.m_velx).sub(q.m_cvelx[c]);
+                FloatVector vabz = vcz.mul(2f).sub(q.m_velz).sub(q.m_cvelz[c]);
+
+                // Side
+                FloatVector dp = vabx.mul(q.m_cdpx[c]).add(vabz.mul(q.m_cdpz[c])).mul(0.5f).add(0.5f);
+                FloatVector np = vabx.mul(q.m_cnpx[c]).add(vabz.mul(q.m_cnpz[c])).mul(2f);
+                side = side.add(dp.min(np).min(1.0f).max(0.0f));
+
+                // Sweep circle against circle.
+                float sx = q.m_cpx[c] - q.m_posx;
+                float sz = q.m_cpz[c] - q.m_posz;
+                float r = q.m_rad + q.m_crad[c];
+                float cc = sx * sx + sz * sz - r * r;
+                FloatVector a = vabx.mul(vabx).add(vabz.mul(vabz));
+                FloatVector b = vabx.mul(sx).add(vabz.mul(sz));
+                FloatVector d = b.mul(b).sub(a.mul(cc));
+                VectorMask<Float> hit = a.compare(VectorOperators.LT, EPS).not()
+                        .and(d.compare(VectorOperators.LT, 0.0f).not());
+                FloatVector ia = FloatVector.broadcast(SPECIES, 1.0f).div(a);
+                FloatVector rd = d.sqrt();
+                FloatVector htmin = b.sub(rd).mul(ia);
+                FloatVector htmax = b.add(rd).mul(ia);
+
+                // Handle overlapping obstacles.
+                VectorMask<Float> overlap = htmin.compare(VectorOperators.LT, 0.0f)
+                        .and(htmax.compare(VectorOperators.GT, 0.0f));
+                htmin = htmin.blend(htmin.neg().mul(0.5f), overlap);
+
+                VectorMask<Float> closer = hit.and(htmin.compare(VectorOperators.GE, 0.0f))
+                        .and(htmin.compare(VectorOperators.LT, tmin));
+                tmin = tmin.blend(htmin, closer);
+            }
+
+            for (int s = 0; s < q.m_nsegments; ++s) {
+                float vx = q.m_sqx[s] - q.m_spx[s];
+                float vz = q.m_sqz[s] - q.m_spz[s];
+                FloatVector htmin;
+                VectorMask<Float> hit;
+                if (q.m_stouch[s]) {
+                    // If the velocity is pointing towards the segment, no collision, else immediate collision.
+                    hit = vcx.mul(-vz).add(vcz.mul(vx)).compare(VectorOperators.LT, 0.0f).not();
+                    htmin = FloatVector.zero(SPECIES);
+                } else {
+                    // Intersect ray with segment.
+                    float wx = q.m_posx - q.m_spx[s];
+                    float wz = q.m_posz - q.m_spz[s];
+                    FloatVector d = vcz.mul(vx).sub(vcx.mul(vz));
+                    hit = d.abs().compare(VectorOperators.LT, 1e-6f).not();
+                    FloatVector id = FloatVector.broadcast(SPECIES, 1.0f).div(d);
+                    FloatVector t = id.mul(vz * wx - vx * wz);
+                    FloatVector u = vcz.mul(wx).sub(vcx.mul(wz)).mul(id);
+                    hit = hit.and(outside(t).not()).and(outside(u).not());
+                    htmin = t;
+                }
+
+                // Avoid less when facing walls.
+                htmin = htmin.mul(2.0f);
+                tmin = tmin.blend(htmin, hit.and(htmin.compare(VectorOperators.LT, tmin)));
+            }
+
+            // Normalize side bias, to prevent it dominating too much.
+            if (q.m_ncircles != 0) {
+                side = side.div(q.m_ncircles);
+            }
+
+            FloatVector spen = side.mul(params.weightSide);
+            FloatVector tpen = FloatVector.broadcast(SPECIES, 1.0f).div(tmin.mul(q.m_invHorizTime).add(0.1f))
+                    .mul(params.weightToi);
+            vpen.add(vcpen).add(spen).add(tpen).intoArray(pen, i, m);
+        }
+    }
+
+    private static FloatVector dist(FloatVector vcx, FloatVector vcz, float x, float z) {
+        FloatVector dx = FloatVector.broadcast(SPECIES, x).sub(vcx);
+        FloatVector dz = FloatVector.broadcast(SPECIES, z).sub(vcz);
+        return dx.mul(dx).add(dz.mul(dz)).sqrt();
+    }
+
+    private static VectorMask<Float> outside(FloatVector v) {
+        return v.compare(VectorOperators.LT, 0.0f).or(v.compare(VectorOperators.GT, 1.0f));
+    }
+}
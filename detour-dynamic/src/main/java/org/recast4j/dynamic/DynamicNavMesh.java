@@ -28,7 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -54,8 +56,11 @@ public class DynamicNavMesh {
     private final NavMeshParams navMeshParams;
     private final Queue<UpdateQueueItem> updateQueue = new LinkedBlockingQueue<>();
     private final AtomicLong currentColliderId = new AtomicLong();
-    private NavMesh navMesh;
-    private boolean dirty = true;
+    private final Set<DynamicTile> dirtyTiles = ConcurrentHashMap.newKeySet();
+    /** Nav mesh patched in place with rebuilt tiles, {@link #navMesh} is a snapshot of it. */
+    private NavMesh writer;
+    /** Volatile, so threads reading {@link #navMesh()} see a fully built snapshot. */
+    private volatile NavMesh navMesh;
 
     public DynamicNavMesh(VoxelFile voxelFile) {
         config = new DynamicNavMeshConfig(voxelFile.useTiles, voxelFile.tileSizeX, voxelFile.tileSizeZ, voxelFile.cellSize);
@@ -86,6 +91,10 @@ public class DynamicNavMesh {
         telemetry = new Telemetry();
     }
 
+    /**
+     * @return Read-only snapshot of the nav mesh as of the last build or update. Snapshots are not affected by later
+     *         updates, so queries running on them do not need any synchronization.
+     */
     public NavMesh navMesh() {
         return navMesh;
     }
@@ -206,18 +215,28 @@ public class DynamicNavMesh {
     private void rebuild(DynamicTile tile) {
         NavMeshDataCreateParams params = new NavMeshDataCreateParams();
         params.walkableHeight = config.walkableHeight;
-        dirty = dirty | tile.build(builder, config, telemetry);
+        if (tile.build(builder, config, telemetry)) {
+            dirtyTiles.add(tile);
+        }
     }
 
     private boolean updateNavMesh() {
-        if (dirty) {
-            dirty = false;
-            NavMesh navMesh = new NavMesh(navMeshParams, MAX_VERTS_PER_POLY);
-            tiles.values().forEach(t -> t.addTo(navMesh));
-            this.navMesh = navMesh;
-            return true;
+        if (writer == null) {
+            if (navMesh != null && dirtyTiles.isEmpty()) {
+                return false;
+            }
+            writer = new NavMesh(navMeshParams, MAX_VERTS_PER_POLY);
+            tiles.values().forEach(t -> t.addTo(writer));
+        } else if (!dirtyTiles.isEmpty()) {
+            // Only the rebuilt tiles (and the links of their neighbours) are replaced, the rest is shared with the
+            // previous snapshot.
+            dirtyTiles.forEach(t -> t.replaceIn(writer));
+        } else {
+            return false;
         }
-        return false;
+        dirtyTiles.clear();
+        navMesh = writer.snapshot();
+        return true;
     }
 
     private DynamicTile getTileAt(int x, int z) {
@@ -243,7 +262,9 @@ public class DynamicNavMesh {
                 t.meshData(tiles.get(0).data);
             }
         });
-        navMesh = mesh;
-        dirty = false;
+        // The given nav mesh is never modified, the first update builds a new writer from the tiles.
+        writer = null;
+        navMesh = mesh.snapshot();
+        dirtyTiles.clear();
     }
 }
@@ -155,12 +155,14 @@ class DynamicTile {
     }
 
     void addTo(NavMesh navMesh) {
-        if (meshData != null) {
-            id = navMesh.addTile(meshData, 0, 0);
-        } else {
+        id = meshData != null ? navMesh.addTile(meshData, 0, 0) : 0;
+    }
+
+    void replaceIn(NavMesh navMesh) {
+        if (id != 0) {
             navMesh.removeTile(id);
-            id = 0;
         }
+        addTo(navMesh);
     }
 
     void meshData(MeshData meshData) {
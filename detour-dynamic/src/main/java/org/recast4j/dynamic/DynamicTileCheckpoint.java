@@ -18,12 +18,9 @@ freely, subject to the following restrictions:
 
 package org.recast4j.dynamic;
 
-import static org.recast4j.detour.DetourCommon.vCopy;
-
 import java.util.Set;
 
 import org.recast4j.recast.Heightfield;
-import org.recast4j.recast.Span;
 
 public class DynamicTileCheckpoint {
 
@@ -32,32 +29,7 @@ public class DynamicTileCheckpoint {
 
     public DynamicTileCheckpoint(Heightfield heightfield, Set<Long> colliders) {
         this.colliders = colliders;
-        this.heightfield = clone(heightfield);
-    }
-
-    private Heightfield clone(Heightfield source) {
-        Heightfield clone = new Heightfield(source.width, source.height, vCopy(source.bmin), vCopy(source.bmax), source.cs,
-                source.ch, source.borderSize);
-        for (int z = 0, pz = 0; z < source.height; z++, pz += source.width) {
-            for (int x = 0; x < source.width; x++) {
-                Span span = source.spans[pz + x];
-                Span prevCopy = null;
-                while (span != null) {
-                    Span copy = new Span();
-                    copy.smin = span.smin;
-                    copy.smax = span.smax;
-                    copy.area = span.area;
-                    if (prevCopy == null) {
-                        clone.spans[pz + x] = copy;
-                    } else {
-                        prevCopy.next = copy;
-                    }
-                    prevCopy = copy;
-                    span = span.next;
-                }
-            }
-        }
-        return clone;
+        this.heightfield = new Heightfield(heightfield);
     }
 
 }
@@ -18,11 +18,13 @@ freely, subject to the following restrictions:
 
 package org.recast4j.dynamic;
 
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
+
 import java.util.Optional;
 import java.util.function.BiFunction;
 
 import org.recast4j.recast.Heightfield;
-import org.recast4j.recast.Span;
+import org.recast4j.recast.SpanPool;
 
 /**
  * Voxel raycast based on the algorithm described in
@@ -134,12 +136,13 @@ public class VoxelQuery {
                     float y2 = start[1] + ty * (tMin + Math.min(tMaxX, tMaxZ)) - hf.bmin[1];
                     float ymin = Math.min(y1, y2) / hf.ch;
                     float ymax = Math.max(y1, y2) / hf.ch;
-                    Span span = hf.spans[sx + sz * hf.width];
-                    while (span != null) {
-                        if (span.smin <= ymin && span.smax >= ymax) {
+                    SpanPool pool = hf.spanPool;
+                    int span = hf.spans[sx + sz * hf.width];
+                    while (span != RC_NULL_SPAN) {
+                        if (pool.smin(span) <= ymin && pool.smax(span) >= ymax) {
                             return Optional.of(Math.min(1, tMin + t));
                         }
-                        span = span.next;
+                        span = pool.next(span);
                     }
                 }
                 if ((dx > 0 ? sx >= ex : sx <= ex) && (dz > 0 ? sz >= ez : sz <= ez)) {
@@ -102,6 +102,10 @@ public class VoxelFile {
         f.bounds = new float[] { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
                 Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
         for (RecastBuilderResult r : results) {
+            if (r.getSolidHeightfield() == null) {
+                throw new IllegalArgumentException("Tile " + r.tileX + "," + r.tileZ
+                        + " has no solid heightfield, build the tiles with new RecastBuilder(listener, true)");
+            }
             f.tiles.add(new VoxelTile(r.tileX, r.tileZ, r.getSolidHeightfield()));
             float pad = r.getSolidHeightfield().borderSize * r.getSolidHeightfield().cs;
             f.bounds[0] = Math.min(f.bounds[0], r.getSolidHeightfield().bmin[0] + pad);
@@ -24,12 +24,13 @@ import static org.recast4j.dynamic.io.ByteUtils.getShortBE;
 import static org.recast4j.dynamic.io.ByteUtils.getShortLE;
 import static org.recast4j.dynamic.io.ByteUtils.putInt;
 import static org.recast4j.dynamic.io.ByteUtils.putShort;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.recast4j.recast.Heightfield;
-import org.recast4j.recast.Span;
+import org.recast4j.recast.SpanPool;
 
 public class VoxelTile {
 
@@ -79,24 +80,25 @@ public class VoxelTile {
 
     private Heightfield heightfieldBE() {
         Heightfield hf = new Heightfield(width, depth, boundsMin, boundsMax, cellSize, cellHeight, borderSize);
+        SpanPool pool = hf.spanPool;
         int position = 0;
         for (int z = 0, pz = 0; z < depth; z++, pz += width) {
             for (int x = 0; x < width; x++) {
-                Span prev = null;
+                int prev = RC_NULL_SPAN;
                 int spanCount = getShortBE(spanData, position);
                 position += 2;
                 for (int s = 0; s < spanCount; s++) {
-                    Span span = new Span();
-                    span.smin = getIntBE(spanData, position);
+                    int smin = getIntBE(spanData, position);
                     position += 4;
-                    span.smax = getIntBE(spanData, position);
+                    int smax = getIntBE(spanData, position);
                     position += 4;
-                    span.area = getIntBE(spanData, position);
+                    int area = getIntBE(spanData, position);
                     position += 4;
-                    if (prev == null) {
+                    int span = pool.alloc(smin, smax, area);
+                    if (prev == RC_NULL_SPAN) {
                         hf.spans[pz + x] = span;
                     } else {
-                        prev.next = span;
+                        pool.setNext(prev, span);
                     }
                     prev = span;
                 }
@@ -107,24 +109,25 @@ public class VoxelTile {
 
     private Heightfield heightfieldLE() {
         Heightfield hf = new Heightfield(width, depth, boundsMin, boundsMax, cellSize, cellHeight, borderSize);
+        SpanPool pool = hf.spanPool;
         int position = 0;
         for (int z = 0, pz = 0; z < depth; z++, pz += width) {
             for (int x = 0; x < width; x++) {
-                Span prev = null;
+                int prev = RC_NULL_SPAN;
                 int spanCount = getShortLE(spanData, position);
                 position += 2;
                 for (int s = 0; s < spanCount; s++) {
-                    Span span = new Span();
-                    span.smin = getIntLE(spanData, position);
+                    int smin = getIntLE(spanData, position);
                     position += 4;
-                    span.smax = getIntLE(spanData, position);
+                    int smax = getIntLE(spanData, position);
                     position += 4;
-                    span.area = getIntLE(spanData, position);
+                    int area = getIntLE(spanData, position);
                     position += 4;
-                    if (prev == null) {
+                    int span = pool.alloc(smin, smax, area);
+                    if (prev == RC_NULL_SPAN) {
                         hf.spans[pz + x] = span;
                     } else {
-                        prev.next = span;
+                        pool.setNext(prev, span);
                     }
                     prev = span;
                 }
@@ -134,15 +137,16 @@ public class VoxelTile {
     }
 
     private byte[] serializeSpans(Heightfield heightfield, ByteOrder order) {
+        SpanPool pool = heightfield.spanPool;
         int[] counts = new int[heightfield.width * heightfield.height];
         int totalCount = 0;
         for (int z = 0, pz = 0; z < heightfield.height; z++, pz += heightfield.width) {
             for (int x = 0; x < heightfield.width; x++) {
-                Span span = heightfield.spans[pz + x];
-                while (span != null) {
+                int span = heightfield.spans[pz + x];
+                while (span != RC_NULL_SPAN) {
                     counts[pz + x]++;
                     totalCount++;
-                    span = span.next;
+                    span = pool.next(span);
                 }
             }
         }
@@ -151,12 +155,12 @@ public class VoxelTile {
         for (int z = 0, pz = 0; z < heightfield.height; z++, pz += heightfield.width) {
             for (int x = 0; x < heightfield.width; x++) {
                 position = putShort(counts[pz + x], data, position, order);
-                Span span = heightfield.spans[pz + x];
-                while (span != null) {
-                    position = putInt(span.smin, data, position, order);
-                    position = putInt(span.smax, data, position, order);
-                    position = putInt(span.area, data, position, order);
-                    span = span.next;
+                int span = heightfield.spans[pz + x];
+                while (span != RC_NULL_SPAN) {
+                    position = putInt(pool.smin(span), data, position, order);
+                    position = putInt(pool.smax(span), data, position, order);
+                    position = putInt(pool.area(span), data, position, order);
+                    span = pool.next(span);
                 }
             }
         }
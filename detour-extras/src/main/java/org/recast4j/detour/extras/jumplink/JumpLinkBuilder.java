@@ -20,7 +20,18 @@ public class JumpLinkBuilder {
     private final List<Edge[]> edges;
     private final List<RecastBuilderResult> results;
 
+    /**
+     * @param results
+     *            Tiles built with intermediate results, see {@code new RecastBuilder(listener, true)}. The solid
+     *            heightfield is needed to sample the jump trajectories.
+     */
     public JumpLinkBuilder(List<RecastBuilderResult> results) {
+        for (RecastBuilderResult r : results) {
+            if (r.getSolidHeightfield() == null) {
+                throw new IllegalArgumentException("Tile " + r.tileX + "," + r.tileZ
+                        + " has no solid heightfield, build the tiles with new RecastBuilder(listener, true)");
+            }
+        }
         this.results = results;
         edges = results.stream().map(r -> edgeExtractor.extractEdges(r.getMesh())).collect(toList());
     }
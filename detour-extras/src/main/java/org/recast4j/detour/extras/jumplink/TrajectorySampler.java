@@ -1,9 +1,10 @@
 package org.recast4j.detour.extras.jumplink;
 
 import static org.recast4j.detour.DetourCommon.vDist2D;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 
 import org.recast4j.recast.Heightfield;
-import org.recast4j.recast.Span;
+import org.recast4j.recast.SpanPool;
 
 class TrajectorySampler {
 
@@ -53,18 +54,19 @@ class TrajectorySampler {
             return false;
         }
 
-        Span s = solid.spans[ix + iz * w];
-        if (s == null) {
+        SpanPool pool = solid.spanPool;
+        int s = solid.spans[ix + iz * w];
+        if (s == RC_NULL_SPAN) {
             return false;
         }
 
-        while (s != null) {
-            float symin = orig[1] + s.smin * ch;
-            float symax = orig[1] + s.smax * ch;
+        while (s != RC_NULL_SPAN) {
+            float symin = orig[1] + pool.smin(s) * ch;
+            float symax = orig[1] + pool.smax(s) * ch;
             if (overlapRange(ymin, ymax, symin, symax)) {
                 return true;
             }
-            s = s.next;
+            s = pool.next(s);
         }
 
         return false;
@@ -0,0 +1,88 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.recast4j.detour.NavMeshQueryPool.Lease;
+
+/**
+ * Asynchronous queries against a shared {@link NavMesh}. Every request runs on the given executor with a query leased
+ * from a {@link NavMeshQueryPool}, so any number of requests can be in flight while at most
+ * {@link NavMeshQueryPool#getCapacity()} queries exist. Position arguments are copied when the request is submitted.
+ */
+public class ConcurrentNavMeshQuery {
+
+    private final NavMeshQueryPool m_pool;
+    private final Executor m_executor;
+
+    public ConcurrentNavMeshQuery(NavMeshQueryPool pool, Executor executor) {
+        m_pool = pool;
+        m_executor = executor;
+    }
+
+    public NavMeshQueryPool getPool() {
+        return m_pool;
+    }
+
+    /**
+     * Runs the given function with a leased query. The function must not keep a reference to the query after it
+     * returns.
+     */
+    public <T> CompletableFuture<T> submit(Function<NavMeshQuery, T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Lease lease = m_pool.lease()) {
+                return task.apply(lease.query());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, m_executor);
+    }
+
+    /** @see NavMeshQuery#findPath(long, long, float[], float[], QueryFilter) */
+    public CompletableFuture<Result<List<Long>>> findPath(long startRef, long endRef, float[] startPos, float[] endPos,
+            QueryFilter filter) {
+        return findPath(startRef, endRef, startPos, endPos, filter, 0, 0);
+    }
+
+    /** @see NavMeshQuery#findPath(long, long, float[], float[], QueryFilter, int, float) */
+    public CompletableFuture<Result<List<Long>>> findPath(long startRef, long endRef, float[] startPos, float[] endPos,
+            QueryFilter filter, int options, float raycastLimit) {
+        float[] spos = copy(startPos);
+        float[] epos = copy(endPos);
+        return submit(q -> q.findPath(startRef, endRef, spos, epos, filter, options, raycastLimit));
+    }
+
+    /** @see NavMeshQuery#raycast(long, float[], float[], QueryFilter, int, long) */
+    public CompletableFuture<Result<RaycastHit>> raycast(long startRef, float[] startPos, float[] endPos,
+            QueryFilter filter, int options, long prevRef) {
+        float[] spos = copy(startPos);
+        float[] epos = copy(endPos);
+        return submit(q -> q.raycast(startRef, spos, epos, filter, options, prevRef));
+    }
+
+    private static float[] copy(float[] v) {
+        return v != null ? v.clone() : null;
+    }
+}
@@ -59,6 +59,17 @@ public class DetourCommon {
         return dest;
     }
 
+    /// Performs a linear interpolation between two points stored at offsets of (possibly different) arrays.
+    /// @param[out] dest The result vector. [(x, y, x)]
+    /// @param[in] pa, p The array and offset of the starting vector.
+    /// @param[in] qa, q The array and offset of the destination vector.
+    /// @param[in] t The interpolation factor. [Limits: 0 <= value <= 1.0]
+    public static void vLerp(float[] dest, float[] pa, int p, float[] qa, int q, float t) {
+        dest[0] = pa[p + 0] + (qa[q + 0] - pa[p + 0]) * t;
+        dest[1] = pa[p + 1] + (qa[q + 1] - pa[p + 1]) * t;
+        dest[2] = pa[p + 2] + (qa[q + 2] - pa[p + 2]) * t;
+    }
+
     public static float[] vSub(VectorPtr v1, VectorPtr v2) {
         float[] dest = new float[3];
         dest[0] = v1.get(0) - v2.get(0);
@@ -227,6 +238,14 @@ public class DetourCommon {
         return d < thresholdSqr;
     }
 
+    /// Colocation check of a point stored in an array against another point.
+    static boolean vEqual(float[] verts, int v, float[] p) {
+        float dx = p[0] - verts[v];
+        float dy = p[1] - verts[v + 1];
+        float dz = p[2] - verts[v + 2];
+        return dx * dx + dy * dy + dz * dz < EQUAL_THRESHOLD;
+    }
+
     /// Derives the dot product of two vectors on the xz-plane. (@p u . @p v)
     /// @param[in] u A vector [(x, y, z)]
     /// @param[in] v A vector [(x, y, z)]
@@ -329,19 +348,32 @@ public class DetourCommon {
         return new Tupple2<>(dx * dx + dz * dz, t);
     }
 
-    static Optional<Float> closestHeightPointTriangle(float[] p, float[] a, float[] b, float[] c) {
-        float[] v0 = vSub(c, a);
-        float[] v1 = vSub(b, a);
-        float[] v2 = vSub(p, a);
+    /// Derives the height of the point on the triangle without allocating.
+    /// @param[in] p The point. [(x, y, z)]
+    /// @param[in] a, ia The array and offset of the first triangle vertex.
+    /// @param[in] b, ib The array and offset of the second triangle vertex.
+    /// @param[in] c, ic The array and offset of the third triangle vertex.
+    /// @param[out] out The interpolated height is written to out[1], out[0] and out[2] are not touched.
+    /// @return True if the point lies inside the triangle on the xz-plane.
+    static boolean closestHeightPointTriangle(float[] p, float[] a, int ia, float[] b, int ib, float[] c, int ic,
+            float[] out) {
+        float v0x = c[ic] - a[ia];
+        float v0y = c[ic + 1] - a[ia + 1];
+        float v0z = c[ic + 2] - a[ia + 2];
+        float v1x = b[ib] - a[ia];
+        float v1y = b[ib + 1] - a[ia + 1];
+        float v1z = b[ib + 2] - a[ia + 2];
+        float v2x = p[0] - a[ia];
+        float v2z = p[2] - a[ia + 2];
 
         // Compute scaled barycentric coordinates
-        float denom = v0[0] * v1[2] - v0[2] * v1[0];
+        float denom = v0x * v1z - v0z * v1x;
         if (Math.abs(denom) < EPS) {
-            return Optional.empty();
+            return false;
         }
 
-        float u = v1[2] * v2[0] - v1[0] * v2[2];
-        float v = v0[0] * v2[2] - v0[2] * v2[0];
+        float u = v1z * v2x - v1x * v2z;
+        float v = v0x * v2z - v0z * v2x;
 
         if (denom < 0) {
             denom = -denom;
@@ -351,11 +383,11 @@ public class DetourCommon {
 
         // If point lies inside the triangle, return interpolated ycoord.
         if (u >= 0.0f && v >= 0.0f && (u + v) <= denom) {
-            float h = a[1] + (v0[1] * u + v1[1] * v) / denom;
-            return Optional.of(h);
+            out[1] = a[ia + 1] + (v0y * u + v1y * v) / denom;
+            return true;
         }
 
-        return Optional.empty();
+        return false;
     }
 
     /// @par
@@ -521,22 +553,35 @@ public class DetourCommon {
     }
 
     static IntersectResult intersectSegmentPoly2D(float[] p0, float[] p1, float[] verts, int nverts) {
-
         IntersectResult result = new IntersectResult();
+        intersectSegmentPoly2D(p0, p1, verts, nverts, result);
+        return result;
+    }
+
+    /// Allocation free variant of #intersectSegmentPoly2D, resets and fills the given result.
+    static void intersectSegmentPoly2D(float[] p0, float[] p1, float[] verts, int nverts, IntersectResult result) {
+        result.intersects = false;
+        result.tmin = 0;
+        result.tmax = 1f;
+        result.segMin = -1;
+        result.segMax = -1;
         float EPS = 0.000001f;
-        float[] dir = vSub(p1, p0);
+        float dirx = p1[0] - p0[0];
+        float dirz = p1[2] - p0[2];
 
-        VectorPtr p0v = new VectorPtr(p0);
         for (int i = 0, j = nverts - 1; i < nverts; j = i++) {
-            VectorPtr vpj = new VectorPtr(verts, j * 3);
-            float[] edge = vSub(new VectorPtr(verts, i * 3), vpj);
-            float[] diff = vSub(p0v, vpj);
-            float n = vPerp2D(edge, diff);
-            float d = vPerp2D(dir, edge);
+            int vi = i * 3;
+            int vj = j * 3;
+            float edgex = verts[vi] - verts[vj];
+            float edgez = verts[vi + 2] - verts[vj + 2];
+            float diffx = p0[0] - verts[vj];
+            float diffz = p0[2] - verts[vj + 2];
+            float n = edgez * diffx - edgex * diffz;
+            float d = dirz * edgex - dirx * edgez;
             if (Math.abs(d) < EPS) {
                 // S is nearly parallel to this edge
                 if (n < 0) {
-                    return result;
+                    return;
                 } else {
                     continue;
                 }
@@ -549,7 +594,7 @@ public class DetourCommon {
                     result.segMin = j;
                     // S enters after leaving polygon
                     if (result.tmin > result.tmax) {
-                        return result;
+                        return;
                     }
                 }
             } else {
@@ -559,33 +604,47 @@ public class DetourCommon {
                     result.segMax = j;
                     // S leaves before entering polygon
                     if (result.tmax < result.tmin) {
-                        return result;
+                        return;
                     }
                 }
             }
         }
         result.intersects = true;
-        return result;
     }
 
     public static Tupple2<Float, Float> distancePtSegSqr2D(float[] pt, float[] verts, int p, int q) {
-        float pqx = verts[q + 0] - verts[p + 0];
-        float pqz = verts[q + 2] - verts[p + 2];
-        float dx = pt[0] - verts[p + 0];
-        float dz = pt[2] - verts[p + 2];
+        float[] t = new float[1];
+        float distSqr = distancePtSegSqr2D(pt, verts, p, verts, q, t);
+        return new Tupple2<>(distSqr, t[0]);
+    }
+
+    /// Derives the squared distance between the point and the segment on the xz-plane without allocating.
+    /// @param[in] pt The point. [(x, y, z)]
+    /// @param[in] pa The array holding the segment start point.
+    /// @param[in] p The offset of the segment start point in @p pa.
+    /// @param[in] qa The array holding the segment end point.
+    /// @param[in] q The offset of the segment end point in @p qa.
+    /// @param[out] t The parameter of the closest point on the segment is written to t[0]. [Limits: 0 <= value <= 1.0]
+    /// @return The squared distance between the point and the segment.
+    public static float distancePtSegSqr2D(float[] pt, float[] pa, int p, float[] qa, int q, float[] t) {
+        float pqx = qa[q + 0] - pa[p + 0];
+        float pqz = qa[q + 2] - pa[p + 2];
+        float dx = pt[0] - pa[p + 0];
+        float dz = pt[2] - pa[p + 2];
         float d = pqx * pqx + pqz * pqz;
-        float t = pqx * dx + pqz * dz;
+        float s = pqx * dx + pqz * dz;
         if (d > 0) {
-            t /= d;
+            s /= d;
         }
-        if (t < 0) {
-            t = 0;
-        } else if (t > 1) {
-            t = 1;
+        if (s < 0) {
+            s = 0;
+        } else if (s > 1) {
+            s = 1;
         }
-        dx = verts[p + 0] + t * pqx - pt[0];
-        dz = verts[p + 2] + t * pqz - pt[2];
-        return new Tupple2<>(dx * dx + dz * dz, t);
+        dx = pa[p + 0] + s * pqx - pt[0];
+        dz = pa[p + 2] + s * pqz - pt[2];
+        t[0] = s;
+        return dx * dx + dz * dz;
     }
 
     static int oppositeTile(int side) {
@@ -597,16 +656,30 @@ public class DetourCommon {
     }
 
     static Optional<Tupple2<Float, Float>> intersectSegSeg2D(float[] ap, float[] aq, float[] bp, float[] bq) {
-        float[] u = vSub(aq, ap);
-        float[] v = vSub(bq, bp);
-        float[] w = vSub(ap, bp);
-        float d = vperpXZ(u, v);
-        if (Math.abs(d) < 1e-6f) {
+        float[] st = new float[2];
+        if (!intersectSegSeg2D(ap, aq, bp, bq, st)) {
             return Optional.empty();
         }
-        float s = vperpXZ(v, w) / d;
-        float t = vperpXZ(u, w) / d;
-        return Optional.of(new Tupple2<>(s, t));
+        return Optional.of(new Tupple2<>(st[0], st[1]));
+    }
+
+    /// Intersects the segments on the xz-plane without allocating.
+    /// @param[out] st The parameters of the intersection along the segments a and b. [(s, t)]
+    /// @return False if the segments are parallel, @p st is not modified then.
+    static boolean intersectSegSeg2D(float[] ap, float[] aq, float[] bp, float[] bq, float[] st) {
+        float ux = aq[0] - ap[0];
+        float uz = aq[2] - ap[2];
+        float vx = bq[0] - bp[0];
+        float vz = bq[2] - bp[2];
+        float wx = ap[0] - bp[0];
+        float wz = ap[2] - bp[2];
+        float d = ux * vz - uz * vx;
+        if (Math.abs(d) < 1e-6f) {
+            return false;
+        }
+        st[0] = (vx * wz - vz * wx) / d;
+        st[1] = (ux * wz - uz * wx) / d;
+        return true;
     }
 
     public static float[] vScale(float[] in, float scale) {
@@ -0,0 +1,119 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Polygons reachable from a goal polygon, each knowing its next polygon on the cheapest path towards the goal, see
+ * {@link NavMeshQuery#findFlowField(long, float[], QueryFilter)}. Paths to the goal can be read from the field for any
+ * number of start polygons without further searches. The field is immutable and can be shared between threads.
+ */
+public class FlowField {
+
+    private final long goalRef;
+    private final float[] goalPos;
+    private final long navMeshVersion;
+    private final long[] refs;
+    private final int[] next;
+    private final float[] costs;
+    private final Map<Long, Integer> index;
+
+    FlowField(long goalRef, float[] goalPos, long navMeshVersion, List<Long> refs, List<Long> parentRefs,
+            List<Float> costs) {
+        this.goalRef = goalRef;
+        this.goalPos = goalPos.clone();
+        this.navMeshVersion = navMeshVersion;
+        int count = refs.size();
+        this.refs = new long[count];
+        this.next = new int[count];
+        this.costs = new float[count];
+        this.index = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            this.refs[i] = refs.get(i);
+            this.costs[i] = costs.get(i);
+            index.put(refs.get(i), i);
+        }
+        for (int i = 0; i < count; i++) {
+            long parentRef = parentRefs.get(i);
+            // Parents are always closed before their children.
+            next[i] = parentRef != 0 ? index.get(parentRef) : -1;
+        }
+    }
+
+    public long getGoalRef() {
+        return goalRef;
+    }
+
+    /** @return The position the costs of the field are measured from. */
+    public float[] getGoalPos() {
+        return goalPos.clone();
+    }
+
+    /** @return The version of the nav mesh the field was computed from, see {@link NavMesh#getVersion()}. */
+    public long getNavMeshVersion() {
+        return navMeshVersion;
+    }
+
+    /** @return Number of polygons in the field. */
+    public int size() {
+        return refs.length;
+    }
+
+    public boolean contains(long ref) {
+        return index.containsKey(ref);
+    }
+
+    /** @return The next polygon towards the goal, 0 for the goal polygon and for polygons outside of the field. */
+    public long getNext(long ref) {
+        Integer i = index.get(ref);
+        if (i == null || next[i] < 0) {
+            return 0;
+        }
+        return refs[next[i]];
+    }
+
+    /** @return The cost from the polygon to the goal, or Float.MAX_VALUE for polygons outside of the field. */
+    public float getCost(long ref) {
+        Integer i = index.get(ref);
+        return i != null ? costs[i] : Float.MAX_VALUE;
+    }
+
+    /**
+     * Reads the path from the start polygon to the goal.
+     *
+     * @param maxPath
+     *            The maximum number of polygons of the path, longer paths are truncated before the goal
+     * @return The polygons from the start polygon towards the goal, empty if the start polygon is outside of the field
+     */
+    public List<Long> getPath(long startRef, int maxPath) {
+        List<Long> path = new ArrayList<>();
+        Integer start = index.get(startRef);
+        if (start == null) {
+            return path;
+        }
+        for (int i = start; i >= 0 && path.size() < maxPath; i = next[i]) {
+            path.add(refs[i]);
+        }
+        return path;
+    }
+}
@@ -39,6 +39,10 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
         super(nav);
     }
 
+    public LegacyNavMeshQuery(NavMesh nav, int maxNodes) {
+        super(nav, maxNodes);
+    }
+
     @Override
     public Result<List<Long>> findPath(long startRef, long endRef, float[] startPos, float[] endPos, QueryFilter filter,
             int options, float raycastLimit) {
@@ -75,7 +79,7 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
         Node lastBestNode = startNode;
         float lastBestNodeCost = startNode.total;
 
-        Status status = Status.SUCCSESS;
+        boolean outOfNodes = false;
 
         while (!m_openList.isEmpty()) {
             // Remove node from open list and put it in closed list.
@@ -109,8 +113,8 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 parentPoly = tileAndPoly.second;
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                long neighbourRef = bestTile.links.get(i).ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
 
                 // Skip invalid ids and do not expand back to where we came from.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
@@ -129,12 +133,16 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
 
                 // deal explicitly with crossing tile boundaries
                 int crossSide = 0;
-                if (bestTile.links.get(i).side != 0xff) {
-                    crossSide = bestTile.links.get(i).side >> 1;
+                if (bestTile.links.side(i) != 0xff) {
+                    crossSide = bestTile.links.side(i) >> 1;
                 }
 
                 // get the node
                 Node neighbourNode = m_nodePool.getNode(neighbourRef, crossSide);
+                if (neighbourNode == null) {
+                    outOfNodes = true;
+                    continue;
+                }
 
                 // If the node is visited the first time, calculate node position.
                 if (neighbourNode.flags == 0) {
@@ -204,8 +212,9 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
 
         List<Long> path = getPathToNode(lastBestNode);
 
+        Status status = Status.SUCCSESS;
         if (lastBestNode.id != endRef) {
-            status = Status.PARTIAL_RESULT;
+            status = outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
         }
 
         return Result.of(status, path);
@@ -292,8 +301,8 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 }
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                long neighbourRef = bestTile.links.get(i).ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
 
                 // Skip invalid ids and do not expand back to where we came
                 // from.
@@ -314,6 +323,10 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
 
                 // get the neighbor node
                 Node neighbourNode = m_nodePool.getNode(neighbourRef, 0);
+                if (neighbourNode == null) {
+                    m_query.outOfNodes = true;
+                    continue;
+                }
 
                 // do not expand to nodes that were already visited from the
                 // same parent
@@ -412,7 +425,7 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
 
         // Exhausted all nodes, but could not find path.
         if (m_openList.isEmpty()) {
-            m_query.status = Status.PARTIAL_RESULT;
+            m_query.status = m_query.outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
         }
 
         return Result.of(m_query.status, iter);
@@ -438,7 +451,7 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
         } else {
             // Reverse the path.
             if (m_query.lastBestNode.id != m_query.endRef) {
-                m_query.status = Status.PARTIAL_RESULT;
+                m_query.status = m_query.outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
             }
 
             Node prev = null;
@@ -589,6 +602,7 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
         float[] hitPos = new float[3];
         VectorPtr bestvj = null;
         VectorPtr bestvi = null;
+        Status status = Status.SUCCSESS;
         while (!m_openList.isEmpty()) {
             Node bestNode = m_openList.pop();
             bestNode.flags &= ~Node.DT_NODE_OPEN;
@@ -613,14 +627,13 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 if ((bestPoly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
                     // Tile border.
                     boolean solid = true;
-                    for (int k = bestTile.polyLinks[bestPoly.index]; k != NavMesh.DT_NULL_LINK; k = bestTile.links.get(k).next) {
-                        Link link = bestTile.links.get(k);
-                        if (link.edge == j) {
-                            if (link.ref != 0) {
-                                Tupple2<MeshTile, Poly> linkTileAndPoly = m_nav.getTileAndPolyByRefUnsafe(link.ref);
+                    for (int k = bestTile.polyLinks[bestPoly.index]; k != NavMesh.DT_NULL_LINK; k = bestTile.links.next(k)) {
+                        if (bestTile.links.edge(k) == j) {
+                            if (bestTile.links.ref(k) != 0) {
+                                Tupple2<MeshTile, Poly> linkTileAndPoly = m_nav.getTileAndPolyByRefUnsafe(bestTile.links.ref(k));
                                 MeshTile neiTile = linkTileAndPoly.first;
                                 Poly neiPoly = linkTileAndPoly.second;
-                                if (filter.passFilter(link.ref, neiTile, neiPoly)) {
+                                if (filter.passFilter(bestTile.links.ref(k), neiTile, neiPoly)) {
                                     solid = false;
                                 }
                             }
@@ -663,9 +676,8 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 bestvi = new VectorPtr(bestTile.data.verts, vi);
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                Link link = bestTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
                 // Skip invalid neighbours and do not follow back to parent.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
                     continue;
@@ -682,8 +694,8 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 }
 
                 // Calc distance to the edge.
-                int va = bestPoly.verts[link.edge] * 3;
-                int vb = bestPoly.verts[(link.edge + 1) % bestPoly.vertCount] * 3;
+                int va = bestPoly.verts[bestTile.links.edge(i)] * 3;
+                int vb = bestPoly.verts[(bestTile.links.edge(i) + 1) % bestPoly.vertCount] * 3;
                 Tupple2<Float, Float> distseg = distancePtSegSqr2D(centerPos, bestTile.data.verts, va, vb);
                 float distSqr = distseg.first;
                 // If the circle is not touching the next polygon, skip it.
@@ -696,6 +708,10 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
                 }
 
                 Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    status = Status.OUT_OF_NODES;
+                    continue;
+                }
 
                 if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
@@ -740,6 +756,6 @@ public class LegacyNavMeshQuery extends NavMeshQuery {
             hitNormal[2] = -tangent[0];
             vNormalize(hitNormal);
         }
-        return Result.success(new FindDistanceToWallResult((float) Math.sqrt(radiusSqr), hitPos, hitNormal));
+        return Result.of(status, new FindDistanceToWallResult((float) Math.sqrt(radiusSqr), hitPos, hitNormal));
     }
 }
@@ -21,6 +21,9 @@ package org.recast4j.detour;
 /**
  * Defines a link between polygons.
  *
+ * Tiles keep their links in a {@link LinkArray}, this is a detached copy of one of them returned by
+ * {@link LinkArray#get(int)}. Changing it does not change the tile.
+ *
  * @note This structure is rarely if ever used by the end user.
  * @see MeshTile
  */
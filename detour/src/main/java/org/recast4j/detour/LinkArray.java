@@ -0,0 +1,131 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.Arrays;
+
+/**
+ * Links between polygons of a tile, stored as parallel primitive arrays instead of one object per link.
+ *
+ * A link is addressed by its index, which is stable until the link is freed. The edge, side and sub-edge bounds are
+ * all 8-bit values and share one int per link.
+ *
+ * @note This structure is rarely if ever used by the end user.
+ * @see MeshTile
+ */
+public final class LinkArray {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Neighbour references. (The neighbor that is linked to.) */
+    private long[] m_refs;
+    /** Indices of the next links. */
+    private int[] m_next;
+    /** Packed edge, side, bmin and bmax, 8 bits each. */
+    private int[] m_info;
+    private int m_size;
+
+    LinkArray() {
+        m_refs = new long[0];
+        m_next = new int[0];
+        m_info = new int[0];
+    }
+
+    LinkArray(LinkArray other) {
+        m_refs = Arrays.copyOf(other.m_refs, other.m_size);
+        m_next = Arrays.copyOf(other.m_next, other.m_size);
+        m_info = Arrays.copyOf(other.m_info, other.m_size);
+        m_size = other.m_size;
+    }
+
+    /** @return The number of allocated links, including freed ones. */
+    public int size() {
+        return m_size;
+    }
+
+    /** @return Neighbour reference. (The neighbor that is linked to.) */
+    public long ref(int link) {
+        return m_refs[link];
+    }
+
+    /** @return Index of the next link. */
+    public int next(int link) {
+        return m_next[link];
+    }
+
+    /** @return Index of the polygon edge that owns this link. */
+    public int edge(int link) {
+        return m_info[link] & 0xff;
+    }
+
+    /** @return If a boundary link, defines on which side the link is. */
+    public int side(int link) {
+        return (m_info[link] >>> 8) & 0xff;
+    }
+
+    /** @return If a boundary link, defines the minimum sub-edge area. */
+    public int bmin(int link) {
+        return (m_info[link] >>> 16) & 0xff;
+    }
+
+    /** @return If a boundary link, defines the maximum sub-edge area. */
+    public int bmax(int link) {
+        return m_info[link] >>> 24;
+    }
+
+    /** @return A copy of the link, see {@link Link}. */
+    public Link get(int link) {
+        Link l = new Link();
+        l.ref = ref(link);
+        l.next = next(link);
+        l.edge = edge(link);
+        l.side = side(link);
+        l.bmin = bmin(link);
+        l.bmax = bmax(link);
+        return l;
+    }
+
+    /** Appends a new link that does not point anywhere and returns its index. */
+    int add() {
+        if (m_size == m_refs.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, m_size * 2);
+            m_refs = Arrays.copyOf(m_refs, capacity);
+            m_next = Arrays.copyOf(m_next, capacity);
+            m_info = Arrays.copyOf(m_info, capacity);
+        }
+        int link = m_size++;
+        m_refs[link] = 0;
+        m_next[link] = NavMesh.DT_NULL_LINK;
+        m_info[link] = 0;
+        return link;
+    }
+
+    void set(int link, long ref, int edge, int side, int bmin, int bmax) {
+        m_refs[link] = ref;
+        m_info[link] = (edge & 0xff) | (side & 0xff) << 8 | (bmin & 0xff) << 16 | (bmax & 0xff) << 24;
+    }
+
+    void setNext(int link, int next) {
+        m_next[link] = next;
+    }
+
+    void clear() {
+        m_size = 0;
+    }
+}
@@ -18,28 +18,59 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Defines a navigation mesh tile.
+ *
+ * The links of the tile are runtime state and are kept in a {@link LinkArray}. The polygons and the bounding volume
+ * tree stay in the objects of the shared {@link MeshData}, which is also the build and serialization format.
  */
 public class MeshTile {
     final int index;
     /** Counter describing modifications to the tile. */
     int salt;
+    /** Incremented whenever the polygons or the links of the tile change. */
+    int version;
     /** The tile data. */
     public MeshData data;
     public int[] polyLinks;
     /** The tile links. */
-    public final List<Link> links = new ArrayList<>();
+    public final LinkArray links;
+    /**
+     * The one-way off-mesh connections landing on the tile: the polygon of the tile each one lands on and the
+     * reference of the connection polygon, which may be in a neighbour tile. The landing polygon has no link back to
+     * these connections. [Size: #oneWayOffMeshCount]
+     */
+    int[] oneWayOffMeshPolys = new int[0];
+    long[] oneWayOffMeshRefs = new long[0];
+    int oneWayOffMeshCount;
     /** Index to the next free link. */
     int linksFreeList = NavMesh.DT_NULL_LINK; // FIXME: Remove
     /** Tile flags. (See: #dtTileFlags) */
     int flags;
+    /** Edit token of the nav mesh allowed to modify this tile in place. */
+    Object owner;
+    /** Edit token of the nav mesh allowed to modify the tile data in place. */
+    Object dataOwner;
 
     public MeshTile(int index) {
         this.index = index;
+        links = new LinkArray();
+    }
+
+    /** Creates a copy of the tile sharing its data, with its own polygon links. */
+    MeshTile(MeshTile other, Object owner) {
+        index = other.index;
+        salt = other.salt;
+        version = other.version;
+        data = other.data;
+        polyLinks = other.polyLinks != null ? other.polyLinks.clone() : null;
+        links = new LinkArray(other.links);
+        oneWayOffMeshPolys = other.oneWayOffMeshPolys.clone();
+        oneWayOffMeshRefs = other.oneWayOffMeshRefs.clone();
+        oneWayOffMeshCount = other.oneWayOffMeshCount;
+        linksFreeList = other.linksFreeList;
+        flags = other.flags;
+        this.owner = owner;
     }
 
 }
@@ -23,10 +23,8 @@ import static org.recast4j.detour.DetourCommon.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 public class NavMesh {
@@ -54,17 +52,33 @@ public class NavMesh {
     /// The limit is given as a multiple of the character radius
     static float DT_RAY_CAST_LIMIT_PROPORTIONS = 50.0f;
 
+    /// Tile location offsets of the neighbours on each side of a tile.
+    private static final int[] NEIGHBOUR_DX = { 1, 1, 0, -1, -1, -1, 0, 1 };
+    private static final int[] NEIGHBOUR_DY = { 0, 1, 1, 1, 0, -1, -1, -1 };
+
     private final NavMeshParams m_params; /// < Current initialization params. TODO: do not store this info twice.
     private final float[] m_orig; /// < Origin of the tile (0,0)
     // float m_orig[3]; ///< Origin of the tile (0,0)
     float m_tileWidth, m_tileHeight; /// < Dimensions of each tile.
     int m_maxTiles; /// < Max number of tiles.
     private final int m_tileLutMask; /// < Tile hash lookup mask.
-    private final Map<Integer, List<MeshTile>> posLookup = new HashMap<>();
-    private final LinkedList<MeshTile> availableTiles = new LinkedList<>();
-    private final MeshTile[] m_tiles; /// < List of tiles.
+    private final PersistentArray<int[]> m_posLookup; /// < Tile indices by tile hash.
+    private final LinkedList<Integer> m_availableTiles; /// < Indices of free tiles.
+    private final PersistentArray<MeshTile> m_tiles; /// < List of tiles.
     /** The maximum number of vertices per navigation polygon. */
     private final int m_maxVertPerPoly;
+    /** Token identifying tiles this nav mesh may modify in place, null for read-only snapshots. */
+    private Object m_edit;
+    /** Snapshot of the current state, null if the nav mesh has changed since the last snapshot. */
+    private NavMesh m_snapshot;
+    /** Called by queries for tile locations without tiles, null if all tiles are added upfront. */
+    private TileRequestHandler m_tileRequestHandler;
+    /** Incremented whenever the flags or the area of a polygon change. */
+    private long m_polyStateVersion;
+    /** Incremented whenever the nav mesh is modified. */
+    private long m_version;
+
+    private static final int[] NO_TILES = new int[0];
 
     /**
      * The maximum number of tiles supported by the navigation mesh.
@@ -79,7 +93,7 @@ public class NavMesh {
      * Returns tile in the tile array.
      */
     public MeshTile getTile(int i) {
-        return m_tiles[i];
+        return m_tiles.get(i);
     }
 
     /**
@@ -161,20 +175,102 @@ public class NavMesh {
         return (int) (ref & polyMask);
     }
 
+    /**
+     * Returns an immutable snapshot of the nav mesh in its current state.
+     *
+     * The snapshot shares all tiles with this nav mesh. Once a snapshot has been taken, changes made through this nav
+     * mesh copy the affected tiles (and the link lists of their neighbours) instead of modifying them in place, so the
+     * snapshot stays consistent and can be queried from any number of threads without locking while this nav mesh
+     * keeps being updated. Taking a snapshot is cheap and repeated calls without changes in between return the same
+     * instance. Snapshots reject all modifications.
+     *
+     * The method must not be called concurrently with modifications of this nav mesh.
+     */
+    public NavMesh snapshot() {
+        if (m_edit == null) {
+            return this;
+        }
+        if (m_snapshot == null) {
+            m_snapshot = new NavMesh(this);
+            m_edit = new Object();
+        }
+        return m_snapshot;
+    }
+
+    /**
+     * @return Number of changes of polygon flags and areas, snapshots keep the value of the nav mesh they were taken
+     *         from.
+     */
+    public long getPolyStateVersion() {
+        return m_polyStateVersion;
+    }
+
+    /**
+     * @return Number of modifications of tiles, links and polygons, snapshots keep the value of the nav mesh they were
+     *         taken from.
+     */
+    public long getVersion() {
+        return m_version;
+    }
+
+    /**
+     * @return True if this nav mesh is a snapshot and cannot be modified.
+     */
+    public boolean isReadOnly() {
+        return m_edit == null;
+    }
+
+    private void beginEdit() {
+        if (m_edit == null) {
+            throw new IllegalStateException("Nav mesh snapshot is read-only");
+        }
+        m_snapshot = null;
+        m_version++;
+    }
+
+    /** Returns a version of the tile which may be modified in place, copying it if it is shared with a snapshot. */
+    private MeshTile editableTile(MeshTile tile) {
+        if (tile.owner != m_edit) {
+            MeshTile copy = new MeshTile(tile, m_edit);
+            m_tiles.set(tile.index, copy, m_edit);
+            tile = copy;
+        }
+        tile.version++;
+        return tile;
+    }
+
+    /** Makes the data of an editable tile safe to modify in place, copying it if it is shared with a snapshot. */
+    private void editableData(MeshTile tile) {
+        if (tile.dataOwner == m_edit) {
+            return;
+        }
+        MeshData data = new MeshData();
+        data.header = tile.data.header;
+        data.verts = tile.data.verts.clone();
+        data.polys = new Poly[tile.data.polys.length];
+        for (int i = 0; i < data.polys.length; i++) {
+            data.polys[i] = new Poly(tile.data.polys[i]);
+        }
+        data.detailMeshes = tile.data.detailMeshes;
+        data.detailVerts = tile.data.detailVerts;
+        data.detailTris = tile.data.detailTris;
+        data.bvTree = tile.data.bvTree;
+        data.offMeshCons = tile.data.offMeshCons;
+        tile.data = data;
+        tile.dataOwner = m_edit;
+    }
+
     private int allocLink(MeshTile tile) {
         if (tile.linksFreeList == DT_NULL_LINK) {
-            Link link = new Link();
-            link.next = DT_NULL_LINK;
-            tile.links.add(link);
-            return tile.links.size() - 1;
+            return tile.links.add();
         }
         int link = tile.linksFreeList;
-        tile.linksFreeList = tile.links.get(link).next;
+        tile.linksFreeList = tile.links.next(link);
         return link;
     }
 
     private void freeLink(MeshTile tile, int link) {
-        tile.links.get(link).next = tile.linksFreeList;
+        tile.links.setNext(link, tile.linksFreeList);
         tile.linksFreeList = link;
     }
 
@@ -186,9 +282,15 @@ public class NavMesh {
      * @return 2-element int array with (tx,ty) tile location
      */
     public int[] calcTileLoc(float[] pos) {
-        int tx = (int) Math.floor((pos[0] - m_orig[0]) / m_tileWidth);
-        int ty = (int) Math.floor((pos[2] - m_orig[2]) / m_tileHeight);
-        return new int[] { tx, ty };
+        return new int[] { calcTileX(pos[0]), calcTileY(pos[2]) };
+    }
+
+    int calcTileX(float x) {
+        return (int) Math.floor((x - m_orig[0]) / m_tileWidth);
+    }
+
+    int calcTileY(float z) {
+        return (int) Math.floor((z - m_orig[2]) / m_tileHeight);
     }
 
     public Result<Tupple2<MeshTile, Poly>> getTileAndPolyByRef(long ref) {
@@ -202,13 +304,13 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Result.invalidParam("tile > m_maxTiles");
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data.header == null) {
             return Result.invalidParam("Invalid salt or header");
         }
-        if (ip >= m_tiles[it].data.header.polyCount) {
+        if (ip >= m_tiles.get(it).data.header.polyCount) {
             return Result.invalidParam("poly > polyCount");
         }
-        return Result.success(new Tupple2<>(m_tiles[it], m_tiles[it].data.polys[ip]));
+        return Result.success(new Tupple2<>(m_tiles.get(it), m_tiles.get(it).data.polys[ip]));
     }
 
     /// @par
@@ -218,27 +320,30 @@ public class NavMesh {
     /// but
     /// it does not validate the reference.
     Tupple2<MeshTile, Poly> getTileAndPolyByRefUnsafe(long ref) {
-        int[] saltitip = decodePolyId(ref);
-        int it = saltitip[1];
-        int ip = saltitip[2];
-        return new Tupple2<>(m_tiles[it], m_tiles[it].data.polys[ip]);
+        MeshTile tile = getTileByRefUnsafe(ref);
+        return new Tupple2<>(tile, tile.data.polys[decodePolyIdPoly(ref)]);
+    }
+
+    /// Allocation free counterpart of #getTileAndPolyByRefUnsafe, the polygon
+    /// is tile.data.polys[decodePolyIdPoly(ref)].
+    MeshTile getTileByRefUnsafe(long ref) {
+        return m_tiles.get(decodePolyIdTile(ref));
     }
 
     boolean isValidPolyRef(long ref) {
         if (ref == 0) {
             return false;
         }
-        int[] saltitip = decodePolyId(ref);
-        int salt = saltitip[0];
-        int it = saltitip[1];
-        int ip = saltitip[2];
+        int salt = decodePolyIdSalt(ref);
+        int it = decodePolyIdTile(ref);
+        int ip = decodePolyIdPoly(ref);
         if (it >= m_maxTiles) {
             return false;
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data == null) {
             return false;
         }
-        if (ip >= m_tiles[it].data.header.polyCount) {
+        if (ip >= m_tiles.get(it).data.header.polyCount) {
             return false;
         }
         return true;
@@ -262,15 +367,38 @@ public class NavMesh {
         m_maxTiles = params.maxTiles;
         m_maxVertPerPoly = maxVertsPerPoly;
         m_tileLutMask = Math.max(1, nextPow2(params.maxTiles)) - 1;
-        m_tiles = new MeshTile[m_maxTiles];
+        m_posLookup = new PersistentArray<>(m_tileLutMask + 1);
+        m_availableTiles = new LinkedList<>();
+        m_tiles = new PersistentArray<>(m_maxTiles);
+        m_edit = new Object();
         for (int i = 0; i < m_maxTiles; i++) {
-            m_tiles[i] = new MeshTile(i);
-            m_tiles[i].salt = 1;
-            availableTiles.add(m_tiles[i]);
+            MeshTile tile = new MeshTile(i);
+            tile.salt = 1;
+            tile.owner = m_edit;
+            m_tiles.set(i, tile, m_edit);
+            m_availableTiles.add(i);
         }
 
     }
 
+    /** Creates a read-only snapshot sharing the tiles of the given nav mesh. */
+    private NavMesh(NavMesh other) {
+        m_params = other.m_params;
+        m_orig = other.m_orig;
+        m_tileWidth = other.m_tileWidth;
+        m_tileHeight = other.m_tileHeight;
+        m_maxTiles = other.m_maxTiles;
+        m_maxVertPerPoly = other.m_maxVertPerPoly;
+        m_tileLutMask = other.m_tileLutMask;
+        m_posLookup = new PersistentArray<>(other.m_posLookup);
+        m_availableTiles = new LinkedList<>();
+        m_tiles = new PersistentArray<>(other.m_tiles);
+        m_edit = null;
+        m_tileRequestHandler = other.m_tileRequestHandler;
+        m_polyStateVersion = other.m_polyStateVersion;
+        m_version = other.m_version;
+    }
+
     private static NavMeshParams getNavMeshParams(MeshData data) {
         NavMeshParams params = new NavMeshParams();
         vCopy(params.orig, data.header.bmin);
@@ -358,6 +486,7 @@ public class NavMesh {
     }
 
     public long updateTile(MeshData data, int flags) {
+        beginEdit();
         long ref = getTileRefAt(data.header.x, data.header.y, data.header.layer);
         ref = removeTile(ref);
         return addTile(data, flags, ref);
@@ -390,6 +519,7 @@ public class NavMesh {
     ///
     /// @see dtCreateNavMeshData, #removeTile
     public long addTile(MeshData data, int flags, long lastRef) {
+        beginEdit();
         // Make sure the data is in right format.
         MeshHeader header = data.header;
 
@@ -402,10 +532,10 @@ public class NavMesh {
         MeshTile tile = null;
         if (lastRef == 0) {
             // Make sure we could allocate a tile.
-            if (availableTiles.isEmpty()) {
+            if (m_availableTiles.isEmpty()) {
                 throw new RuntimeException("Could not allocate a tile");
             }
-            tile = availableTiles.poll();
+            tile = editableTile(m_tiles.get(m_availableTiles.poll()));
         } else {
             // Try to relocate the tile to specific index with same salt.
             int tileIndex = decodePolyIdTile(lastRef);
@@ -413,25 +543,26 @@ public class NavMesh {
                 throw new RuntimeException("Tile index too high");
             }
             // Try to find the specific tile id from the free list.
-            MeshTile target = m_tiles[tileIndex];
             // Remove from freelist
-            if (!availableTiles.remove(target)) {
+            if (!m_availableTiles.remove(Integer.valueOf(tileIndex))) {
                 // Could not find the correct location.
                 throw new RuntimeException("Could not find tile");
             }
-            tile = target;
+            tile = editableTile(m_tiles.get(tileIndex));
             // Restore salt.
             tile.salt = decodePolyIdSalt(lastRef);
         }
 
         tile.data = data;
+        tile.dataOwner = m_edit;
         tile.flags = flags;
         tile.links.clear();
+        tile.oneWayOffMeshCount = 0;
         tile.polyLinks = new int[data.polys.length];
         Arrays.fill(tile.polyLinks, NavMesh.DT_NULL_LINK);
 
         // Insert tile into the position lut.
-        getTileListByPos(header.x, header.y).add(tile);
+        addToPosLookup(tile.index, header.x, header.y);
 
         // Patch header pointers.
 
@@ -448,25 +579,27 @@ public class NavMesh {
         connectExtOffMeshLinks(tile, tile, -1);
 
         // Connect with layers in current tile.
-        List<MeshTile> neis = getTilesAt(header.x, header.y);
+        List<MeshTile> neis = tilesAt(header.x, header.y);
         for (int j = 0; j < neis.size(); ++j) {
             if (neis.get(j) == tile) {
                 continue;
             }
-            connectExtLinks(tile, neis.get(j), -1);
-            connectExtLinks(neis.get(j), tile, -1);
-            connectExtOffMeshLinks(tile, neis.get(j), -1);
-            connectExtOffMeshLinks(neis.get(j), tile, -1);
+            MeshTile nei = editableTile(neis.get(j));
+            connectExtLinks(tile, nei, -1);
+            connectExtLinks(nei, tile, -1);
+            connectExtOffMeshLinks(tile, nei, -1);
+            connectExtOffMeshLinks(nei, tile, -1);
         }
 
         // Connect with neighbour tiles.
         for (int i = 0; i < 8; ++i) {
             neis = getNeighbourTilesAt(header.x, header.y, i);
             for (int j = 0; j < neis.size(); ++j) {
-                connectExtLinks(tile, neis.get(j), i);
-                connectExtLinks(neis.get(j), tile, oppositeTile(i));
-                connectExtOffMeshLinks(tile, neis.get(j), i);
-                connectExtOffMeshLinks(neis.get(j), tile, oppositeTile(i));
+                MeshTile nei = editableTile(neis.get(j));
+                connectExtLinks(tile, nei, i);
+                connectExtLinks(nei, tile, oppositeTile(i));
+                connectExtOffMeshLinks(tile, nei, i);
+                connectExtOffMeshLinks(nei, tile, oppositeTile(i));
             }
         }
 
@@ -486,43 +619,47 @@ public class NavMesh {
         if (ref == 0) {
             return 0;
         }
+        beginEdit();
         int tileIndex = decodePolyIdTile(ref);
         int tileSalt = decodePolyIdSalt(ref);
         if (tileIndex >= m_maxTiles) {
             throw new RuntimeException("Invalid tile index");
         }
-        MeshTile tile = m_tiles[tileIndex];
+        MeshTile tile = m_tiles.get(tileIndex);
         if (tile.salt != tileSalt) {
             throw new RuntimeException("Invalid tile salt");
         }
+        tile = editableTile(tile);
 
         // Remove tile from hash lookup.
-        getTileListByPos(tile.data.header.x, tile.data.header.y).remove(tile);
+        removeFromPosLookup(tile.index, tile.data.header.x, tile.data.header.y);
 
         // Remove connections to neighbour tiles.
         // Create connections with neighbour tiles.
 
         // Disconnect from other layers in current tile.
-        List<MeshTile> nneis = getTilesAt(tile.data.header.x, tile.data.header.y);
+        List<MeshTile> nneis = tilesAt(tile.data.header.x, tile.data.header.y);
         for (MeshTile j : nneis) {
             if (j == tile) {
                 continue;
             }
-            unconnectLinks(j, tile);
+            unconnectLinks(editableTile(j), tile);
         }
 
         // Disconnect from neighbour tiles.
         for (int i = 0; i < 8; ++i) {
             nneis = getNeighbourTilesAt(tile.data.header.x, tile.data.header.y, i);
             for (MeshTile j : nneis) {
-                unconnectLinks(j, tile);
+                unconnectLinks(editableTile(j), tile);
             }
         }
         // Reset tile.
         tile.data = null;
+        tile.dataOwner = null;
 
         tile.flags = 0;
         tile.links.clear();
+        tile.oneWayOffMeshCount = 0;
         tile.linksFreeList=NavMesh.DT_NULL_LINK;
 
         // Update salt, salt should never be zero.
@@ -532,7 +669,7 @@ public class NavMesh {
         }
 
         // Add to free list.
-        availableTiles.addFirst(tile);
+        m_availableTiles.addFirst(tile.index);
         return getTileRef(tile);
     }
 
@@ -561,13 +698,9 @@ public class NavMesh {
                 }
 
                 int idx = allocLink(tile);
-                Link link = tile.links.get(idx);
-                link.ref = base | (poly.neis[j] - 1);
-                link.edge = j;
-                link.side = 0xff;
-                link.bmin = link.bmax = 0;
+                tile.links.set(idx, base | (poly.neis[j] - 1), j, 0xff, 0, 0);
                 // Add to linked list.
-                link.next = tile.polyLinks[poly.index];
+                tile.links.setNext(idx, tile.polyLinks[poly.index]);
                 tile.polyLinks[poly.index] = idx;
             }
         }
@@ -585,23 +718,34 @@ public class NavMesh {
             int j = tile.polyLinks[poly.index];
             int pj = DT_NULL_LINK;
             while (j != DT_NULL_LINK) {
-                if (decodePolyIdTile(tile.links.get(j).ref) == targetNum) {
+                if (decodePolyIdTile(tile.links.ref(j)) == targetNum) {
                     // Remove link.
-                    int nj = tile.links.get(j).next;
+                    int nj = tile.links.next(j);
                     if (pj == DT_NULL_LINK) {
                         tile.polyLinks[poly.index] = nj;
                     } else {
-                        tile.links.get(pj).next = nj;
+                        tile.links.setNext(pj, nj);
                     }
                     freeLink(tile, j);
                     j = nj;
                 } else {
                     // Advance
                     pj = j;
-                    j = tile.links.get(j).next;
+                    j = tile.links.next(j);
                 }
             }
         }
+
+        // Remove the one-way off-mesh connections of the target landing on the tile.
+        int n = 0;
+        for (int i = 0; i < tile.oneWayOffMeshCount; i++) {
+            if (decodePolyIdTile(tile.oneWayOffMeshRefs[i]) != targetNum) {
+                tile.oneWayOffMeshPolys[n] = tile.oneWayOffMeshPolys[i];
+                tile.oneWayOffMeshRefs[n] = tile.oneWayOffMeshRefs[i];
+                n++;
+            }
+        }
+        tile.oneWayOffMeshCount = n;
     }
 
     void connectExtLinks(MeshTile tile, MeshTile target, int side) {
@@ -635,15 +779,12 @@ public class NavMesh {
                         oppositeTile(dir));
                 for (Tupple3<Long,Float,Float> connectedPoly : connectedPolys) {
                     int idx = allocLink(tile);
-                    Link link = tile.links.get(idx);
-                    link.ref = connectedPoly.first;
-                    link.edge = j;
-                    link.side = dir;
-
-                    link.next = tile.polyLinks[poly.index];
+                    tile.links.setNext(idx, tile.polyLinks[poly.index]);
                     tile.polyLinks[poly.index] = idx;
 
                     // Compress portal limits to a byte value.
+                    int bmin = 0;
+                    int bmax = 0;
                     if (dir == 0 || dir == 4) {
                         float tmin = (connectedPoly.second - tile.data.verts[va + 2])
                                 / (tile.data.verts[vb + 2] - tile.data.verts[va + 2]);
@@ -654,8 +795,8 @@ public class NavMesh {
                             tmin = tmax;
                             tmax = temp;
                         }
-                        link.bmin = Math.round(clamp(tmin, 0.0f, 1.0f) * 255.0f);
-                        link.bmax = Math.round(clamp(tmax, 0.0f, 1.0f) * 255.0f);
+                        bmin = Math.round(clamp(tmin, 0.0f, 1.0f) * 255.0f);
+                        bmax = Math.round(clamp(tmax, 0.0f, 1.0f) * 255.0f);
                     } else if (dir == 2 || dir == 6) {
                         float tmin = (connectedPoly.second - tile.data.verts[va])
                                 / (tile.data.verts[vb] - tile.data.verts[va]);
@@ -666,9 +807,10 @@ public class NavMesh {
                             tmin = tmax;
                             tmax = temp;
                         }
-                        link.bmin = Math.round(clamp(tmin, 0.0f, 1.0f) * 255.0f);
-                        link.bmax = Math.round(clamp(tmax, 0.0f, 1.0f) * 255.0f);
+                        bmin = Math.round(clamp(tmin, 0.0f, 1.0f) * 255.0f);
+                        bmax = Math.round(clamp(tmax, 0.0f, 1.0f) * 255.0f);
                     }
+                    tile.links.set(idx, connectedPoly.first, j, dir, bmin, bmax);
                 }
             }
         }
@@ -716,38 +858,44 @@ public class NavMesh {
                 continue;
             }
             // Make sure the location is on current mesh.
-            target.data.verts[targetPoly.verts[1] * 3] = nearestPt[0];
-            target.data.verts[targetPoly.verts[1] * 3 + 1] = nearestPt[1];
-            target.data.verts[targetPoly.verts[1] * 3 + 2] = nearestPt[2];
+            editableData(target);
+            int v = targetPoly.verts[1] * 3;
+            target.data.verts[v] = nearestPt[0];
+            target.data.verts[v + 1] = nearestPt[1];
+            target.data.verts[v + 2] = nearestPt[2];
 
             // Link off-mesh connection to target poly.
             int idx = allocLink(target);
-            Link link = target.links.get(idx);
-            link.ref = ref;
-            link.edge = 1;
-            link.side = oppositeSide;
-            link.bmin = link.bmax = 0;
+            target.links.set(idx, ref, 1, oppositeSide, 0, 0);
             // Add to linked list.
-            link.next = target.polyLinks[targetPoly.index];
+            target.links.setNext(idx, target.polyLinks[targetPoly.index]);
             target.polyLinks[targetPoly.index] = idx;
 
             // Link target poly to off-mesh connection.
+            int landPolyIdx = decodePolyIdPoly(ref);
             if ((targetCon.flags & DT_OFFMESH_CON_BIDIR) != 0) {
                 int tidx = allocLink(tile);
-                int landPolyIdx = decodePolyIdPoly(ref);
-                Poly landPoly = tile.data.polys[landPolyIdx];
-                link = tile.links.get(tidx);
-                link.ref = getPolyRefBase(target) | (targetCon.poly);
-                link.edge = 0xff;
-                link.side = (side == -1 ? 0xff : side);
-                link.bmin = link.bmax = 0;
+                tile.links.set(tidx, getPolyRefBase(target) | (targetCon.poly), 0xff, (side == -1 ? 0xff : side), 0, 0);
                 // Add to linked list.
-                link.next = tile.polyLinks[landPoly.index];
-                tile.polyLinks[landPoly.index] = tidx;
+                tile.links.setNext(tidx, tile.polyLinks[landPolyIdx]);
+                tile.polyLinks[landPolyIdx] = tidx;
+            } else {
+                addOneWayOffMeshLink(tile, landPolyIdx, getPolyRefBase(target) | (targetCon.poly));
             }
         }
     }
 
+    private static void addOneWayOffMeshLink(MeshTile tile, int poly, long conRef) {
+        if (tile.oneWayOffMeshCount == tile.oneWayOffMeshRefs.length) {
+            int capacity = Math.max(4, tile.oneWayOffMeshCount * 2);
+            tile.oneWayOffMeshPolys = Arrays.copyOf(tile.oneWayOffMeshPolys, capacity);
+            tile.oneWayOffMeshRefs = Arrays.copyOf(tile.oneWayOffMeshRefs, capacity);
+        }
+        tile.oneWayOffMeshPolys[tile.oneWayOffMeshCount] = poly;
+        tile.oneWayOffMeshRefs[tile.oneWayOffMeshCount] = conRef;
+        tile.oneWayOffMeshCount++;
+    }
+
     List<Tupple3<Long, Float, Float>> findConnectingPolys(float[] verts, int va, int vb, MeshTile tile, int side) {
         if (tile == null) {
             return Collections.emptyList();
@@ -907,69 +1055,47 @@ public class NavMesh {
 
             // Link off-mesh connection to target poly.
             int idx = allocLink(tile);
-            Link link = tile.links.get(idx);
-            link.ref = ref;
-            link.edge = 0;
-            link.side = 0xff;
-            link.bmin = link.bmax = 0;
+            tile.links.set(idx, ref, 0, 0xff, 0, 0);
             // Add to linked list.
-            link.next = tile.polyLinks[poly.index];
+            tile.links.setNext(idx, tile.polyLinks[poly.index]);
             tile.polyLinks[poly.index] = idx;
 
             // Start end-point is always connect back to off-mesh connection.
             int tidx = allocLink(tile);
             int landPolyIdx = decodePolyIdPoly(ref);
             Poly landPoly = tile.data.polys[landPolyIdx];
-            link = tile.links.get(tidx);
-            link.ref = base | (con.poly);
-            link.edge = 0xff;
-            link.side = 0xff;
-            link.bmin = link.bmax = 0;
+            tile.links.set(tidx, base | (con.poly), 0xff, 0xff, 0, 0);
             // Add to linked list.
-            link.next = tile.polyLinks[landPoly.index];
+            tile.links.setNext(tidx, tile.polyLinks[landPoly.index]);
             tile.polyLinks[landPoly.index] = tidx;
         }
     }
 
     /**
-     * Returns closest point on polygon.
-     *
-     * @param ref
-     * @param pos
-     * @return
+     * Finds the closest point on the (boundary) edges of the polygon's detail mesh and writes it to out. Allocation
+     * free, out must not alias pos.
      */
-    float[] closestPointOnDetailEdges(MeshTile tile, Poly poly, float[] pos, boolean onlyBoundary) {
+    void closestPointOnDetailEdges(MeshTile tile, int ip, float[] pos, boolean onlyBoundary, float[] out) {
         int ANY_BOUNDARY_EDGE = (DT_DETAIL_EDGE_BOUNDARY << 0) | (DT_DETAIL_EDGE_BOUNDARY << 2)
                 | (DT_DETAIL_EDGE_BOUNDARY << 4);
-        int ip = poly.index;
+        Poly poly = tile.data.polys[ip];
+        int nv = poly.vertCount;
         float dmin = Float.MAX_VALUE;
         float tmin = 0;
-        float[] pmin = null;
-        float[] pmax = null;
-
+        float[] pminArr = null;
+        float[] pmaxArr = null;
+        int pmin = 0;
+        int pmax = 0;
+        // out[0] receives the segment parameter while searching
         if (tile.data.detailMeshes != null) {
-
             PolyDetail pd = tile.data.detailMeshes[ip];
+            int[] tris = tile.data.detailTris;
             for (int i = 0; i < pd.triCount; i++) {
                 int ti = (pd.triBase + i) * 4;
-                int[] tris = tile.data.detailTris;
                 if (onlyBoundary && (tris[ti + 3] & ANY_BOUNDARY_EDGE) == 0) {
                     continue;
                 }
 
-                float[][] v = new float[3][];
-                for (int j = 0; j < 3; ++j) {
-                    if (tris[ti + j] < poly.vertCount) {
-                        int index = poly.verts[tris[ti + j]] * 3;
-                        v[j] = new float[] { tile.data.verts[index], tile.data.verts[index + 1],
-                                tile.data.verts[index + 2] };
-                    } else {
-                        int index = (pd.vertBase + (tris[ti + j] - poly.vertCount)) * 3;
-                        v[j] = new float[] { tile.data.detailVerts[index], tile.data.detailVerts[index + 1],
-                                tile.data.detailVerts[index + 2] };
-                    }
-                }
-
                 for (int k = 0, j = 2; k < 3; j = k++) {
                     if ((getDetailTriEdgeFlags(tris[ti + 3], j) & DT_DETAIL_EDGE_BOUNDARY) == 0
                             && (onlyBoundary || tris[ti + j] < tris[ti + k])) {
@@ -978,98 +1104,116 @@ public class NavMesh {
                         continue;
                     }
 
-                    Tupple2<Float, Float> dt = distancePtSegSqr2D(pos, v[j], v[k]);
-                    float d = dt.first;
-                    float t = dt.second;
+                    float[] pa = detailVertArray(tile, nv, tris[ti + j]);
+                    int p = detailVertIndex(tile, ip, pd, tris[ti + j]);
+                    float[] qa = detailVertArray(tile, nv, tris[ti + k]);
+                    int q = detailVertIndex(tile, ip, pd, tris[ti + k]);
+                    float d = distancePtSegSqr2D(pos, pa, p, qa, q, out);
                     if (d < dmin) {
                         dmin = d;
-                        tmin = t;
-                        pmin = v[j];
-                        pmax = v[k];
+                        tmin = out[0];
+                        pminArr = pa;
+                        pmin = p;
+                        pmaxArr = qa;
+                        pmax = q;
                     }
                 }
             }
         } else {
-            float[][] v = new float[2][3];
-            for (int j = 0; j < poly.vertCount; ++j) {
-                int k = (j + 1) % poly.vertCount;
-                v[0][0] = tile.data.verts[poly.verts[j] * 3];
-                v[0][1] = tile.data.verts[poly.verts[j] * 3 + 1];
-                v[0][2] = tile.data.verts[poly.verts[j] * 3 + 2];
-                v[1][0] = tile.data.verts[poly.verts[k] * 3];
-                v[1][1] = tile.data.verts[poly.verts[k] * 3 + 1];
-                v[1][2] = tile.data.verts[poly.verts[k] * 3 + 2];
-
-                Tupple2<Float, Float> dt = distancePtSegSqr2D(pos, v[0], v[1]);
-                float d = dt.first;
-                float t = dt.second;
+            float[] verts = tile.data.verts;
+            for (int j = 0; j < nv; ++j) {
+                int k = (j + 1) % nv;
+                int p = poly.verts[j] * 3;
+                int q = poly.verts[k] * 3;
+                float d = distancePtSegSqr2D(pos, verts, p, verts, q, out);
                 if (d < dmin) {
                     dmin = d;
-                    tmin = t;
-                    pmin = v[0];
-                    pmax = v[1];
+                    tmin = out[0];
+                    pminArr = pmaxArr = verts;
+                    pmin = p;
+                    pmax = q;
                 }
             }
         }
 
-        return vLerp(pmin, pmax, tmin);
+        if (pminArr != null) {
+            vLerp(out, pminArr, pmin, pmaxArr, pmax, tmin);
+        }
     }
 
-    Optional<Float> getPolyHeight(MeshTile tile, Poly poly, float[] pos) {
-        // Off-mesh connections do not have detail polys and getting height
-        // over them does not make sense.
-        if (poly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
-            return Optional.empty();
-        }
+    /** @return The array holding the v-th vertex of a detail triangle, see detailVertIndex(). */
+    private static float[] detailVertArray(MeshTile tile, int nv, int v) {
+        return v < nv ? tile.data.verts : tile.data.detailVerts;
+    }
 
-        int ip = poly.index;
+    /** @return The offset of the v-th vertex of a detail triangle in the array returned by detailVertArray(). */
+    private static int detailVertIndex(MeshTile tile, int ip, PolyDetail pd, int v) {
+        Poly poly = tile.data.polys[ip];
+        return (v < poly.vertCount ? poly.verts[v] : pd.vertBase + (v - poly.vertCount)) * 3;
+    }
 
-        float[] verts = new float[m_maxVertPerPoly * 3];
+    /// All points are projected onto the xz-plane, so the y-values are ignored.
+    /// @see DetourCommon#pointInPolygon
+    private static boolean pointInPoly(MeshTile tile, int ip, float[] pt) {
+        float[] verts = tile.data.verts;
+        Poly poly = tile.data.polys[ip];
         int nv = poly.vertCount;
-        for (int i = 0; i < nv; ++i) {
-            System.arraycopy(tile.data.verts, poly.verts[i] * 3, verts, i * 3, 3);
+        boolean c = false;
+        for (int i = 0, j = nv - 1; i < nv; j = i++) {
+            int vi = poly.verts[i] * 3;
+            int vj = poly.verts[j] * 3;
+            if (((verts[vi + 2] > pt[2]) != (verts[vj + 2] > pt[2])) && (pt[0] < (verts[vj + 0] - verts[vi + 0])
+                    * (pt[2] - verts[vi + 2]) / (verts[vj + 2] - verts[vi + 2]) + verts[vi + 0])) {
+                c = !c;
+            }
         }
+        return c;
+    }
+
+    Optional<Float> getPolyHeight(MeshTile tile, int ip, float[] pos) {
+        float[] out = new float[3];
+        return getPolyHeight(tile, ip, pos, out) ? Optional.of(out[1]) : Optional.empty();
+    }
 
-        if (!pointInPolygon(pos, verts, nv)) {
-            return Optional.empty();
+    /**
+     * Gets the height of the polygon at the provided position and writes it to out[1]. Allocation free, out must not
+     * alias pos.
+     *
+     * @return False if the position is not over the polygon or the polygon is an off-mesh connection.
+     */
+    boolean getPolyHeight(MeshTile tile, int ip, float[] pos, float[] out) {
+        Poly poly = tile.data.polys[ip];
+        // Off-mesh connections do not have detail polys and getting height
+        // over them does not make sense.
+        if (poly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
+            return false;
+        }
+
+        if (!pointInPoly(tile, ip, pos)) {
+            return false;
         }
 
         // Find height at the location.
+        int nv = poly.vertCount;
         if (tile.data.detailMeshes != null) {
             PolyDetail pd = tile.data.detailMeshes[ip];
+            int[] tris = tile.data.detailTris;
             for (int j = 0; j < pd.triCount; ++j) {
                 int t = (pd.triBase + j) * 4;
-                float[][] v = new float[3][];
-                for (int k = 0; k < 3; ++k) {
-                    if (tile.data.detailTris[t + k] < poly.vertCount) {
-                        int index = poly.verts[tile.data.detailTris[t + k]] * 3;
-                        v[k] = new float[] { tile.data.verts[index], tile.data.verts[index + 1],
-                                tile.data.verts[index + 2] };
-                    } else {
-                        int index = (pd.vertBase + (tile.data.detailTris[t + k] - poly.vertCount)) * 3;
-                        v[k] = new float[] { tile.data.detailVerts[index], tile.data.detailVerts[index + 1],
-                                tile.data.detailVerts[index + 2] };
-                    }
-                }
-                Optional<Float> h = closestHeightPointTriangle(pos, v[0], v[1], v[2]);
-                if (h.isPresent()) {
-                    return h;
+                if (closestHeightPointTriangle(pos, detailVertArray(tile, nv, tris[t]),
+                        detailVertIndex(tile, ip, pd, tris[t]), detailVertArray(tile, nv, tris[t + 1]),
+                        detailVertIndex(tile, ip, pd, tris[t + 1]), detailVertArray(tile, nv, tris[t + 2]),
+                        detailVertIndex(tile, ip, pd, tris[t + 2]), out)) {
+                    return true;
                 }
             }
         } else {
-            float[][] v = new float[3][3];
-            v[0][0] = tile.data.verts[poly.verts[0] * 3];
-            v[0][1] = tile.data.verts[poly.verts[0] * 3 + 1];
-            v[0][2] = tile.data.verts[poly.verts[0] * 3 + 2];
-            for (int j = 1; j < poly.vertCount - 1; ++j) {
-                for (int k = 0; k < 2; ++k) {
-                    v[k + 1][0] = tile.data.verts[poly.verts[j + k] * 3];
-                    v[k + 1][1] = tile.data.verts[poly.verts[j + k] * 3 + 1];
-                    v[k + 1][2] = tile.data.verts[poly.verts[j + k] * 3 + 2];
-                }
-                Optional<Float> h = closestHeightPointTriangle(pos, v[0], v[1], v[2]);
-                if (h.isPresent()) {
-                    return h;
+            float[] verts = tile.data.verts;
+            int a = poly.verts[0] * 3;
+            for (int j = 1; j < nv - 1; ++j) {
+                if (closestHeightPointTriangle(pos, verts, a, verts, poly.verts[j] * 3, verts, poly.verts[j + 1] * 3,
+                        out)) {
+                    return true;
                 }
             }
         }
@@ -1078,33 +1222,44 @@ public class NavMesh {
         // or larger floating point values) the point is on an edge, so just select
         // closest. This should almost never happen so the extra iteration here is
         // ok.
-        float[] closest = closestPointOnDetailEdges(tile, poly, pos, false);
-        return Optional.of(closest[1]);
+        float x = out[0];
+        float z = out[2];
+        closestPointOnDetailEdges(tile, ip, pos, false, out);
+        out[0] = x;
+        out[2] = z;
+        return true;
     }
 
     ClosestPointOnPolyResult closestPointOnPoly(long ref, float[] pos) {
-        Tupple2<MeshTile, Poly> tileAndPoly = getTileAndPolyByRefUnsafe(ref);
-        MeshTile tile = tileAndPoly.first;
-        Poly poly = tileAndPoly.second;
         float[] closest = new float[3];
+        boolean posOverPoly = closestPointOnPoly(getTileByRefUnsafe(ref), decodePolyIdPoly(ref), pos, closest);
+        return new ClosestPointOnPolyResult(posOverPoly, closest);
+    }
+
+    /**
+     * Finds the closest point on the polygon and writes it to closest. Allocation free, closest must not alias pos.
+     *
+     * @return True if the position is over the polygon.
+     */
+    boolean closestPointOnPoly(MeshTile tile, int ip, float[] pos, float[] closest) {
         vCopy(closest, pos);
-        Optional<Float> h = getPolyHeight(tile, poly, pos);
-        if (h.isPresent()) {
-            closest[1] = h.get();
-            return new ClosestPointOnPolyResult(true, closest);
+        if (getPolyHeight(tile, ip, pos, closest)) {
+            return true;
         }
 
         // Off-mesh connections don't have detail polygons.
+        Poly poly = tile.data.polys[ip];
         if (poly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
-            int i = poly.verts[0] * 3;
-            float[] v0 = new float[] { tile.data.verts[i], tile.data.verts[i + 1], tile.data.verts[i + 2] };
-            i = poly.verts[1] * 3;
-            float[] v1 = new float[] { tile.data.verts[i], tile.data.verts[i + 1], tile.data.verts[i + 2] };
-            Tupple2<Float, Float> dt = distancePtSegSqr2D(pos, v0, v1);
-            return new ClosestPointOnPolyResult(false, vLerp(v0, v1, dt.second));
+            float[] verts = tile.data.verts;
+            int v0 = poly.verts[0] * 3;
+            int v1 = poly.verts[1] * 3;
+            distancePtSegSqr2D(pos, verts, v0, verts, v1, closest);
+            vLerp(closest, verts, v0, verts, v1, closest[0]);
+            return false;
         }
         // Outside poly that is not an offmesh connection.
-        return new ClosestPointOnPolyResult(false, closestPointOnDetailEdges(tile, poly, pos, true));
+        closestPointOnDetailEdges(tile, ip, pos, true, closest);
+        return false;
     }
 
     FindNearestPolyResult findNearestPolyInTile(MeshTile tile, float[] center, float[] extents) {
@@ -1146,9 +1301,11 @@ public class NavMesh {
     }
 
     MeshTile getTileAt(int x, int y, int layer) {
-        for (MeshTile tile : getTileListByPos(x, y)) {
+        for (int i : getTileIndicesByPos(x, y)) {
+            MeshTile tile = m_tiles.get(i);
             if (tile.data.header != null && tile.data.header.x == x && tile.data.header.y == y
                     && tile.data.header.layer == layer) {
+                tilesUsed(x, y);
                 return tile;
             }
         }
@@ -1156,43 +1313,21 @@ public class NavMesh {
     }
 
     List<MeshTile> getNeighbourTilesAt(int x, int y, int side) {
-        int nx = x, ny = y;
-        switch (side) {
-        case 0:
-            nx++;
-            break;
-        case 1:
-            nx++;
-            ny++;
-            break;
-        case 2:
-            ny++;
-            break;
-        case 3:
-            nx--;
-            ny++;
-            break;
-        case 4:
-            nx--;
-            break;
-        case 5:
-            nx--;
-            ny--;
-            break;
-        case 6:
-            ny--;
-            break;
-        case 7:
-            nx++;
-            ny--;
-            break;
-        }
-        return getTilesAt(nx, ny);
+        return tilesAt(x + NEIGHBOUR_DX[side], y + NEIGHBOUR_DY[side]);
     }
 
     public List<MeshTile> getTilesAt(int x, int y) {
+        List<MeshTile> tiles = tilesAt(x, y);
+        if (!tiles.isEmpty()) {
+            tilesUsed(x, y);
+        }
+        return tiles;
+    }
+
+    private List<MeshTile> tilesAt(int x, int y) {
         List<MeshTile> tiles = new ArrayList<>();
-        for (MeshTile tile : getTileListByPos(x, y)) {
+        for (int i : getTileIndicesByPos(x, y)) {
+            MeshTile tile = m_tiles.get(i);
             if (tile.data.header != null && tile.data.header.x == x && tile.data.header.y == y) {
                 tiles.add(tile);
             }
@@ -1200,6 +1335,67 @@ public class NavMesh {
         return tiles;
     }
 
+    /**
+     * Appends the tiles at the location to the array without allocating.
+     *
+     * @return The number of tiles in the array, or -1 if the array is too small.
+     */
+    int getTilesAt(int x, int y, MeshTile[] tiles, int count) {
+        int start = count;
+        for (int i : getTileIndicesByPos(x, y)) {
+            MeshTile tile = m_tiles.get(i);
+            if (tile.data.header != null && tile.data.header.x == x && tile.data.header.y == y) {
+                if (count == tiles.length) {
+                    return -1;
+                }
+                tiles[count++] = tile;
+            }
+        }
+        if (count > start) {
+            tilesUsed(x, y);
+        }
+        return count;
+    }
+
+    /**
+     * Sets the handler queries notify when they touch a tile location without tiles, allowing tiles to be loaded on
+     * demand. Snapshots taken afterwards share the handler.
+     */
+    public void setTileRequestHandler(TileRequestHandler handler) {
+        beginEdit();
+        m_tileRequestHandler = handler;
+    }
+
+    /**
+     * Called by queries for a tile location without tiles.
+     *
+     * @return True if tiles exist at the location but have not been added yet.
+     */
+    boolean requestTiles(int x, int y) {
+        return m_tileRequestHandler != null && m_tileRequestHandler.requestTiles(x, y);
+    }
+
+    /**
+     * Called by path searches for a portal edge without links, whose neighbour tile may not have been added yet.
+     *
+     * @return True if tiles exist at the neighbour location but have not been added yet.
+     */
+    boolean requestNeighbourTiles(int x, int y, int side) {
+        int nx = x + NEIGHBOUR_DX[side];
+        int ny = y + NEIGHBOUR_DY[side];
+        return m_tileRequestHandler != null && tilesAt(nx, ny).isEmpty() && m_tileRequestHandler.requestTiles(nx, ny);
+    }
+
+    boolean hasTileRequestHandler() {
+        return m_tileRequestHandler != null;
+    }
+
+    private void tilesUsed(int x, int y) {
+        if (m_tileRequestHandler != null) {
+            m_tileRequestHandler.tilesUsed(x, y);
+        }
+    }
+
     public long getTileRefAt(int x, int y, int layer) {
         return getTileRef(getTileAt(x, y, layer));
     }
@@ -1213,7 +1409,7 @@ public class NavMesh {
         if (tileIndex >= m_maxTiles) {
             return null;
         }
-        MeshTile tile = m_tiles[tileIndex];
+        MeshTile tile = m_tiles.get(tileIndex);
         if (tile.salt != tileSalt) {
             return null;
         }
@@ -1257,10 +1453,10 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Result.invalidParam("Invalid tile ID > max tiles");
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data.header == null) {
             return Result.invalidParam("Invalid salt or missing tile header");
         }
-        MeshTile tile = m_tiles[it];
+        MeshTile tile = m_tiles.get(it);
         if (ip >= tile.data.header.polyCount) {
             return Result.invalidParam("Invalid poly ID > poly count");
         }
@@ -1275,9 +1471,9 @@ public class NavMesh {
         int idx0 = 0, idx1 = 1;
 
         // Find link that points to first vertex.
-        for (int i = tile.polyLinks[poly.index]; i != DT_NULL_LINK; i = tile.links.get(i).next) {
-            if (tile.links.get(i).edge == 0) {
-                if (tile.links.get(i).ref != prevRef) {
+        for (int i = tile.polyLinks[poly.index]; i != DT_NULL_LINK; i = tile.links.next(i)) {
+            if (tile.links.edge(i) == 0) {
+                if (tile.links.ref(i) != prevRef) {
                     idx0 = 1;
                     idx1 = 0;
                 }
@@ -1307,17 +1503,21 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Status.FAILURE_INVALID_PARAM;
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data == null || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data == null || m_tiles.get(it).data.header == null) {
             return Status.FAILURE_INVALID_PARAM;
         }
-        MeshTile tile = m_tiles[it];
+        MeshTile tile = m_tiles.get(it);
         if (ip >= tile.data.header.polyCount) {
             return Status.FAILURE_INVALID_PARAM;
         }
+        beginEdit();
+        tile = editableTile(tile);
+        editableData(tile);
         Poly poly = tile.data.polys[ip];
 
         // Change flags.
         poly.flags = flags;
+        m_polyStateVersion++;
         return Status.SUCCSESS;
     }
 
@@ -1332,10 +1532,10 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Result.invalidParam();
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data == null || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data == null || m_tiles.get(it).data.header == null) {
             return Result.invalidParam();
         }
-        MeshTile tile = m_tiles[it];
+        MeshTile tile = m_tiles.get(it);
         if (ip >= tile.data.header.polyCount) {
             return Result.invalidParam();
         }
@@ -1355,16 +1555,20 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Status.FAILURE;
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data == null || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data == null || m_tiles.get(it).data.header == null) {
             return Status.FAILURE_INVALID_PARAM;
         }
-        MeshTile tile = m_tiles[it];
+        MeshTile tile = m_tiles.get(it);
         if (ip >= tile.data.header.polyCount) {
             return Status.FAILURE_INVALID_PARAM;
         }
+        beginEdit();
+        tile = editableTile(tile);
+        editableData(tile);
         Poly poly = tile.data.polys[ip];
 
         poly.setArea(area);
+        m_polyStateVersion++;
 
         return Status.SUCCSESS;
     }
@@ -1380,10 +1584,10 @@ public class NavMesh {
         if (it >= m_maxTiles) {
             return Result.invalidParam();
         }
-        if (m_tiles[it].salt != salt || m_tiles[it].data == null || m_tiles[it].data.header == null) {
+        if (m_tiles.get(it).salt != salt || m_tiles.get(it).data == null || m_tiles.get(it).data.header == null) {
             return Result.invalidParam();
         }
-        MeshTile tile = m_tiles[it];
+        MeshTile tile = m_tiles.get(it);
         if (ip >= tile.data.header.polyCount) {
             return Result.invalidParam();
         }
@@ -1405,7 +1609,28 @@ public class NavMesh {
         return (triFlags >> (edgeIndex * 2)) & 0x3;
     }
 
-    private List<MeshTile> getTileListByPos(int x, int z) {
-        return posLookup.computeIfAbsent(computeTileHash(x, z, m_tileLutMask), __ -> new ArrayList<>());
+    private int[] getTileIndicesByPos(int x, int z) {
+        int[] tiles = m_posLookup.get(computeTileHash(x, z, m_tileLutMask));
+        return tiles != null ? tiles : NO_TILES;
+    }
+
+    private void addToPosLookup(int tileIndex, int x, int z) {
+        int[] tiles = getTileIndicesByPos(x, z);
+        int[] updated = Arrays.copyOf(tiles, tiles.length + 1);
+        updated[tiles.length] = tileIndex;
+        m_posLookup.set(computeTileHash(x, z, m_tileLutMask), updated, m_edit);
+    }
+
+    private void removeFromPosLookup(int tileIndex, int x, int z) {
+        int[] tiles = getTileIndicesByPos(x, z);
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == tileIndex) {
+                int[] updated = new int[tiles.length - 1];
+                System.arraycopy(tiles, 0, updated, 0, i);
+                System.arraycopy(tiles, i + 1, updated, i, tiles.length - i - 1);
+                m_posLookup.set(computeTileHash(x, z, m_tileLutMask), updated, m_edit);
+                return;
+            }
+        }
     }
 }
@@ -23,6 +23,7 @@ import static org.recast4j.detour.Node.DT_NODE_CLOSED;
 import static org.recast4j.detour.Node.DT_NODE_OPEN;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -56,15 +57,82 @@ public class NavMeshQuery {
                                                                    /// where area changes.
     public static final int DT_STRAIGHTPATH_ALL_CROSSINGS = 0x02; /// < Add a vertex at every polygon edge crossing.
 
+    /// Layout of the hit array filled by the allocation free raycast.
+    public static final int RAYCAST_HIT_T = 0; /// < The hit parameter. (Float.MAX_VALUE if no wall hit.)
+    public static final int RAYCAST_HIT_NORMAL = 1; /// < The normal of the nearest wall hit. [(x, y, z)]
+    public static final int RAYCAST_HIT_COST = 4; /// < The cost of the path, see #DT_RAYCAST_USE_COSTS.
+    public static final int RAYCAST_HIT_EDGE = 5; /// < The index of the edge of the last polygon the ray crossed.
+    public static final int RAYCAST_HIT_SIZE = 6;
+
+    private static final int TINY_NODE_POOL_SIZE = 64;
+
     protected final NavMesh m_nav;
     protected final NodePool m_nodePool;
+    protected final NodePool m_tinyNodePool;
     protected final NodeQueue m_openList;
     protected QueryData m_query; /// < Sliced query state.
+    private NearestPolyBatch m_nearestPolyBatch; /// < Scratch buffers of findNearestPolys(), created on first use.
+
+    // Output and scratch buffers of the allocation free findStraightPath() and raycast().
+    private float[] m_straightPath;
+    private int[] m_straightPathFlags;
+    private long[] m_straightPathRefs;
+    private int m_straightPathCount;
+    private int m_maxStraightPath;
+    private final float[] m_closestStartPos = new float[3];
+    private final float[] m_closestEndPos = new float[3];
+    private final float[] m_portalApex = new float[3];
+    private final float[] m_portalLeft = new float[3];
+    private final float[] m_portalRight = new float[3];
+    private final float[] m_left = new float[3];
+    private final float[] m_right = new float[3];
+    private final float[] m_segStart = new float[3];
+    private final float[] m_point = new float[3];
+    private final float[] m_lastPos = new float[3];
+    private final float[] m_polyVerts;
+    private final float[] m_edgeDist;
+    private final float[] m_edgeT;
+    private final Node[] m_moveQueue = new Node[TINY_NODE_POOL_SIZE];
+    private final float[] m_searchPos = new float[3];
+    private final long[] m_neis = new long[8];
+    private final Node[] m_foundNodes = new Node[Node.DT_MAX_STATES_PER_NODE];
+    private final float[] m_segT = new float[1];
+    private final float[] m_segST = new float[2];
+    private final IntersectResult m_intersect = new IntersectResult();
+    private long[] m_raycastPath = new long[16];
+    private WallSegmentCache m_wallCache;
 
     public NavMeshQuery(NavMesh nav) {
+        this(nav, NodePool.DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * @param nav
+     *            The navigation mesh the query object will use.
+     * @param maxNodes
+     *            Maximum number of search nodes. Searches that need more nodes return partial results with
+     *            {@link Status#OUT_OF_NODES}.
+     */
+    public NavMeshQuery(NavMesh nav, int maxNodes) {
         m_nav = nav;
-        m_nodePool = new NodePool();
-        m_openList = new NodeQueue();
+        m_nodePool = new NodePool(maxNodes);
+        m_tinyNodePool = new NodePool(TINY_NODE_POOL_SIZE);
+        m_openList = new NodeQueue(maxNodes);
+        m_polyVerts = new float[nav.getMaxVertsPerPoly() * 3 + 3];
+        m_edgeDist = new float[nav.getMaxVertsPerPoly()];
+        m_edgeT = new float[nav.getMaxVertsPerPoly()];
+    }
+
+    /**
+     * Sets the cache of polygon walls used by getPolyWallSegments() without portals and findDistanceToWall(), null to
+     * compute the walls on every call.
+     */
+    public void setWallSegmentCache(WallSegmentCache cache) {
+        m_wallCache = cache;
+    }
+
+    public WallSegmentCache getWallSegmentCache() {
+        return m_wallCache;
     }
 
     public static class FRand {
@@ -296,9 +364,8 @@ public class NavMeshQuery {
                 parentRef = m_nodePool.getNodeAtIdx(bestNode.pidx).id;
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                Link link = bestTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
                 // Skip invalid neighbours and do not follow back to parent.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
                     continue;
@@ -331,6 +398,9 @@ public class NavMeshQuery {
                 }
 
                 Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    continue;
+                }
 
                 if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
@@ -430,18 +500,33 @@ public class NavMeshQuery {
         if (Objects.isNull(pos) || !vIsFinite(pos)) {
             return Result.invalidParam();
         }
+        float[] closest = new float[3];
+        closestPointOnPolyBoundary(tile, poly, pos, closest);
+        return Result.success(closest);
+    }
+
+    /// Allocation free variant of #closestPointOnPolyBoundary for a valid reference.
+    private boolean closestPointOnPolyBoundary(long ref, float[] pos, float[] closest) {
+        if (!m_nav.isValidPolyRef(ref)) {
+            return false;
+        }
+        MeshTile tile = m_nav.getTileByRefUnsafe(ref);
+        closestPointOnPolyBoundary(tile, tile.data.polys[NavMesh.decodePolyIdPoly(ref)], pos, closest);
+        return true;
+    }
+
+    private void closestPointOnPolyBoundary(MeshTile tile, Poly poly, float[] pos, float[] closest) {
         // Collect vertices.
-        float[] verts = new float[m_nav.getMaxVertsPerPoly() * 3];
-        float[] edged = new float[m_nav.getMaxVertsPerPoly()];
-        float[] edget = new float[m_nav.getMaxVertsPerPoly()];
+        float[] verts = m_polyVerts;
+        float[] edged = m_edgeDist;
+        float[] edget = m_edgeT;
         int nv = poly.vertCount;
         for (int i = 0; i < nv; ++i) {
             System.arraycopy(tile.data.verts, poly.verts[i] * 3, verts, i * 3, 3);
         }
 
-        float[] closest;
         if (distancePtPolyEdgesSqr(pos, verts, nv, edged, edget)) {
-            closest = vCopy(pos);
+            vCopy(closest, pos);
         } else {
             // Point is outside the polygon, dtClamp to nearest edge.
             float dmin = edged[0];
@@ -454,9 +539,9 @@ public class NavMeshQuery {
             }
             int va = imin * 3;
             int vb = ((imin + 1) % nv) * 3;
-            closest = vLerp(verts, va, vb, edget[imin]);
+            float t = edget[imin];
+            vLerp(closest, verts, va, verts, vb, t);
         }
-        return Result.success(closest);
     }
 
     /// @par
@@ -493,7 +578,7 @@ public class NavMeshQuery {
             Tupple2<Float, Float> dt = distancePtSegSqr2D(pos, v0, v1);
             return Result.success(v0[1] + (v1[1] - v0[1]) * dt.second);
         }
-        Optional<Float> height = m_nav.getPolyHeight(tile, poly, pos);
+        Optional<Float> height = m_nav.getPolyHeight(tile, poly.index, pos);
         return height.isPresent() ? Result.success(height.get()) : Result.invalidParam();
     }
 
@@ -518,7 +603,48 @@ public class NavMeshQuery {
             return Result.of(status, null);
         }
 
-        return Result.success(query.result());
+        return Result.of(status, query.result());
+    }
+
+    /**
+     * Finds the polygon nearest to each of the specified positions.
+     *
+     * The result of each query is the same as that of {@link #findNearestPoly(float[], float[], QueryFilter)}, but the
+     * queries are processed in spatial order so that nearby positions share the tile lookup and the BV-tree traversal.
+     * The results are written to the caller's arrays and the query does not allocate once its internal buffers have
+     * grown to fit the batch. If no polygon is found for a position the reference is 0 and the point is the position
+     * itself.
+     *
+     * @param positions
+     *            The center of the search boxes. [(x, y, z) * count]
+     * @param count
+     *            The number of positions.
+     * @param halfExtents
+     *            The search distance along each axis. [(x, y, z)]
+     * @param filter
+     *            The polygon filter to apply to the query.
+     * @param outRefs
+     *            The reference id of the nearest polygon of each position. [count]
+     * @param outPoints
+     *            The nearest point on the polygon of each position. [(x, y, z) * count]
+     * @return The status of the query, partial if some search boxes touch tiles which are not loaded yet.
+     */
+    public Status findNearestPolys(float[] positions, int count, float[] halfExtents, QueryFilter filter,
+            long[] outRefs, float[] outPoints) {
+        if (Objects.isNull(positions) || count < 0 || positions.length < count * 3 || Objects.isNull(halfExtents)
+                || !vIsFinite(halfExtents) || Objects.isNull(filter) || Objects.isNull(outRefs)
+                || outRefs.length < count || Objects.isNull(outPoints) || outPoints.length < count * 3) {
+            return Status.FAILURE_INVALID_PARAM;
+        }
+        for (int i = 0; i < count * 3; i++) {
+            if (!Float.isFinite(positions[i])) {
+                return Status.FAILURE_INVALID_PARAM;
+            }
+        }
+        if (m_nearestPolyBatch == null) {
+            m_nearestPolyBatch = new NearestPolyBatch(m_nav);
+        }
+        return m_nearestPolyBatch.find(positions, count, halfExtents, filter, outRefs, outPoints);
     }
 
     // FIXME: (PP) duplicate?
@@ -609,7 +735,7 @@ public class NavMeshQuery {
      *            The search distance along each axis. [(x, y, z)]
      * @param filter
      *            The polygon filter to apply to the query.
-     * @return The reference ids of the polygons that overlap the query box.
+     * @return The status of the query, partial if the query box touches tiles which are not loaded yet.
      */
     public Status queryPolygons(float[] center, float[] halfExtents, QueryFilter filter, PolyQuery query) {
         if (Objects.isNull(center) || !vIsFinite(center) || Objects.isNull(halfExtents) || !vIsFinite(halfExtents)
@@ -619,8 +745,10 @@ public class NavMeshQuery {
         // Find tiles the query touches.
         float[] bmin = vSub(center, halfExtents);
         float[] bmax = vAdd(center, halfExtents);
-        queryTiles(center, halfExtents).forEach(t -> queryPolygonsInTile(t, bmin, bmax, filter, query));
-        return Status.SUCCSESS;
+        List<MeshTile> tiles = new ArrayList<>();
+        boolean missingTiles = queryTiles(bmin, bmax, tiles);
+        tiles.forEach(t -> queryPolygonsInTile(t, bmin, bmax, filter, query));
+        return missingTiles ? Status.PARTIAL_RESULT : Status.SUCCSESS;
     }
 
     /**
@@ -632,19 +760,55 @@ public class NavMeshQuery {
         }
         float[] bmin = vSub(center, halfExtents);
         float[] bmax = vAdd(center, halfExtents);
+        List<MeshTile> tiles = new ArrayList<>();
+        queryTiles(bmin, bmax, tiles);
+        return tiles;
+    }
+
+    /**
+     * Collects the tiles overlapping the box, returns true if some of the overlapped locations have tiles which are not
+     * loaded yet.
+     */
+    private boolean queryTiles(float[] bmin, float[] bmax, List<MeshTile> tiles) {
         int[] minxy = m_nav.calcTileLoc(bmin);
         int minx = minxy[0];
         int miny = minxy[1];
         int[] maxxy = m_nav.calcTileLoc(bmax);
         int maxx = maxxy[0];
         int maxy = maxxy[1];
-        List<MeshTile> tiles = new ArrayList<>();
+        boolean missingTiles = false;
         for (int y = miny; y <= maxy; ++y) {
             for (int x = minx; x <= maxx; ++x) {
-                tiles.addAll(m_nav.getTilesAt(x, y));
+                List<MeshTile> tilesAt = m_nav.getTilesAt(x, y);
+                if (tilesAt.isEmpty()) {
+                    missingTiles |= m_nav.requestTiles(x, y);
+                }
+                tiles.addAll(tilesAt);
+            }
+        }
+        return missingTiles;
+    }
+
+    /**
+     * Requests the neighbour tiles behind the portal edges of the polygon which have no links, so that path searches
+     * reaching the border of the loaded area load the tiles beyond it.
+     */
+    private void requestMissingNeighbours(MeshTile tile, Poly poly) {
+        for (int j = 0; j < poly.vertCount; ++j) {
+            if ((poly.neis[j] & NavMesh.DT_EXT_LINK) == 0) {
+                continue;
+            }
+            boolean linked = false;
+            for (int i = tile.polyLinks[poly.index]; i != NavMesh.DT_NULL_LINK; i = tile.links.next(i)) {
+                if (tile.links.edge(i) == j) {
+                    linked = true;
+                    break;
+                }
+            }
+            if (!linked) {
+                m_nav.requestNeighbourTiles(tile.data.header.x, tile.data.header.y, poly.neis[j] & 0xff);
             }
         }
-        return tiles;
     }
     /**
      * Finds a path from the start polygon to the end polygon.
@@ -716,7 +880,7 @@ public class NavMeshQuery {
         Node lastBestNode = startNode;
         float lastBestNodeCost = startNode.total;
 
-        Status status = Status.SUCCSESS;
+        boolean outOfNodes = false;
 
         while (!m_openList.isEmpty()) {
             // Remove node from open list and put it in closed list.
@@ -764,8 +928,12 @@ public class NavMeshQuery {
                 }
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                long neighbourRef = bestTile.links.get(i).ref;
+            if (m_nav.hasTileRequestHandler()) {
+                requestMissingNeighbours(bestTile, bestPoly);
+            }
+
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
 
                 // Skip invalid ids and do not expand back to where we came from.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
@@ -784,6 +952,10 @@ public class NavMeshQuery {
 
                 // get the node
                 Node neighbourNode = m_nodePool.getNode(neighbourRef, 0);
+                if (neighbourNode == null) {
+                    outOfNodes = true;
+                    continue;
+                }
 
                 // do not expand to nodes that were already visited from the
                 // same parent
@@ -880,8 +1052,9 @@ public class NavMeshQuery {
 
         List<Long> path = getPathToNode(lastBestNode);
 
+        Status status = Status.SUCCSESS;
         if (lastBestNode.id != endRef) {
-            status = Status.PARTIAL_RESULT;
+            status = outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
         }
 
         return Result.of(status, path);
@@ -1051,8 +1224,12 @@ public class NavMeshQuery {
                 }
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                long neighbourRef = bestTile.links.get(i).ref;
+            if (m_nav.hasTileRequestHandler()) {
+                requestMissingNeighbours(bestTile, bestPoly);
+            }
+
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
 
                 // Skip invalid ids and do not expand back to where we came
                 // from.
@@ -1073,6 +1250,10 @@ public class NavMeshQuery {
 
                 // get the neighbor node
                 Node neighbourNode = m_nodePool.getNode(neighbourRef, 0);
+                if (neighbourNode == null) {
+                    m_query.outOfNodes = true;
+                    continue;
+                }
 
                 // do not expand to nodes that were already visited from the
                 // same parent
@@ -1173,7 +1354,7 @@ public class NavMeshQuery {
 
         // Exhausted all nodes, but could not find path.
         if (m_openList.isEmpty()) {
-            m_query.status = Status.PARTIAL_RESULT;
+            m_query.status = m_query.outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
         }
 
         return Result.of(m_query.status, iter);
@@ -1198,7 +1379,7 @@ public class NavMeshQuery {
         } else {
             // Reverse the path.
             if (m_query.lastBestNode.id != m_query.endRef) {
-                m_query.status = Status.PARTIAL_RESULT;
+                m_query.status = m_query.outOfNodes ? Status.OUT_OF_NODES : Status.PARTIAL_RESULT;
             }
             path = getPathToNode(m_query.lastBestNode);
         }
@@ -1256,68 +1437,80 @@ public class NavMeshQuery {
         return Result.of(status, path);
     }
 
-    protected Status appendVertex(float[] pos, int flags, long ref, List<StraightPathItem> straightPath,
-            int maxStraightPath) {
-        if (straightPath.size() > 0 && vEqual(straightPath.get(straightPath.size() - 1).pos, pos)) {
+    private Status appendVertex(float[] pos, int flags, long ref) {
+        int n = m_straightPathCount;
+        if (n > 0 && vEqual(m_straightPath, (n - 1) * 3, pos)) {
             // The vertices are equal, update flags and poly.
-            straightPath.get(straightPath.size() - 1).flags = flags;
-            straightPath.get(straightPath.size() - 1).ref = ref;
+            if (m_straightPathFlags != null) {
+                m_straightPathFlags[n - 1] = flags;
+            }
+            if (m_straightPathRefs != null) {
+                m_straightPathRefs[n - 1] = ref;
+            }
         } else {
-            if (straightPath.size() < maxStraightPath) {
+            if (n < m_maxStraightPath) {
                 // Append new vertex.
-                straightPath.add(new StraightPathItem(pos, flags, ref));
+                if (n * 3 == m_straightPath.length) {
+                    growStraightPath();
+                }
+                System.arraycopy(pos, 0, m_straightPath, n * 3, 3);
+                if (m_straightPathFlags != null) {
+                    m_straightPathFlags[n] = flags;
+                }
+                if (m_straightPathRefs != null) {
+                    m_straightPathRefs[n] = ref;
+                }
+                m_straightPathCount = ++n;
             }
             // If reached end of path or there is no space to append more vertices, return.
-            if (flags == DT_STRAIGHTPATH_END || straightPath.size() >= maxStraightPath) {
+            if (flags == DT_STRAIGHTPATH_END || n >= m_maxStraightPath) {
                 return Status.SUCCSESS;
             }
         }
         return Status.IN_PROGRESS;
     }
 
-    protected Status appendPortals(int startIdx, int endIdx, float[] endPos, List<Long> path,
-            List<StraightPathItem> straightPath, int maxStraightPath, int options) {
-        float[] startPos = straightPath.get(straightPath.size() - 1).pos;
+    /// Only the list based findStraightPath() passes buffers smaller than maxStraightPath.
+    private void growStraightPath() {
+        int size = m_straightPathCount * 2;
+        m_straightPath = Arrays.copyOf(m_straightPath, size * 3);
+        m_straightPathFlags = Arrays.copyOf(m_straightPathFlags, size);
+        m_straightPathRefs = Arrays.copyOf(m_straightPathRefs, size);
+    }
+
+    private Status appendPortals(int startIdx, int endIdx, float[] endPos, long[] path, int pathStart, int options) {
+        float[] startPos = m_segStart;
+        System.arraycopy(m_straightPath, (m_straightPathCount - 1) * 3, startPos, 0, 3);
+        float[] left = m_left;
+        float[] right = m_right;
         // Append or update last vertex
         Status stat = null;
         for (int i = startIdx; i < endIdx; i++) {
             // Calculate portal
-            long from = path.get(i);
-            Result<Tupple2<MeshTile, Poly>> tileAndPoly = m_nav.getTileAndPolyByRef(from);
-            if (tileAndPoly.failed()) {
-                return Status.FAILURE;
-            }
-            MeshTile fromTile = tileAndPoly.result.first;
-            Poly fromPoly = tileAndPoly.result.second;
-
-            long to = path.get(i + 1);
-            tileAndPoly = m_nav.getTileAndPolyByRef(to);
-            if (tileAndPoly.failed()) {
+            long from = path[pathStart + i];
+            long to = path[pathStart + i + 1];
+            if (!m_nav.isValidPolyRef(from) || !m_nav.isValidPolyRef(to)) {
                 return Status.FAILURE;
             }
-            MeshTile toTile = tileAndPoly.result.first;
-            Poly toPoly = tileAndPoly.result.second;
+            MeshTile fromTile = m_nav.getTileByRefUnsafe(from);
+            MeshTile toTile = m_nav.getTileByRefUnsafe(to);
 
-            Result<PortalResult> portals = getPortalPoints(from, fromPoly, fromTile, to, toPoly, toTile, 0, 0);
-            if (portals.failed()) {
+            if (!getPortalPoints(from, fromTile, to, toTile, left, right)) {
                 break;
             }
-            float[] left = portals.result.left;
-            float[] right = portals.result.right;
 
             if ((options & DT_STRAIGHTPATH_AREA_CROSSINGS) != 0) {
                 // Skip intersection if only area crossings are requested.
-                if (fromPoly.getArea() == toPoly.getArea()) {
+                if (fromTile.data.polys[NavMesh.decodePolyIdPoly(from)]
+                        .getArea() == toTile.data.polys[NavMesh.decodePolyIdPoly(to)].getArea()) {
                     continue;
                 }
             }
 
             // Append intersection
-            Optional<Tupple2<Float, Float>> interect = intersectSegSeg2D(startPos, endPos, left, right);
-            if (interect.isPresent()) {
-                float t = interect.get().second;
-                float[] pt = vLerp(left, right, t);
-                stat = appendVertex(pt, 0, path.get(i + 1), straightPath, maxStraightPath);
+            if (intersectSegSeg2D(startPos, endPos, left, right, m_segST)) {
+                vLerp(m_point, left, 0, right, 0, m_segST[1]);
+                stat = appendVertex(m_point, 0, path[pathStart + i + 1]);
                 if (!stat.isInProgress()) {
                     return stat;
                 }
@@ -1353,33 +1546,108 @@ public class NavMeshQuery {
     /// @returns The status flags for the query.
     public Result<List<StraightPathItem>> findStraightPath(float[] startPos, float[] endPos, List<Long> path,
             int maxStraightPath, int options) {
+        if (Objects.isNull(path) || maxStraightPath <= 0) {
+            return Result.invalidParam();
+        }
+        long[] polys = new long[path.size()];
+        for (int i = 0; i < polys.length; i++) {
+            polys[i] = path.get(i);
+        }
+        int capacity = Math.min(maxStraightPath, polys.length + 2);
+        m_straightPath = new float[capacity * 3];
+        m_straightPathFlags = new int[capacity];
+        m_straightPathRefs = new long[capacity];
+        int count = findStraightPath(startPos, endPos, polys, 0, polys.length, maxStraightPath, options);
+        float[] points = m_straightPath;
+        int[] flags = m_straightPathFlags;
+        long[] refs = m_straightPathRefs;
+        m_straightPath = null;
+        m_straightPathFlags = null;
+        m_straightPathRefs = null;
+        if (count < 0) {
+            return Result.invalidParam();
+        }
+        List<StraightPathItem> straightPath = new ArrayList<>(count);
+        float[] pos = new float[3];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(points, i * 3, pos, 0, 3);
+            straightPath.add(new StraightPathItem(pos, flags[i], refs[i]));
+        }
+        return Result.success(straightPath);
+    }
+
+    /// Allocation free variant of #findStraightPath which writes into the caller's buffers.
+    ///
+    /// @param[in] startPos Path start position. [(x, y, z)]
+    /// @param[in] endPos Path end position. [(x, y, z)]
+    /// @param[in] path An array of polygon references that represent the path corridor.
+    /// @param[in] pathSize The number of polygons in the @p path array.
+    /// @param[out] straightPath Points describing the straight path. [(x, y, z) * @p maxStraightPath]
+    /// @param[out] straightPathFlags Flags describing each point. (See: #DT_STRAIGHTPATH_START) [opt]
+    /// @param[out] straightPathRefs The reference id of the polygon that is being entered at each point. [opt]
+    /// @param[in] maxStraightPath The maximum number of points the straight path arrays can hold. [Limit: > 0]
+    /// @param[in] options Query options. (see: #dtStraightPathOptions)
+    /// @returns The number of points in the straight path, or -1 if the input is invalid.
+    public int findStraightPath(float[] startPos, float[] endPos, long[] path, int pathSize, float[] straightPath,
+            int[] straightPathFlags, long[] straightPathRefs, int maxStraightPath, int options) {
+        return findStraightPath(startPos, endPos, path, 0, pathSize, straightPath, straightPathFlags, straightPathRefs,
+                maxStraightPath, options);
+    }
 
-        List<StraightPathItem> straightPath = new ArrayList<>();
+    /// Allocation free variant of #findStraightPath for a corridor stored at an offset of the @p path array.
+    ///
+    /// @param[in] pathStart The index of the first polygon of the corridor in the @p path array.
+    /// @returns The number of points in the straight path, or -1 if the input is invalid.
+    public int findStraightPath(float[] startPos, float[] endPos, long[] path, int pathStart, int pathSize,
+            float[] straightPath, int[] straightPathFlags, long[] straightPathRefs, int maxStraightPath, int options) {
+        if (Objects.isNull(straightPath) || maxStraightPath <= 0 || straightPath.length < maxStraightPath * 3
+                || (straightPathFlags != null && straightPathFlags.length < maxStraightPath)
+                || (straightPathRefs != null && straightPathRefs.length < maxStraightPath)) {
+            return -1;
+        }
+        m_straightPath = straightPath;
+        m_straightPathFlags = straightPathFlags;
+        m_straightPathRefs = straightPathRefs;
+        int count = findStraightPath(startPos, endPos, path, pathStart, pathSize, maxStraightPath, options);
+        m_straightPath = null;
+        m_straightPathFlags = null;
+        m_straightPathRefs = null;
+        return count;
+    }
+
+    private int findStraightPath(float[] startPos, float[] endPos, long[] path, int pathStart, int pathSize,
+            int maxStraightPath, int options) {
+        m_straightPathCount = 0;
+        m_maxStraightPath = maxStraightPath;
         if (Objects.isNull(startPos) || !vIsFinite(startPos) || Objects.isNull(endPos) || !vIsFinite(endPos)
-                || Objects.isNull(path) || path.isEmpty() || path.get(0) == 0 || maxStraightPath <= 0) {
-            return Result.invalidParam();
+                || Objects.isNull(path) || pathStart < 0 || pathSize <= 0 || pathStart + pathSize > path.length
+                || path[pathStart] == 0) {
+            return -1;
         }
         // TODO: Should this be callers responsibility?
-        Result<float[]> closestStartPosRes = closestPointOnPolyBoundary(path.get(0), startPos);
-        if (closestStartPosRes.failed()) {
-            return Result.invalidParam("Cannot find start position");
+        float[] closestStartPos = m_closestStartPos;
+        if (!closestPointOnPolyBoundary(path[pathStart], startPos, closestStartPos)) {
+            return -1;
         }
-        float[] closestStartPos = closestStartPosRes.result;
-        Result<float[]> closestEndPosRes = closestPointOnPolyBoundary(path.get(path.size() - 1), endPos);
-        if (closestEndPosRes.failed()) {
-            return Result.invalidParam("Cannot find end position");
+        float[] closestEndPos = m_closestEndPos;
+        if (!closestPointOnPolyBoundary(path[pathStart + pathSize - 1], endPos, closestEndPos)) {
+            return -1;
         }
-        float[] closestEndPos = closestEndPosRes.result;
         // Add start point.
-        Status stat = appendVertex(closestStartPos, DT_STRAIGHTPATH_START, path.get(0), straightPath, maxStraightPath);
+        Status stat = appendVertex(closestStartPos, DT_STRAIGHTPATH_START, path[pathStart]);
         if (!stat.isInProgress()) {
-            return Result.success(straightPath);
-        }
-
-        if (path.size() > 1) {
-            float[] portalApex = vCopy(closestStartPos);
-            float[] portalLeft = vCopy(portalApex);
-            float[] portalRight = vCopy(portalApex);
+            return m_straightPathCount;
+        }
+
+        if (pathSize > 1) {
+            float[] portalApex = m_portalApex;
+            float[] portalLeft = m_portalLeft;
+            float[] portalRight = m_portalRight;
+            float[] left = m_left;
+            float[] right = m_right;
+            vCopy(portalApex, closestStartPos);
+            vCopy(portalLeft, portalApex);
+            vCopy(portalRight, portalApex);
             int apexIndex = 0;
             int leftIndex = 0;
             int rightIndex = 0;
@@ -1387,68 +1655,59 @@ public class NavMeshQuery {
             int leftPolyType = 0;
             int rightPolyType = 0;
 
-            long leftPolyRef = path.get(0);
-            long rightPolyRef = path.get(0);
+            long leftPolyRef = path[pathStart];
+            long rightPolyRef = path[pathStart];
 
-            for (int i = 0; i < path.size(); ++i) {
-                float[] left;
-                float[] right;
+            for (int i = 0; i < pathSize; ++i) {
                 int toType;
 
-                if (i + 1 < path.size()) {
+                if (i + 1 < pathSize) {
                     // Next portal.
-                    Result<PortalResult> portalPoints = getPortalPoints(path.get(i), path.get(i + 1));
-                    if (portalPoints.failed()) {
-                        closestEndPosRes = closestPointOnPolyBoundary(path.get(i), endPos);
-                        if (closestEndPosRes.failed()) {
-                            return Result.invalidParam();
+                    toType = getPortalPoints(path[pathStart + i], path[pathStart + i + 1], left, right);
+                    if (toType < 0) {
+                        if (!closestPointOnPolyBoundary(path[pathStart + i], endPos, closestEndPos)) {
+                            return -1;
                         }
-                        closestEndPos = closestEndPosRes.result;
                         // Append portals along the current straight path segment.
                         if ((options & (DT_STRAIGHTPATH_AREA_CROSSINGS | DT_STRAIGHTPATH_ALL_CROSSINGS)) != 0) {
                             // Ignore status return value as we're just about to return anyway.
-                            appendPortals(apexIndex, i, closestEndPos, path, straightPath, maxStraightPath, options);
+                            appendPortals(apexIndex, i, closestEndPos, path, pathStart, options);
                         }
                         // Ignore status return value as we're just about to return anyway.
-                        appendVertex(closestEndPos, 0, path.get(i), straightPath, maxStraightPath);
-                        return Result.success(straightPath);
+                        appendVertex(closestEndPos, 0, path[pathStart + i]);
+                        return m_straightPathCount;
                     }
-                    left = portalPoints.result.left;
-                    right = portalPoints.result.right;
-                    toType = portalPoints.result.toType;
 
                     // If starting really close the portal, advance.
                     if (i == 0) {
-                        Tupple2<Float, Float> dt = distancePtSegSqr2D(portalApex, left, right);
-                        if (dt.first < sqr(0.001f)) {
+                        if (distancePtSegSqr2D(portalApex, left, 0, right, 0, m_segT) < sqr(0.001f)) {
                             continue;
                         }
                     }
                 } else {
                     // End of the path.
-                    left = vCopy(closestEndPos);
-                    right = vCopy(closestEndPos);
+                    vCopy(left, closestEndPos);
+                    vCopy(right, closestEndPos);
                     toType = Poly.DT_POLYTYPE_GROUND;
                 }
 
                 // Right vertex.
                 if (triArea2D(portalApex, portalRight, right) <= 0.0f) {
                     if (vEqual(portalApex, portalRight) || triArea2D(portalApex, portalLeft, right) > 0.0f) {
-                        portalRight = vCopy(right);
-                        rightPolyRef = (i + 1 < path.size()) ? path.get(i + 1) : 0;
+                        vCopy(portalRight, right);
+                        rightPolyRef = (i + 1 < pathSize) ? path[pathStart + i + 1] : 0;
                         rightPolyType = toType;
                         rightIndex = i;
                     } else {
                         // Append portals along the current straight path segment.
                         if ((options & (DT_STRAIGHTPATH_AREA_CROSSINGS | DT_STRAIGHTPATH_ALL_CROSSINGS)) != 0) {
-                            stat = appendPortals(apexIndex, leftIndex, portalLeft, path, straightPath, maxStraightPath,
-                                    options);
+                            stat = appendPortals(apexIndex, leftIndex, portalLeft, path, pathStart, options);
                             if (!stat.isInProgress()) {
-                                return Result.success(straightPath);
+                                return m_straightPathCount;
                             }
                         }
 
-                        portalApex = vCopy(portalLeft);
+                        vCopy(portalApex, portalLeft);
                         apexIndex = leftIndex;
 
                         int flags = 0;
@@ -1460,13 +1719,13 @@ public class NavMeshQuery {
                         long ref = leftPolyRef;
 
                         // Append or update vertex
-                        stat = appendVertex(portalApex, flags, ref, straightPath, maxStraightPath);
+                        stat = appendVertex(portalApex, flags, ref);
                         if (!stat.isInProgress()) {
-                            return Result.success(straightPath);
+                            return m_straightPathCount;
                         }
 
-                        portalLeft = vCopy(portalApex);
-                        portalRight = vCopy(portalApex);
+                        vCopy(portalLeft, portalApex);
+                        vCopy(portalRight, portalApex);
                         leftIndex = apexIndex;
                         rightIndex = apexIndex;
 
@@ -1480,21 +1739,20 @@ public class NavMeshQuery {
                 // Left vertex.
                 if (triArea2D(portalApex, portalLeft, left) >= 0.0f) {
                     if (vEqual(portalApex, portalLeft) || triArea2D(portalApex, portalRight, left) < 0.0f) {
-                        portalLeft = vCopy(left);
-                        leftPolyRef = (i + 1 < path.size()) ? path.get(i + 1) : 0;
+                        vCopy(portalLeft, left);
+                        leftPolyRef = (i + 1 < pathSize) ? path[pathStart + i + 1] : 0;
                         leftPolyType = toType;
                         leftIndex = i;
                     } else {
                         // Append portals along the current straight path segment.
                         if ((options & (DT_STRAIGHTPATH_AREA_CROSSINGS | DT_STRAIGHTPATH_ALL_CROSSINGS)) != 0) {
-                            stat = appendPortals(apexIndex, rightIndex, portalRight, path, straightPath,
-                                    maxStraightPath, options);
+                            stat = appendPortals(apexIndex, rightIndex, portalRight, path, pathStart, options);
                             if (!stat.isInProgress()) {
-                                return Result.success(straightPath);
+                                return m_straightPathCount;
                             }
                         }
 
-                        portalApex = vCopy(portalRight);
+                        vCopy(portalApex, portalRight);
                         apexIndex = rightIndex;
 
                         int flags = 0;
@@ -1506,13 +1764,13 @@ public class NavMeshQuery {
                         long ref = rightPolyRef;
 
                         // Append or update vertex
-                        stat = appendVertex(portalApex, flags, ref, straightPath, maxStraightPath);
+                        stat = appendVertex(portalApex, flags, ref);
                         if (!stat.isInProgress()) {
-                            return Result.success(straightPath);
+                            return m_straightPathCount;
                         }
 
-                        portalLeft = vCopy(portalApex);
-                        portalRight = vCopy(portalApex);
+                        vCopy(portalLeft, portalApex);
+                        vCopy(portalRight, portalApex);
                         leftIndex = apexIndex;
                         rightIndex = apexIndex;
 
@@ -1526,17 +1784,16 @@ public class NavMeshQuery {
 
             // Append portals along the current straight path segment.
             if ((options & (DT_STRAIGHTPATH_AREA_CROSSINGS | DT_STRAIGHTPATH_ALL_CROSSINGS)) != 0) {
-                stat = appendPortals(apexIndex, path.size() - 1, closestEndPos, path, straightPath, maxStraightPath,
-                        options);
+                stat = appendPortals(apexIndex, pathSize - 1, closestEndPos, path, pathStart, options);
                 if (!stat.isInProgress()) {
-                    return Result.success(straightPath);
+                    return m_straightPathCount;
                 }
             }
         }
 
         // Ignore status return value as we're just about to return anyway.
-        appendVertex(closestEndPos, DT_STRAIGHTPATH_END, 0, straightPath, maxStraightPath);
-        return Result.success(straightPath);
+        appendVertex(closestEndPos, DT_STRAIGHTPATH_END, 0);
+        return m_straightPathCount;
     }
 
     /// @par
@@ -1567,14 +1824,44 @@ public class NavMeshQuery {
     /// @returns Path
     public Result<MoveAlongSurfaceResult> moveAlongSurface(long startRef, float[] startPos, float[] endPos,
             QueryFilter filter) {
+        float[] resultPos = new float[3];
+        // The visited polygons are bounded by the tiny node pool.
+        long[] visited = new long[TINY_NODE_POOL_SIZE];
+        int nvisited = moveAlongSurface(startRef, startPos, endPos, filter, resultPos, visited, visited.length);
+        if (nvisited < 0) {
+            return Result.invalidParam();
+        }
+        List<Long> visitedList = new ArrayList<>(nvisited);
+        for (int i = 0; i < nvisited; i++) {
+            visitedList.add(visited[i]);
+        }
+        return Result.success(new MoveAlongSurfaceResult(resultPos, visitedList));
+    }
+
+    /// Allocation free variant of #moveAlongSurface which writes into the caller's buffers.
+    ///
+    /// @param[in] startRef The reference id of the start polygon.
+    /// @param[in] startPos A position of the mover within the start polygon. [(x, y, x)]
+    /// @param[in] endPos The desired end position of the mover. [(x, y, z)]
+    /// @param[in] filter The polygon filter to apply to the query.
+    /// @param[out] resultPos The result position of the mover. [(x, y, z)]
+    /// @param[out] visited The reference ids of the polygons visited during the move.
+    /// @param[in] maxVisited The maximum number of polygons the @p visited array can hold.
+    /// @returns The number of visited polygons, or -1 if the input is invalid. If the number is larger than
+    /// @p maxVisited only the first @p maxVisited polygons are stored.
+    public int moveAlongSurface(long startRef, float[] startPos, float[] endPos, QueryFilter filter,
+            float[] resultPos, long[] visited, int maxVisited) {
 
         // Validate input
         if (!m_nav.isValidPolyRef(startRef) || Objects.isNull(startPos) || !vIsFinite(startPos)
-                || Objects.isNull(endPos) || !vIsFinite(endPos) || Objects.isNull(filter)) {
-            return Result.invalidParam();
+                || Objects.isNull(endPos) || !vIsFinite(endPos) || Objects.isNull(filter)
+                || Objects.isNull(resultPos) || resultPos.length < 3 || maxVisited < 0
+                || (maxVisited > 0 && (Objects.isNull(visited) || visited.length < maxVisited))) {
+            return -1;
         }
 
-        NodePool tinyNodePool = new NodePool();
+        NodePool tinyNodePool = m_tinyNodePool;
+        tinyNodePool.clear();
 
         Node startNode = tinyNodePool.getNode(startRef);
         startNode.pidx = 0;
@@ -1582,30 +1869,34 @@ public class NavMeshQuery {
         startNode.total = 0;
         startNode.id = startRef;
         startNode.flags = Node.DT_NODE_CLOSED;
-        LinkedList<Node> stack = new LinkedList<>();
-        stack.add(startNode);
+        // Every node is queued at most once, so the queue never holds more nodes than the pool.
+        Node[] queue = m_moveQueue;
+        int queueHead = 0;
+        int queueTail = 0;
+        queue[queueTail++] = startNode;
 
-        float[] bestPos = new float[3];
+        float[] bestPos = resultPos;
         float bestDist = Float.MAX_VALUE;
         Node bestNode = null;
         vCopy(bestPos, startPos);
 
         // Search constraints
-        float[] searchPos = vLerp(startPos, endPos, 0.5f);
+        float[] searchPos = m_searchPos;
+        vLerp(searchPos, startPos, 0, endPos, 0, 0.5f);
         float searchRadSqr = sqr(vDist(startPos, endPos) / 2.0f + 0.001f);
 
-        float[] verts = new float[m_nav.getMaxVertsPerPoly() * 3];
+        float[] verts = m_polyVerts;
+        long[] neis = m_neis;
 
-        while (!stack.isEmpty()) {
+        while (queueHead < queueTail) {
             // Pop front.
-            Node curNode = stack.pop();
+            Node curNode = queue[queueHead++];
 
             // Get poly and tile.
             // The API input has been checked already, skip checking internal data.
             long curRef = curNode.id;
-            Tupple2<MeshTile, Poly> tileAndPoly = m_nav.getTileAndPolyByRefUnsafe(curRef);
-            MeshTile curTile = tileAndPoly.first;
-            Poly curPoly = tileAndPoly.second;
+            MeshTile curTile = m_nav.getTileByRefUnsafe(curRef);
+            Poly curPoly = curTile.data.polys[NavMesh.decodePolyIdPoly(curRef)];
 
             // Collect vertices.
             int nverts = curPoly.vertCount;
@@ -1623,22 +1914,20 @@ public class NavMeshQuery {
             // Find wall edges and find nearest point inside the walls.
             for (int i = 0, j = curPoly.vertCount - 1; i < curPoly.vertCount; j = i++) {
                 // Find links to neighbours.
-                int MAX_NEIS = 8;
                 int nneis = 0;
-                long[] neis = new long[MAX_NEIS];
 
                 if ((curPoly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
                     // Tile border.
-                    for (int k = curTile.polyLinks[curPoly.index]; k != NavMesh.DT_NULL_LINK; k = curTile.links.get(k).next) {
-                        Link link = curTile.links.get(k);
-                        if (link.edge == j) {
-                            if (link.ref != 0) {
-                                tileAndPoly = m_nav.getTileAndPolyByRefUnsafe(link.ref);
-                                MeshTile neiTile = tileAndPoly.first;
-                                Poly neiPoly = tileAndPoly.second;
-                                if (filter.passFilter(link.ref, neiTile, neiPoly)) {
-                                    if (nneis < MAX_NEIS) {
-                                        neis[nneis++] = link.ref;
+                    for (int k = curTile.polyLinks[curPoly.index]; k != NavMesh.DT_NULL_LINK;
+                            k = curTile.links.next(k)) {
+                        if (curTile.links.edge(k) == j) {
+                            long linkRef = curTile.links.ref(k);
+                            if (linkRef != 0) {
+                                MeshTile neiTile = m_nav.getTileByRefUnsafe(linkRef);
+                                Poly neiPoly = neiTile.data.polys[NavMesh.decodePolyIdPoly(linkRef)];
+                                if (filter.passFilter(linkRef, neiTile, neiPoly)) {
+                                    if (nneis < neis.length) {
+                                        neis[nneis++] = linkRef;
                                     }
                                 }
                             }
@@ -1653,16 +1942,15 @@ public class NavMeshQuery {
                     }
                 }
 
+                int vj = j * 3;
+                int vi = i * 3;
                 if (nneis == 0) {
                     // Wall edge, calc distance.
-                    int vj = j * 3;
-                    int vi = i * 3;
-                    Tupple2<Float, Float> distSeg = distancePtSegSqr2D(endPos, verts, vj, vi);
-                    float distSqr = distSeg.first;
-                    float tseg = distSeg.second;
+                    float distSqr = distancePtSegSqr2D(endPos, verts, vj, verts, vi, m_segT);
+                    float tseg = m_segT[0];
                     if (distSqr < bestDist) {
                         // Update nearest distance.
-                        bestPos = vLerp(verts, vj, vi, tseg);
+                        vLerp(bestPos, verts, vj, verts, vi, tseg);
                         bestDist = distSqr;
                         bestNode = curNode;
                     }
@@ -1670,16 +1958,13 @@ public class NavMeshQuery {
                     for (int k = 0; k < nneis; ++k) {
                         Node neighbourNode = tinyNodePool.getNode(neis[k]);
                         // Skip if already visited.
-                        if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
+                        if (neighbourNode == null || (neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                             continue;
                         }
 
                         // Skip the link if it is too far from search constraint.
                         // TODO: Maybe should use getPortalPoints(), but this one is way faster.
-                        int vj = j * 3;
-                        int vi = i * 3;
-                        Tupple2<Float, Float> distseg = distancePtSegSqr2D(searchPos, verts, vj, vi);
-                        float distSqr = distseg.first;
+                        float distSqr = distancePtSegSqr2D(searchPos, verts, vj, verts, vi, m_segT);
                         if (distSqr > searchRadSqr) {
                             continue;
                         }
@@ -1687,32 +1972,28 @@ public class NavMeshQuery {
                         // Mark as the node as visited and push to queue.
                         neighbourNode.pidx = tinyNodePool.getNodeIdx(curNode);
                         neighbourNode.flags |= Node.DT_NODE_CLOSED;
-                        stack.add(neighbourNode);
+                        queue[queueTail++] = neighbourNode;
                     }
                 }
             }
         }
+        Arrays.fill(queue, 0, queueTail, null);
 
-        List<Long> visited = new ArrayList<>();
+        int nvisited = 0;
         if (bestNode != null) {
-            // Reverse the path.
-            Node prev = null;
-            Node node = bestNode;
-            do {
-                Node next = tinyNodePool.getNodeAtIdx(node.pidx);
-                node.pidx = tinyNodePool.getNodeIdx(prev);
-                prev = node;
-                node = next;
-            } while (node != null);
-
-            // Store result
-            node = prev;
-            do {
-                visited.add(node.id);
-                node = tinyNodePool.getNodeAtIdx(node.pidx);
-            } while (node != null);
+            // Count the polygons from the start to the best node and store them in that order.
+            for (Node node = bestNode; node != null; node = tinyNodePool.getNodeAtIdx(node.pidx)) {
+                nvisited++;
+            }
+            int i = nvisited - 1;
+            for (Node node = bestNode; node != null; node = tinyNodePool.getNodeAtIdx(node.pidx)) {
+                if (i < maxVisited) {
+                    visited[i] = node.id;
+                }
+                i--;
+            }
         }
-        return Result.success(new MoveAlongSurfaceResult(bestPos, visited));
+        return nvisited;
     }
 
     static class PortalResult {
@@ -1757,64 +2038,94 @@ public class NavMeshQuery {
             MeshTile toTile, int fromType, int toType) {
         float[] left = new float[3];
         float[] right = new float[3];
+        if (!getPortalPoints(from, fromTile, to, toTile, left, right)) {
+            return Result.invalidParam("No portal between the polygons");
+        }
+        return Result.success(new PortalResult(left, right, fromType, toType));
+    }
+
+    /// Allocation free portal lookup for valid references, returns the type of the 'to' polygon or -1.
+    private int getPortalPoints(long from, long to, float[] left, float[] right) {
+        if (!m_nav.isValidPolyRef(from) || !m_nav.isValidPolyRef(to)) {
+            return -1;
+        }
+        MeshTile fromTile = m_nav.getTileByRefUnsafe(from);
+        MeshTile toTile = m_nav.getTileByRefUnsafe(to);
+        if (!getPortalPoints(from, fromTile, to, toTile, left, right)) {
+            return -1;
+        }
+        return toTile.data.polys[NavMesh.decodePolyIdPoly(to)].getType();
+    }
+
+    /// Writes the portal points to @p left and @p right, returns false if the polygons are not connected by a portal.
+    private boolean getPortalPoints(long from, MeshTile fromTile, long to, MeshTile toTile, float[] left,
+            float[] right) {
+        int fromIp = NavMesh.decodePolyIdPoly(from);
+        int toIp = NavMesh.decodePolyIdPoly(to);
+        Poly fromPoly = fromTile.data.polys[fromIp];
+        Poly toPoly = toTile.data.polys[toIp];
         // Find the link that points to the 'to' polygon.
-        Link link = null;
-        for (int i = fromTile.polyLinks[fromPoly.index]; i != NavMesh.DT_NULL_LINK; i = fromTile.links.get(i).next) {
-            if (fromTile.links.get(i).ref == to) {
-                link = fromTile.links.get(i);
+        int link = NavMesh.DT_NULL_LINK;
+        for (int i = fromTile.polyLinks[fromIp]; i != NavMesh.DT_NULL_LINK; i = fromTile.links.next(i)) {
+            if (fromTile.links.ref(i) == to) {
+                link = i;
                 break;
             }
         }
-        if (link == null) {
-            return Result.invalidParam("No link found");
+        if (link == NavMesh.DT_NULL_LINK) {
+            return false;
         }
 
         // Handle off-mesh connections.
         if (fromPoly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
             // Find link that points to first vertex.
-            for (int i = fromTile.polyLinks[fromPoly.index]; i != NavMesh.DT_NULL_LINK; i = fromTile.links.get(i).next) {
-                if (fromTile.links.get(i).ref == to) {
-                    int v = fromTile.links.get(i).edge;
+            for (int i = fromTile.polyLinks[fromIp]; i != NavMesh.DT_NULL_LINK; i = fromTile.links.next(i)) {
+                if (fromTile.links.ref(i) == to) {
+                    int v = fromTile.links.edge(i);
                     System.arraycopy(fromTile.data.verts, fromPoly.verts[v] * 3, left, 0, 3);
                     System.arraycopy(fromTile.data.verts, fromPoly.verts[v] * 3, right, 0, 3);
-                    return Result.success(new PortalResult(left, right, fromType, toType));
+                    return true;
                 }
             }
-            return Result.invalidParam("Invalid offmesh from connection");
+            return false;
         }
 
         if (toPoly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
-            for (int i = toTile.polyLinks[toPoly.index]; i != NavMesh.DT_NULL_LINK; i = toTile.links.get(i).next) {
-                if (toTile.links.get(i).ref == from) {
-                    int v = toTile.links.get(i).edge;
+            for (int i = toTile.polyLinks[toIp]; i != NavMesh.DT_NULL_LINK; i = toTile.links.next(i)) {
+                if (toTile.links.ref(i) == from) {
+                    int v = toTile.links.edge(i);
                     System.arraycopy(toTile.data.verts, toPoly.verts[v] * 3, left, 0, 3);
                     System.arraycopy(toTile.data.verts, toPoly.verts[v] * 3, right, 0, 3);
-                    return Result.success(new PortalResult(left, right, fromType, toType));
+                    return true;
                 }
             }
-            return Result.invalidParam("Invalid offmesh to connection");
+            return false;
         }
 
         // Find portal vertices.
-        int v0 = fromPoly.verts[link.edge];
-        int v1 = fromPoly.verts[(link.edge + 1) % fromPoly.vertCount];
+        int edge = fromTile.links.edge(link);
+        int v0 = fromPoly.verts[edge];
+        int v1 = fromPoly.verts[(edge + 1) % fromPoly.vertCount];
         System.arraycopy(fromTile.data.verts, v0 * 3, left, 0, 3);
         System.arraycopy(fromTile.data.verts, v1 * 3, right, 0, 3);
 
         // If the link is at tile boundary, dtClamp the vertices to
         // the link width.
-        if (link.side != 0xff) {
+        if (fromTile.links.side(link) != 0xff) {
             // Unpack portal limits.
-            if (link.bmin != 0 || link.bmax != 255) {
+            int bmin = fromTile.links.bmin(link);
+            int bmax = fromTile.links.bmax(link);
+            if (bmin != 0 || bmax != 255) {
                 float s = 1.0f / 255.0f;
-                float tmin = link.bmin * s;
-                float tmax = link.bmax * s;
-                left = vLerp(fromTile.data.verts, v0 * 3, v1 * 3, tmin);
-                right = vLerp(fromTile.data.verts, v0 * 3, v1 * 3, tmax);
+                float tmin = bmin * s;
+                float tmax = bmax * s;
+                float[] verts = fromTile.data.verts;
+                vLerp(left, verts, v0 * 3, verts, v1 * 3, tmin);
+                vLerp(right, verts, v0 * 3, verts, v1 * 3, tmax);
             }
         }
 
-        return Result.success(new PortalResult(left, right, fromType, toType));
+        return true;
     }
 
     protected Result<float[]> getEdgeMidPoint(long from, Poly fromPoly, MeshTile fromTile, long to,
@@ -1905,37 +2216,85 @@ public class NavMeshQuery {
     /// @returns The status flags for the query.
     public Result<RaycastHit> raycast(long startRef, float[] startPos, float[] endPos, QueryFilter filter, int options,
             long prevRef) {
+        float[] hitData = new float[RAYCAST_HIT_SIZE];
+        int pathCount = raycast(startRef, startPos, endPos, filter, options, prevRef, hitData, m_raycastPath,
+                m_raycastPath.length);
+        if (pathCount > m_raycastPath.length) {
+            m_raycastPath = new long[Integer.highestOneBit(pathCount) << 1];
+            pathCount = raycast(startRef, startPos, endPos, filter, options, prevRef, hitData, m_raycastPath,
+                    m_raycastPath.length);
+        }
+        if (pathCount < 0) {
+            return Result.invalidParam();
+        }
+        RaycastHit hit = new RaycastHit();
+        hit.t = hitData[RAYCAST_HIT_T];
+        System.arraycopy(hitData, RAYCAST_HIT_NORMAL, hit.hitNormal, 0, 3);
+        hit.pathCost = hitData[RAYCAST_HIT_COST];
+        hit.hitEdgeIndex = (int) hitData[RAYCAST_HIT_EDGE];
+        for (int i = 0; i < pathCount; i++) {
+            hit.path.add(m_raycastPath[i]);
+        }
+        return Result.success(hit);
+    }
+
+    /// Allocation free variant of #raycast which writes into the caller's buffers.
+    ///
+    /// @param[in] startRef The reference id of the start polygon.
+    /// @param[in] startPos A position within the start polygon representing
+    /// the start of the ray. [(x, y, z)]
+    /// @param[in] endPos The position to cast the ray toward. [(x, y, z)]
+    /// @param[in] filter The polygon filter to apply to the query.
+    /// @param[in] options Govern how the raycast behaves. See #DT_RAYCAST_USE_COSTS
+    /// @param[in] prevRef Parent of start ref. Used during for cost calculation. [opt]
+    /// @param[out] hit The hit parameter, normal, path cost and edge index. (See: #RAYCAST_HIT_T) [Size: >=
+    /// #RAYCAST_HIT_SIZE]
+    /// @param[out] path The reference ids of the visited polygons. [opt]
+    /// @param[in] maxPath The maximum number of polygons the @p path array can hold.
+    /// @returns The number of visited polygons, or -1 if the input is invalid. If the number is larger than
+    /// @p maxPath only the first @p maxPath polygons are stored.
+    public int raycast(long startRef, float[] startPos, float[] endPos, QueryFilter filter, int options,
+            long prevRef, float[] hit, long[] path, int maxPath) {
         // Validate input
         if (!m_nav.isValidPolyRef(startRef) || Objects.isNull(startPos) || !vIsFinite(startPos)
                 || Objects.isNull(endPos) || !vIsFinite(endPos) || Objects.isNull(filter)
-                || (prevRef != 0 && !m_nav.isValidPolyRef(prevRef))) {
-            return Result.invalidParam();
+                || (prevRef != 0 && !m_nav.isValidPolyRef(prevRef)) || Objects.isNull(hit)
+                || hit.length < RAYCAST_HIT_SIZE || maxPath < 0 || (maxPath > 0 && (Objects.isNull(path)
+                        || path.length < maxPath))) {
+            return -1;
         }
 
-        RaycastHit hit = new RaycastHit();
+        float t = 0;
+        float pathCost = 0;
+        int hitEdgeIndex = 0;
+        int pathCount = 0;
+        hit[RAYCAST_HIT_NORMAL] = 0;
+        hit[RAYCAST_HIT_NORMAL + 1] = 0;
+        hit[RAYCAST_HIT_NORMAL + 2] = 0;
 
-        float[] verts = new float[m_nav.getMaxVertsPerPoly() * 3 + 3];
-
-        float[] curPos = new float[3], lastPos = new float[3];
+        float[] verts = m_polyVerts;
+        float[] curPos = m_point;
+        float[] lastPos = m_lastPos;
 
         vCopy(curPos, startPos);
-        float[] dir = vSub(endPos, startPos);
+        float dirx = endPos[0] - startPos[0];
+        float diry = endPos[1] - startPos[1];
+        float dirz = endPos[2] - startPos[2];
 
         MeshTile prevTile, tile, nextTile;
         Poly prevPoly, poly, nextPoly;
 
         // The API input has been checked already, skip checking internal data.
         long curRef = startRef;
-        Tupple2<MeshTile, Poly> tileAndPolyUns = m_nav.getTileAndPolyByRefUnsafe(curRef);
-        tile = tileAndPolyUns.first;
-        poly = tileAndPolyUns.second;
+        tile = m_nav.getTileByRefUnsafe(curRef);
+        poly = tile.data.polys[NavMesh.decodePolyIdPoly(curRef)];
         nextTile = prevTile = tile;
         nextPoly = prevPoly = poly;
         if (prevRef != 0) {
-            tileAndPolyUns = m_nav.getTileAndPolyByRefUnsafe(prevRef);
-            prevTile = tileAndPolyUns.first;
-            prevPoly = tileAndPolyUns.second;
+            prevTile = m_nav.getTileByRefUnsafe(prevRef);
+            prevPoly = prevTile.data.polys[NavMesh.decodePolyIdPoly(prevRef)];
         }
+        IntersectResult iresult = m_intersect;
         while (curRef != 0) {
             // Cast ray against current polygon.
 
@@ -1946,86 +2305,90 @@ public class NavMeshQuery {
                 nv++;
             }
 
-            IntersectResult iresult = intersectSegmentPoly2D(startPos, endPos, verts, nv);
+            intersectSegmentPoly2D(startPos, endPos, verts, nv, iresult);
             if (!iresult.intersects) {
                 // Could not hit the polygon, keep the old t and report hit.
-                return Result.success(hit);
+                break;
             }
 
-            hit.hitEdgeIndex = iresult.segMax;
+            hitEdgeIndex = iresult.segMax;
 
             // Keep track of furthest t so far.
-            if (iresult.tmax > hit.t) {
-                hit.t = iresult.tmax;
+            if (iresult.tmax > t) {
+                t = iresult.tmax;
             }
 
             // Store visited polygons.
-            hit.path.add(curRef);
+            if (pathCount < maxPath) {
+                path[pathCount] = curRef;
+            }
+            pathCount++;
 
             // Ray end is completely inside the polygon.
             if (iresult.segMax == -1) {
-                hit.t = Float.MAX_VALUE;
+                t = Float.MAX_VALUE;
 
                 // add the cost
                 if ((options & DT_RAYCAST_USE_COSTS) != 0) {
-                    hit.pathCost += filter.getCost(curPos, endPos, prevRef, prevTile, prevPoly, curRef, tile, poly,
+                    pathCost += filter.getCost(curPos, endPos, prevRef, prevTile, prevPoly, curRef, tile, poly,
                             curRef, tile, poly);
                 }
-                return Result.success(hit);
+                break;
             }
 
             // Follow neighbours.
             long nextRef = 0;
-
-            for (int i = tile.polyLinks[poly.index]; i != NavMesh.DT_NULL_LINK; i = tile.links.get(i).next) {
-                Link link = tile.links.get(i);
-
+            for (int i = tile.polyLinks[poly.index]; i != NavMesh.DT_NULL_LINK; i = tile.links.next(i)) {
                 // Find link which contains this edge.
-                if (link.edge != iresult.segMax) {
+                int edge = tile.links.edge(i);
+                if (edge != iresult.segMax) {
                     continue;
                 }
 
                 // Get pointer to the next polygon.
-                tileAndPolyUns = m_nav.getTileAndPolyByRefUnsafe(link.ref);
-                nextTile = tileAndPolyUns.first;
-                nextPoly = tileAndPolyUns.second;
+                long linkRef = tile.links.ref(i);
+                nextTile = m_nav.getTileByRefUnsafe(linkRef);
+                nextPoly = nextTile.data.polys[NavMesh.decodePolyIdPoly(linkRef)];
                 // Skip off-mesh connections.
                 if (nextPoly.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
                     continue;
                 }
 
                 // Skip links based on filter.
-                if (!filter.passFilter(link.ref, nextTile, nextPoly)) {
+                if (!filter.passFilter(linkRef, nextTile, nextPoly)) {
                     continue;
                 }
 
                 // If the link is internal, just return the ref.
-                if (link.side == 0xff) {
-                    nextRef = link.ref;
+                int side = tile.links.side(i);
+                if (side == 0xff) {
+                    nextRef = linkRef;
                     break;
                 }
 
                 // If the link is at tile boundary,
 
                 // Check if the link spans the whole edge, and accept.
-                if (link.bmin == 0 && link.bmax == 255) {
-                    nextRef = link.ref;
+                int bmin = tile.links.bmin(i);
+                int bmax = tile.links.bmax(i);
+                if (bmin == 0 && bmax == 255) {
+                    nextRef = linkRef;
                     break;
                 }
 
                 // Check for partial edge links.
-                int v0 = poly.verts[link.edge];
-                int v1 = poly.verts[(link.edge + 1) % poly.vertCount];
+                int v0 = poly.verts[edge];
+                int v1 = poly.verts[(edge + 1) % poly.vertCount];
                 int left = v0 * 3;
                 int right = v1 * 3;
 
                 // Check that the intersection lies inside the link portal.
-                if (link.side == 0 || link.side == 4) {
+                if (side == 0 || side == 4) {
                     // Calculate link size.
                     float lmin = tile.data.verts[left + 2]
-                            + (tile.data.verts[right + 2] - tile.data.verts[left + 2]) * (link.bmin * s);
+                            + (tile.data.verts[right + 2] - tile.data.verts[left + 2]) * (bmin * s);
                     float lmax = tile.data.verts[left + 2]
-                            + (tile.data.verts[right + 2] - tile.data.verts[left + 2]) * (link.bmax * s);
+                            + (tile.data.verts[right + 2] - tile.data.verts[left + 2]) * (bmax * s);
                     if (lmin > lmax) {
                         float temp = lmin;
                         lmin = lmax;
@@ -2035,15 +2398,15 @@ public class NavMeshQuery {
                     // Find Z intersection.
                     float z = startPos[2] + (endPos[2] - startPos[2]) * iresult.tmax;
                     if (z >= lmin && z <= lmax) {
-                        nextRef = link.ref;
+                        nextRef = linkRef;
                         break;
                     }
-                } else if (link.side == 2 || link.side == 6) {
+                } else if (side == 2 || side == 6) {
                     // Calculate link size.
                     float lmin = tile.data.verts[left]
-                            + (tile.data.verts[right] - tile.data.verts[left]) * (link.bmin * s);
+                            + (tile.data.verts[right] - tile.data.verts[left]) * (bmin * s);
                     float lmax = tile.data.verts[left]
-                            + (tile.data.verts[right] - tile.data.verts[left]) * (link.bmax * s);
+                            + (tile.data.verts[right] - tile.data.verts[left]) * (bmax * s);
                     if (lmin > lmax) {
                         float temp = lmin;
                         lmin = lmax;
@@ -2053,7 +2416,7 @@ public class NavMeshQuery {
                     // Find X intersection.
                     float x = startPos[0] + (endPos[0] - startPos[0]) * iresult.tmax;
                     if (x >= lmin && x <= lmax) {
-                        nextRef = link.ref;
+                        nextRef = linkRef;
                         break;
                     }
                 }
@@ -2064,15 +2427,19 @@ public class NavMeshQuery {
                 // compute the intersection point at the furthest end of the polygon
                 // and correct the height (since the raycast moves in 2d)
                 vCopy(lastPos, curPos);
-                curPos = vMad(startPos, dir, hit.t);
-                VectorPtr e1 = new VectorPtr(verts, iresult.segMax * 3);
-                VectorPtr e2 = new VectorPtr(verts, ((iresult.segMax + 1) % nv) * 3);
-                float[] eDir = vSub(e2, e1);
-                float[] diff = vSub(new VectorPtr(curPos), e1);
-                float s = sqr(eDir[0]) > sqr(eDir[2]) ? diff[0] / eDir[0] : diff[2] / eDir[2];
-                curPos[1] = e1.get(1) + eDir[1] * s;
-
-                hit.pathCost += filter.getCost(lastPos, curPos, prevRef, prevTile, prevPoly, curRef, tile, poly,
+                curPos[0] = startPos[0] + dirx * t;
+                curPos[1] = startPos[1] + diry * t;
+                curPos[2] = startPos[2] + dirz * t;
+                int e1 = iresult.segMax * 3;
+                int e2 = ((iresult.segMax + 1) % nv) * 3;
+                float eDirx = verts[e2] - verts[e1];
+                float eDiry = verts[e2 + 1] - verts[e1 + 1];
+                float eDirz = verts[e2 + 2] - verts[e1 + 2];
+                float s = sqr(eDirx) > sqr(eDirz) ? (curPos[0] - verts[e1]) / eDirx
+                        : (curPos[2] - verts[e1 + 2]) / eDirz;
+                curPos[1] = verts[e1 + 1] + eDiry * s;
+
+                pathCost += filter.getCost(lastPos, curPos, prevRef, prevTile, prevPoly, curRef, tile, poly,
                         nextRef, nextTile, nextPoly);
             }
 
@@ -2086,11 +2453,13 @@ public class NavMeshQuery {
                 int vb = b * 3;
                 float dx = verts[vb] - verts[va];
                 float dz = verts[vb + 2] - verts[va + 2];
-                hit.hitNormal[0] = dz;
-                hit.hitNormal[1] = 0;
-                hit.hitNormal[2] = -dx;
-                vNormalize(hit.hitNormal);
-                return Result.success(hit);
+                float[] normal = m_left;
+                normal[0] = dz;
+                normal[1] = 0;
+                normal[2] = -dx;
+                vNormalize(normal);
+                System.arraycopy(normal, 0, hit, RAYCAST_HIT_NORMAL, 3);
+                break;
             }
 
             // No hit, advance to neighbour polygon.
@@ -2102,7 +2471,10 @@ public class NavMeshQuery {
             poly = nextPoly;
         }
 
-        return Result.success(hit);
+        hit[RAYCAST_HIT_T] = t;
+        hit[RAYCAST_HIT_COST] = pathCost;
+        hit[RAYCAST_HIT_EDGE] = hitEdgeIndex;
+        return pathCount;
     }
 
     /// @par
@@ -2163,6 +2535,7 @@ public class NavMeshQuery {
         List<Long> resultRef = new ArrayList<>();
         List<Long> resultParent = new ArrayList<>();
         List<Float> resultCost = new ArrayList<>();
+        Status status = Status.SUCCSESS;
 
         m_nodePool.clear();
         m_openList.clear();
@@ -2207,9 +2580,8 @@ public class NavMeshQuery {
             resultParent.add(parentRef);
             resultCost.add(bestNode.total);
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                Link link = bestTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
                 // Skip invalid neighbours and do not follow back to parent.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
                     continue;
@@ -2242,6 +2614,10 @@ public class NavMeshQuery {
                 }
 
                 Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    status = Status.OUT_OF_NODES;
+                    continue;
+                }
 
                 if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
@@ -2274,7 +2650,162 @@ public class NavMeshQuery {
             }
         }
 
-        return Result.success(new FindPolysAroundResult(resultRef, resultParent, resultCost));
+        return Result.of(status, new FindPolysAroundResult(resultRef, resultParent, resultCost));
+    }
+
+    /// @par
+    ///
+    /// Runs a Dijkstra search backwards from the goal, following the links that lead into each
+    /// polygon, so the cost of a polygon is the cost of moving from it to the goal. The search
+    /// is limited only by the size of the node pool, the status is #OUT_OF_NODES if the pool is
+    /// exhausted before the whole reachable area is visited.
+    ///
+    /// Many agents moving to the same polygon can read their paths from the resulting field
+    /// instead of searching individually.
+    ///
+    /// Finds the cheapest paths from every reachable polygon to the goal polygon.
+    /// @param[in] goalRef The reference id of the goal polygon.
+    /// @param[in] goalPos A position within the goal polygon. [(x, y, z)]
+    /// @param[in] filter The polygon filter to apply to the query.
+    /// @returns The status flags for the query and the field.
+    public Result<FlowField> findFlowField(long goalRef, float[] goalPos, QueryFilter filter) {
+        // Validate input
+        if (!m_nav.isValidPolyRef(goalRef) || Objects.isNull(goalPos) || !vIsFinite(goalPos)
+                || Objects.isNull(filter)) {
+            return Result.invalidParam();
+        }
+
+        List<Long> resultRef = new ArrayList<>();
+        List<Long> resultParent = new ArrayList<>();
+        List<Float> resultCost = new ArrayList<>();
+        Status status = Status.SUCCSESS;
+
+        m_nodePool.clear();
+        m_openList.clear();
+
+        Node startNode = m_nodePool.getNode(goalRef);
+        vCopy(startNode.pos, goalPos);
+        startNode.pidx = 0;
+        startNode.cost = 0;
+        startNode.total = 0;
+        startNode.id = goalRef;
+        startNode.flags = Node.DT_NODE_OPEN;
+        m_openList.push(startNode);
+
+        long[] neighbours = new long[16];
+        while (!m_openList.isEmpty()) {
+            Node bestNode = m_openList.pop();
+            bestNode.flags &= ~Node.DT_NODE_OPEN;
+            bestNode.flags |= Node.DT_NODE_CLOSED;
+
+            // Get poly and tile.
+            // The API input has been checked already, skip checking internal data.
+            long bestRef = bestNode.id;
+            Tupple2<MeshTile, Poly> tileAndPoly = m_nav.getTileAndPolyByRefUnsafe(bestRef);
+            MeshTile bestTile = tileAndPoly.first;
+            Poly bestPoly = tileAndPoly.second;
+
+            // Agents move from the neighbours into the polygon, so the candidates are the polygons linked to it.
+            // Links between polygons go both ways, except those of one-way off-mesh connections which only lead
+            // from the connection to its end polygon, the tile keeps these separately.
+            int nneighbours = 0;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                if (nneighbours == neighbours.length) {
+                    neighbours = Arrays.copyOf(neighbours, nneighbours * 2);
+                }
+                neighbours[nneighbours++] = bestTile.links.ref(i);
+            }
+            for (int i = 0; i < bestTile.oneWayOffMeshCount; i++) {
+                if (bestTile.oneWayOffMeshPolys[i] == bestPoly.index) {
+                    if (nneighbours == neighbours.length) {
+                        neighbours = Arrays.copyOf(neighbours, nneighbours * 2);
+                    }
+                    neighbours[nneighbours++] = bestTile.oneWayOffMeshRefs[i];
+                }
+            }
+
+            // Get parent poly and tile, the parent is the next polygon towards the goal.
+            long parentRef = 0;
+            MeshTile parentTile = null;
+            Poly parentPoly = null;
+            if (bestNode.pidx != 0) {
+                parentRef = m_nodePool.getNodeAtIdx(bestNode.pidx).id;
+            }
+            if (parentRef != 0) {
+                tileAndPoly = m_nav.getTileAndPolyByRefUnsafe(parentRef);
+                parentTile = tileAndPoly.first;
+                parentPoly = tileAndPoly.second;
+            }
+
+            resultRef.add(bestRef);
+            resultParent.add(parentRef);
+            resultCost.add(bestNode.total);
+
+            for (int n = 0; n < nneighbours; n++) {
+                long neighbourRef = neighbours[n];
+                // Skip invalid neighbours and do not follow back to parent.
+                if (neighbourRef == 0 || neighbourRef == parentRef) {
+                    continue;
+                }
+
+                // Expand to neighbour
+                tileAndPoly = m_nav.getTileAndPolyByRefUnsafe(neighbourRef);
+                MeshTile neighbourTile = tileAndPoly.first;
+                Poly neighbourPoly = tileAndPoly.second;
+
+                // Do not advance if the polygon is excluded by the filter.
+                if (!filter.passFilter(neighbourRef, neighbourTile, neighbourPoly)) {
+                    continue;
+                }
+
+                // The link must exist from the neighbour into the polygon, this skips the links of the polygon
+                // that lead to the start of a one-way off-mesh connection.
+                Result<PortalResult> pp = getPortalPoints(neighbourRef, neighbourPoly, neighbourTile, bestRef, bestPoly,
+                        bestTile, 0, 0);
+                if (pp.failed()) {
+                    continue;
+                }
+
+                Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    status = Status.OUT_OF_NODES;
+                    continue;
+                }
+
+                if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
+                    continue;
+                }
+
+                // Cost
+                if (neighbourNode.flags == 0) {
+                    neighbourNode.pos = vLerp(pp.result.left, pp.result.right, 0.5f);
+                }
+
+                // The agent crosses the polygon from the neighbour towards the parent.
+                float cost = filter.getCost(neighbourNode.pos, bestNode.pos, neighbourRef, neighbourTile, neighbourPoly,
+                        bestRef, bestTile, bestPoly, parentRef, parentTile, parentPoly);
+
+                float total = bestNode.total + cost;
+                // The node is already in open list and the new result is worse, skip.
+                if ((neighbourNode.flags & Node.DT_NODE_OPEN) != 0 && total >= neighbourNode.total) {
+                    continue;
+                }
+
+                neighbourNode.id = neighbourRef;
+                neighbourNode.pidx = m_nodePool.getNodeIdx(bestNode);
+                neighbourNode.total = total;
+
+                if ((neighbourNode.flags & Node.DT_NODE_OPEN) != 0) {
+                    m_openList.modify(neighbourNode);
+                } else {
+                    neighbourNode.flags = Node.DT_NODE_OPEN;
+                    m_openList.push(neighbourNode);
+                }
+            }
+        }
+
+        return Result.of(status,
+                new FlowField(goalRef, goalPos, m_nav.getVersion(), resultRef, resultParent, resultCost));
     }
 
     /// @par
@@ -2322,6 +2853,7 @@ public class NavMeshQuery {
         List<Long> resultRef = new ArrayList<>();
         List<Long> resultParent = new ArrayList<>();
         List<Float> resultCost = new ArrayList<>();
+        Status status = Status.SUCCSESS;
 
         m_nodePool.clear();
         m_openList.clear();
@@ -2375,9 +2907,8 @@ public class NavMeshQuery {
             resultParent.add(parentRef);
             resultCost.add(bestNode.total);
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                Link link = bestTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
                 // Skip invalid neighbours and do not follow back to parent.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
                     continue;
@@ -2412,6 +2943,10 @@ public class NavMeshQuery {
                 }
 
                 Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    status = Status.OUT_OF_NODES;
+                    continue;
+                }
 
                 if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
@@ -2446,7 +2981,7 @@ public class NavMeshQuery {
             }
         }
 
-        return Result.success(new FindPolysAroundResult(resultRef, resultParent, resultCost));
+        return Result.of(status, new FindPolysAroundResult(resultRef, resultParent, resultCost));
     }
 
     /// @par
@@ -2494,7 +3029,8 @@ public class NavMeshQuery {
         List<Long> resultRef = new ArrayList<>();
         List<Long> resultParent = new ArrayList<>();
 
-        NodePool tinyNodePool = new NodePool();
+        NodePool tinyNodePool = m_tinyNodePool;
+        tinyNodePool.clear();
 
         Node startNode = tinyNodePool.getNode(startRef);
         startNode.pidx = 0;
@@ -2522,17 +3058,16 @@ public class NavMeshQuery {
             MeshTile curTile = tileAndPoly.first;
             Poly curPoly = tileAndPoly.second;
 
-            for (int i = curTile.polyLinks[curPoly.index]; i != NavMesh.DT_NULL_LINK; i = curTile.links.get(i).next) {
-                Link link = curTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = curTile.polyLinks[curPoly.index]; i != NavMesh.DT_NULL_LINK; i = curTile.links.next(i)) {
+                long neighbourRef = curTile.links.ref(i);
                 // Skip invalid neighbours.
                 if (neighbourRef == 0) {
                     continue;
                 }
 
                 Node neighbourNode = tinyNodePool.getNode(neighbourRef);
-                // Skip visited.
-                if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
+                // Skip if out of nodes or already visited.
+                if (neighbourNode == null || (neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
                 }
 
@@ -2586,8 +3121,9 @@ public class NavMeshQuery {
 
                     // Connected polys do not overlap.
                     boolean connected = false;
-                    for (int k = curTile.polyLinks[curPoly.index]; k != NavMesh.DT_NULL_LINK; k = curTile.links.get(k).next) {
-                        if (curTile.links.get(k).ref == pastRef) {
+                    for (int k = curTile.polyLinks[curPoly.index]; k != NavMesh.DT_NULL_LINK;
+                            k = curTile.links.next(k)) {
+                        if (curTile.links.ref(k) == pastRef) {
                             connected = true;
                             break;
                         }
@@ -2680,7 +3216,14 @@ public class NavMeshQuery {
         }
         MeshTile tile = tileAndPoly.result.first;
         Poly poly = tileAndPoly.result.second;
+        if (!storePortals && m_wallCache != null) {
+            return Result.success(getCachedWalls(tile, poly, filter).walls);
+        }
+        return Result.success(getPolyWallSegments(tile, poly, storePortals, filter));
+    }
 
+    private GetPolyWallSegmentsResult getPolyWallSegments(MeshTile tile, Poly poly, boolean storePortals,
+            QueryFilter filter) {
         List<Long> segmentRefs = new ArrayList<>();
         List<float[]> segmentVerts = new ArrayList<>();
         List<SegInterval> ints = new ArrayList<>(16);
@@ -2690,15 +3233,15 @@ public class NavMeshQuery {
             ints.clear();
             if ((poly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
                 // Tile border.
-                for (int k = tile.polyLinks[poly.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.get(k).next) {
-                    Link link = tile.links.get(k);
-                    if (link.edge == j) {
-                        if (link.ref != 0) {
-                            Tupple2<MeshTile, Poly> tileAndPolyUnsafe = m_nav.getTileAndPolyByRefUnsafe(link.ref);
+                for (int k = tile.polyLinks[poly.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.next(k)) {
+                    if (tile.links.edge(k) == j) {
+                        long linkRef = tile.links.ref(k);
+                        if (linkRef != 0) {
+                            Tupple2<MeshTile, Poly> tileAndPolyUnsafe = m_nav.getTileAndPolyByRefUnsafe(linkRef);
                             MeshTile neiTile = tileAndPolyUnsafe.first;
                             Poly neiPoly = tileAndPolyUnsafe.second;
-                            if (filter.passFilter(link.ref, neiTile, neiPoly)) {
-                                insertInterval(ints, link.bmin, link.bmax, link.ref);
+                            if (filter.passFilter(linkRef, neiTile, neiPoly)) {
+                                insertInterval(ints, tile.links.bmin(k), tile.links.bmax(k), linkRef);
                             }
                         }
                     }
@@ -2762,7 +3305,59 @@ public class NavMeshQuery {
             }
         }
 
-        return Result.success(new GetPolyWallSegmentsResult(segmentVerts, segmentRefs));
+        return new GetPolyWallSegmentsResult(segmentVerts, segmentRefs);
+    }
+
+    /** Returns the cached walls of the polygon, computing them if the cache has no valid entry. */
+    private WallSegmentCache.Entry getCachedWalls(MeshTile tile, Poly poly, QueryFilter filter) {
+        long polyStateVersion = m_nav.getPolyStateVersion();
+        WallSegmentCache.Entry entry = m_wallCache.get(filter, tile, poly.index, polyStateVersion);
+        if (entry == null) {
+            GetPolyWallSegmentsResult walls = getPolyWallSegments(tile, poly, false, filter);
+            walls = new GetPolyWallSegmentsResult(Collections.unmodifiableList(walls.getSegmentVerts()),
+                    Collections.unmodifiableList(walls.getSegmentRefs()));
+            entry = new WallSegmentCache.Entry(tile.version, polyStateVersion, walls,
+                    getSolidEdges(tile, poly, filter));
+            m_wallCache.put(filter, tile, poly.index, entry);
+        }
+        return entry;
+    }
+
+    /** Returns a bit mask of the polygon edges which do not lead to a polygon passing the filter. */
+    private int getSolidEdges(MeshTile tile, Poly poly, QueryFilter filter) {
+        int solidEdges = 0;
+        for (int j = 0; j < poly.vertCount; j++) {
+            if ((poly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
+                // Tile border.
+                boolean solid = true;
+                for (int k = tile.polyLinks[poly.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.next(k)) {
+                    if (tile.links.edge(k) == j) {
+                        long linkRef = tile.links.ref(k);
+                        if (linkRef != 0) {
+                            Tupple2<MeshTile, Poly> linkTileAndPoly = m_nav.getTileAndPolyByRefUnsafe(linkRef);
+                            MeshTile neiTile = linkTileAndPoly.first;
+                            Poly neiPoly = linkTileAndPoly.second;
+                            if (filter.passFilter(linkRef, neiTile, neiPoly)) {
+                                solid = false;
+                            }
+                        }
+                        break;
+                    }
+                }
+                if (!solid) {
+                    continue;
+                }
+            } else if (poly.neis[j] != 0) {
+                // Internal edge
+                int idx = (poly.neis[j] - 1);
+                long ref = m_nav.getPolyRefBase(tile) | idx;
+                if (filter.passFilter(ref, tile, tile.data.polys[idx])) {
+                    continue;
+                }
+            }
+            solidEdges |= 1 << j;
+        }
+        return solidEdges;
     }
 
     /// @par
@@ -2810,6 +3405,7 @@ public class NavMeshQuery {
         float[] hitPos = new float[3];
         VectorPtr bestvj = null;
         VectorPtr bestvi = null;
+        Status status = Status.SUCCSESS;
         while (!m_openList.isEmpty()) {
             Node bestNode = m_openList.pop();
             bestNode.flags &= ~Node.DT_NODE_OPEN;
@@ -2829,35 +3425,12 @@ public class NavMeshQuery {
             }
 
             // Hit test walls.
+            int solidEdges = m_wallCache != null ? getCachedWalls(bestTile, bestPoly, filter).solidEdges
+                    : getSolidEdges(bestTile, bestPoly, filter);
             for (int i = 0, j = bestPoly.vertCount - 1; i < bestPoly.vertCount; j = i++) {
                 // Skip non-solid edges.
-                if ((bestPoly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
-                    // Tile border.
-                    boolean solid = true;
-                    for (int k = bestTile.polyLinks[bestPoly.index]; k != NavMesh.DT_NULL_LINK; k = bestTile.links.get(k).next) {
-                        Link link = bestTile.links.get(k);
-                        if (link.edge == j) {
-                            if (link.ref != 0) {
-                                Tupple2<MeshTile, Poly> linkTileAndPoly = m_nav.getTileAndPolyByRefUnsafe(link.ref);
-                                MeshTile neiTile = linkTileAndPoly.first;
-                                Poly neiPoly = linkTileAndPoly.second;
-                                if (filter.passFilter(link.ref, neiTile, neiPoly)) {
-                                    solid = false;
-                                }
-                            }
-                            break;
-                        }
-                    }
-                    if (!solid) {
-                        continue;
-                    }
-                } else if (bestPoly.neis[j] != 0) {
-                    // Internal edge
-                    int idx = (bestPoly.neis[j] - 1);
-                    long ref = m_nav.getPolyRefBase(bestTile) | idx;
-                    if (filter.passFilter(ref, bestTile, bestTile.data.polys[idx])) {
-                        continue;
-                    }
+                if ((solidEdges & (1 << j)) == 0) {
+                    continue;
                 }
 
                 // Calc distance to the edge.
@@ -2884,9 +3457,8 @@ public class NavMeshQuery {
                 bestvi = new VectorPtr(bestTile.data.verts, vi);
             }
 
-            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.get(i).next) {
-                Link link = bestTile.links.get(i);
-                long neighbourRef = link.ref;
+            for (int i = bestTile.polyLinks[bestPoly.index]; i != NavMesh.DT_NULL_LINK; i = bestTile.links.next(i)) {
+                long neighbourRef = bestTile.links.ref(i);
                 // Skip invalid neighbours and do not follow back to parent.
                 if (neighbourRef == 0 || neighbourRef == parentRef) {
                     continue;
@@ -2903,8 +3475,8 @@ public class NavMeshQuery {
                 }
 
                 // Calc distance to the edge.
-                int va = bestPoly.verts[link.edge] * 3;
-                int vb = bestPoly.verts[(link.edge + 1) % bestPoly.vertCount] * 3;
+                int va = bestPoly.verts[bestTile.links.edge(i)] * 3;
+                int vb = bestPoly.verts[(bestTile.links.edge(i) + 1) % bestPoly.vertCount] * 3;
                 Tupple2<Float, Float> distseg = distancePtSegSqr2D(centerPos, bestTile.data.verts, va, vb);
                 float distSqr = distseg.first;
                 // If the circle is not touching the next polygon, skip it.
@@ -2917,6 +3489,10 @@ public class NavMeshQuery {
                 }
 
                 Node neighbourNode = m_nodePool.getNode(neighbourRef);
+                if (neighbourNode == null) {
+                    status = Status.OUT_OF_NODES;
+                    continue;
+                }
 
                 if ((neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
                     continue;
@@ -2961,7 +3537,7 @@ public class NavMeshQuery {
             hitNormal[2] = -tangent[0];
             vNormalize(hitNormal);
         }
-        return Result.success(new FindDistanceToWallResult((float) Math.sqrt(radiusSqr), hitPos, hitNormal));
+        return Result.of(status, new FindDistanceToWallResult((float) Math.sqrt(radiusSqr), hitPos, hitNormal));
     }
 
     /// Returns true if the polygon reference is valid and passes the filter restrictions.
@@ -2999,11 +3575,10 @@ public class NavMeshQuery {
         if (!m_nav.isValidPolyRef(endRef)) {
             return Result.invalidParam("Invalid end ref");
         }
-        List<Node> nodes = m_nodePool.findNodes(endRef);
-        if (nodes.size() != 1) {
+        if (m_nodePool.findNodes(endRef, m_foundNodes, m_foundNodes.length) != 1) {
             return Result.invalidParam("Invalid end ref");
         }
-        Node endNode = nodes.get(0);
+        Node endNode = m_foundNodes[0];
         if ((endNode.flags & DT_NODE_CLOSED) == 0) {
             return Result.invalidParam("Invalid end ref");
         }
@@ -3043,8 +3618,9 @@ public class NavMeshQuery {
         if (m_nodePool == null) {
             return false;
         }
-        for (Node n : m_nodePool.findNodes(ref)) {
-            if ((n.flags & DT_NODE_CLOSED) != 0) {
+        int n = m_nodePool.findNodes(ref, m_foundNodes, m_foundNodes.length);
+        for (int i = 0; i < n; i++) {
+            if ((m_foundNodes[i].flags & DT_NODE_CLOSED) != 0) {
                 return true;
             }
         }
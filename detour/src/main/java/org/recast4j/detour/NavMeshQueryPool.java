@@ -0,0 +1,196 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of {@link NavMeshQuery} objects sharing a single {@link NavMesh}.
+ *
+ * A query keeps its node pool, open list and sliced search state between calls, so it must not be used by more than
+ * one thread at a time. The pool hands out queries through leases: a leased query belongs to the caller until the
+ * lease is closed, after which it goes back to the pool with its node pool already allocated. At most
+ * {@code capacity} queries are ever created; when all of them are leased, {@link #lease()} blocks until one is
+ * returned. Since the number of queries does not depend on the number of threads, the pool works the same for
+ * platform and virtual threads.
+ *
+ * The time spent waiting for a query is recorded for every lease and can be read with {@link #getTotalWaitNanos()}
+ * and {@link #getMaxWaitNanos()}.
+ */
+public class NavMeshQueryPool {
+
+    private final NavMesh m_nav;
+    private final int m_capacity;
+    private final int m_maxNodes;
+    private final BlockingQueue<NavMeshQuery> m_idle;
+    private final AtomicInteger m_created = new AtomicInteger();
+    private final LongAdder m_leaseCount = new LongAdder();
+    private final LongAdder m_totalWaitNanos = new LongAdder();
+    private final AtomicLong m_maxWaitNanos = new AtomicLong();
+
+    public NavMeshQueryPool(NavMesh nav) {
+        this(nav, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NavMeshQueryPool(NavMesh nav, int capacity) {
+        this(nav, capacity, NodePool.DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * @param nav
+     *            The nav mesh shared by all queries.
+     * @param capacity
+     *            The maximum number of queries the pool creates.
+     * @param maxNodes
+     *            The maximum number of search nodes of each query. [Limits: 0 < value]
+     */
+    public NavMeshQueryPool(NavMesh nav, int capacity, int maxNodes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be positive: " + capacity);
+        }
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("Node pool size must be positive: " + maxNodes);
+        }
+        m_nav = nav;
+        m_capacity = capacity;
+        m_maxNodes = maxNodes;
+        m_idle = new LinkedBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Creates all queries up front, so that the first leases do not pay for the allocation.
+     */
+    public void warmUp() {
+        NavMeshQuery query;
+        while ((query = create()) != null) {
+            m_idle.offer(query);
+        }
+    }
+
+    /**
+     * Leases a query, waiting for one to be returned if all of them are in use. The query must not be used after the
+     * lease is closed.
+     */
+    public Lease lease() throws InterruptedException {
+        long start = System.nanoTime();
+        NavMeshQuery query = m_idle.poll();
+        if (query == null) {
+            query = create();
+            if (query == null) {
+                query = m_idle.take();
+            }
+        }
+        long waitNanos = System.nanoTime() - start;
+        m_leaseCount.increment();
+        m_totalWaitNanos.add(waitNanos);
+        m_maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        return new Lease(query, waitNanos);
+    }
+
+    private NavMeshQuery create() {
+        int created = m_created.get();
+        while (created < m_capacity) {
+            if (m_created.compareAndSet(created, created + 1)) {
+                return new NavMeshQuery(m_nav, m_maxNodes);
+            }
+            created = m_created.get();
+        }
+        return null;
+    }
+
+    private void release(NavMeshQuery query) {
+        m_idle.offer(query);
+    }
+
+    public NavMesh getNavMesh() {
+        return m_nav;
+    }
+
+    public int getCapacity() {
+        return m_capacity;
+    }
+
+    /** Number of queries created so far. */
+    public int getCreatedCount() {
+        return m_created.get();
+    }
+
+    /** Number of queries currently available without waiting or allocating. */
+    public int getIdleCount() {
+        return m_idle.size();
+    }
+
+    public long getLeaseCount() {
+        return m_leaseCount.sum();
+    }
+
+    /** Total time all leases spent waiting for a query, in nanoseconds. */
+    public long getTotalWaitNanos() {
+        return m_totalWaitNanos.sum();
+    }
+
+    /** Longest time a single lease waited for a query, in nanoseconds. */
+    public long getMaxWaitNanos() {
+        return m_maxWaitNanos.get();
+    }
+
+    public void resetStatistics() {
+        m_leaseCount.reset();
+        m_totalWaitNanos.reset();
+        m_maxWaitNanos.set(0);
+    }
+
+    /**
+     * Exclusive use of a pooled query, returned to the pool on {@link #close()}.
+     */
+    public class Lease implements AutoCloseable {
+
+        private NavMeshQuery m_query;
+        private final long m_waitNanos;
+
+        private Lease(NavMeshQuery query, long waitNanos) {
+            m_query = query;
+            m_waitNanos = waitNanos;
+        }
+
+        public NavMeshQuery query() {
+            if (m_query == null) {
+                throw new IllegalStateException("The lease has been closed");
+            }
+            return m_query;
+        }
+
+        /** Time spent waiting for the query, in nanoseconds. */
+        public long waitNanos() {
+            return m_waitNanos;
+        }
+
+        @Override
+        public void close() {
+            if (m_query != null) {
+                release(m_query);
+                m_query = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.recast4j.detour.DetourCommon.clamp;
+
+import java.util.Arrays;
+
+/**
+ * Scratch state of {@link NavMeshQuery#findNearestPolys}. Queries are sorted along a Morton curve, consecutive queries
+ * with the same tile range and a compact union box form a group which shares the tile lookup, the BV-tree traversal
+ * and the filter checks. The candidates are tested against every query of the group in BV-tree order, so the result
+ * is identical to running {@link FindNearestPolyQuery} for each position. Buffers only grow, a query of the same size
+ * does not allocate.
+ */
+class NearestPolyBatch {
+
+    /** Maximum growth of the group union box relative to a single query box. */
+    private static final float MAX_GROUP_EXTENT = 2f;
+
+    private final NavMesh m_nav;
+    private long[] m_order = new long[0];
+    private MeshTile[] m_tiles = new MeshTile[16];
+    private int m_tileCount;
+    private int m_tileMinX, m_tileMinY, m_tileMaxX, m_tileMaxY;
+    private boolean m_tilesValid;
+    private boolean m_missingTiles;
+    private int m_candCount;
+    private int[] m_candTile = new int[64];
+    private int[] m_candNode = new int[64];
+    private long[] m_candRef = new long[64];
+    private float[] m_candBounds = new float[64 * 6];
+    private final float[] m_pos = new float[3];
+    private final float[] m_bmin = new float[3];
+    private final float[] m_bmax = new float[3];
+    private final float[] m_umin = new float[3];
+    private final float[] m_umax = new float[3];
+    private final int[] m_qmin = new int[3];
+    private final int[] m_qmax = new int[3];
+    private final float[] m_closest = new float[3];
+    private final float[] m_nearest = new float[3];
+
+    NearestPolyBatch(NavMesh nav) {
+        m_nav = nav;
+    }
+
+    Status find(float[] positions, int count, float[] halfExtents, QueryFilter filter, long[] outRefs,
+            float[] outPoints) {
+        sort(positions, count, halfExtents);
+        m_tilesValid = false;
+        m_missingTiles = false;
+        float hx = halfExtents[0];
+        float hz = halfExtents[2];
+        int groupStart = 0;
+        int gminx = 0, gminy = 0, gmaxx = 0, gmaxy = 0;
+        for (int i = 0; i < count; i++) {
+            int p = index(i) * 3;
+            box(positions, p, halfExtents);
+            int minx = m_nav.calcTileX(m_bmin[0]);
+            int miny = m_nav.calcTileY(m_bmin[2]);
+            int maxx = m_nav.calcTileX(m_bmax[0]);
+            int maxy = m_nav.calcTileY(m_bmax[2]);
+            if (i > groupStart) {
+                boolean sameTiles = minx == gminx && miny == gminy && maxx == gmaxx && maxy == gmaxy;
+                if (sameTiles
+                        && Math.max(m_umax[0], m_bmax[0]) - Math.min(m_umin[0], m_bmin[0]) <= 2 * hx * MAX_GROUP_EXTENT
+                        && Math.max(m_umax[2], m_bmax[2]) - Math.min(m_umin[2], m_bmin[2]) <= 2 * hz * MAX_GROUP_EXTENT) {
+                    for (int k = 0; k < 3; k++) {
+                        m_umin[k] = Math.min(m_umin[k], m_bmin[k]);
+                        m_umax[k] = Math.max(m_umax[k], m_bmax[k]);
+                    }
+                    continue;
+                }
+                processGroup(groupStart, i, gminx, gminy, gmaxx, gmaxy, positions, halfExtents, filter, outRefs,
+                        outPoints);
+                // processGroup() overwrites the query box
+                box(positions, p, halfExtents);
+            }
+            groupStart = i;
+            gminx = minx;
+            gminy = miny;
+            gmaxx = maxx;
+            gmaxy = maxy;
+            System.arraycopy(m_bmin, 0, m_umin, 0, 3);
+            System.arraycopy(m_bmax, 0, m_umax, 0, 3);
+        }
+        if (count > 0) {
+            processGroup(groupStart, count, gminx, gminy, gmaxx, gmaxy, positions, halfExtents, filter, outRefs,
+                    outPoints);
+        }
+        return m_missingTiles ? Status.PARTIAL_RESULT : Status.SUCCSESS;
+    }
+
+    /** Orders the queries by the Morton code of their position on a grid of query box sized cells. */
+    private void sort(float[] positions, int count, float[] halfExtents) {
+        if (m_order.length < count) {
+            m_order = new long[count];
+        }
+        float minx = Float.MAX_VALUE;
+        float minz = Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minx = Math.min(minx, positions[i * 3]);
+            minz = Math.min(minz, positions[i * 3 + 2]);
+        }
+        float cellx = halfExtents[0] > 0 ? 1f / (2 * halfExtents[0]) : 0;
+        float cellz = halfExtents[2] > 0 ? 1f / (2 * halfExtents[2]) : 0;
+        for (int i = 0; i < count; i++) {
+            int cx = (int) ((positions[i * 3] - minx) * cellx) & 0x7fff;
+            int cz = (int) ((positions[i * 3 + 2] - minz) * cellz) & 0x7fff;
+            m_order[i] = ((long) (spreadBits(cx) | (spreadBits(cz) << 1)) << 32) | i;
+        }
+        Arrays.sort(m_order, 0, count);
+    }
+
+    private static int spreadBits(int v) {
+        v = (v | (v << 8)) & 0x00ff00ff;
+        v = (v | (v << 4)) & 0x0f0f0f0f;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+    private int index(int i) {
+        return (int) m_order[i];
+    }
+
+    private void box(float[] positions, int p, float[] halfExtents) {
+        for (int k = 0; k < 3; k++) {
+            m_bmin[k] = positions[p + k] - halfExtents[k];
+            m_bmax[k] = positions[p + k] + halfExtents[k];
+        }
+    }
+
+    private void processGroup(int start, int end, int minx, int miny, int maxx, int maxy, float[] positions,
+            float[] halfExtents, QueryFilter filter, long[] outRefs, float[] outPoints) {
+        collectTiles(minx, miny, maxx, maxy);
+        collectCandidates(filter);
+        for (int i = start; i < end; i++) {
+            int q = index(i);
+            int p = q * 3;
+            box(positions, p, halfExtents);
+            System.arraycopy(positions, p, m_pos, 0, 3);
+            System.arraycopy(positions, p, m_nearest, 0, 3);
+            float nearestDistanceSqr = Float.MAX_VALUE;
+            long nearestRef = 0;
+            int quantizedTile = -1;
+            for (int c = 0; c < m_candCount; c++) {
+                MeshTile tile = m_tiles[m_candTile[c]];
+                int node = m_candNode[c];
+                if (node >= 0) {
+                    if (quantizedTile != m_candTile[c]) {
+                        quantize(tile, m_bmin, m_bmax);
+                        quantizedTile = m_candTile[c];
+                    }
+                    BVNode n = tile.data.bvTree[node];
+                    if (!overlapQuantBounds(n)) {
+                        continue;
+                    }
+                } else if (!overlapBounds(c)) {
+                    continue;
+                }
+                long ref = m_candRef[c];
+                boolean posOverPoly = m_nav.closestPointOnPoly(tile, NavMesh.decodePolyIdPoly(ref), m_pos, m_closest);
+                // Same metric as FindNearestPolyQuery
+                float d;
+                float dx = m_pos[0] - m_closest[0];
+                float dy = m_pos[1] - m_closest[1];
+                float dz = m_pos[2] - m_closest[2];
+                if (posOverPoly) {
+                    d = Math.abs(dy) - tile.data.header.walkableClimb;
+                    d = d > 0 ? d * d : 0;
+                } else {
+                    d = dx * dx + dy * dy + dz * dz;
+                }
+                if (d < nearestDistanceSqr) {
+                    System.arraycopy(m_closest, 0, m_nearest, 0, 3);
+                    nearestDistanceSqr = d;
+                    nearestRef = ref;
+                }
+            }
+            outRefs[q] = nearestRef;
+            System.arraycopy(m_nearest, 0, outPoints, p, 3);
+        }
+    }
+
+    private void collectTiles(int minx, int miny, int maxx, int maxy) {
+        if (m_tilesValid && minx == m_tileMinX && miny == m_tileMinY && maxx == m_tileMaxX && maxy == m_tileMaxY) {
+            return;
+        }
+        m_tileCount = 0;
+        for (int y = miny; y <= maxy; ++y) {
+            for (int x = minx; x <= maxx; ++x) {
+                int n = m_nav.getTilesAt(x, y, m_tiles, m_tileCount);
+                while (n < 0) {
+                    m_tiles = Arrays.copyOf(m_tiles, m_tiles.length * 2);
+                    n = m_nav.getTilesAt(x, y, m_tiles, m_tileCount);
+                }
+                if (n == m_tileCount) {
+                    m_missingTiles |= m_nav.requestTiles(x, y);
+                }
+                m_tileCount = n;
+            }
+        }
+        m_tileMinX = minx;
+        m_tileMinY = miny;
+        m_tileMaxX = maxx;
+        m_tileMaxY = maxy;
+        m_tilesValid = true;
+    }
+
+    /** Collects the polygons overlapping the group union box, see NavMeshQuery.queryPolygonsInTile(). */
+    private void collectCandidates(QueryFilter filter) {
+        m_candCount = 0;
+        for (int t = 0; t < m_tileCount; t++) {
+            MeshTile tile = m_tiles[t];
+            long base = m_nav.getPolyRefBase(tile);
+            if (tile.data.bvTree != null) {
+                quantize(tile, m_umin, m_umax);
+                int nodeIndex = 0;
+                int end = tile.data.header.bvNodeCount;
+                while (nodeIndex < end) {
+                    BVNode node = tile.data.bvTree[nodeIndex];
+                    boolean overlap = overlapQuantBounds(node);
+                    boolean isLeafNode = node.i >= 0;
+                    if (isLeafNode && overlap) {
+                        long ref = base | node.i;
+                        if (filter.passFilter(ref, tile, tile.data.polys[node.i])) {
+                            addCandidate(t, nodeIndex, ref);
+                        }
+                    }
+                    if (overlap || isLeafNode) {
+                        nodeIndex++;
+                    } else {
+                        nodeIndex += -node.i;
+                    }
+                }
+            } else {
+                for (int i = 0; i < tile.data.header.polyCount; ++i) {
+                    Poly p = tile.data.polys[i];
+                    // Do not return off-mesh connection polygons.
+                    if (p.getType() == Poly.DT_POLYTYPE_OFFMESH_CONNECTION) {
+                        continue;
+                    }
+                    long ref = base | i;
+                    if (!filter.passFilter(ref, tile, p)) {
+                        continue;
+                    }
+                    int c = addCandidate(t, -1, ref) * 6;
+                    float[] b = m_candBounds;
+                    int v = p.verts[0] * 3;
+                    for (int k = 0; k < 3; k++) {
+                        b[c + k] = b[c + 3 + k] = tile.data.verts[v + k];
+                    }
+                    for (int j = 1; j < p.vertCount; ++j) {
+                        v = p.verts[j] * 3;
+                        for (int k = 0; k < 3; k++) {
+                            b[c + k] = Math.min(b[c + k], tile.data.verts[v + k]);
+                            b[c + 3 + k] = Math.max(b[c + 3 + k], tile.data.verts[v + k]);
+                        }
+                    }
+                    if (m_umin[0] > b[c + 3] || m_umax[0] < b[c] || m_umin[1] > b[c + 4] || m_umax[1] < b[c + 1]
+                            || m_umin[2] > b[c + 5] || m_umax[2] < b[c + 2]) {
+                        m_candCount--;
+                    }
+                }
+            }
+        }
+    }
+
+    private int addCandidate(int tile, int node, long ref) {
+        if (m_candCount == m_candRef.length) {
+            int size = m_candCount * 2;
+            m_candTile = Arrays.copyOf(m_candTile, size);
+            m_candNode = Arrays.copyOf(m_candNode, size);
+            m_candRef = Arrays.copyOf(m_candRef, size);
+            m_candBounds = Arrays.copyOf(m_candBounds, size * 6);
+        }
+        m_candTile[m_candCount] = tile;
+        m_candNode[m_candCount] = node;
+        m_candRef[m_candCount] = ref;
+        return m_candCount++;
+    }
+
+    private void quantize(MeshTile tile, float[] qmin, float[] qmax) {
+        float[] tbmin = tile.data.header.bmin;
+        float[] tbmax = tile.data.header.bmax;
+        float qfac = tile.data.header.bvQuantFactor;
+        for (int k = 0; k < 3; k++) {
+            float min = clamp(qmin[k], tbmin[k], tbmax[k]) - tbmin[k];
+            float max = clamp(qmax[k], tbmin[k], tbmax[k]) - tbmin[k];
+            m_qmin[k] = (int) (qfac * min) & 0x7ffffffe;
+            m_qmax[k] = (int) (qfac * max + 1) | 1;
+        }
+    }
+
+    private boolean overlapQuantBounds(BVNode node) {
+        return !(m_qmin[0] > node.bmax[0] || m_qmax[0] < node.bmin[0] || m_qmin[1] > node.bmax[1]
+                || m_qmax[1] < node.bmin[1] || m_qmin[2] > node.bmax[2] || m_qmax[2] < node.bmin[2]);
+    }
+
+    private boolean overlapBounds(int c) {
+        float[] b = m_candBounds;
+        c *= 6;
+        return !(m_bmin[0] > b[c + 3] || m_bmax[0] < b[c] || m_bmin[1] > b[c + 4] || m_bmax[1] < b[c + 1]
+                || m_bmin[2] > b[c + 5] || m_bmax[2] < b[c + 2]);
+    }
+}
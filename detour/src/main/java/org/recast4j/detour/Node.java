@@ -27,6 +27,10 @@ public class Node {
     /** parent of the node is not adjacent. Found using raycast. */
     static int DT_NODE_PARENT_DETACHED = 0x04;
 
+    static final int DT_NODE_STATE_BITS = 2;
+    /** Number of extra states a polygon can be visited with. See Node::state */
+    public static final int DT_MAX_STATES_PER_NODE = 1 << DT_NODE_STATE_BITS;
+
     public final int index;
 
     /** Position of the node. */
@@ -47,6 +51,8 @@ public class Node {
     long id;
     /** Shortcut found by raycast. */
     List<Long> shortcut;
+    /** Slot of the node in the open list heap, -1 if the node is not in the open list. */
+    int heapIndex = -1;
 
     public Node(int index) {
         this.index = index;
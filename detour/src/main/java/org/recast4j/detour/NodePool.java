@@ -18,62 +18,121 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import static org.recast4j.detour.DetourCommon.nextPow2;
 
+import java.util.Arrays;
+
+/**
+ * Bounded pool of search nodes, a port of dtNodePool. Nodes are looked up by polygon reference and state through a
+ * hash table of index chains stored in primitive arrays, so a search does not box references or allocate per visited
+ * polygon. Node objects are created the first time a slot is used and recycled by every later search. Once all
+ * {@code maxNodes} slots are in use, {@link #getNode(long, int)} returns {@code null} and the search reports
+ * {@link Status#OUT_OF_NODES}.
+ */
 public class NodePool {
 
-    private final Map<Long, List<Node>> m_map = new HashMap<>();
-    private final ArrayList<Node> m_nodes = new ArrayList<>();
+    public static final int DEFAULT_MAX_NODES = 2048;
+    private static final int DT_NULL_IDX = -1;
+
+    private final Node[] m_nodes;
+    private final int[] m_first;
+    private final int[] m_next;
+    private final int m_maxNodes;
+    private final int m_hashSize;
+    private int m_nodeCount;
 
     public NodePool() {
+        this(DEFAULT_MAX_NODES);
+    }
 
+    public NodePool(int maxNodes) {
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("Invalid max nodes " + maxNodes);
+        }
+        m_maxNodes = maxNodes;
+        m_hashSize = nextPow2(Math.max(1, maxNodes / 4));
+        m_nodes = new Node[maxNodes];
+        m_next = new int[maxNodes];
+        m_first = new int[m_hashSize];
+        Arrays.fill(m_first, DT_NULL_IDX);
+        Arrays.fill(m_next, DT_NULL_IDX);
     }
 
     public void clear() {
-        m_nodes.clear();
-        m_map.clear();
+        Arrays.fill(m_first, DT_NULL_IDX);
+        m_nodeCount = 0;
     }
 
-    List<Node> findNodes(long id) {
-        List<Node> nodes = m_map.get(id);
-        if (nodes == null) {
-            nodes = new ArrayList<>();
+    /**
+     * Writes the nodes of the polygon (one per state) to the caller's buffer without allocating.
+     *
+     * @return The number of nodes written, at most maxNodes.
+     */
+    int findNodes(long id, Node[] nodes, int maxNodes) {
+        int n = 0;
+        for (int i = m_first[bucket(id)]; i != DT_NULL_IDX; i = m_next[i]) {
+            if (m_nodes[i].id == id) {
+                if (n >= maxNodes) {
+                    return n;
+                }
+                nodes[n++] = m_nodes[i];
+            }
         }
-        return nodes;
+        return n;
     }
 
     Node findNode(long id) {
-        List<Node> nodes = m_map.get(id);
-        if (nodes != null && !nodes.isEmpty()) {
-            return nodes.get(0);
+        for (int i = m_first[bucket(id)]; i != DT_NULL_IDX; i = m_next[i]) {
+            if (m_nodes[i].id == id) {
+                return m_nodes[i];
+            }
         }
         return null;
     }
 
-    Node getNode(long id, int state) {
-        List<Node> nodes = m_map.get(id);
-        if (nodes != null) {
-            for (Node node : nodes) {
-                if (node.state == state) {
-                    return node;
-                }
+    Node findNode(long id, int state) {
+        for (int i = m_first[bucket(id)]; i != DT_NULL_IDX; i = m_next[i]) {
+            Node node = m_nodes[i];
+            if (node.id == id && node.state == state) {
+                return node;
             }
-        } else {
-            nodes = new ArrayList<>();
-            m_map.put(id, nodes);
         }
-        return create(id, state, nodes);
+        return null;
     }
 
-    private Node create(long id, int state, List<Node> nodes) {
-        Node node = new Node(m_nodes.size() + 1);
+    /**
+     * Returns the node for the given polygon reference and state, taking a free node from the pool if the pair has
+     * not been visited yet.
+     *
+     * @return The node, or null if the pool is out of nodes.
+     */
+    Node getNode(long id, int state) {
+        int bucket = bucket(id);
+        for (int i = m_first[bucket]; i != DT_NULL_IDX; i = m_next[i]) {
+            Node node = m_nodes[i];
+            if (node.id == id && node.state == state) {
+                return node;
+            }
+        }
+        if (m_nodeCount >= m_maxNodes) {
+            return null;
+        }
+        int i = m_nodeCount++;
+        Node node = m_nodes[i];
+        if (node == null) {
+            node = new Node(i + 1);
+            m_nodes[i] = node;
+        }
+        node.pidx = 0;
+        node.cost = 0;
+        node.total = 0;
         node.id = id;
         node.state = state;
-        m_nodes.add(node);
-        nodes.add(node);
+        node.flags = 0;
+        node.shortcut = null;
+        node.heapIndex = -1;
+        m_next[i] = m_first[bucket];
+        m_first[bucket] = i;
         return node;
     }
 
@@ -82,15 +141,33 @@ public class NodePool {
     }
 
     public Node getNodeAtIdx(int idx) {
-        return idx != 0 ? m_nodes.get(idx - 1) : null;
+        return idx != 0 ? m_nodes[idx - 1] : null;
     }
 
     public Node getNode(long ref) {
         return getNode(ref, 0);
     }
 
-    public Map<Long, List<Node>> getNodeMap() {
-        return m_map;
+    public int getNodeCount() {
+        return m_nodeCount;
+    }
+
+    public int getMaxNodes() {
+        return m_maxNodes;
+    }
+
+    private int bucket(long id) {
+        return hashRef(id) & (m_hashSize - 1);
+    }
+
+    static int hashRef(long a) {
+        a = (~a) + (a << 18);
+        a = a ^ (a >>> 31);
+        a = a * 21;
+        a = a ^ (a >>> 11);
+        a = a + (a << 6);
+        a = a ^ (a >>> 22);
+        return (int) a;
     }
 
 }
@@ -18,34 +18,113 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour;
 
-import java.util.PriorityQueue;
+import java.util.Arrays;
 
+/**
+ * Binary min-heap of nodes ordered by {@link Node#total}. Every node keeps its slot in the heap, so
+ * {@link #modify(Node)} re-positions a node in O(log n) instead of searching the heap for it.
+ */
 public class NodeQueue {
 
-    private final PriorityQueue<Node> m_heap = new PriorityQueue<>((n1, n2) -> Float.compare(n1.total, n2.total));
+    private Node[] m_heap;
+    private int m_size;
+
+    public NodeQueue() {
+        this(NodePool.DEFAULT_MAX_NODES);
+    }
+
+    public NodeQueue(int capacity) {
+        m_heap = new Node[Math.max(1, capacity)];
+    }
 
     public void clear() {
-        m_heap.clear();
+        for (int i = 0; i < m_size; i++) {
+            m_heap[i].heapIndex = -1;
+            m_heap[i] = null;
+        }
+        m_size = 0;
     }
 
     public Node top() {
-        return m_heap.peek();
+        return m_size > 0 ? m_heap[0] : null;
     }
 
     public Node pop() {
-        return m_heap.poll();
+        if (m_size == 0) {
+            return null;
+        }
+        Node result = m_heap[0];
+        result.heapIndex = -1;
+        m_size--;
+        Node last = m_heap[m_size];
+        m_heap[m_size] = null;
+        if (m_size > 0) {
+            trickleDown(0, last);
+        }
+        return result;
     }
 
     public void push(Node node) {
-        m_heap.offer(node);
+        if (m_size == m_heap.length) {
+            m_heap = Arrays.copyOf(m_heap, m_heap.length * 2);
+        }
+        m_size++;
+        bubbleUp(m_size - 1, node);
     }
 
     public void modify(Node node) {
-        m_heap.remove(node);
-        m_heap.offer(node);
+        int i = node.heapIndex;
+        if (i < 0 || i >= m_size || m_heap[i] != node) {
+            return;
+        }
+        if (i > 0 && m_heap[(i - 1) >>> 1].total > node.total) {
+            bubbleUp(i, node);
+        } else {
+            trickleDown(i, node);
+        }
     }
 
     public boolean isEmpty() {
-        return m_heap.isEmpty();
+        return m_size == 0;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    private void bubbleUp(int i, Node node) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Node p = m_heap[parent];
+            if (p.total <= node.total) {
+                break;
+            }
+            m_heap[i] = p;
+            p.heapIndex = i;
+            i = parent;
+        }
+        m_heap[i] = node;
+        node.heapIndex = i;
+    }
+
+    private void trickleDown(int i, Node node) {
+        int half = m_size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            Node c = m_heap[child];
+            int right = child + 1;
+            if (right < m_size && c.total > m_heap[right].total) {
+                child = right;
+                c = m_heap[child];
+            }
+            if (node.total <= c.total) {
+                break;
+            }
+            m_heap[i] = c;
+            c.heapIndex = i;
+            i = child;
+        }
+        m_heap[i] = node;
+        node.heapIndex = i;
     }
 }
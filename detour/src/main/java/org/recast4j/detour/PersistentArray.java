@@ -0,0 +1,70 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+/**
+ * Fixed size array split into chunks that can be shared between copies. A chunk is owned by the edit token that
+ * created it; writing through a different token copies the chunk first, so copies made with
+ * {@link #PersistentArray(PersistentArray)} never see each other's writes. Copying the array costs one pointer per
+ * chunk, writing costs at most one chunk copy per token.
+ */
+final class PersistentArray<T> {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int m_length;
+    private final Object[][] m_chunks;
+    private final Object[] m_owners;
+
+    PersistentArray(int length) {
+        m_length = length;
+        int chunkCount = (length + CHUNK_MASK) >>> CHUNK_BITS;
+        m_chunks = new Object[chunkCount][];
+        m_owners = new Object[chunkCount];
+    }
+
+    PersistentArray(PersistentArray<T> other) {
+        m_length = other.m_length;
+        m_chunks = other.m_chunks.clone();
+        m_owners = new Object[m_chunks.length];
+    }
+
+    int length() {
+        return m_length;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int i) {
+        Object[] chunk = m_chunks[i >>> CHUNK_BITS];
+        return chunk != null ? (T) chunk[i & CHUNK_MASK] : null;
+    }
+
+    void set(int i, T value, Object owner) {
+        int c = i >>> CHUNK_BITS;
+        Object[] chunk = m_chunks[c];
+        if (m_owners[c] != owner) {
+            chunk = chunk != null ? chunk.clone() : new Object[Math.min(CHUNK_SIZE, m_length - (c << CHUNK_BITS))];
+            m_chunks[c] = chunk;
+            m_owners[c] = owner;
+        }
+        chunk[i & CHUNK_MASK] = value;
+    }
+}
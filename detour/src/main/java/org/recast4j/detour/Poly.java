@@ -47,6 +47,15 @@ public class Poly {
         neis = new int[maxVertsPerPoly];
     }
 
+    Poly(Poly other) {
+        index = other.index;
+        verts = other.verts.clone();
+        neis = other.neis.clone();
+        flags = other.flags;
+        vertCount = other.vertCount;
+        areaAndtype = other.areaAndtype;
+    }
+
     /** Sets the user defined area id. [Limit: &lt; {@link org.recast4j.detour.NavMesh#DT_MAX_AREAS}] */
     public void setArea(int a) {
         areaAndtype = (areaAndtype & 0xc0) | (a & 0x3f);
@@ -20,6 +20,7 @@ package org.recast4j.detour;
 
 class QueryData {
     Status status;
+    boolean outOfNodes;
     Node lastBestNode;
     float lastBestNodeCost;
     long startRef, endRef;
@@ -20,7 +20,9 @@ package org.recast4j.detour;
 
 public enum Status {
 
-    FAILURE, SUCCSESS, IN_PROGRESS, PARTIAL_RESULT, FAILURE_INVALID_PARAM;
+    FAILURE, SUCCSESS, IN_PROGRESS, PARTIAL_RESULT, FAILURE_INVALID_PARAM,
+    /** Partial result, the search ran out of nodes before it could complete. */
+    OUT_OF_NODES;
 
     public boolean isFailed() {
         return this == FAILURE || this == FAILURE_INVALID_PARAM;
@@ -31,10 +33,14 @@ public enum Status {
     }
 
     public boolean isSuccess() {
-        return this == Status.SUCCSESS || this == Status.PARTIAL_RESULT;
+        return this == Status.SUCCSESS || this == Status.PARTIAL_RESULT || this == Status.OUT_OF_NODES;
     }
 
     public boolean isPartial() {
-        return this == Status.PARTIAL_RESULT;
+        return this == Status.PARTIAL_RESULT || this == Status.OUT_OF_NODES;
+    }
+
+    public boolean isOutOfNodes() {
+        return this == Status.OUT_OF_NODES;
     }
 }
@@ -0,0 +1,267 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nav mesh which loads its tiles on demand from a {@link TileSource} and evicts the least recently used tiles when the
+ * loaded tiles exceed a memory budget. Tile lookups of queries on the snapshots count as use.
+ *
+ * Tiles are loaded asynchronously on the given executor and linked to their loaded neighbours on arrival, every change
+ * publishes a new {@link NavMesh#snapshot() snapshot}. Queries run on {@link #snapshot()} without locking. When a query
+ * touches a tile location which has tiles in the source that are not loaded yet, the tiles are requested and the query
+ * reports {@link Status#PARTIAL_RESULT}. Path searches which reach a portal edge at the border of the loaded area
+ * request the tile beyond it; the path stops at the border and the query can be repeated once the tiles have arrived.
+ * Tiles around points of interest, e.g. players, can be requested ahead of time with
+ * {@link #requestAround(float[], float)}.
+ */
+public class StreamingNavMesh implements TileRequestHandler {
+
+    private final TileSource m_source;
+    private final Executor m_executor;
+    private final long m_memoryBudget;
+    private final NavMesh m_writer;
+    /** Loaded tiles by location, modified while holding this and read without locking. */
+    private final Map<Long, LoadedTiles> m_loaded = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Void>> m_pending = new ConcurrentHashMap<>();
+    private long m_memoryUsage;
+    /**
+     * Use clock of the loaded tiles. Requests and loads advance it by two, lookups by queries stamp tiles in between
+     * without writing to it, so they don't contend on it.
+     */
+    private final AtomicLong m_clock = new AtomicLong();
+    private volatile NavMesh m_snapshot;
+
+    private static class LoadedTiles {
+        final long[] refs;
+        final long memory;
+        /** Value of #m_clock at the last request or lookup. */
+        volatile long lastUsed;
+
+        LoadedTiles(long[] refs, long memory) {
+            this.refs = refs;
+            this.memory = memory;
+        }
+    }
+
+    /**
+     * @param source
+     *            Source of the tiles.
+     * @param executor
+     *            Executor running the tile loads.
+     * @param memoryBudget
+     *            Estimated memory in bytes the loaded tiles may use, see {@link #estimateMemory(MeshData)}. Tiles
+     *            loaded last are never evicted, even if they alone exceed the budget.
+     */
+    public StreamingNavMesh(TileSource source, Executor executor, long memoryBudget) {
+        m_source = source;
+        m_executor = executor;
+        m_memoryBudget = memoryBudget;
+        m_writer = new NavMesh(source.getParams(), source.getMaxVertsPerPoly());
+        m_writer.setTileRequestHandler(this);
+        m_snapshot = m_writer.snapshot();
+    }
+
+    /** @return Snapshot of the nav mesh with the tiles loaded so far. */
+    public NavMesh snapshot() {
+        return m_snapshot;
+    }
+
+    @Override
+    public void tilesUsed(int x, int y) {
+        LoadedTiles loaded = m_loaded.get(key(x, y));
+        if (loaded != null) {
+            long now = m_clock.get() + 1;
+            if (loaded.lastUsed != now) {
+                loaded.lastUsed = now;
+            }
+        }
+    }
+
+    @Override
+    public boolean requestTiles(int x, int y) {
+        if (!m_source.hasTiles(x, y)) {
+            return false;
+        }
+        request(x, y);
+        return true;
+    }
+
+    /**
+     * Requests the tiles at a location, marking them as most recently used if they are already loaded.
+     *
+     * @return Future completed once the tiles are part of the published snapshot.
+     */
+    public CompletableFuture<Void> request(int x, int y) {
+        long key = key(x, y);
+        LoadedTiles loaded = m_loaded.get(key);
+        if (loaded != null) {
+            loaded.lastUsed = m_clock.addAndGet(2);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!m_source.hasTiles(x, y)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> pending = m_pending.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture.supplyAsync(() -> load(x, y), m_executor).thenAccept(tiles -> add(key, tiles))
+                .whenComplete((r, e) -> {
+                    m_pending.remove(key, future);
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                    } else {
+                        future.complete(null);
+                    }
+                });
+        return future;
+    }
+
+    /**
+     * Requests all tiles overlapping the square with the given center and half size on the xz-plane.
+     *
+     * @return Future completed once all the tiles are part of the published snapshot.
+     */
+    public CompletableFuture<Void> requestAround(float[] pos, float radius) {
+        int[] min = m_writer.calcTileLoc(new float[] { pos[0] - radius, pos[1], pos[2] - radius });
+        int[] max = m_writer.calcTileLoc(new float[] { pos[0] + radius, pos[1], pos[2] + radius });
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int y = min[1]; y <= max[1]; ++y) {
+            for (int x = min[0]; x <= max[0]; ++x) {
+                futures.add(request(x, y));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private List<MeshData> load(int x, int y) {
+        try {
+            return m_source.loadTiles(x, y);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void add(long key, List<MeshData> tiles) {
+        if (m_loaded.containsKey(key)) {
+            return;
+        }
+        long[] refs = new long[tiles.size()];
+        long memory = 0;
+        for (int i = 0; i < refs.length; i++) {
+            MeshData data = tiles.get(i);
+            refs[i] = m_writer.addTile(data, 0, 0);
+            memory += estimateMemory(data);
+        }
+        LoadedTiles loaded = new LoadedTiles(refs, memory);
+        loaded.lastUsed = m_clock.addAndGet(2);
+        m_loaded.put(key, loaded);
+        m_memoryUsage += memory;
+        evict(key);
+        m_snapshot = m_writer.snapshot();
+    }
+
+    private void evict(long keep) {
+        if (m_memoryUsage <= m_memoryBudget) {
+            return;
+        }
+        // Sort on a copy of the use times, queries keep updating them
+        List<Map.Entry<Long, Long>> lru = new ArrayList<>(m_loaded.size());
+        for (Map.Entry<Long, LoadedTiles> e : m_loaded.entrySet()) {
+            lru.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().lastUsed));
+        }
+        lru.sort(Map.Entry.comparingByValue());
+        for (Iterator<Map.Entry<Long, Long>> it = lru.iterator(); m_memoryUsage > m_memoryBudget && it.hasNext();) {
+            long key = it.next().getKey();
+            if (key == keep) {
+                continue;
+            }
+            LoadedTiles tiles = m_loaded.remove(key);
+            for (long ref : tiles.refs) {
+                m_writer.removeTile(ref);
+            }
+            m_memoryUsage -= tiles.memory;
+        }
+    }
+
+    /**
+     * Removes all tiles at a location.
+     */
+    public synchronized void evict(int x, int y) {
+        LoadedTiles tiles = m_loaded.remove(key(x, y));
+        if (tiles != null) {
+            for (long ref : tiles.refs) {
+                m_writer.removeTile(ref);
+            }
+            m_memoryUsage -= tiles.memory;
+            m_snapshot = m_writer.snapshot();
+        }
+    }
+
+    public synchronized boolean isLoaded(int x, int y) {
+        return m_loaded.containsKey(key(x, y));
+    }
+
+    public synchronized int getLoadedLocationCount() {
+        return m_loaded.size();
+    }
+
+    /** @return Estimated memory used by the loaded tiles in bytes. */
+    public synchronized long getMemoryUsage() {
+        return m_memoryUsage;
+    }
+
+    public long getMemoryBudget() {
+        return m_memoryBudget;
+    }
+
+    /**
+     * Rough estimate of the heap used by a tile once added to a nav mesh, including its links.
+     */
+    public static long estimateMemory(MeshData data) {
+        int nvp = data.polys.length > 0 ? data.polys[0].verts.length : 0;
+        long memory = 256;
+        memory += 16 + data.verts.length * 4L;
+        memory += data.polys.length * (32L + 2 * (16 + 4 * nvp));
+        memory += 16 + data.polys.length * 4L + data.header.maxLinkCount * 16L;
+        memory += data.detailMeshes != null ? data.detailMeshes.length * 32L : 0;
+        memory += data.detailVerts != null ? 16 + data.detailVerts.length * 4L : 0;
+        memory += data.detailTris != null ? 16 + data.detailTris.length * 4L : 0;
+        memory += data.bvTree != null ? data.bvTree.length * 64L : 0;
+        memory += data.offMeshCons != null ? data.offMeshCons.length * 96L : 0;
+        return memory;
+    }
+
+    private static long key(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+}
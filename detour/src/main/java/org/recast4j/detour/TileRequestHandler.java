@@ -0,0 +1,43 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+/**
+ * Receives requests for tiles which are not present in a nav mesh.
+ *
+ * @see NavMesh#setTileRequestHandler(TileRequestHandler)
+ */
+@FunctionalInterface
+public interface TileRequestHandler {
+
+    /**
+     * Called by queries, possibly from several threads at once, when they touch a tile location without tiles. Must
+     * not block and must not modify the nav mesh directly.
+     *
+     * @return True if tiles exist at the location and will be added later, false if the location is empty.
+     */
+    boolean requestTiles(int x, int y);
+
+    /**
+     * Called by tile lookups when they find tiles at a location, possibly from several threads at once. Must be cheap
+     * and must not block.
+     */
+    default void tilesUsed(int x, int y) {
+    }
+}
@@ -1,6 +1,6 @@
 /*
 Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
-recast4j Copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
 
 This software is provided 'as-is', without any express or implied
 warranty.  In no event will the authors be held liable for any damages
@@ -16,18 +16,29 @@ freely, subject to the following restrictions:
  misrepresented as being the original software.
 3. This notice may not be removed or altered from any source distribution.
 */
-package org.recast4j.recast;
+package org.recast4j.detour;
 
-/** Represents a span in a heightfield. */
-public class Span {
+import java.io.IOException;
+import java.util.List;
 
-    /** The lower limit of the span. [Limit: &lt; smax] */
-    public int smin;
-    /** The upper limit of the span. [Limit: &lt;= SPAN_MAX_HEIGHT] */
-    public int smax;
-    /** The area id assigned to the span. */
-    public int area;
-    /** The next span higher up in column. */
-    public Span next;
+/**
+ * Provides the tiles of a nav mesh by location, for nav meshes which load tiles on demand.
+ *
+ * @see StreamingNavMesh
+ */
+public interface TileSource {
 
+    /** @return The parameters of the nav mesh the tiles belong to. */
+    NavMeshParams getParams();
+
+    int getMaxVertsPerPoly();
+
+    /** @return True if there is at least one tile at the location. Must be cheap, it is called by queries. */
+    boolean hasTiles(int x, int y);
+
+    /**
+     * Loads all tile layers at the location. Called from loader threads, may block. Every call must return new
+     * instances, the nav mesh takes ownership of the returned data.
+     */
+    List<MeshData> loadTiles(int x, int y) throws IOException;
 }
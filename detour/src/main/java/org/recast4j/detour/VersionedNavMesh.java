@@ -0,0 +1,111 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.function.Consumer;
+
+/**
+ * Publishes immutable {@link NavMesh} snapshots to concurrent readers.
+ *
+ * Writers modify a private nav mesh and publish a new snapshot after every change. Only the changed tiles and the link
+ * lists of their neighbours are copied, all other tiles are shared between snapshots. Readers never take a lock: a
+ * query created on {@link #snapshot()} sees a consistent nav mesh for its whole lifetime, regardless of concurrent
+ * updates.
+ */
+public class VersionedNavMesh {
+
+    private final NavMesh m_writer;
+    private volatile NavMesh m_snapshot;
+    private volatile long m_version;
+
+    public VersionedNavMesh(NavMeshParams params, int maxVertsPerPoly) {
+        this(new NavMesh(params, maxVertsPerPoly));
+    }
+
+    /**
+     * @param navMesh
+     *            Nav mesh holding the initial tiles. It is owned by this instance from now on and must not be modified
+     *            directly.
+     */
+    public VersionedNavMesh(NavMesh navMesh) {
+        if (navMesh.isReadOnly()) {
+            throw new IllegalArgumentException("Nav mesh must be writable");
+        }
+        m_writer = navMesh;
+        m_snapshot = navMesh.snapshot();
+    }
+
+    /** @return The latest published snapshot. */
+    public NavMesh snapshot() {
+        return m_snapshot;
+    }
+
+    /** @return Number of snapshots published after the initial one. */
+    public long version() {
+        return m_version;
+    }
+
+    /// Adds a tile and publishes a new snapshot.
+    /// @see NavMesh#addTile(MeshData, int, long)
+    public synchronized long addTile(MeshData data, int flags, long lastRef) {
+        long ref = m_writer.addTile(data, flags, lastRef);
+        publish();
+        return ref;
+    }
+
+    /// Removes a tile and publishes a new snapshot.
+    /// @see NavMesh#removeTile(long)
+    public synchronized long removeTile(long ref) {
+        long removed = m_writer.removeTile(ref);
+        publish();
+        return removed;
+    }
+
+    /// Replaces the tile at the same location and publishes a new snapshot.
+    /// @see NavMesh#updateTile(MeshData, int)
+    public synchronized long updateTile(MeshData data, int flags) {
+        long ref = m_writer.updateTile(data, flags);
+        publish();
+        return ref;
+    }
+
+    /**
+     * Applies several changes to the nav mesh and publishes them as a single snapshot.
+     *
+     * @param changes
+     *            Callback modifying the writable nav mesh. The nav mesh must not escape the callback.
+     * @return The published snapshot.
+     */
+    public synchronized NavMesh update(Consumer<NavMesh> changes) {
+        try {
+            changes.accept(m_writer);
+        } finally {
+            publish();
+        }
+        return m_snapshot;
+    }
+
+    private void publish() {
+        NavMesh snapshot = m_writer.snapshot();
+        if (snapshot != m_snapshot) {
+            m_snapshot = snapshot;
+            m_version++;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shares the wall segments of polygons between queries, so that agents moving through the same area compute them only
+ * once. Queries use the cache once it is set with {@link NavMeshQuery#setWallSegmentCache(WallSegmentCache)}, in
+ * {@link NavMeshQuery#getPolyWallSegments(long, boolean, QueryFilter)} without portals and in
+ * {@link NavMeshQuery#findDistanceToWall(long, float[], float, QueryFilter)}.
+ *
+ * The walls of a polygon are cached per query filter. An entry is invalidated when the tile of the polygon or its links
+ * change, which happens when the tile or one of its neighbours is added or removed, and when the flags or the area of
+ * any polygon change. Entries are kept per tile slot and dropped once a different tile is cached in the slot, so
+ * rebuilding tiles does not grow the cache. The cache can be used by several threads and must only be shared by
+ * queries on the same nav mesh or its snapshots. Filters are compared by identity, the cache must be cleared when a
+ * filter is modified.
+ */
+public class WallSegmentCache {
+
+    static class Entry {
+        final int tileVersion;
+        final long polyStateVersion;
+        /** The wall segments of the polygon, without portals. */
+        final GetPolyWallSegmentsResult walls;
+        /** Bit mask of the polygon edges blocked for the filter. */
+        final int solidEdges;
+
+        Entry(int tileVersion, long polyStateVersion, GetPolyWallSegmentsResult walls, int solidEdges) {
+            this.tileVersion = tileVersion;
+            this.polyStateVersion = polyStateVersion;
+            this.walls = walls;
+            this.solidEdges = solidEdges;
+        }
+    }
+
+    /** The entries of the polygons of one tile, replaced as a whole once the tile slot holds a different tile. */
+    private static class TileEntries {
+        final int salt;
+        final AtomicReferenceArray<Entry> polys;
+
+        TileEntries(int salt, int polyCount) {
+            this.salt = salt;
+            polys = new AtomicReferenceArray<>(polyCount);
+        }
+    }
+
+    /** Entries by filter and tile index, bounded by the polygons of the tiles in the nav mesh. */
+    private final Map<QueryFilter, Map<Integer, TileEntries>> m_entries = new ConcurrentHashMap<>();
+
+    Entry get(QueryFilter filter, MeshTile tile, int poly, long polyStateVersion) {
+        Map<Integer, TileEntries> tiles = m_entries.get(filter);
+        if (tiles == null) {
+            return null;
+        }
+        TileEntries entries = tiles.get(tile.index);
+        if (entries == null || entries.salt != tile.salt || poly >= entries.polys.length()) {
+            return null;
+        }
+        Entry entry = entries.polys.get(poly);
+        if (entry == null || entry.tileVersion != tile.version || entry.polyStateVersion != polyStateVersion) {
+            return null;
+        }
+        return entry;
+    }
+
+    void put(QueryFilter filter, MeshTile tile, int poly, Entry entry) {
+        int polyCount = tile.data.header.polyCount;
+        TileEntries entries = m_entries.computeIfAbsent(filter, __ -> new ConcurrentHashMap<>()).compute(tile.index,
+                (__, e) -> e != null && e.salt == tile.salt && e.polys.length() == polyCount ? e
+                        : new TileEntries(tile.salt, polyCount));
+        entries.polys.set(poly, entry);
+    }
+
+    /** @return Number of polygons with cached walls. */
+    public int size() {
+        int size = 0;
+        for (Map<Integer, TileEntries> tiles : m_entries.values()) {
+            for (TileEntries entries : tiles.values()) {
+                for (int i = 0; i < entries.polys.length(); i++) {
+                    if (entries.polys.get(i) != null) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /** Removes the walls cached for the filter. */
+    public void clear(QueryFilter filter) {
+        m_entries.remove(filter);
+    }
+
+    public void clear() {
+        m_entries.clear();
+    }
+}
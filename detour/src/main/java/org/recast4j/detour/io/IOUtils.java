@@ -17,21 +17,28 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.detour.io;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class IOUtils {
 
 	public static ByteBuffer toByteBuffer(InputStream inputStream) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		byte[] buffer = new byte[4096];
-		int l;
-		while ((l = inputStream.read(buffer)) != -1) {
-			baos.write(buffer, 0, l);
+		return ByteBuffer.wrap(inputStream.readAllBytes());
+	}
+
+	/**
+	 * Maps the whole file read-only into memory. The mapping stays valid after the method returns and is released
+	 * once the buffer is garbage collected.
+	 */
+	public static ByteBuffer map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
 		}
-		return ByteBuffer.wrap(baos.toByteArray());
 	}
 
 	public static int swapEndianness(int i) {
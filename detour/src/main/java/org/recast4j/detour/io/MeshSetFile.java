@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.recast4j.detour.MeshData;
+import org.recast4j.detour.MeshHeader;
+import org.recast4j.detour.NavMesh;
+import org.recast4j.detour.NavMeshParams;
+import org.recast4j.detour.TileSource;
+
+/**
+ * Random access to the tiles of a nav mesh set file mapped into memory.
+ *
+ * Opening the file only reads the set header and the tile headers, the tile data itself is decoded on demand by
+ * {@link #readTile(int)} straight from the mapped bytes. Neither the file nor any tile is ever copied into a heap
+ * buffer, and tiles which are never read cost nothing but their index entry. Instances are immutable and may be shared
+ * between threads. As a {@link TileSource} it serves the tiles of the set by location.
+ */
+public class MeshSetFile implements TileSource {
+
+    private final ByteBuffer m_buffer;
+    private final boolean m_is32Bit;
+    private final NavMeshParams m_params;
+    private final int m_maxVertsPerPoly;
+    private final int m_tileCount;
+    private final long[] m_tileRefs;
+    private final int[] m_tileOffsets;
+    /** Indices of the tiles by location. */
+    private final Map<Long, int[]> m_tilesByLocation = new HashMap<>();
+    private final MeshDataReader m_meshReader = new MeshDataReader();
+
+    private MeshSetFile(ByteBuffer buffer, int maxVertPerPoly, boolean is32Bit) throws IOException {
+        MeshSetReader reader = new MeshSetReader();
+        ByteBuffer bb = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        NavMeshSetHeader header = reader.readHeader(bb, maxVertPerPoly);
+        if (header.maxVertsPerPoly <= 0) {
+            throw new IOException("Invalid number of verts per poly " + header.maxVertsPerPoly);
+        }
+        boolean cCompatibility = header.version == NavMeshSetHeader.NAVMESHSET_VERSION;
+        m_buffer = buffer;
+        m_buffer.order(bb.order());
+        m_is32Bit = is32Bit;
+        m_params = header.params;
+        m_maxVertsPerPoly = header.maxVertsPerPoly;
+        m_tileRefs = new long[header.numTiles];
+        m_tileOffsets = new int[header.numTiles];
+        int count = 0;
+        for (; count < header.numTiles; ++count) {
+            NavMeshTileHeader tileHeader = reader.readTileHeader(bb, is32Bit, header, cCompatibility);
+            if (tileHeader == null) {
+                break;
+            }
+            m_tileRefs[count] = tileHeader.tileRef;
+            m_tileOffsets[count] = bb.position();
+            indexLocation(bb, count);
+            bb.position(bb.position() + tileHeader.dataSize);
+        }
+        m_tileCount = count;
+    }
+
+    /** Adds the tile to the location index, reading just the location from the tile header. */
+    private void indexLocation(ByteBuffer bb, int tile) {
+        ByteBuffer header = bb.duplicate().order(bb.order());
+        int offset = bb.position();
+        if (header.getInt(offset) != MeshHeader.DT_NAVMESH_MAGIC) {
+            header.order(header.order() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        }
+        int x = header.getInt(offset + 8);
+        int y = header.getInt(offset + 12);
+        m_tilesByLocation.merge(key(x, y), new int[] { tile }, (a, b) -> {
+            int[] tiles = Arrays.copyOf(a, a.length + 1);
+            tiles[a.length] = b[0];
+            return tiles;
+        });
+    }
+
+    private static long key(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+
+    /**
+     * Maps a nav mesh set file written with the max verts per poly in its header.
+     */
+    public static MeshSetFile open(Path file) throws IOException {
+        return new MeshSetFile(IOUtils.map(file), -1, false);
+    }
+
+    public static MeshSetFile open(Path file, int maxVertPerPoly) throws IOException {
+        return new MeshSetFile(IOUtils.map(file), maxVertPerPoly, false);
+    }
+
+    public static MeshSetFile open32Bit(Path file, int maxVertPerPoly) throws IOException {
+        return new MeshSetFile(IOUtils.map(file), maxVertPerPoly, true);
+    }
+
+    /**
+     * Indexes a nav mesh set already held in a buffer, e.g. one mapped by the caller.
+     */
+    public static MeshSetFile of(ByteBuffer buffer, int maxVertPerPoly) throws IOException {
+        return new MeshSetFile(buffer.duplicate(), maxVertPerPoly, false);
+    }
+
+    @Override
+    public NavMeshParams getParams() {
+        return m_params;
+    }
+
+    @Override
+    public int getMaxVertsPerPoly() {
+        return m_maxVertsPerPoly;
+    }
+
+    public int getTileCount() {
+        return m_tileCount;
+    }
+
+    /** @return The reference the tile had when the set was written. */
+    public long getTileRef(int i) {
+        return m_tileRefs[i];
+    }
+
+    /**
+     * Decodes the data of a tile. Every call decodes the tile again, callers are expected to keep the result as long as
+     * they need it.
+     */
+    public MeshData readTile(int i) throws IOException {
+        ByteBuffer bb = m_buffer.duplicate().order(m_buffer.order());
+        bb.position(m_tileOffsets[i]);
+        return m_meshReader.read(bb, m_maxVertsPerPoly, m_is32Bit);
+    }
+
+    @Override
+    public boolean hasTiles(int x, int y) {
+        return m_tilesByLocation.containsKey(key(x, y));
+    }
+
+    @Override
+    public List<MeshData> loadTiles(int x, int y) throws IOException {
+        int[] tiles = m_tilesByLocation.get(key(x, y));
+        if (tiles == null) {
+            return List.of();
+        }
+        List<MeshData> data = new ArrayList<>(tiles.length);
+        for (int tile : tiles) {
+            data.add(readTile(tile));
+        }
+        return data;
+    }
+
+    /**
+     * Creates a nav mesh with the parameters of the set and all of its tiles.
+     */
+    public NavMesh read() throws IOException {
+        NavMesh mesh = new NavMesh(m_params, m_maxVertsPerPoly);
+        for (int i = 0; i < m_tileCount; ++i) {
+            mesh.addTile(readTile(i), i, m_tileRefs[i]);
+        }
+        return mesh;
+    }
+}
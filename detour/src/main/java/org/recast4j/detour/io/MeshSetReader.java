@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.file.Path;
 
 import org.recast4j.detour.MeshData;
 import org.recast4j.detour.NavMesh;
@@ -58,6 +59,23 @@ public class MeshSetReader {
         return read(bb, -1, false);
     }
 
+    /**
+     * Reads a nav mesh set file by mapping it into memory instead of copying it through the heap.
+     *
+     * @see MeshSetFile
+     */
+    public NavMesh read(Path file) throws IOException {
+        return MeshSetFile.open(file).read();
+    }
+
+    public NavMesh read(Path file, int maxVertPerPoly) throws IOException {
+        return MeshSetFile.open(file, maxVertPerPoly).read();
+    }
+
+    public NavMesh read32Bit(Path file, int maxVertPerPoly) throws IOException {
+        return MeshSetFile.open32Bit(file, maxVertPerPoly).read();
+    }
+
     NavMesh read(ByteBuffer bb, int maxVertPerPoly, boolean is32Bit) throws IOException {
         NavMeshSetHeader header = readHeader(bb, maxVertPerPoly);
         if (header.maxVertsPerPoly <= 0) {
@@ -69,7 +87,7 @@ public class MeshSetReader {
         return mesh;
     }
 
-    private NavMeshSetHeader readHeader(ByteBuffer bb, int maxVertsPerPoly) throws IOException {
+    NavMeshSetHeader readHeader(ByteBuffer bb, int maxVertsPerPoly) throws IOException {
         NavMeshSetHeader header = new NavMeshSetHeader();
         header.magic = bb.getInt();
         if (header.magic != NavMeshSetHeader.NAVMESHSET_MAGIC) {
@@ -97,24 +115,33 @@ public class MeshSetReader {
             throws IOException {
         // Read tiles.
         for (int i = 0; i < header.numTiles; ++i) {
-            NavMeshTileHeader tileHeader = new NavMeshTileHeader();
-            if (is32Bit) {
-                tileHeader.tileRef = convert32BitRef(bb.getInt(), header.params);
-            } else {
-                tileHeader.tileRef = bb.getLong();
-            }
-            tileHeader.dataSize = bb.getInt();
-            if (tileHeader.tileRef == 0 || tileHeader.dataSize == 0) {
+            NavMeshTileHeader tileHeader = readTileHeader(bb, is32Bit, header, cCompatibility);
+            if (tileHeader == null) {
                 break;
             }
-            if (cCompatibility && !is32Bit) {
-                bb.getInt(); // C struct padding
-            }
             MeshData data = meshReader.read(bb, mesh.getMaxVertsPerPoly(), is32Bit);
             mesh.addTile(data, i, tileHeader.tileRef);
         }
     }
 
+    /** Reads the header of the next tile, returns null if the set has no more tiles. */
+    NavMeshTileHeader readTileHeader(ByteBuffer bb, boolean is32Bit, NavMeshSetHeader header, boolean cCompatibility) {
+        NavMeshTileHeader tileHeader = new NavMeshTileHeader();
+        if (is32Bit) {
+            tileHeader.tileRef = convert32BitRef(bb.getInt(), header.params);
+        } else {
+            tileHeader.tileRef = bb.getLong();
+        }
+        tileHeader.dataSize = bb.getInt();
+        if (tileHeader.tileRef == 0 || tileHeader.dataSize == 0) {
+            return null;
+        }
+        if (cCompatibility && !is32Bit) {
+            bb.getInt(); // C struct padding
+        }
+        return tileHeader;
+    }
+
     private long convert32BitRef(int ref, NavMeshParams params) {
         int m_tileBits = ilog2(nextPow2(params.maxTiles));
         int m_polyBits = ilog2(nextPow2(params.maxPolys));
@@ -22,6 +22,7 @@ import static org.assertj.core.data.Offset.offset;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.junit.jupiter.api.Test;
+import org.recast4j.detour.NavMeshQuery.FRand;
 
 public class FindNearestPolyTest extends AbstractDetourTest {
 
@@ -72,4 +73,43 @@ public class FindNearestPolyTest extends AbstractDetourTest {
         }
 
     }
+
+    @Test
+    public void testFindNearestPolysMatchesSingleQueries() {
+        QueryFilter filter = new DefaultQueryFilter();
+        float[] extents = { 2, 4, 2 };
+        FRand f = new FRand(1);
+        int count = 500;
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            float[] pt = query.findRandomPoint(filter, f).result.getRandomPt();
+            positions[i * 3] = pt[0] + (f.frand() - 0.5f) * 6;
+            positions[i * 3 + 1] = pt[1] + (f.frand() - 0.5f) * 6;
+            positions[i * 3 + 2] = pt[2] + (f.frand() - 0.5f) * 6;
+        }
+        long[] refs = new long[count];
+        float[] points = new float[count * 3];
+        assertThat(query.findNearestPolys(positions, count, extents, filter, refs, points).isSuccess()).isTrue();
+        for (int i = 0; i < count; i++) {
+            float[] pos = { positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2] };
+            FindNearestPolyResult poly = query.findNearestPoly(pos, extents, filter).result;
+            assertThat(refs[i]).isEqualTo(poly.getNearestRef());
+            for (int v = 0; v < 3; v++) {
+                assertThat(points[i * 3 + v]).isEqualTo(poly.getNearestPos()[v]);
+            }
+        }
+    }
+
+    @Test
+    public void testFindNearestPolysRejectsInvalidInput() {
+        QueryFilter filter = new DefaultQueryFilter();
+        float[] extents = { 2, 4, 2 };
+        float[] positions = { 0, 0, 0, Float.NaN, 0, 0 };
+        assertThat(query.findNearestPolys(positions, 2, extents, filter, new long[2], new float[6]))
+                .isEqualTo(Status.FAILURE_INVALID_PARAM);
+        assertThat(query.findNearestPolys(positions, 1, extents, filter, new long[0], new float[3]))
+                .isEqualTo(Status.FAILURE_INVALID_PARAM);
+        assertThat(query.findNearestPolys(positions, 1, extents, filter, new long[1], new float[3]).isSuccess())
+                .isTrue();
+    }
 }
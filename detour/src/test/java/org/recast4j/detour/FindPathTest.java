@@ -28,6 +28,9 @@ public class FindPathTest extends AbstractDetourTest {
 
     private static final Status[] STATUSES = { Status.SUCCSESS, Status.PARTIAL_RESULT, Status.SUCCSESS, Status.SUCCSESS,
             Status.SUCCSESS };
+    /// Statuses of the paths with a pool of 8 nodes.
+    private static final Status[] OUT_OF_NODES_STATUSES = { Status.OUT_OF_NODES, Status.OUT_OF_NODES,
+            Status.OUT_OF_NODES, Status.SUCCSESS, Status.OUT_OF_NODES };
     private static final long[][] RESULTS = {
             { 281474976710696L, 281474976710695L, 281474976710694L, 281474976710703L, 281474976710706L,
                     281474976710705L, 281474976710702L, 281474976710701L, 281474976710714L, 281474976710713L,
@@ -93,6 +96,27 @@ public class FindPathTest extends AbstractDetourTest {
                     new StraightPathItem(new float[] { 7.984783f, 10.197294f, -2.441269f }, 0, 281474976710755L),
                     new StraightPathItem(new float[] { 18.784092f, 10.197294f, 3.054368f }, 2, 0L) } };
 
+    private static final StraightPathItem[] ALL_CROSSINGS_STRAIGHT_PATH = {
+            new StraightPathItem(new float[] { 22.606520f, 10.197294f, -45.918674f }, 1, 281474976710696L),
+            new StraightPathItem(new float[] { 22.444965f, 10.197294f, -45.820015f }, 0, 281474976710695L),
+            new StraightPathItem(new float[] { 16.966841f, 10.197294f, -42.474594f }, 0, 281474976710694L),
+            new StraightPathItem(new float[] { 16.329351f, 10.197294f, -42.085289f }, 0, 281474976710703L),
+            new StraightPathItem(new float[] { 15.049332f, 10.197294f, -41.303596f }, 0, 281474976710706L),
+            new StraightPathItem(new float[] { 15.027279f, 10.197294f, -41.290127f }, 0, 281474976710705L),
+            new StraightPathItem(new float[] { 6.472504f, 10.197294f, -36.065834f }, 0, 281474976710702L),
+            new StraightPathItem(new float[] { 4.981748f, 10.197294f, -35.155449f }, 0, 281474976710701L),
+            new StraightPathItem(new float[] { 4.979793f, 10.197294f, -35.154255f }, 0, 281474976710714L),
+            new StraightPathItem(new float[] { 3.484785f, 10.197294f, -34.241272f }, 0, 281474976710713L),
+            new StraightPathItem(new float[] { 1.984785f, 10.197294f, -31.241272f }, 0, 281474976710712L),
+            new StraightPathItem(new float[] { 1.984785f, 10.197294f, -29.741272f }, 0, 281474976710727L),
+            new StraightPathItem(new float[] { 2.584784f, 10.197294f, -27.941273f }, 0, 281474976710730L),
+            new StraightPathItem(new float[] { 4.093313f, 10.197294f, -24.199156f }, 0, 281474976710717L),
+            new StraightPathItem(new float[] { 4.384785f, 10.197294f, -23.476122f }, 0, 281474976710721L),
+            new StraightPathItem(new float[] { 6.457663f, 10.197294f, -18.334061f }, 2, 0L) };
+
+    private static final int[][] STRAIGHT_PATH_COUNTS = { { 6, 11, 10, 2, 8 }, { 6, 11, 10, 2, 8 },
+            { 16, 18, 32, 5, 14 } };
+
     @Test
     public void testFindPath() {
         QueryFilter filter = new DefaultQueryFilter();
@@ -134,6 +158,31 @@ public class FindPathTest extends AbstractDetourTest {
         }
     }
 
+    @Test
+    public void testFindPathOutOfNodes() {
+        QueryFilter filter = new DefaultQueryFilter();
+        NavMeshQuery smallQuery = new NavMeshQuery(navmesh, 8);
+        for (int i = 0; i < startRefs.length; i++) {
+            Result<List<Long>> path = smallQuery.findPath(startRefs[i], endRefs[i], startPoss[i], endPoss[i], filter);
+            assertThat(path.status).isEqualTo(OUT_OF_NODES_STATUSES[i]);
+            assertThat(path.status.isSuccess()).isTrue();
+            assertThat(path.result.get(0).longValue()).isEqualTo(startRefs[i]);
+            assertThat(smallQuery.getNodePool().getNodeCount()).isLessThanOrEqualTo(8);
+        }
+        // An exhausted pool returns the partial path to the node closest to the goal
+        Result<List<Long>> path = smallQuery.findPath(startRefs[2], endRefs[2], startPoss[2], endPoss[2], filter);
+        assertThat(path.status).isEqualTo(Status.OUT_OF_NODES);
+        assertThat(path.status.isPartial()).isTrue();
+        assertThat(path.result.get(path.result.size() - 1).longValue()).isNotEqualTo(endRefs[2]);
+        // A search that fits in the pool is not affected by its size
+        path = smallQuery.findPath(startRefs[3], endRefs[3], startPoss[3], endPoss[3], filter);
+        assertThat(path.status).isEqualTo(STATUSES[3]);
+        assertThat(path.result).hasSize(RESULTS[3].length);
+        for (int j = 0; j < RESULTS[3].length; j++) {
+            assertThat(path.result.get(j).longValue()).isEqualTo(RESULTS[3][j]);
+        }
+    }
+
     @Test
     public void testFindPathStraight() {
         QueryFilter filter = new DefaultQueryFilter();
@@ -157,4 +206,50 @@ public class FindPathTest extends AbstractDetourTest {
         }
     }
 
+    @Test
+    public void testFindPathStraightIntoBuffers() {
+        QueryFilter filter = new DefaultQueryFilter();
+        int[] options = { 0, NavMeshQuery.DT_STRAIGHTPATH_AREA_CROSSINGS, NavMeshQuery.DT_STRAIGHTPATH_ALL_CROSSINGS };
+        float[] points = new float[256 * 3];
+        int[] flags = new int[256];
+        long[] refs = new long[256];
+        for (int i = 0; i < startRefs.length; i++) {
+            List<Long> path = query.findPath(startRefs[i], endRefs[i], startPoss[i], endPoss[i], filter).result;
+            long[] polys = path.stream().mapToLong(Long::longValue).toArray();
+            for (int o = 0; o < options.length; o++) {
+                StraightPathItem[] expected = null;
+                if (options[o] != NavMeshQuery.DT_STRAIGHTPATH_ALL_CROSSINGS) {
+                    expected = STRAIGHT_PATHS[i];
+                } else if (options[o] == NavMeshQuery.DT_STRAIGHTPATH_ALL_CROSSINGS && i == 0) {
+                    expected = ALL_CROSSINGS_STRAIGHT_PATH;
+                }
+                int count = query.findStraightPath(startPoss[i], endPoss[i], polys, polys.length, points, flags,
+                        refs, 256, options[o]);
+                assertThat(count).isEqualTo(STRAIGHT_PATH_COUNTS[o][i]);
+                assertStraightPath(count, points, flags, refs, expected);
+
+                count = query.findStraightPath(startPoss[i], endPoss[i], polys, polys.length, points, flags, refs, 3,
+                        options[o]);
+                assertThat(count).isEqualTo(Math.min(3, STRAIGHT_PATH_COUNTS[o][i]));
+                assertStraightPath(count, points, flags, refs, expected);
+            }
+        }
+        assertThat(query.findStraightPath(startPoss[0], endPoss[0], new long[0], 0, points, flags, refs, 256, 0))
+                .isEqualTo(-1);
+        assertThat(query.findStraightPath(startPoss[0], endPoss[0], new long[] { startRefs[0] }, 1, points, flags,
+                refs, 257, 0)).isEqualTo(-1);
+    }
+
+    private void assertStraightPath(int count, float[] points, int[] flags, long[] refs, StraightPathItem[] expected) {
+        if (expected == null) {
+            return;
+        }
+        for (int j = 0; j < count; j++) {
+            assertThat(refs[j]).isEqualTo(expected[j].ref);
+            assertThat(flags[j]).isEqualTo(expected[j].flags);
+            for (int v = 0; v < 3; v++) {
+                assertThat(points[j * 3 + v]).isEqualTo(expected[j].pos[v], offset(0.01f));
+            }
+        }
+    }
 }
@@ -0,0 +1,112 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class FlowFieldTest extends AbstractDetourTest {
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+
+    @Test
+    public void testPathsLeadToGoal() {
+        for (int i = 0; i < endRefs.length; i++) {
+            Result<FlowField> result = query.findFlowField(endRefs[i], endPoss[i], filter);
+            assertThat(result.succeeded()).isTrue();
+            FlowField field = result.result;
+            assertThat(field.getGoalRef()).isEqualTo(endRefs[i]);
+            assertThat(field.getNext(endRefs[i])).isEqualTo(0L);
+            assertThat(field.getCost(endRefs[i])).isEqualTo(0f);
+            for (int j = 0; j < startRefs.length; j++) {
+                List<Long> path = field.getPath(startRefs[j], Integer.MAX_VALUE);
+                List<Long> astar = query.findPath(startRefs[j], endRefs[i], startPoss[j], endPoss[i], filter).result;
+                // Polygons that cannot reach the goal are not in the field.
+                if (astar.get(astar.size() - 1) != endRefs[i]) {
+                    assertThat(path).isEmpty();
+                    continue;
+                }
+                assertThat(path).isNotEmpty();
+                assertThat(path.get(0)).isEqualTo(startRefs[j]);
+                assertThat(path.get(path.size() - 1)).isEqualTo(endRefs[i]);
+                for (int k = 0; k < path.size() - 1; k++) {
+                    assertThat(query.getPortalPoints(path.get(k), path.get(k + 1)).succeeded()).isTrue();
+                    assertThat(field.getCost(path.get(k))).isGreaterThan(field.getCost(path.get(k + 1)));
+                }
+                assertThat(field.getPath(startRefs[j], 2)).hasSize(Math.min(2, path.size()));
+            }
+        }
+    }
+
+    @Test
+    public void testOneWayOffMeshConnection() {
+        navmesh = new NavMesh(new RecastTestMeshBuilder(startPoss[0], endPoss[0], 0).getMeshData(), 6, 0);
+        query = new NavMeshQuery(navmesh);
+        MeshTile tile = navmesh.getTile(0);
+        long offMeshRef = navmesh.getPolyRefBase(tile) | tile.data.header.offMeshBase;
+        assertThat(tile.data.offMeshCons).hasSize(1);
+        assertThat(tile.data.offMeshCons[0].flags).isEqualTo(0);
+
+        FlowField field = query.findFlowField(endRefs[0], endPoss[0], filter).result;
+        assertThat(field.getNext(offMeshRef)).isEqualTo(endRefs[0]);
+        assertThat(field.getPath(startRefs[0], Integer.MAX_VALUE)).containsExactly(startRefs[0], offMeshRef,
+                endRefs[0]);
+
+        field = query.findFlowField(startRefs[0], startPoss[0], filter).result;
+        List<Long> path = field.getPath(endRefs[0], Integer.MAX_VALUE);
+        assertThat(path).isNotEmpty();
+        assertThat(path.contains(offMeshRef)).isFalse();
+        assertThat(path.get(path.size() - 1)).isEqualTo(startRefs[0]);
+
+        // The landing tile keeps the connection, and drops it with the tile.
+        assertThat(tile.oneWayOffMeshCount).isEqualTo(1);
+        assertThat(tile.oneWayOffMeshRefs[0]).isEqualTo(offMeshRef);
+        assertThat(tile.oneWayOffMeshPolys[0]).isEqualTo(NavMesh.decodePolyIdPoly(endRefs[0]));
+        MeshData data = tile.data;
+        navmesh.removeTile(navmesh.getTileRef(tile));
+        assertThat(navmesh.getTile(0).oneWayOffMeshCount).isEqualTo(0);
+        navmesh.addTile(data, 0, 0);
+        assertThat(navmesh.getTile(0).oneWayOffMeshCount).isEqualTo(1);
+    }
+
+    @Test
+    public void testSearchIsLimitedByNodePool() {
+        NavMeshQuery small = new NavMeshQuery(navmesh, 8);
+        Result<FlowField> result = small.findFlowField(endRefs[0], endPoss[0], filter);
+        assertThat(result.status).isEqualTo(Status.OUT_OF_NODES);
+        assertThat(result.result.size()).isLessThanOrEqualTo(8);
+        assertThat(result.result.contains(endRefs[0])).isTrue();
+        assertThat(result.result.getPath(startRefs[0], Integer.MAX_VALUE)).isEmpty();
+        assertThat(result.result.getCost(startRefs[0])).isEqualTo(Float.MAX_VALUE);
+    }
+
+    @Test
+    public void testFieldRecordsNavMeshVersion() {
+        long version = navmesh.getVersion();
+        assertThat(query.findFlowField(endRefs[0], endPoss[0], filter).result.getNavMeshVersion()).isEqualTo(version);
+        navmesh.setPolyFlags(startRefs[0], 0);
+        assertThat(navmesh.getVersion()).isGreaterThan(version);
+        FlowField field = query.findFlowField(endRefs[0], endPoss[0], filter).result;
+        assertThat(field.getNavMeshVersion()).isEqualTo(navmesh.getVersion());
+        assertThat(field.contains(startRefs[0])).isFalse();
+    }
+}
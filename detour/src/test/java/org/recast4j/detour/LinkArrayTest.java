@@ -0,0 +1,77 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LinkArrayTest {
+
+    @Test
+    public void shouldPackLinkFields() {
+        LinkArray links = new LinkArray();
+        for (int i = 0; i < 100; i++) {
+            assertThat(links.add()).isEqualTo(i);
+        }
+        links.set(42, 281475015507969L, 0xff, 0xff, 0, 255);
+        links.setNext(42, 7);
+        links.set(43, 1L, 5, 6, 128, 200);
+        assertThat(links.size()).isEqualTo(100);
+        assertThat(links.ref(42)).isEqualTo(281475015507969L);
+        assertThat(links.next(42)).isEqualTo(7);
+        assertThat(links.edge(42)).isEqualTo(0xff);
+        assertThat(links.side(42)).isEqualTo(0xff);
+        assertThat(links.bmin(42)).isEqualTo(0);
+        assertThat(links.bmax(42)).isEqualTo(255);
+        assertThat(links.edge(43)).isEqualTo(5);
+        assertThat(links.side(43)).isEqualTo(6);
+        assertThat(links.bmin(43)).isEqualTo(128);
+        assertThat(links.bmax(43)).isEqualTo(200);
+        assertThat(links.next(43)).isEqualTo(NavMesh.DT_NULL_LINK);
+    }
+
+    @Test
+    public void copyShouldNotShareStorage() {
+        LinkArray links = new LinkArray();
+        links.set(links.add(), 1L, 0, 0, 0, 0);
+        LinkArray copy = new LinkArray(links);
+        links.set(0, 2L, 1, 1, 1, 1);
+        copy.add();
+        assertThat(copy.ref(0)).isEqualTo(1L);
+        assertThat(copy.size()).isEqualTo(2);
+        assertThat(links.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void getShouldReturnDetachedLink() {
+        LinkArray links = new LinkArray();
+        int idx = links.add();
+        links.set(idx, 3L, 2, 4, 10, 20);
+        Link link = links.get(idx);
+        assertThat(link.ref).isEqualTo(3L);
+        assertThat(link.next).isEqualTo(NavMesh.DT_NULL_LINK);
+        assertThat(link.edge).isEqualTo(2);
+        assertThat(link.side).isEqualTo(4);
+        assertThat(link.bmin).isEqualTo(10);
+        assertThat(link.bmax).isEqualTo(20);
+        link.ref = 5L;
+        assertThat(links.ref(idx)).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.NavMeshQueryPool.Lease;
+
+public class NavMeshQueryPoolTest extends AbstractDetourTest {
+
+    @Test
+    public void shouldReuseLeasedQueries() throws InterruptedException {
+        NavMeshQueryPool pool = new NavMeshQueryPool(navmesh, 2);
+        NavMeshQuery first;
+        try (Lease lease = pool.lease()) {
+            first = lease.query();
+        }
+        try (Lease lease = pool.lease()) {
+            assertThat(lease.query()).isSameAs(first);
+        }
+        assertThat(pool.getCreatedCount()).isEqualTo(1);
+        assertThat(pool.getLeaseCount()).isEqualTo(2);
+        pool.warmUp();
+        assertThat(pool.getCreatedCount()).isEqualTo(2);
+        assertThat(pool.getIdleCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFindSamePathsConcurrently() throws Exception {
+        QueryFilter filter = new DefaultQueryFilter();
+        NavMeshQueryPool pool = new NavMeshQueryPool(navmesh, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ConcurrentNavMeshQuery concurrentQuery = new ConcurrentNavMeshQuery(pool, executor);
+            List<CompletableFuture<Result<List<Long>>>> paths = new ArrayList<>();
+            List<CompletableFuture<Result<RaycastHit>>> hits = new ArrayList<>();
+            for (int n = 0; n < 10; n++) {
+                for (int i = 0; i < startRefs.length; i++) {
+                    paths.add(concurrentQuery.findPath(startRefs[i], endRefs[i], startPoss[i], endPoss[i], filter));
+                    hits.add(concurrentQuery.raycast(startRefs[i], startPoss[i], endPoss[i], filter, 0, 0));
+                }
+            }
+            for (int j = 0; j < paths.size(); j++) {
+                int i = j % startRefs.length;
+                Result<List<Long>> path = paths.get(j).get();
+                Result<RaycastHit> hit = hits.get(j).get();
+                Result<List<Long>> expected = query.findPath(startRefs[i], endRefs[i], startPoss[i], endPoss[i], filter);
+                assertThat(path.status).isEqualTo(expected.status);
+                assertThat(path.result).isEqualTo(expected.result);
+                assertThat(hit.result.t).isEqualTo(
+                        query.raycast(startRefs[i], startPoss[i], endPoss[i], filter, 0, 0).result.t);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(pool.getCreatedCount()).isLessThanOrEqualTo(2);
+        assertThat(pool.getLeaseCount()).isEqualTo(100);
+        assertThat(pool.getMaxWaitNanos()).isLessThanOrEqualTo(pool.getTotalWaitNanos());
+    }
+
+}
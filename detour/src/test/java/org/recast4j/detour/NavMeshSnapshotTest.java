@@ -0,0 +1,88 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NavMeshSnapshotTest {
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+    private NavMesh navmesh;
+
+    @BeforeEach
+    public void setUp() {
+        navmesh = new TestTiledNavMeshBuilder().getNavMesh();
+    }
+
+    @Test
+    public void snapshotShouldNotChangeWhenTilesAreRemovedAndAdded() {
+        NavMesh snapshot = navmesh.snapshot();
+        assertThat(snapshot.isReadOnly()).isTrue();
+        assertThat(navmesh.snapshot()).isSameAs(snapshot);
+        List<Long> path = findPath(snapshot);
+        assertThat(path).isNotEmpty();
+
+        long tileRef = navmesh.getTileRef(navmesh.getTileByRef(path.get(path.size() / 2)));
+        MeshData data = navmesh.getTileByRef(tileRef).data;
+        navmesh.removeTile(tileRef);
+        assertThat(findPath(navmesh)).isNotEqualTo(path);
+        assertThat(findPath(snapshot)).isEqualTo(path);
+        assertThat(snapshot.getTileByRef(tileRef)).isNotNull();
+
+        NavMesh removed = navmesh.snapshot();
+        assertThat(removed).isNotSameAs(snapshot);
+        navmesh.addTile(data, 0, tileRef);
+        assertThat(findPath(navmesh)).isEqualTo(path);
+        assertThat(findPath(removed)).isNotEqualTo(path);
+        assertThat(findPath(snapshot)).isEqualTo(path);
+    }
+
+    @Test
+    public void snapshotShouldRejectModifications() {
+        NavMesh snapshot = navmesh.snapshot();
+        long tileRef = navmesh.getTileRef(navmesh.getTile(0));
+        assertThrows(IllegalStateException.class, () -> snapshot.removeTile(tileRef));
+        assertThrows(IllegalStateException.class, () -> snapshot.setPolyFlags(tileRef, 0));
+        assertThat(snapshot.snapshot()).isSameAs(snapshot);
+    }
+
+    @Test
+    public void versionedNavMeshShouldPublishSnapshots() {
+        VersionedNavMesh versioned = new VersionedNavMesh(navmesh);
+        NavMesh first = versioned.snapshot();
+        long tileRef = first.getTileRef(first.getTile(0));
+        versioned.removeTile(tileRef);
+        assertThat(versioned.version()).isEqualTo(1);
+        assertThat(versioned.snapshot()).isNotSameAs(first);
+        assertThat(versioned.snapshot().getTileByRef(tileRef)).isNull();
+        assertThat(first.getTileByRef(tileRef)).isNotNull();
+    }
+
+    private List<Long> findPath(NavMesh mesh) {
+        NavMeshQuery query = new NavMeshQuery(mesh);
+        return query.findPath(TiledFindPathTest.START_REFS[0], TiledFindPathTest.END_REFS[0],
+                TiledFindPathTest.START_POS[0], TiledFindPathTest.END_POS[0], filter).result;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NodeQueueTest {
+
+    @Test
+    public void shouldPopNodesInOrderAfterModify() {
+        Random r = new Random(42);
+        NodeQueue queue = new NodeQueue(4);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Node node = new Node(i);
+            node.total = r.nextFloat() * 100;
+            nodes.add(node);
+            queue.push(node);
+        }
+        for (int i = 0; i < 100; i++) {
+            Node node = nodes.get(r.nextInt(nodes.size()));
+            node.total = r.nextBoolean() ? node.total * 0.5f : node.total + 10;
+            queue.modify(node);
+        }
+        assertThat(queue.size()).isEqualTo(200);
+        float last = -1;
+        while (!queue.isEmpty()) {
+            Node node = queue.pop();
+            assertThat(node.total >= last).isTrue();
+            assertThat(node.heapIndex).isEqualTo(-1);
+            last = node.total;
+        }
+    }
+
+    @Test
+    public void shouldResetHeapIndexOnClear() {
+        NodeQueue queue = new NodeQueue();
+        Node node = new Node(1);
+        queue.push(node);
+        assertThat(queue.top()).isSameAs(node);
+        queue.clear();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(node.heapIndex).isEqualTo(-1);
+        queue.modify(node);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+}
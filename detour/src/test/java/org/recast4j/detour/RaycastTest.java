@@ -0,0 +1,75 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import org.junit.jupiter.api.Test;
+
+public class RaycastTest extends AbstractDetourTest {
+
+    private static final float[] HIT_T = { 0.193836f, 0.717960f, 0.278283f, Float.MAX_VALUE, 0.121023f };
+    private static final float[] PATH_COSTS = { 6.195787f, 20.406881f, 21.839516f, 4.371869f, 5.234308f };
+    private static final int[] HIT_EDGES = { 1, 3, 1, -1, 0 };
+    private static final float[][] HIT_NORMALS = { { -0.316230f, 0f, -0.948683f }, { 0.478853f, 0f, -0.877895f },
+            { -1f, 0f, 0f }, { 0f, 0f, 0f }, { -0.124036f, 0f, -0.992278f } };
+    private static final long[][] PATHS = { { 281474976710696L, 281474976710695L, 281474976710691L },
+            { 281474976710773L, 281474976710772L, 281474976710768L, 281474976710754L, 281474976710755L },
+            { 281474976710680L, 281474976710684L, 281474976710688L, 281474976710687L, 281474976710689L },
+            { 281474976710753L, 281474976710748L, 281474976710752L, 281474976710731L },
+            { 281474976710733L, 281474976710736L, 281474976710734L } };
+
+    @Test
+    public void testRaycastIntoBuffers() {
+        QueryFilter filter = new DefaultQueryFilter();
+        float[] hit = new float[NavMeshQuery.RAYCAST_HIT_SIZE];
+        long[] path = new long[256];
+        for (int i = 0; i < startRefs.length; i++) {
+            for (int options : new int[] { 0, NavMeshQuery.DT_RAYCAST_USE_COSTS }) {
+                int count = query.raycast(startRefs[i], startPoss[i], endPoss[i], filter, options, 0, hit, path,
+                        path.length);
+                assertThat(count).isEqualTo(PATHS[i].length);
+                assertThat(hit[NavMeshQuery.RAYCAST_HIT_T]).isEqualTo(HIT_T[i], offset(1e-5f));
+                float cost = options == 0 ? 0f : PATH_COSTS[i];
+                assertThat(hit[NavMeshQuery.RAYCAST_HIT_COST]).isEqualTo(cost, offset(1e-4f));
+                assertThat((int) hit[NavMeshQuery.RAYCAST_HIT_EDGE]).isEqualTo(HIT_EDGES[i]);
+                for (int v = 0; v < 3; v++) {
+                    assertThat(hit[NavMeshQuery.RAYCAST_HIT_NORMAL + v]).isEqualTo(HIT_NORMALS[i][v], offset(1e-5f));
+                }
+                for (int j = 0; j < count; j++) {
+                    assertThat(path[j]).isEqualTo(PATHS[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRaycastReportsVisitedPolysBeyondBuffer() {
+        QueryFilter filter = new DefaultQueryFilter();
+        float[] hit = new float[NavMeshQuery.RAYCAST_HIT_SIZE];
+        long[] path = new long[1];
+        int count = query.raycast(startRefs[1], startPoss[1], endPoss[1], filter, 0, 0, hit, path, 1);
+        assertThat(count).isEqualTo(PATHS[1].length);
+        assertThat(path[0]).isEqualTo(PATHS[1][0]);
+        assertThat(hit[NavMeshQuery.RAYCAST_HIT_T]).isEqualTo(HIT_T[1], offset(1e-5f));
+        assertThat(query.raycast(startRefs[1], startPoss[1], endPoss[1], filter, 0, 0, new float[3], path, 1))
+                .isEqualTo(-1);
+    }
+}
@@ -54,6 +54,24 @@ public class RecastTestMeshBuilder {
             float m_cellHeight, float m_agentHeight, float m_agentRadius, float m_agentMaxClimb, float m_agentMaxSlope,
             int m_regionMinSize, int m_regionMergeSize, float m_edgeMaxLen, float m_edgeMaxError, int m_vertsPerPoly,
             float m_detailSampleDist, float m_detailSampleMaxError) {
+        this(m_geom, m_partitionType, m_cellSize, m_cellHeight, m_agentHeight, m_agentRadius, m_agentMaxClimb,
+                m_agentMaxSlope, m_regionMinSize, m_regionMergeSize, m_edgeMaxLen, m_edgeMaxError, m_vertsPerPoly,
+                m_detailSampleDist, m_detailSampleMaxError, new float[] { 0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f }, 1);
+    }
+
+    /** Builds the test mesh with a single off-mesh connection between the given points. */
+    public RecastTestMeshBuilder(float[] offMeshConStart, float[] offMeshConEnd, int offMeshConDir) {
+        this(new ObjImporter().load(RecastTestMeshBuilder.class.getClassLoader().getResourceAsStream("dungeon.obj")),
+                PartitionType.WATERSHED, m_cellSize, m_cellHeight, m_agentHeight, m_agentRadius, m_agentMaxClimb, m_agentMaxSlope,
+                m_regionMinSize, m_regionMergeSize, m_edgeMaxLen, m_edgeMaxError, m_vertsPerPoly, m_detailSampleDist,
+                m_detailSampleMaxError, new float[] { offMeshConStart[0], offMeshConStart[1], offMeshConStart[2],
+                        offMeshConEnd[0], offMeshConEnd[1], offMeshConEnd[2] }, offMeshConDir);
+    }
+
+    private RecastTestMeshBuilder(InputGeomProvider m_geom, PartitionType m_partitionType, float m_cellSize,
+            float m_cellHeight, float m_agentHeight, float m_agentRadius, float m_agentMaxClimb, float m_agentMaxSlope,
+            int m_regionMinSize, int m_regionMergeSize, float m_edgeMaxLen, float m_edgeMaxError, int m_vertsPerPoly,
+            float m_detailSampleDist, float m_detailSampleMaxError, float[] offMeshConVerts, int offMeshConDir) {
         RecastConfig cfg = new RecastConfig(m_partitionType, m_cellSize, m_cellHeight, m_agentHeight, m_agentRadius,
                 m_agentMaxClimb, m_agentMaxSlope, m_regionMinSize, m_regionMergeSize, m_edgeMaxLen, m_edgeMaxError,
                 m_vertsPerPoly, m_detailSampleDist, m_detailSampleMaxError, SampleAreaModifications.SAMPLE_AREAMOD_GROUND);
@@ -87,17 +105,11 @@ public class RecastTestMeshBuilder {
         params.ch = m_cellHeight;
         params.buildBvTree = true;
 
-        params.offMeshConVerts = new float[6];
-        params.offMeshConVerts[0] = 0.1f;
-        params.offMeshConVerts[1] = 0.2f;
-        params.offMeshConVerts[2] = 0.3f;
-        params.offMeshConVerts[3] = 0.4f;
-        params.offMeshConVerts[4] = 0.5f;
-        params.offMeshConVerts[5] = 0.6f;
+        params.offMeshConVerts = offMeshConVerts;
         params.offMeshConRad = new float[1];
         params.offMeshConRad[0] = 0.1f;
         params.offMeshConDir = new int[1];
-        params.offMeshConDir[0] = 1;
+        params.offMeshConDir[0] = offMeshConDir;
         params.offMeshConAreas = new int[1];
         params.offMeshConAreas[0] = 2;
         params.offMeshConFlags = new int[1];
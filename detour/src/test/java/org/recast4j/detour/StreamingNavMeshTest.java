@@ -0,0 +1,156 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recast4j.detour.io.MeshSetFile;
+
+public class StreamingNavMeshTest {
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+    private final float[] halfExtents = { 2, 4, 2 };
+    private MeshSetFile source;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        source = MeshSetFile.open(Paths.get(getClass().getClassLoader().getResource("dungeon_all_tiles_navmesh.bin").toURI()), 6);
+    }
+
+    @Test
+    public void shouldLoadMissingTilesRequestedByQueries() throws Exception {
+        StreamingNavMesh mesh = new StreamingNavMesh(source, Runnable::run, Long.MAX_VALUE);
+        MeshData tile = source.readTile(0);
+        float[] pos = tileCenter(tile);
+
+        Result<FindNearestPolyResult> nearest = new NavMeshQuery(mesh.snapshot()).findNearestPoly(pos, halfExtents, filter);
+        assertThat(nearest.status).isEqualTo(Status.PARTIAL_RESULT);
+        assertThat(nearest.result.getNearestRef()).isEqualTo(0L);
+        assertThat(mesh.isLoaded(tile.header.x, tile.header.y)).isTrue();
+
+        nearest = new NavMeshQuery(mesh.snapshot()).findNearestPoly(pos, halfExtents, filter);
+        assertThat(nearest.status.isSuccess()).isTrue();
+        assertThat(nearest.result.getNearestRef()).isNotEqualTo(0L);
+    }
+
+    @Test
+    public void shouldFindSamePathsAsFullyLoadedMesh() throws Exception {
+        NavMesh full = source.read();
+        StreamingNavMesh mesh = new StreamingNavMesh(source, Runnable::run, Long.MAX_VALUE);
+        float[] start = tileCenter(source.readTile(0));
+        float[] end = tileCenter(source.readTile(source.getTileCount() - 1));
+        mesh.requestAround(start, 100f).get();
+        assertThat(mesh.getLoadedLocationCount()).isEqualTo(source.getTileCount());
+
+        NavMeshQuery expectedQuery = new NavMeshQuery(full);
+        NavMeshQuery query = new NavMeshQuery(mesh.snapshot());
+        Result<FindNearestPolyResult> expectedStart = expectedQuery.findNearestPoly(start, halfExtents, filter);
+        Result<FindNearestPolyResult> expectedEnd = expectedQuery.findNearestPoly(end, halfExtents, filter);
+        Result<FindNearestPolyResult> startRef = query.findNearestPoly(start, halfExtents, filter);
+        Result<FindNearestPolyResult> endRef = query.findNearestPoly(end, halfExtents, filter);
+        Result<List<Long>> expected = expectedQuery.findPath(expectedStart.result.getNearestRef(),
+                expectedEnd.result.getNearestRef(), start, end, filter);
+        Result<List<Long>> path = query.findPath(startRef.result.getNearestRef(), endRef.result.getNearestRef(),
+                start, end, filter);
+        assertThat(path.status).isEqualTo(expected.status);
+        assertThat(path.result).hasSize(expected.result.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyRequestedTiles() throws Exception {
+        MeshData first = source.readTile(0);
+        MeshData second = source.readTile(1);
+        MeshData third = source.readTile(2);
+        long budget = StreamingNavMesh.estimateMemory(first) + StreamingNavMesh.estimateMemory(second)
+                + StreamingNavMesh.estimateMemory(third) - 1;
+        StreamingNavMesh mesh = new StreamingNavMesh(source, Runnable::run, budget);
+        mesh.request(first.header.x, first.header.y).get();
+        mesh.request(second.header.x, second.header.y).get();
+        NavMesh snapshot = mesh.snapshot();
+        mesh.request(first.header.x, first.header.y).get();
+        mesh.request(third.header.x, third.header.y).get();
+
+        assertThat(mesh.isLoaded(first.header.x, first.header.y)).isTrue();
+        assertThat(mesh.isLoaded(second.header.x, second.header.y)).isFalse();
+        assertThat(mesh.isLoaded(third.header.x, third.header.y)).isTrue();
+        assertThat(mesh.getMemoryUsage()).isLessThanOrEqualTo(budget);
+        assertThat(snapshot.getTilesAt(second.header.x, second.header.y)).hasSize(1);
+        assertThat(mesh.snapshot().getTilesAt(second.header.x, second.header.y)).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepTilesUsedByQueries() throws Exception {
+        MeshData first = source.readTile(0);
+        MeshData second = source.readTile(1);
+        MeshData third = source.readTile(2);
+        long budget = StreamingNavMesh.estimateMemory(first) + StreamingNavMesh.estimateMemory(second)
+                + StreamingNavMesh.estimateMemory(third) - 1;
+        StreamingNavMesh mesh = new StreamingNavMesh(source, Runnable::run, budget);
+        mesh.request(first.header.x, first.header.y).get();
+        mesh.request(second.header.x, second.header.y).get();
+        assertThat(mesh.snapshot().getTilesAt(first.header.x, first.header.y)).hasSize(1);
+        mesh.request(third.header.x, third.header.y).get();
+
+        assertThat(mesh.isLoaded(first.header.x, first.header.y)).isTrue();
+        assertThat(mesh.isLoaded(second.header.x, second.header.y)).isFalse();
+        assertThat(mesh.isLoaded(third.header.x, third.header.y)).isTrue();
+    }
+
+    @Test
+    public void shouldLoadNeighbourTilesReachedByPathSearch() throws Exception {
+        MeshData first = source.readTile(0);
+        StreamingNavMesh mesh = new StreamingNavMesh(source, Runnable::run, Long.MAX_VALUE);
+        mesh.request(first.header.x, first.header.y).get();
+        NavMesh snapshot = mesh.snapshot();
+        MeshTile tile = snapshot.getTileAt(first.header.x, first.header.y, first.header.layer);
+        long base = snapshot.getPolyRefBase(tile);
+        int border = -1;
+        for (int i = 0; i < tile.data.header.polyCount && border == -1; i++) {
+            Poly poly = tile.data.polys[i];
+            for (int j = 0; j < poly.vertCount; j++) {
+                if ((poly.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
+                    border = i;
+                    break;
+                }
+            }
+        }
+        assertThat(border).isNotEqualTo(-1);
+        int other = border == 0 ? 1 : 0;
+        float[] pos = tileCenter(first);
+
+        new NavMeshQuery(snapshot).findPath(base | border, base | other, pos, pos, filter);
+        assertThat(mesh.getLoadedLocationCount()).isGreaterThan(1);
+    }
+
+    private static float[] tileCenter(MeshData tile) {
+        Poly poly = tile.polys[0];
+        float[] center = new float[3];
+        for (int i = 0; i < poly.vertCount; i++) {
+            for (int j = 0; j < 3; j++) {
+                center[j] += tile.verts[poly.verts[i] * 3 + j] / poly.vertCount;
+            }
+        }
+        return center;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WallSegmentCacheTest {
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+    private NavMesh navmesh;
+    private NavMeshQuery query;
+    private NavMeshQuery cachedQuery;
+    private WallSegmentCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        navmesh = new TestTiledNavMeshBuilder().getNavMesh();
+        query = new NavMeshQuery(navmesh);
+        cachedQuery = new NavMeshQuery(navmesh);
+        cache = new WallSegmentCache();
+        cachedQuery.setWallSegmentCache(cache);
+    }
+
+    @Test
+    public void cachedWallsShouldMatchComputedWalls() {
+        int polys = 0;
+        for (long ref : polyRefs()) {
+            GetPolyWallSegmentsResult cached = cachedQuery.getPolyWallSegments(ref, false, filter).result;
+            assertWalls(cached, query.getPolyWallSegments(ref, false, filter).result);
+            assertThat(cachedQuery.getPolyWallSegments(ref, false, filter).result).isSameAs(cached);
+            polys++;
+        }
+        assertThat(cache.size()).isEqualTo(polys);
+    }
+
+    @Test
+    public void cachedWallsShouldBeInvalidatedWhenTileIsRemoved() {
+        Map<Long, GetPolyWallSegmentsResult> walls = cacheWalls();
+        List<Long> refs = polyRefs();
+        long tileRef = navmesh.getTileRef(navmesh.getTileByRef(refs.get(refs.size() / 2)));
+        MeshData data = navmesh.getTileByRef(tileRef).data;
+        navmesh.removeTile(tileRef);
+        assertThat(countChangedWalls(walls)).isGreaterThan(0);
+
+        walls = cacheWalls();
+        navmesh.addTile(data, 0, tileRef);
+        assertThat(countChangedWalls(walls)).isGreaterThan(0);
+    }
+
+    @Test
+    public void cacheSizeShouldStayConstantWhenTileIsRebuilt() {
+        cacheWalls();
+        int size = cache.size();
+        List<Long> refs = polyRefs();
+        long tileRef = navmesh.getTileRef(navmesh.getTileByRef(refs.get(refs.size() / 2)));
+        MeshData data = navmesh.getTileByRef(tileRef).data;
+        for (int i = 0; i < 10; i++) {
+            navmesh.removeTile(tileRef);
+            tileRef = navmesh.addTile(data, 0, 0);
+            cacheWalls();
+            assertThat(cache.size()).isEqualTo(size);
+        }
+    }
+
+    @Test
+    public void cachedWallsShouldBeInvalidatedWhenPolyFlagsChange() {
+        Map<Long, GetPolyWallSegmentsResult> walls = cacheWalls();
+        List<Long> refs = polyRefs();
+        navmesh.setPolyFlags(refs.get(refs.size() / 2), 0);
+        assertThat(countChangedWalls(walls)).isGreaterThan(0);
+    }
+
+    @Test
+    public void findDistanceToWallShouldMatchUncachedQuery() {
+        NavMeshQuery.FRand frand = new NavMeshQuery.FRand(1);
+        for (int i = 0; i < 200; i++) {
+            FindRandomPointResult point = query.findRandomPoint(filter, frand).result;
+            FindDistanceToWallResult expected = query.findDistanceToWall(point.getRandomRef(), point.getRandomPt(), 5f,
+                    filter).result;
+            FindDistanceToWallResult actual = cachedQuery.findDistanceToWall(point.getRandomRef(), point.getRandomPt(),
+                    5f, filter).result;
+            assertThat(actual.getDistance()).isEqualTo(expected.getDistance());
+            assertThat(actual.getPosition()).containsExactly(expected.getPosition());
+            assertThat(actual.getNormal()).containsExactly(expected.getNormal());
+        }
+        assertThat(cache.size()).isGreaterThan(0);
+    }
+
+    private Map<Long, GetPolyWallSegmentsResult> cacheWalls() {
+        Map<Long, GetPolyWallSegmentsResult> walls = new HashMap<>();
+        for (long ref : polyRefs()) {
+            walls.put(ref, cachedQuery.getPolyWallSegments(ref, false, filter).result);
+        }
+        return walls;
+    }
+
+    /**
+     * Checks that the cached walls of all polygons match freshly computed walls and returns the number of polygons
+     * with a different number of walls than before.
+     */
+    private int countChangedWalls(Map<Long, GetPolyWallSegmentsResult> before) {
+        int changed = 0;
+        for (long ref : polyRefs()) {
+            GetPolyWallSegmentsResult expected = query.getPolyWallSegments(ref, false, filter).result;
+            assertWalls(cachedQuery.getPolyWallSegments(ref, false, filter).result, expected);
+            GetPolyWallSegmentsResult previous = before.get(ref);
+            if (previous != null && previous.getSegmentVerts().size() != expected.getSegmentVerts().size()) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private List<Long> polyRefs() {
+        List<Long> refs = new ArrayList<>();
+        for (int i = 0; i < navmesh.getMaxTiles(); i++) {
+            MeshTile tile = navmesh.getTile(i);
+            if (tile.data == null || tile.data.header == null) {
+                continue;
+            }
+            long base = navmesh.getPolyRefBase(tile);
+            for (int j = 0; j < tile.data.header.polyCount; j++) {
+                refs.add(base | j);
+            }
+        }
+        return refs;
+    }
+
+    private static void assertWalls(GetPolyWallSegmentsResult actual, GetPolyWallSegmentsResult expected) {
+        assertThat(actual.getSegmentRefs()).containsExactlyElementsOf(expected.getSegmentRefs());
+        assertThat(actual.getSegmentVerts()).hasSize(expected.getSegmentVerts().size());
+        for (int i = 0; i < expected.getSegmentVerts().size(); i++) {
+            assertThat(actual.getSegmentVerts().get(i)).containsExactly(expected.getSegmentVerts().get(i));
+        }
+    }
+}
@@ -22,6 +22,9 @@ import static org.assertj.core.api.Assertions.offset;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -106,4 +109,53 @@ public class MeshSetReaderTest {
         assertThat(tiles.get(0).data.polys).hasSize(5);
         assertThat(tiles.get(0).data.verts).hasSize(17 * 3);
     }
+
+    @Test
+    public void testMappedDungeon() throws Exception {
+        InputStream is = getClass().getClassLoader().getResourceAsStream("dungeon_all_tiles_navmesh.bin");
+        NavMesh expected = reader.read(is, 6);
+        NavMesh mesh = reader.read(resource("dungeon_all_tiles_navmesh.bin"), 6);
+        assertSameTiles(mesh, expected);
+    }
+
+    @Test
+    public void testMappedDungeon32Bit() throws Exception {
+        InputStream is = getClass().getClassLoader().getResourceAsStream("dungeon_all_tiles_navmesh_32bit.bin");
+        NavMesh expected = reader.read32Bit(is, 6);
+        NavMesh mesh = reader.read32Bit(resource("dungeon_all_tiles_navmesh_32bit.bin"), 6);
+        assertSameTiles(mesh, expected);
+    }
+
+    @Test
+    public void testMeshSetFileDecodesTilesOnDemand() throws Exception {
+        MeshSetFile file = MeshSetFile.open(resource("all_tiles_navmesh.bin"), 6);
+        assertThat(file.getParams().maxTiles).isEqualTo(128);
+        assertThat(file.getTileCount()).isGreaterThan(0);
+        NavMesh mesh = file.read();
+        for (int i = 0; i < file.getTileCount(); i++) {
+            MeshTile tile = mesh.getTileByRef(file.getTileRef(i));
+            assertThat(tile).isNotNull();
+            assertThat(file.readTile(i).verts).isEqualTo(tile.data.verts);
+        }
+    }
+
+    private Path resource(String name) throws URISyntaxException {
+        return Paths.get(getClass().getClassLoader().getResource(name).toURI());
+    }
+
+    private void assertSameTiles(NavMesh mesh, NavMesh expected) {
+        assertThat(mesh.getMaxTiles()).isEqualTo(expected.getMaxTiles());
+        for (int i = 0; i < expected.getMaxTiles(); i++) {
+            MeshTile tile = mesh.getTile(i);
+            MeshTile expectedTile = expected.getTile(i);
+            assertThat(mesh.getTileRef(tile)).isEqualTo(expected.getTileRef(expectedTile));
+            if (expectedTile.data == null) {
+                assertThat(tile.data).isNull();
+                continue;
+            }
+            assertThat(tile.data.verts).isEqualTo(expectedTile.data.verts);
+            assertThat(tile.data.polys).hasSize(expectedTile.data.polys.length);
+            assertThat(tile.data.detailTris).isEqualTo(expectedTile.data.detailTris);
+        }
+    }
 }
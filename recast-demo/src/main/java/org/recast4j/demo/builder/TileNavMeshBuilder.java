@@ -75,7 +75,8 @@ public class TileNavMeshBuilder extends AbstractNavMeshBuilder {
                 m_regionMinSize * m_regionMinSize * m_cellSize * m_cellSize,
                 m_regionMergeSize * m_regionMergeSize * m_cellSize * m_cellSize, m_edgeMaxLen, m_edgeMaxError, m_vertsPerPoly,
                 true, m_detailSampleDist, m_detailSampleMaxError, SampleAreaModifications.SAMPLE_AREAMOD_WALKABLE);
-        RecastBuilder rcBuilder = new RecastBuilder();
+        // The renderer draws the heightfields and contours of each tile
+        RecastBuilder rcBuilder = new RecastBuilder(null, true);
         return new Tupple2<>(cfg, rcBuilder.buildTiles(m_geom, cfg, Optional.of(executor)));
     }
 
@@ -19,6 +19,7 @@ freely, subject to the following restrictions:
 package org.recast4j.demo.draw;
 
 import static org.recast4j.recast.RecastConstants.RC_NULL_AREA;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 
 import java.util.List;
 
@@ -159,11 +160,11 @@ public class RecastDebugDraw extends DebugDraw {
                 // Check to see if start and end end-points have links.
                 boolean startSet = false;
                 boolean endSet = false;
-                for (int k = tile.polyLinks[p.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.get(k).next) {
-                    if (tile.links.get(k).edge == 0) {
+                for (int k = tile.polyLinks[p.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.next(k)) {
+                    if (tile.links.edge(k) == 0) {
                         startSet = true;
                     }
-                    if (tile.links.get(k).edge == 1) {
+                    if (tile.links.edge(k) == 1) {
                         endSet = true;
                     }
                 }
@@ -258,8 +259,8 @@ public class RecastDebugDraw extends DebugDraw {
                     }
                     if ((p.neis[j] & NavMesh.DT_EXT_LINK) != 0) {
                         boolean con = false;
-                        for (int k = tile.polyLinks[p.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.get(k).next) {
-                            if (tile.links.get(k).edge == j) {
+                        for (int k = tile.polyLinks[p.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.next(k)) {
+                            if (tile.links.edge(k) == j) {
                                 con = true;
                                 break;
                             }
@@ -621,6 +622,7 @@ public class RecastDebugDraw extends DebugDraw {
 
         int w = hf.width;
         int h = hf.height;
+        SpanPool pool = hf.spanPool;
 
         int[] fcol = new int[6];
         duCalcBoxColors(fcol, duRGBA(255, 255, 255, 255), duRGBA(255, 255, 255, 255));
@@ -631,10 +633,10 @@ public class RecastDebugDraw extends DebugDraw {
             for (int x = 0; x < w; ++x) {
                 float fx = orig[0] + x * cs;
                 float fz = orig[2] + y * cs;
-                Span s = hf.spans[x + y * w];
-                while (s != null) {
-                    appendBox(fx, orig[1] + s.smin * ch, fz, fx + cs, orig[1] + s.smax * ch, fz + cs, fcol);
-                    s = s.next;
+                int s = hf.spans[x + y * w];
+                while (s != RC_NULL_SPAN) {
+                    appendBox(fx, orig[1] + pool.smin(s) * ch, fz, fx + cs, orig[1] + pool.smax(s) * ch, fz + cs, fcol);
+                    s = pool.next(s);
                 }
             }
         }
@@ -648,6 +650,7 @@ public class RecastDebugDraw extends DebugDraw {
 
         int w = hf.width;
         int h = hf.height;
+        SpanPool pool = hf.spanPool;
 
         int[] fcol = new int[6];
         duCalcBoxColors(fcol, duRGBA(255, 255, 255, 255), duRGBA(217, 217, 217, 255));
@@ -658,18 +661,19 @@ public class RecastDebugDraw extends DebugDraw {
             for (int x = 0; x < w; ++x) {
                 float fx = orig[0] + x * cs;
                 float fz = orig[2] + y * cs;
-                Span s = hf.spans[x + y * w];
-                while (s != null) {
-                    if (s.area == SampleAreaModifications.SAMPLE_POLYAREA_TYPE_WALKABLE) {
+                int s = hf.spans[x + y * w];
+                while (s != RC_NULL_SPAN) {
+                    int area = pool.area(s);
+                    if (area == SampleAreaModifications.SAMPLE_POLYAREA_TYPE_WALKABLE) {
                         fcol[0] = duRGBA(64, 128, 160, 255);
-                    } else if (s.area == RC_NULL_AREA) {
+                    } else if (area == RC_NULL_AREA) {
                         fcol[0] = duRGBA(64, 64, 64, 255);
                     } else {
-                        fcol[0] = duMultCol(areaToCol(s.area), 200);
+                        fcol[0] = duMultCol(areaToCol(area), 200);
                     }
 
-                    appendBox(fx, orig[1] + s.smin * ch, fz, fx + cs, orig[1] + s.smax * ch, fz + cs, fcol);
-                    s = s.next;
+                    appendBox(fx, orig[1] + pool.smin(s) * ch, fz, fx + cs, orig[1] + pool.smax(s) * ch, fz + cs, fcol);
+                    s = pool.next(s);
                 }
             }
         }
@@ -966,34 +970,24 @@ public class RecastDebugDraw extends DebugDraw {
             float off = 0.5f;
             begin(DebugDrawPrimitives.POINTS, 4.0f);
 
-            for (List<Node> nodes : pool.getNodeMap().values()) {
-
-                for (Node node : nodes) {
-                    if (node == null) {
-                        continue;
-                    }
-                    vertex(node.pos[0], node.pos[1] + off, node.pos[2], duRGBA(255, 192, 0, 255));
-                }
+            for (int i = 1; i <= pool.getNodeCount(); i++) {
+                Node node = pool.getNodeAtIdx(i);
+                vertex(node.pos[0], node.pos[1] + off, node.pos[2], duRGBA(255, 192, 0, 255));
             }
             end();
 
             begin(DebugDrawPrimitives.LINES, 2.0f);
-            for (List<Node> nodes : pool.getNodeMap().values()) {
-
-                for (Node node : nodes) {
-                    if (node == null) {
-                        continue;
-                    }
-                    if (node.pidx == 0) {
-                        continue;
-                    }
-                    Node parent = pool.getNodeAtIdx(node.pidx);
-                    if (parent == null) {
-                        continue;
-                    }
-                    vertex(node.pos[0], node.pos[1] + off, node.pos[2], duRGBA(255, 192, 0, 128));
-                    vertex(parent.pos[0], parent.pos[1] + off, parent.pos[2], duRGBA(255, 192, 0, 128));
+            for (int i = 1; i <= pool.getNodeCount(); i++) {
+                Node node = pool.getNodeAtIdx(i);
+                if (node.pidx == 0) {
+                    continue;
+                }
+                Node parent = pool.getNodeAtIdx(node.pidx);
+                if (parent == null) {
+                    continue;
                 }
+                vertex(node.pos[0], node.pos[1] + off, node.pos[2], duRGBA(255, 192, 0, 128));
+                vertex(parent.pos[0], parent.pos[1] + off, parent.pos[2], duRGBA(255, 192, 0, 128));
             }
             end();
         }
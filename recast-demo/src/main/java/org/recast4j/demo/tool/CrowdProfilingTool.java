@@ -282,7 +282,7 @@ public class CrowdProfilingTool {
 
     private void moveMob(NavMeshQuery navquery, QueryFilter filter, CrowdAgent ag, AgentData agentData) {
         // Move somewhere
-        Result<FindNearestPolyResult> nearestPoly = navquery.findNearestPoly(ag.npos, crowd.getQueryExtents(), filter);
+        Result<FindNearestPolyResult> nearestPoly = navquery.findNearestPoly(ag.getPosition(), crowd.getQueryExtents(), filter);
         if (nearestPoly.succeeded()) {
             Result<FindRandomPointResult> result = navquery.findRandomPointAroundCircle(nearestPoly.result.getNearestRef(),
                     agentData.home, zoneRadius.get(0) * 2f, filter, rnd);
@@ -294,7 +294,7 @@ public class CrowdProfilingTool {
 
     private void moveVillager(NavMeshQuery navquery, QueryFilter filter, CrowdAgent ag, AgentData agentData) {
         // Move somewhere close
-        Result<FindNearestPolyResult> nearestPoly = navquery.findNearestPoly(ag.npos, crowd.getQueryExtents(), filter);
+        Result<FindNearestPolyResult> nearestPoly = navquery.findNearestPoly(ag.getPosition(), crowd.getQueryExtents(), filter);
         if (nearestPoly.succeeded()) {
             Result<FindRandomPointResult> result = navquery.findRandomPointAroundCircle(nearestPoly.result.getNearestRef(),
                     agentData.home, zoneRadius.get(0) * 0.2f, filter, rnd);
@@ -308,7 +308,7 @@ public class CrowdProfilingTool {
         // Move to another zone
         List<FindRandomPointResult> potentialTargets = new ArrayList<>();
         for (FindRandomPointResult zone : zones) {
-            if (vDistSqr(zone.getRandomPt(), ag.npos, 0) > zoneRadius.get(0) * zoneRadius.get(0)) {
+            if (vDistSqr(zone.getRandomPt(), ag.getPosition(), 0) > zoneRadius.get(0) * zoneRadius.get(0)) {
                 potentialTargets.add(zone);
             }
         }
@@ -324,9 +324,10 @@ public class CrowdProfilingTool {
             return true;
         }
         if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_VALID) {
-            float dx = ag.targetPos[0] - ag.npos[0];
-            float dy = ag.targetPos[1] - ag.npos[1];
-            float dz = ag.targetPos[2] - ag.npos[2];
+            float[] pos = ag.getPosition();
+            float dx = ag.targetPos[0] - pos[0];
+            float dy = ag.targetPos[1] - pos[1];
+            float dz = ag.targetPos[2] - pos[2];
             return dx * dx + dy * dy + dz * dz < 0.3f;
         }
         return false;
@@ -345,7 +346,7 @@ public class CrowdProfilingTool {
         if (crowd != null) {
             for (CrowdAgent ag : crowd.getActiveAgents()) {
                 float radius = ag.params.radius;
-                float[] pos = ag.npos;
+                float[] pos = ag.getPosition();
                 dd.debugDrawCircle(pos[0], pos[1], pos[2], radius, duRGBA(0, 0, 0, 32), 2.0f);
             }
 
@@ -354,7 +355,7 @@ public class CrowdProfilingTool {
 
                 float height = ag.params.height;
                 float radius = ag.params.radius;
-                float[] pos = ag.npos;
+                float[] pos = ag.getPosition();
 
                 int col = duRGBA(220, 220, 220, 128);
                 if (agentData.type == AgentType.TRAVELLER) {
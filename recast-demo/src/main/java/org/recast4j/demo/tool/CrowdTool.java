@@ -25,8 +25,8 @@ import static org.recast4j.demo.draw.DebugDraw.duRGBA;
 import static org.recast4j.demo.draw.DebugDrawPrimitives.LINES;
 import static org.recast4j.demo.draw.DebugDrawPrimitives.QUADS;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -242,7 +242,7 @@ public class CrowdTool implements Tool {
     }
 
     private void getAgentBounds(CrowdAgent ag, float[] bmin, float[] bmax) {
-        float[] p = ag.npos;
+        float[] p = ag.getPosition();
         float r = ag.params.radius;
         float h = ag.params.height;
         bmin[0] = p[0] - r;
@@ -265,11 +265,11 @@ public class CrowdTool implements Tool {
         if (adjust) {
             // Request velocity
             if (m_agentDebug.agent != null) {
-                float[] vel = calcVel(m_agentDebug.agent.npos, p, m_agentDebug.agent.params.maxSpeed);
+                float[] vel = calcVel(m_agentDebug.agent.getPosition(), p, m_agentDebug.agent.params.maxSpeed);
                 crowd.requestMoveVelocity(m_agentDebug.agent, vel);
             } else {
                 for (CrowdAgent ag : crowd.getActiveAgents()) {
-                    float[] vel = calcVel(ag.npos, p, ag.params.maxSpeed);
+                    float[] vel = calcVel(ag.getPosition(), p, ag.params.maxSpeed);
                     crowd.requestMoveVelocity(ag, vel);
                 }
             }
@@ -319,10 +319,9 @@ public class CrowdTool implements Tool {
             for (CrowdAgent ag : crowd.getActiveAgents()) {
                 if (!toolParams.m_showDetailAll && ag != m_agentDebug.agent)
                     continue;
-                List<Long> path = ag.corridor.getPath();
                 int npath = ag.corridor.getPathCount();
                 for (int j = 0; j < npath; ++j) {
-                    dd.debugDrawNavMeshPoly(nav, path.get(j), duRGBA(255, 255, 255, 24));
+                    dd.debugDrawNavMeshPoly(nav, ag.corridor.getPathPoly(j), duRGBA(255, 255, 255, 24));
                 }
             }
         }
@@ -361,7 +360,7 @@ public class CrowdTool implements Tool {
         for (CrowdAgent ag : crowd.getActiveAgents()) {
 
             AgentTrail trail = m_trails.get(ag.idx);
-            float[] pos = ag.npos;
+            float[] pos = ag.getPosition();
 
             dd.begin(LINES, 3.0f);
             float[] prev = new float[3];
@@ -386,20 +385,19 @@ public class CrowdTool implements Tool {
                 continue;
 
             float radius = ag.params.radius;
-            float[] pos = ag.npos;
+            float[] pos = ag.getPosition();
 
             if (toolParams.m_showCorners) {
-                if (!ag.corners.isEmpty()) {
+                if (ag.ncorners > 0) {
                     dd.begin(LINES, 2.0f);
-                    for (int j = 0; j < ag.corners.size(); ++j) {
-                        float[] va = j == 0 ? pos : ag.corners.get(j - 1).getPos();
-                        float[] vb = ag.corners.get(j).getPos();
+                    for (int j = 0; j < ag.ncorners; ++j) {
+                        float[] va = j == 0 ? pos : Arrays.copyOfRange(ag.cornerVerts, (j - 1) * 3, j * 3);
+                        float[] vb = Arrays.copyOfRange(ag.cornerVerts, j * 3, j * 3 + 3);
                         dd.vertex(va[0], va[1] + radius, va[2], duRGBA(128, 0, 0, 192));
                         dd.vertex(vb[0], vb[1] + radius, vb[2], duRGBA(128, 0, 0, 192));
                     }
-                    if ((ag.corners.get(ag.corners.size() - 1).getFlags()
-                            & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0) {
-                        float[] v = ag.corners.get(ag.corners.size() - 1).getPos();
+                    if ((ag.cornerFlags[ag.ncorners - 1] & NavMeshQuery.DT_STRAIGHTPATH_OFFMESH_CONNECTION) != 0) {
+                        float[] v = Arrays.copyOfRange(ag.cornerVerts, (ag.ncorners - 1) * 3, ag.ncorners * 3);
                         dd.vertex(v[0], v[1], v[2], duRGBA(192, 0, 0, 192));
                         dd.vertex(v[0], v[1] + radius * 2, v[2], duRGBA(192, 0, 0, 192));
                     }
@@ -459,7 +457,8 @@ public class CrowdTool implements Tool {
                     CrowdAgent nei = ag.neis.get(j).agent;
                     if (nei != null) {
                         dd.vertex(pos[0], pos[1] + radius, pos[2], duRGBA(0, 192, 128, 128));
-                        dd.vertex(nei.npos[0], nei.npos[1] + radius, nei.npos[2], duRGBA(0, 192, 128, 128));
+                        float[] neiPos = nei.getPosition();
+                        dd.vertex(neiPos[0], neiPos[1] + radius, neiPos[2], duRGBA(0, 192, 128, 128));
                     }
                 }
                 dd.end();
@@ -478,7 +477,7 @@ public class CrowdTool implements Tool {
         for (CrowdAgent ag : crowd.getActiveAgents()) {
 
             float radius = ag.params.radius;
-            float[] pos = ag.npos;
+            float[] pos = ag.getPosition();
 
             int col = duRGBA(0, 0, 0, 32);
             if (m_agentDebug.agent == ag)
@@ -491,7 +490,7 @@ public class CrowdTool implements Tool {
 
             float height = ag.params.height;
             float radius = ag.params.radius;
-            float[] pos = ag.npos;
+            float[] pos = ag.getPosition();
 
             int col = duRGBA(220, 220, 220, 128);
             if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING
@@ -516,9 +515,10 @@ public class CrowdTool implements Tool {
                 // Draw detail about agent sela
                 ObstacleAvoidanceDebugData vod = m_agentDebug.vod;
 
-                float dx = ag.npos[0];
-                float dy = ag.npos[1] + ag.params.height;
-                float dz = ag.npos[2];
+                float[] pos = ag.getPosition();
+                float dx = pos[0];
+                float dy = pos[1] + ag.params.height;
+                float dz = pos[2];
 
                 dd.debugDrawCircle(dx, dy, dz, ag.params.maxSpeed, duRGBA(255, 255, 255, 64), 2.0f);
 
@@ -544,9 +544,9 @@ public class CrowdTool implements Tool {
 
             float radius = ag.params.radius;
             float height = ag.params.height;
-            float[] pos = ag.npos;
-            float[] vel = ag.vel;
-            float[] dvel = ag.dvel;
+            float[] pos = ag.getPosition();
+            float[] vel = ag.getVelocity();
+            float[] dvel = ag.getDesiredVelocity();
 
             int col = duRGBA(220, 220, 220, 192);
             if (ag.targetState == MoveRequestState.DT_CROWDAGENT_TARGET_REQUESTING
@@ -596,9 +596,10 @@ public class CrowdTool implements Tool {
             AgentTrail trail = m_trails.get(ag.idx);
             // Update agent movement trail.
             trail.htrail = (trail.htrail + 1) % AGENT_MAX_TRAIL;
-            trail.trail[trail.htrail * 3] = ag.npos[0];
-            trail.trail[trail.htrail * 3 + 1] = ag.npos[1];
-            trail.trail[trail.htrail * 3 + 2] = ag.npos[2];
+            float[] pos = ag.getPosition();
+            trail.trail[trail.htrail * 3] = pos[0];
+            trail.trail[trail.htrail * 3 + 1] = pos[1];
+            trail.trail[trail.htrail * 3 + 2] = pos[2];
         }
 
         m_agentDebug.vod.normalizeSamples();
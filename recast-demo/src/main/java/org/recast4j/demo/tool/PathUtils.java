@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import org.recast4j.detour.Link;
 import org.recast4j.detour.MeshTile;
 import org.recast4j.detour.NavMesh;
 import org.recast4j.detour.NavMeshQuery;
@@ -126,10 +125,9 @@ public class PathUtils {
         MeshTile tile = tileAndPoly.result.first;
         Poly poly = tileAndPoly.result.second;
 
-        for (int k = tile.polyLinks[poly.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.get(k).next) {
-            Link link = tile.links.get(k);
-            if (link.ref != 0) {
-                neis.add(link.ref);
+        for (int k = tile.polyLinks[poly.index]; k != NavMesh.DT_NULL_LINK; k = tile.links.next(k)) {
+            if (tile.links.ref(k) != 0) {
+                neis.add(tile.links.ref(k));
             }
         }
 
@@ -18,7 +18,10 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.recast;
 
-/** A compact, static heightfield representing unobstructed space. */
+/**
+ * A compact, static heightfield representing unobstructed space. When built with a {@link RecastBuildContext} the
+ * arrays are reused between tiles and may be longer than the sizes given below.
+ */
 public class CompactHeightfield {
 
     /** The width of the heightfield. (Along the x-axis in cell units.) */
@@ -18,6 +18,10 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.recast;
 
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
+
+import java.util.Arrays;
+
 /** Represents a heightfield layer within a layer set. */
 public class Heightfield {
 
@@ -33,8 +37,10 @@ public class Heightfield {
     public final float cs;
     /** The height of each cell. (The minimum increment along the y-axis.) */
     public final float ch;
-    /** Heightfield of spans (width*height). */
-    public final Span[] spans;
+    /** Index of the lowest span of each column, or RC_NULL_SPAN if the column is empty. (width*height) */
+    public final int[] spans;
+    /** Storage of the spans referenced by {@link #spans}. */
+    public final SpanPool spanPool;
     /** Border size in cell units */
     public final int borderSize;
 
@@ -46,6 +52,29 @@ public class Heightfield {
         this.cs = cs;
         this.ch = ch;
         this.borderSize = borderSize;
-        spans = new Span[width * height];
+        spans = new int[width * height];
+        Arrays.fill(spans, RC_NULL_SPAN);
+        spanPool = new SpanPool(width * height);
+    }
+
+    /** Creates a deep copy of the heightfield. Only the span arrays are copied, no per span objects are created. */
+    public Heightfield(Heightfield other) {
+        width = other.width;
+        height = other.height;
+        bmin = other.bmin.clone();
+        bmax = other.bmax.clone();
+        cs = other.cs;
+        ch = other.ch;
+        borderSize = other.borderSize;
+        spans = other.spans.clone();
+        spanPool = new SpanPool(other.spanPool);
+    }
+
+    /** Removes all spans and moves the heightfield to new bounds so that it can be reused for a tile of the same size. */
+    void reset(float[] bmin, float[] bmax) {
+        RecastVectors.copy(this.bmin, bmin);
+        RecastVectors.copy(this.bmax, bmax);
+        Arrays.fill(spans, RC_NULL_SPAN);
+        spanPool.clear();
     }
 }
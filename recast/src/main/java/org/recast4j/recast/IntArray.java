@@ -0,0 +1,141 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive ints, used instead of {@code List<Integer>} for the work queues and index lists of the
+ * build stages so that they do not box every value they touch.
+ *
+ * The backing array is kept when the list is cleared, so one instance can be reused as a scratch buffer.
+ */
+public final class IntArray {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] m_data;
+    private int m_size;
+
+    public IntArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArray(int capacity) {
+        m_data = new int[Math.max(capacity, 1)];
+    }
+
+    public IntArray(IntArray other) {
+        m_data = Arrays.copyOf(other.m_data, Math.max(other.m_size, 1));
+        m_size = other.m_size;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    public int get(int index) {
+        return m_data[index];
+    }
+
+    public void set(int index, int value) {
+        m_data[index] = value;
+    }
+
+    public void add(int value) {
+        if (m_size == m_data.length) {
+            m_data = Arrays.copyOf(m_data, m_size * 2);
+        }
+        m_data[m_size++] = value;
+    }
+
+    public void add(int a, int b, int c) {
+        ensureCapacity(m_size + 3);
+        m_data[m_size++] = a;
+        m_data[m_size++] = b;
+        m_data[m_size++] = c;
+    }
+
+    /** Inserts the value at the given index, shifting the following values up. */
+    public void add(int index, int value) {
+        ensureCapacity(m_size + 1);
+        System.arraycopy(m_data, index, m_data, index + 1, m_size - index);
+        m_data[index] = value;
+        m_size++;
+    }
+
+    /** Removes the value at the given index, shifting the following values down, and returns it. */
+    public int remove(int index) {
+        int value = m_data[index];
+        System.arraycopy(m_data, index + 1, m_data, index, m_size - index - 1);
+        m_size--;
+        return value;
+    }
+
+    /** Removes the values from index {@code from} (inclusive) to {@code to} (exclusive). */
+    public void removeRange(int from, int to) {
+        System.arraycopy(m_data, to, m_data, from, m_size - to);
+        m_size -= to - from;
+    }
+
+    /** Removes the last value and returns it. */
+    public int pop() {
+        return m_data[--m_size];
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < m_size; i++) {
+            if (m_data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /** Changes the size, filling any new slots with zero. */
+    public void resize(int size) {
+        ensureCapacity(size);
+        if (size > m_size) {
+            Arrays.fill(m_data, m_size, size, 0);
+        }
+        m_size = size;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > m_data.length) {
+            m_data = Arrays.copyOf(m_data, Math.max(capacity, m_data.length * 2));
+        }
+    }
+
+    public void clear() {
+        m_size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(m_data, m_size);
+    }
+}
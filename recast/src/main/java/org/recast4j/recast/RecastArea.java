@@ -38,8 +38,8 @@ public class RecastArea {
         int h = chf.height;
         ctx.startTimer("ERODE_AREA");
 
-        int[] dist = new int[chf.spanCount];
-        Arrays.fill(dist, 255);
+        int[] dist = RecastBuildContext.of(ctx).ints(RecastBuildContext.ERODE_DIST, chf.spanCount);
+        Arrays.fill(dist, 0, chf.spanCount, 255);
         // Mark boundary cells.
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
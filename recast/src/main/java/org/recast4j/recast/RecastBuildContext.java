@@ -0,0 +1,139 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import java.util.Arrays;
+
+/**
+ * Build context that owns the intermediate data of a tile build so that it can be reused by the next tile instead of
+ * being reallocated. Pass it wherever the build stages expect a {@link Telemetry}. Timings accumulate over the stages
+ * run with the context; {@link RecastBuilder} restarts them for every tile and gives each result a snapshot of them.
+ *
+ * The {@link Heightfield} and {@link CompactHeightfield} returned by the stages are owned by the context and are
+ * overwritten by the next build, only the {@link PolyMesh} and {@link PolyMeshDetail} are safe to keep. A context is
+ * not thread safe, use one per worker thread.
+ */
+public class RecastBuildContext extends Telemetry {
+
+    static final int DIST_SRC = 0;
+    static final int DIST_BLUR = 1;
+    static final int REGION_SRC_REG = 2;
+    static final int REGION_SRC_DIST = 3;
+    static final int ERODE_DIST = 4;
+    static final int CONTOUR_FLAGS = 5;
+    static final int DETAIL_HEIGHT = 6;
+    private static final int INT_BUFFERS = 7;
+
+    static final int REGION_STACK = 0;
+    static final int REGION_LEVEL_STACK = 1;
+    static final int REGION_LEVEL_STACKS = 8;
+    static final int CONTOUR_VERTS = REGION_LEVEL_STACK + REGION_LEVEL_STACKS;
+    static final int CONTOUR_SIMPLIFIED = CONTOUR_VERTS + 1;
+    static final int DETAIL_TRIS = CONTOUR_SIMPLIFIED + 1;
+    static final int DETAIL_SAMPLES = DETAIL_TRIS + 1;
+    static final int DETAIL_EDGES = DETAIL_SAMPLES + 1;
+    static final int DETAIL_QUEUE = DETAIL_EDGES + 1;
+    private static final int INT_ARRAYS = DETAIL_QUEUE + 1;
+
+    private final int[][] m_ints = new int[INT_BUFFERS][];
+    private final IntArray[] m_intArrays = new IntArray[INT_ARRAYS];
+    private Heightfield m_heightfield;
+    private CompactHeightfield m_chf;
+
+    /**
+     * Returns the context when the stage was given one, otherwise a throwaway context so that the stage allocates its
+     * data exactly like a standalone call.
+     */
+    static RecastBuildContext of(Telemetry ctx) {
+        return ctx instanceof RecastBuildContext ? (RecastBuildContext) ctx : new RecastBuildContext();
+    }
+
+    /** Returns an empty heightfield, reusing the previous one when the grid dimensions match. */
+    Heightfield heightfield(int width, int height, float[] bmin, float[] bmax, float cs, float ch, int borderSize) {
+        Heightfield hf = m_heightfield;
+        if (hf != null && hf.width == width && hf.height == height && hf.cs == cs && hf.ch == ch
+                && hf.borderSize == borderSize) {
+            hf.reset(bmin, bmax);
+            return hf;
+        }
+        m_heightfield = new Heightfield(width, height, bmin.clone(), bmax.clone(), cs, ch, borderSize);
+        return m_heightfield;
+    }
+
+    /**
+     * Returns a compact heightfield with at least the requested number of cells and spans. Cells are cleared, span
+     * contents are left to the caller.
+     */
+    CompactHeightfield compactHeightfield(int cellCount, int spanCount) {
+        CompactHeightfield chf = m_chf;
+        if (chf == null) {
+            m_chf = chf = new CompactHeightfield();
+            chf.cells = new CompactCell[0];
+            chf.spans = new CompactSpan[0];
+            chf.areas = new int[0];
+        }
+        if (chf.cells.length < cellCount) {
+            int n = chf.cells.length;
+            chf.cells = Arrays.copyOf(chf.cells, cellCount);
+            for (int i = n; i < cellCount; i++) {
+                chf.cells[i] = new CompactCell();
+            }
+        }
+        for (int i = 0; i < cellCount; i++) {
+            chf.cells[i].index = 0;
+            chf.cells[i].count = 0;
+        }
+        if (chf.spans.length < spanCount) {
+            int n = chf.spans.length;
+            chf.spans = Arrays.copyOf(chf.spans, spanCount);
+            for (int i = n; i < spanCount; i++) {
+                chf.spans[i] = new CompactSpan();
+            }
+            chf.areas = new int[spanCount];
+        }
+        chf.dist = null;
+        chf.maxDistance = 0;
+        return chf;
+    }
+
+    /** Returns a zeroed int buffer of at least the given size. */
+    int[] ints(int slot, int size) {
+        int[] buffer = m_ints[slot];
+        if (buffer == null || buffer.length < size) {
+            buffer = new int[size];
+            m_ints[slot] = buffer;
+        } else {
+            Arrays.fill(buffer, 0, size, 0);
+        }
+        return buffer;
+    }
+
+    /** Returns an empty int list. */
+    IntArray intArray(int slot, int capacity) {
+        IntArray array = m_intArrays[slot];
+        if (array == null) {
+            array = new IntArray(capacity);
+            m_intArrays[slot] = array;
+        } else {
+            array.clear();
+        }
+        return array;
+    }
+
+}
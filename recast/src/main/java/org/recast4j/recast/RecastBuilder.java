@@ -21,8 +21,12 @@ package org.recast4j.recast;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CountDownLatch;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.recast4j.recast.RecastConstants.PartitionType;
@@ -35,16 +39,61 @@ public class RecastBuilder {
         void onProgress(int completed, int total);
     }
 
+    /** Receives tiles from {@link RecastBuilder#buildTilesAsync}, called on the worker threads. */
+    public interface RecastBuilderTileListener {
+        void onTile(RecastBuilderResult result);
+
+        void onTileFailed(int tileX, int tileZ, RuntimeException error);
+    }
+
+    /**
+     * Completes when every tile of {@link RecastBuilder#buildTilesAsync} has been handed to the listener. Cancelling it
+     * does not interrupt tiles that are already being built, {@link #tasksDone()} tells when those have finished.
+     */
+    public static class TileBuildFuture extends CompletableFuture<Void> {
+        private final CompletableFuture<Void> tasksDone = new CompletableFuture<>();
+
+        /**
+         * @return A future that completes once every task submitted to the executor has returned, whether it built its
+         *         tile or skipped it after cancellation.
+         */
+        public CompletableFuture<Void> tasksDone() {
+            return tasksDone;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+    }
+
     private final RecastBuilderProgressListener progressListener;
+    private final boolean keepIntermediateResults;
 
     public RecastBuilder() {
-        progressListener = null;
+        this(null);
     }
 
     public RecastBuilder(RecastBuilderProgressListener progressListener) {
+        this(progressListener, false);
+    }
+
+    /**
+     * @param keepIntermediateResults
+     *            When false, {@link #buildTiles} reuses a {@link RecastBuildContext} per worker thread and its results
+     *            only carry the poly mesh and detail mesh. When true, every tile gets its own heightfields and contour
+     *            set, which stay reachable from the result.
+     */
+    public RecastBuilder(RecastBuilderProgressListener progressListener, boolean keepIntermediateResults) {
         this.progressListener = progressListener;
+        this.keepIntermediateResults = keepIntermediateResults;
     }
 
+    /**
+     * The meshes of a single build. Tiles from {@link #buildTiles} and {@link #buildTilesAsync} only keep the
+     * heightfields and the contour set when the builder was created with {@code keepIntermediateResults}; by default
+     * those getters return null.
+     */
     public static class RecastBuilderResult {
         public final int tileX;
         public final int tileZ;
@@ -55,8 +104,8 @@ public class RecastBuilder {
         private final Heightfield solid;
         private final Telemetry telemetry;
 
-        public RecastBuilderResult(int tileX, int tileZ, Heightfield solid, CompactHeightfield chf, ContourSet cs, PolyMesh pmesh,
-                PolyMeshDetail dmesh, Telemetry ctx) {
+        public RecastBuilderResult(int tileX, int tileZ, Heightfield solid, CompactHeightfield chf, ContourSet cs,
+                PolyMesh pmesh, PolyMeshDetail dmesh, Telemetry ctx) {
             this.tileX = tileX;
             this.tileZ = tileZ;
             this.solid = solid;
@@ -75,14 +124,23 @@ public class RecastBuilder {
             return dmesh;
         }
 
+        /**
+         * @return The compact heightfield, or null for tiles built without keeping intermediate results.
+         */
         public CompactHeightfield getCompactHeightfield() {
             return chf;
         }
 
+        /**
+         * @return The contour set, or null for tiles built without keeping intermediate results.
+         */
         public ContourSet getContourSet() {
             return cs;
         }
 
+        /**
+         * @return The solid heightfield, or null for tiles built without keeping intermediate results.
+         */
         public Heightfield getSolidHeightfield() {
             return solid;
         }
@@ -94,64 +152,185 @@ public class RecastBuilder {
     }
 
     public List<RecastBuilderResult> buildTiles(InputGeomProvider geom, RecastConfig cfg, Optional<Executor> executor) {
+        if (executor.isPresent()) {
+            return buildMultiThread(geom, cfg, executor.get());
+        }
+        return buildSingleThread(geom, cfg);
+    }
+
+    /**
+     * Builds all tiles on the executor and hands each one to the listener as soon as it is finished, so the caller can
+     * add it to a nav mesh and drop it instead of holding every tile in memory. Tiles are claimed in Z-order so that
+     * tiles built close in time are also close in space.
+     *
+     * Cancelling the returned future, or letting it time out through {@link CompletableFuture#orTimeout}, stops the
+     * build before the next tile is started. Tiles that are already being built run to completion, but a tile that
+     * finishes after the future is done is dropped instead of being handed to the listener. Use
+     * {@link TileBuildFuture#tasksDone()} to wait for those tasks, e.g. before releasing what the listener writes to.
+     * A tile that fails is reported to the listener and the remaining tiles are still built, the future only completes
+     * exceptionally when the listener itself throws.
+     */
+    public TileBuildFuture buildTilesAsync(InputGeomProvider geom, RecastConfig cfg, Executor executor,
+            RecastBuilderTileListener listener) {
         float[] bmin = geom.getMeshBoundsMin();
         float[] bmax = geom.getMeshBoundsMax();
         int[] twh = Recast.calcTileCount(bmin, bmax, cfg.cs, cfg.tileSizeX, cfg.tileSizeZ);
         int tw = twh[0];
         int th = twh[1];
-        List<RecastBuilderResult> result = null;
-        if (executor.isPresent()) {
-            result = buildMultiThread(geom, cfg, bmin, bmax, tw, th, executor.get());
-        } else {
-            result = buildSingleThread(geom, cfg, bmin, bmax, tw, th);
+        int[] order = tileOrder(tw, th);
+        TileBuildFuture future = new TileBuildFuture();
+        if (order.length == 0) {
+            future.complete(null);
+            future.tasksDone.complete(null);
+            return future;
         }
-        return result;
+        Queue<RecastBuildContext> contexts = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(order.length);
+        AtomicInteger counter = new AtomicInteger();
+        Runnable task = () -> {
+            // Tasks claim the next tile when they run, so the executor's own queue order does not matter
+            int tile = order[next.getAndIncrement()];
+            int tx = tile % tw;
+            int ty = tile / tw;
+            try {
+                if (!future.isDone()) {
+                    RecastBuilderResult result = null;
+                    RuntimeException error = null;
+                    try {
+                        result = buildTile(geom, cfg, bmin, bmax, tx, ty, counter, order.length, contexts);
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    // Drop late results, the build may have been cancelled while this tile was running
+                    if (!future.isDone()) {
+                        if (error != null) {
+                            listener.onTileFailed(tx, ty, error);
+                        } else {
+                            listener.onTile(result);
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(null);
+                future.tasksDone.complete(null);
+            }
+        };
+        for (int i = 0; i < order.length; i++) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+                // The rejected tasks will never run
+                if (remaining.addAndGet(i - order.length) == 0) {
+                    future.tasksDone.complete(null);
+                }
+                break;
+            }
+        }
+        return future;
     }
 
-    private List<RecastBuilderResult> buildSingleThread(InputGeomProvider geom, RecastConfig cfg, float[] bmin, float[] bmax,
-            int tw, int th) {
+    private List<RecastBuilderResult> buildSingleThread(InputGeomProvider geom, RecastConfig cfg) {
+        float[] bmin = geom.getMeshBoundsMin();
+        float[] bmax = geom.getMeshBoundsMax();
+        int[] twh = Recast.calcTileCount(bmin, bmax, cfg.cs, cfg.tileSizeX, cfg.tileSizeZ);
+        int tw = twh[0];
+        int th = twh[1];
         List<RecastBuilderResult> result = new ArrayList<>(tw * th);
+        Queue<RecastBuildContext> contexts = new ConcurrentLinkedQueue<>();
         AtomicInteger counter = new AtomicInteger();
         for (int y = 0; y < th; ++y) {
             for (int x = 0; x < tw; ++x) {
-                result.add(buildTile(geom, cfg, bmin, bmax, x, y, counter, tw * th));
+                result.add(buildTile(geom, cfg, bmin, bmax, x, y, counter, tw * th, contexts));
             }
         }
         return result;
     }
 
-    private List<RecastBuilderResult> buildMultiThread(InputGeomProvider geom, RecastConfig cfg, float[] bmin, float[] bmax,
-            int tw, int th, Executor executor) {
-        List<RecastBuilderResult> result = new ArrayList<>(tw * th);
-        AtomicInteger counter = new AtomicInteger();
-        CountDownLatch latch = new CountDownLatch(tw * th);
-        for (int x = 0; x < tw; ++x) {
-            for (int y = 0; y < th; ++y) {
-                final int tx = x;
-                final int ty = y;
-                executor.execute(() -> {
-                    try {
-                        RecastBuilderResult tile = buildTile(geom, cfg, bmin, bmax, tx, ty, counter, tw * th);
-                        synchronized (result) {
-                            result.add(tile);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    latch.countDown();
-                });
+    private List<RecastBuilderResult> buildMultiThread(InputGeomProvider geom, RecastConfig cfg, Executor executor) {
+        List<RecastBuilderResult> result = new ArrayList<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        CompletableFuture<Void> future = buildTilesAsync(geom, cfg, executor, new RecastBuilderTileListener() {
+
+            @Override
+            public void onTile(RecastBuilderResult tile) {
+                synchronized (result) {
+                    result.add(tile);
+                }
             }
-        }
+
+            @Override
+            public void onTileFailed(int tileX, int tileZ, RuntimeException error) {
+                synchronized (failures) {
+                    failures.add(error);
+                }
+            }
+        });
         try {
-            latch.await();
+            future.get();
         } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building tiles", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to build tiles", e.getCause());
+        }
+        if (!failures.isEmpty()) {
+            RuntimeException e = new RuntimeException("Failed to build " + failures.size() + " tile(s)",
+                    failures.get(0));
+            failures.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
         }
         return result;
     }
 
-    private RecastBuilderResult buildTile(InputGeomProvider geom, RecastConfig cfg, float[] bmin, float[] bmax, final int tx,
-            final int ty, AtomicInteger counter, int total) {
-        RecastBuilderResult result = build(geom, new RecastBuilderConfig(cfg, bmin, bmax, tx, ty));
+    /** Returns the tile indices (x + z * tw) sorted along a Z-order curve. */
+    static int[] tileOrder(int tw, int th) {
+        int[] order = new int[tw * th];
+        int side = Integer.highestOneBit(Math.max(1, Math.max(tw, th) - 1)) << 1;
+        int n = 0;
+        for (int code = 0; n < order.length && code < side * side; code++) {
+            int x = compactBits(code);
+            int y = compactBits(code >>> 1);
+            if (x < tw && y < th) {
+                order[n++] = x + y * tw;
+            }
+        }
+        return order;
+    }
+
+    /** Extracts the even bits of a Morton code. */
+    private static int compactBits(int code) {
+        int v = code & 0x55555555;
+        v = (v | (v >>> 1)) & 0x33333333;
+        v = (v | (v >>> 2)) & 0x0f0f0f0f;
+        v = (v | (v >>> 4)) & 0x00ff00ff;
+        v = (v | (v >>> 8)) & 0x0000ffff;
+        return v;
+    }
+
+    private RecastBuilderResult buildTile(InputGeomProvider geom, RecastConfig cfg, float[] bmin, float[] bmax,
+            final int tx, final int ty, AtomicInteger counter, int total, Queue<RecastBuildContext> contexts) {
+        RecastBuilderConfig builderCfg = new RecastBuilderConfig(cfg, bmin, bmax, tx, ty);
+        RecastBuilderResult result;
+        if (keepIntermediateResults) {
+            result = build(geom, builderCfg);
+        } else {
+            // Lease a context, a pool thread only ever holds one at a time
+            RecastBuildContext ctx = contexts.poll();
+            if (ctx == null) {
+                ctx = new RecastBuildContext();
+            }
+            try {
+                result = build(geom, builderCfg, ctx);
+            } finally {
+                contexts.offer(ctx);
+            }
+        }
         if (progressListener != null) {
             progressListener.onProgress(counter.incrementAndGet(), total);
         }
@@ -169,8 +348,39 @@ public class RecastBuilder {
         return build(builderCfg.tileX, builderCfg.tileZ, geom, cfg, solid, ctx);
     }
 
-    public RecastBuilderResult build(int tileX, int tileZ, ConvexVolumeProvider geom, RecastConfig cfg, Heightfield solid,
-            Telemetry ctx) {
+    /**
+     * Builds a tile reusing the heightfields and scratch buffers of the context. Only the poly mesh and detail mesh are
+     * returned, the intermediate data belongs to the context and is overwritten by its next build. The timings of the
+     * context are restarted and the result gets a snapshot of those of this build, so it does not reference the
+     * context.
+     */
+    public RecastBuilderResult build(InputGeomProvider geom, RecastBuilderConfig builderCfg, RecastBuildContext ctx) {
+        ctx.resetTimers();
+        Heightfield solid = RecastVoxelization.buildSolidHeightfield(geom, builderCfg, ctx);
+        RecastBuilderResult result = build(builderCfg.tileX, builderCfg.tileZ, geom, builderCfg.cfg, solid, ctx);
+        return new RecastBuilderResult(result.tileX, result.tileZ, null, null, null, result.pmesh, result.dmesh,
+                ctx.snapshot());
+    }
+
+    /**
+     * Builds a single mesh using the executor inside the build: rasterization, the distance field, monotone regions and
+     * the detail mesh are split into parts that run in parallel. The result is identical to
+     * {@link #build(InputGeomProvider, RecastBuilderConfig)}, which makes this the option for large levels that are not
+     * split into tiles. The calling thread waits for the parts, so it must not be one of the executor's own threads.
+     */
+    public RecastBuilderResult build(InputGeomProvider geom, RecastBuilderConfig builderCfg, Executor executor) {
+        Telemetry ctx = new Telemetry();
+        Heightfield solid = RecastVoxelization.buildSolidHeightfield(geom, builderCfg, ctx, executor);
+        return build(builderCfg.tileX, builderCfg.tileZ, geom, builderCfg.cfg, solid, ctx, executor);
+    }
+
+    public RecastBuilderResult build(int tileX, int tileZ, ConvexVolumeProvider geom, RecastConfig cfg,
+            Heightfield solid, Telemetry ctx) {
+        return build(tileX, tileZ, geom, cfg, solid, ctx, null);
+    }
+
+    private RecastBuilderResult build(int tileX, int tileZ, ConvexVolumeProvider geom, RecastConfig cfg,
+            Heightfield solid, Telemetry ctx, Executor executor) {
         filterHeightfield(solid, cfg, ctx);
         CompactHeightfield chf = buildCompactHeightfield(geom, cfg, ctx, solid);
 
@@ -215,13 +425,13 @@ public class RecastBuilder {
         if (cfg.partitionType == PartitionType.WATERSHED) {
             // Prepare for region partitioning, by calculating distance field
             // along the walkable surface.
-            RecastRegion.buildDistanceField(ctx, chf);
+            RecastRegion.buildDistanceField(ctx, chf, executor);
             // Partition the walkable surface into simple regions without holes.
             RecastRegion.buildRegions(ctx, chf, cfg.minRegionArea, cfg.mergeRegionArea);
         } else if (cfg.partitionType == PartitionType.MONOTONE) {
             // Partition the walkable surface into simple regions without holes.
             // Monotone partitioning does not need distancefield.
-            RecastRegion.buildRegionsMonotone(ctx, chf, cfg.minRegionArea, cfg.mergeRegionArea);
+            RecastRegion.buildRegionsMonotone(ctx, chf, cfg.minRegionArea, cfg.mergeRegionArea, executor);
         } else {
             // Partition the walkable surface into simple regions without holes.
             RecastRegion.buildLayerRegions(ctx, chf, cfg.minRegionArea);
@@ -246,7 +456,8 @@ public class RecastBuilder {
         // on each polygon.
         //
         PolyMeshDetail dmesh = cfg.buildMeshDetail
-                ? RecastMeshDetail.buildPolyMeshDetail(ctx, pmesh, chf, cfg.detailSampleDist, cfg.detailSampleMaxError)
+                ? RecastMeshDetail.buildPolyMeshDetail(ctx, pmesh, chf, cfg.detailSampleDist, cfg.detailSampleMaxError,
+                        executor)
                 : null;
         return new RecastBuilderResult(tileX, tileZ, solid, chf, cset, pmesh, dmesh, ctx);
     }
@@ -272,12 +483,13 @@ public class RecastBuilder {
     /*
      * Step 3. Partition walkable surface to simple regions.
      */
-    private CompactHeightfield buildCompactHeightfield(ConvexVolumeProvider volumeProvider, RecastConfig cfg, Telemetry ctx,
-            Heightfield solid) {
+    private CompactHeightfield buildCompactHeightfield(ConvexVolumeProvider volumeProvider, RecastConfig cfg,
+            Telemetry ctx, Heightfield solid) {
         // Compact the heightfield so that it is faster to handle from now on.
         // This will result more cache coherent data as well as the neighbours
         // between walkable cells will be calculated.
-        CompactHeightfield chf = RecastCompact.buildCompactHeightfield(ctx, cfg.walkableHeight, cfg.walkableClimb, solid);
+        CompactHeightfield chf = RecastCompact.buildCompactHeightfield(ctx, cfg.walkableHeight, cfg.walkableClimb,
+                solid);
 
         // Erode the walkable area by agent radius.
         RecastArea.erodeWalkableArea(ctx, cfg.walkableRadius, chf);
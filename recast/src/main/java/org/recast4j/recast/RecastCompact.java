@@ -20,6 +20,7 @@ package org.recast4j.recast;
 
 import static org.recast4j.recast.RecastConstants.RC_NOT_CONNECTED;
 import static org.recast4j.recast.RecastConstants.RC_NULL_AREA;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 import static org.recast4j.recast.RecastVectors.copy;
 
 public class RecastCompact {
@@ -42,10 +43,10 @@ public class RecastCompact {
 
         ctx.startTimer("BUILD_COMPACTHEIGHTFIELD");
 
-        CompactHeightfield chf = new CompactHeightfield();
         int w = hf.width;
         int h = hf.height;
         int spanCount = getHeightFieldSpanCount(hf);
+        CompactHeightfield chf = RecastBuildContext.of(ctx).compactHeightfield(w * h, spanCount);
 
         // Fill in header.
         chf.width = w;
@@ -60,37 +61,33 @@ public class RecastCompact {
         chf.bmax[1] += walkableHeight * hf.ch;
         chf.cs = hf.cs;
         chf.ch = hf.ch;
-        chf.cells = new CompactCell[w * h];
-        chf.spans = new CompactSpan[spanCount];
-        chf.areas = new int[spanCount];
-        for (int i = 0; i < chf.cells.length; i++) {
-            chf.cells[i] = new CompactCell();
-        }
-        for (int i = 0; i < chf.spans.length; i++) {
-            chf.spans[i] = new CompactSpan();
-        }
         // Fill in cells and spans.
+        SpanPool pool = hf.spanPool;
         int idx = 0;
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
-                Span s = hf.spans[x + y * w];
+                int s = hf.spans[x + y * w];
                 // If there are no spans at this cell, just leave the data to index=0, count=0.
-                if (s == null)
+                if (s == RC_NULL_SPAN)
                     continue;
                 CompactCell c = chf.cells[x + y * w];
                 c.index = idx;
                 c.count = 0;
-                while (s != null) {
-                    if (s.area != RC_NULL_AREA) {
-                        int bot = s.smax;
-                        int top = s.next != null ? (int) s.next.smin : MAX_HEIGHT;
-                        chf.spans[idx].y = RecastCommon.clamp(bot, 0, MAX_HEIGHT);
-                        chf.spans[idx].h = RecastCommon.clamp(top - bot, 0, MAX_HEIGHT);
-                        chf.areas[idx] = s.area;
+                while (s != RC_NULL_SPAN) {
+                    int next = pool.next(s);
+                    if (pool.area(s) != RC_NULL_AREA) {
+                        int bot = pool.smax(s);
+                        int top = next != RC_NULL_SPAN ? pool.smin(next) : MAX_HEIGHT;
+                        CompactSpan cs = chf.spans[idx];
+                        cs.y = RecastCommon.clamp(bot, 0, MAX_HEIGHT);
+                        cs.h = RecastCommon.clamp(top - bot, 0, MAX_HEIGHT);
+                        cs.reg = 0;
+                        cs.con = 0;
+                        chf.areas[idx] = pool.area(s);
                         idx++;
                         c.count++;
                     }
-                    s = s.next;
+                    s = next;
                 }
             }
         }
@@ -149,11 +146,12 @@ public class RecastCompact {
     private static int getHeightFieldSpanCount(Heightfield hf) {
         int w = hf.width;
         int h = hf.height;
+        SpanPool pool = hf.spanPool;
         int spanCount = 0;
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
-                for (Span s = hf.spans[x + y * w]; s != null; s = s.next) {
-                    if (s.area != RC_NULL_AREA)
+                for (int s = hf.spans[x + y * w]; s != RC_NULL_SPAN; s = pool.next(s)) {
+                    if (pool.area(s) != RC_NULL_AREA)
                         spanCount++;
                 }
             }
@@ -22,6 +22,9 @@ public class RecastConstants {
 
     public static final int RC_NULL_AREA = 0;
     public static final int RC_NOT_CONNECTED = 0x3f;
+    /// The value of a span index that does not point to a span.
+    /// @see Heightfield::spans, SpanPool::next
+    public static final int RC_NULL_SPAN = -1;
     /// Defines the number of bits allocated to rcSpan::smin and rcSpan::smax.
     public static int SPAN_HEIGHT_BITS = 20;
     /// Defines the maximum value for rcSpan::smin and rcSpan::smax.
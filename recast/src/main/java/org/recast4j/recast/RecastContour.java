@@ -26,10 +26,8 @@ import static org.recast4j.recast.RecastConstants.RC_CONTOUR_TESS_AREA_EDGES;
 import static org.recast4j.recast.RecastConstants.RC_CONTOUR_TESS_WALL_EDGES;
 import static org.recast4j.recast.RecastConstants.RC_NOT_CONNECTED;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
 
 public class RecastContour {
 
@@ -129,7 +127,7 @@ public class RecastContour {
         return new CornerHeight(ch, isBorderVertex);
     }
 
-    private static void walkContour(int x, int y, int i, CompactHeightfield chf, int[] flags, List<Integer> points) {
+    private static void walkContour(int x, int y, int i, CompactHeightfield chf, int[] flags, IntArray points) {
         // Choose the first non-connected edge
         int dir = 0;
         while ((flags[i] & (1 << dir)) == 0)
@@ -228,7 +226,7 @@ public class RecastContour {
         return dx * dx + dz * dz;
     }
 
-    private static void simplifyContour(List<Integer> points, List<Integer> simplified, float maxError, int maxEdgeLen,
+    private static void simplifyContour(IntArray points, IntArray simplified, float maxError, int maxEdgeLen,
             int buildFlags) {
         // Add initial points.
         boolean hasConnections = false;
@@ -490,7 +488,7 @@ public class RecastContour {
         return !(RecastMesh.leftOn(pverts, pi, pj, pi1) && RecastMesh.leftOn(pverts, pj, pi, pin1));
     }
 
-    private static void removeDegenerateSegments(List<Integer> simplified) {
+    private static void removeDegenerateSegments(IntArray simplified) {
         // Remove adjacent vertices which are equal on xz-plane,
         // or else the triangulator will get confused.
         int npts = simplified.size() / 4;
@@ -501,10 +499,7 @@ public class RecastContour {
             if (simplified.get(i * 4) == simplified.get(ni * 4)
                     && simplified.get(i * 4 + 2) == simplified.get(ni * 4 + 2)) {
                 // Degenerate segment, remove.
-                simplified.remove(i * 4);
-                simplified.remove(i * 4);
-                simplified.remove(i * 4);
-                simplified.remove(i * 4);
+                simplified.removeRange(i * 4, i * 4 + 4);
                 npts--;
             }
         }
@@ -703,7 +698,8 @@ public class RecastContour {
         cset.borderSize = chf.borderSize;
         cset.maxError = maxError;
 
-        int[] flags = new int[chf.spanCount];
+        RecastBuildContext context = RecastBuildContext.of(ctx);
+        int[] flags = context.ints(RecastBuildContext.CONTOUR_FLAGS, chf.spanCount);
 
         ctx.startTimer("CONTOURS_TRACE");
 
@@ -736,8 +732,8 @@ public class RecastContour {
 
         ctx.stopTimer("CONTOURS_TRACE");
 
-        List<Integer> verts = new ArrayList<>(256);
-        List<Integer> simplified = new ArrayList<>(64);
+        IntArray verts = context.intArray(RecastBuildContext.CONTOUR_VERTS, 256);
+        IntArray simplified = context.intArray(RecastBuildContext.CONTOUR_SIMPLIFIED, 64);
 
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
@@ -772,10 +768,7 @@ public class RecastContour {
                         cset.conts.add(cont);
 
                         cont.nverts = simplified.size() / 4;
-                        cont.verts = new int[simplified.size()];
-                        for (int l = 0; l < cont.verts.length; l++) {
-                            cont.verts[l] = simplified.get(l);
-                        }
+                        cont.verts = simplified.toArray();
 
                         if (borderSize > 0) {
                             // If the heightfield was build with bordersize, remove the offset.
@@ -786,10 +779,7 @@ public class RecastContour {
                         }
 
                         cont.nrverts = verts.size() / 4;
-                        cont.rverts = new int[verts.size()];
-                        for (int l = 0; l < cont.rverts.length; l++) {
-                            cont.rverts[l] = verts.get(l);
-                        }
+                        cont.rverts = verts.toArray();
                         if (borderSize > 0) {
                             // If the heightfield was build with bordersize, remove the offset.
                             for (int j = 0; j < cont.nrverts; ++j) {
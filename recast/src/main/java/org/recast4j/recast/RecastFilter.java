@@ -19,6 +19,7 @@ freely, subject to the following restrictions:
 package org.recast4j.recast;
 
 import static org.recast4j.recast.RecastConstants.RC_NULL_AREA;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 import static org.recast4j.recast.RecastConstants.SPAN_MAX_HEIGHT;
 
 public class RecastFilter {
@@ -40,25 +41,26 @@ public class RecastFilter {
 
         int xSize = heightfield.width;
         int zSize = heightfield.height;
+        SpanPool pool = heightfield.spanPool;
 
         for (int z = 0; z < zSize; ++z) {
             for (int x = 0; x < xSize; ++x) {
-                Span previousSpan = null;
+                int previousSpan = RC_NULL_SPAN;
                 boolean previousWasWalkable = false;
                 int previousArea = RC_NULL_AREA;
 
-                for (Span span = heightfield.spans[x + z * xSize]; span != null; previousSpan = span, span = span.next) {
-                    boolean walkable = span.area != RC_NULL_AREA;
+                for (int span = heightfield.spans[x + z * xSize]; span != RC_NULL_SPAN; previousSpan = span, span = pool.next(span)) {
+                    boolean walkable = pool.area(span) != RC_NULL_AREA;
                     // If current span is not walkable, but there is walkable
                     // span just below it, mark the span above it walkable too.
                     if (!walkable && previousWasWalkable) {
-                        if (Math.abs(span.smax - previousSpan.smax) <= walkableClimb)
-                            span.area = previousArea;
+                        if (Math.abs(pool.smax(span) - pool.smax(previousSpan)) <= walkableClimb)
+                            pool.setArea(span, previousArea);
                     }
                     // Copy walkable flag so that it cannot propagate
                     // past multiple non-walkable objects.
                     previousWasWalkable = walkable;
-                    previousArea = span.area;
+                    previousArea = pool.area(span);
                 }
             }
         }
@@ -81,24 +83,25 @@ public class RecastFilter {
 
         int xSize = heightfield.width;
         int zSize = heightfield.height;
+        SpanPool pool = heightfield.spanPool;
 
         // Mark border spans.
         for (int z = 0; z < zSize; ++z) {
             for (int x = 0; x < xSize; ++x) {
-                for (Span span = heightfield.spans[x + z * xSize]; span != null; span = span.next) {
+                for (int span = heightfield.spans[x + z * xSize]; span != RC_NULL_SPAN; span = pool.next(span)) {
                     // Skip non walkable spans.
-                    if (span.area == RC_NULL_AREA)
+                    if (pool.area(span) == RC_NULL_AREA)
                         continue;
 
-                    int bot = (span.smax);
-                    int top = span.next != null ? span.next.smin : SPAN_MAX_HEIGHT;
+                    int bot = pool.smax(span);
+                    int top = pool.next(span) != RC_NULL_SPAN ? pool.smin(pool.next(span)) : SPAN_MAX_HEIGHT;
 
                     // Find neighbours minimum height.
                     int minNeighborHeight = SPAN_MAX_HEIGHT;
 
                     // Min and max height of accessible neighbours.
-                    int accessibleNeighborMinHeight = span.smax;
-                    int accessibleNeighborMaxHeight = span.smax;
+                    int accessibleNeighborMinHeight = pool.smax(span);
+                    int accessibleNeighborMaxHeight = pool.smax(span);
 
                     for (int direction = 0; direction < 4; ++direction) {
                         int dx = x + RecastCommon.GetDirOffsetX(direction);
@@ -110,8 +113,8 @@ public class RecastFilter {
                         }
 
                         // From minus infinity to the first span.
-                        Span neighborSpan = heightfield.spans[dx + dz * xSize];
-                        int neighborTop = neighborSpan != null ? neighborSpan.smin : SPAN_MAX_HEIGHT;
+                        int neighborSpan = heightfield.spans[dx + dz * xSize];
+                        int neighborTop = neighborSpan != RC_NULL_SPAN ? pool.smin(neighborSpan) : SPAN_MAX_HEIGHT;
                         // Skip neightbour if the gap between the spans is too small.
                         if (Math.min(top, neighborTop) - bot >= walkableHeight) {
                             minNeighborHeight = -walkableClimb - 1;
@@ -119,9 +122,10 @@ public class RecastFilter {
                         }
 
                         // Rest of the spans.
-                        for (neighborSpan = heightfield.spans[dx + dz * xSize]; neighborSpan != null; neighborSpan = neighborSpan.next) {
-                            int neighborBot = neighborSpan.smax;
-                            neighborTop = neighborSpan.next != null ? neighborSpan.next.smin : SPAN_MAX_HEIGHT;
+                        for (neighborSpan = heightfield.spans[dx + dz * xSize]; neighborSpan != RC_NULL_SPAN; neighborSpan = pool.next(neighborSpan)) {
+                            int neighborBot = pool.smax(neighborSpan);
+                            int neighborNext = pool.next(neighborSpan);
+                            neighborTop = neighborNext != RC_NULL_SPAN ? pool.smin(neighborNext) : SPAN_MAX_HEIGHT;
                             // Skip neightbour if the gap between the spans is too small.
                             if (Math.min(top, neighborTop) - Math.max(bot, neighborBot) >= walkableHeight) {
                                 int accessibleNeighbourHeight = neighborBot - bot;
@@ -144,12 +148,12 @@ public class RecastFilter {
                     // The current span is close to a ledge if the drop to any
                     // neighbour span is less than the walkableClimb.
                     if (minNeighborHeight < -walkableClimb)
-                        span.area = RC_NULL_AREA;
+                        pool.setArea(span, RC_NULL_AREA);
 
                     // If the difference between all neighbours is too large,
                     // we are at steep slope, mark the span as ledge.
                     if ((accessibleNeighborMaxHeight - accessibleNeighborMinHeight) > walkableClimb) {
-                        span.area = RC_NULL_AREA;
+                        pool.setArea(span, RC_NULL_AREA);
                     }
                 }
             }
@@ -169,16 +173,17 @@ public class RecastFilter {
 
         int xSize = heightfield.width;
         int zSize = heightfield.height;
+        SpanPool pool = heightfield.spanPool;
 
         // Remove walkable flag from spans which do not have enough
         // space above them for the agent to stand there.
         for (int z = 0; z < zSize; ++z) {
             for (int x = 0; x < xSize; ++x) {
-                for (Span span = heightfield.spans[x + z * xSize]; span != null; span = span.next) {
-                    int bot = (span.smax);
-                    int top = span.next != null ? span.next.smin : SPAN_MAX_HEIGHT;
+                for (int span = heightfield.spans[x + z * xSize]; span != RC_NULL_SPAN; span = pool.next(span)) {
+                    int bot = pool.smax(span);
+                    int top = pool.next(span) != RC_NULL_SPAN ? pool.smin(pool.next(span)) : SPAN_MAX_HEIGHT;
                     if ((top - bot) < walkableHeight)
-                        span.area = RC_NULL_AREA;
+                        pool.setArea(span, RC_NULL_AREA);
                 }
             }
         }
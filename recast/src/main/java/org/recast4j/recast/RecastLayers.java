@@ -25,9 +25,7 @@ import static org.recast4j.recast.RecastConstants.RC_NOT_CONNECTED;
 import static org.recast4j.recast.RecastConstants.RC_NULL_AREA;
 import static org.recast4j.recast.RecastVectors.copy;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 import org.recast4j.recast.HeightfieldLayerSet.HeightfieldLayer;
 import org.recast4j.recast.RecastRegion.SweepSpan;
@@ -42,26 +40,26 @@ public class RecastLayers {
         int layerId;
         boolean base;
         int ymin, ymax;
-        List<Integer> layers;
-        List<Integer> neis;
+        IntArray layers;
+        IntArray neis;
 
         LayerRegion(int i) {
             id = i;
             ymin = 0xFFFF;
             layerId = 0xff;
-            layers = new ArrayList<>();
-            neis = new ArrayList<>();
+            layers = new IntArray();
+            neis = new IntArray();
         }
 
     };
 
-    private static void addUnique(List<Integer> a, int v) {
+    private static void addUnique(IntArray a, int v) {
         if (!a.contains(v)) {
             a.add(v);
         }
     }
 
-    private static boolean contains(List<Integer> a, int v) {
+    private static boolean contains(IntArray a, int v) {
         return a.contains(v);
     }
 
@@ -178,7 +176,7 @@ public class RecastLayers {
         }
 
         // Find region neighbours and overlapping regions.
-        List<Integer> lregs = new ArrayList<>();
+        IntArray lregs = new IntArray();
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
                 CompactCell c = chf.cells[x + y * w];
@@ -214,7 +212,7 @@ public class RecastLayers {
                 // Update overlapping regions.
                 for (int i = 0; i < lregs.size() - 1; ++i) {
                     for (int j = i + 1; j < lregs.size(); ++j) {
-                        if (lregs.get(i).intValue() != lregs.get(j).intValue()) {
+                        if (lregs.get(i) != lregs.get(j)) {
                             LayerRegion ri = regs[lregs.get(i)];
                             LayerRegion rj = regs[lregs.get(j)];
                             addUnique(ri.layers, lregs.get(j));
@@ -229,7 +227,7 @@ public class RecastLayers {
         // Create 2D layers from regions.
         int layerId = 0;
 
-        List<Integer> stack = new ArrayList<>();
+        IntArray stack = new IntArray();
 
         for (int i = 0; i < nregs; ++i) {
             LayerRegion root = regs[i];
@@ -241,13 +239,15 @@ public class RecastLayers {
             root.layerId = layerId;
             root.base = true;
 
+            stack.clear();
             stack.add(i);
 
-            while (!stack.isEmpty()) {
+            for (int head = 0; head < stack.size();) {
                 // Pop front
-                LayerRegion reg = regs[stack.remove(0)];
+                LayerRegion reg = regs[stack.get(head++)];
 
-                for (int nei : reg.neis) {
+                for (int n = 0; n < reg.neis.size(); n++) {
+                    int nei = reg.neis.get(n);
                     LayerRegion regn = regs[nei];
                     // Skip already visited.
                     if (regn.layerId != 0xff)
@@ -267,8 +267,8 @@ public class RecastLayers {
                     // Mark layer id
                     regn.layerId = layerId;
                     // Merge current layers to root.
-                    for (int layer : regn.layers)
-                        addUnique(root.layers, layer);
+                    for (int l = 0; l < regn.layers.size(); l++)
+                        addUnique(root.layers, regn.layers.get(l));
                     root.ymin = Math.min(root.ymin, regn.ymin);
                     root.ymax = Math.max(root.ymax, regn.ymax);
                 }
@@ -342,8 +342,8 @@ public class RecastLayers {
                         // Remap layerIds.
                         rj.layerId = newId;
                         // Add overlaid layers from 'rj' to 'ri'.
-                        for (int layer : rj.layers)
-                            addUnique(ri.layers, layer);
+                        for (int l = 0; l < rj.layers.size(); l++)
+                            addUnique(ri.layers, rj.layers.get(l));
                         // Update height bounds.
                         ri.ymin = Math.min(ri.ymin, rj.ymin);
                         ri.ymax = Math.max(ri.ymax, rj.ymax);
@@ -26,9 +26,8 @@ import static org.recast4j.recast.RecastConstants.RC_MESH_NULL_IDX;
 import static org.recast4j.recast.RecastConstants.RC_MULTIPLE_REGS;
 import static org.recast4j.recast.RecastConstants.RC_NOT_CONNECTED;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class RecastMeshDetail {
@@ -201,7 +200,7 @@ public class RecastMeshDetail {
         return dx * dx + dz * dz;
     }
 
-    private static float distToTriMesh(float[] p, float[] verts, int nverts, List<Integer> tris, int ntris) {
+    private static float distToTriMesh(float[] p, float[] verts, int nverts, IntArray tris, int ntris) {
         float dmin = Float.MAX_VALUE;
         for (int i = 0; i < ntris; ++i) {
             int va = tris.get(i * 4 + 0) * 3;
@@ -307,7 +306,7 @@ public class RecastMeshDetail {
         return h;
     }
 
-    private static int findEdge(List<Integer> edges, int s, int t) {
+    private static int findEdge(IntArray edges, int s, int t) {
         for (int i = 0; i < edges.size() / 4; i++) {
             int e = i * 4;
             if ((edges.get(e + 0) == s && edges.get(e + 1) == t) || (edges.get(e + 0) == t && edges.get(e + 1) == s)) {
@@ -317,7 +316,7 @@ public class RecastMeshDetail {
         return EV_UNDEF;
     }
 
-    private static void addEdge(Telemetry ctx, List<Integer> edges, int maxEdges, int s, int t, int l, int r) {
+    private static void addEdge(Telemetry ctx, IntArray edges, int maxEdges, int s, int t, int l, int r) {
         if (edges.size() / 4 >= maxEdges) {
             throw new RuntimeException("addEdge: Too many edges (" + edges.size() / 4 + "/" + maxEdges + ").");
         }
@@ -332,7 +331,7 @@ public class RecastMeshDetail {
         }
     }
 
-    private static void updateLeftFace(List<Integer> edges, int e, int s, int t, int f) {
+    private static void updateLeftFace(IntArray edges, int e, int s, int t, int f) {
         if (edges.get(e + 0) == s && edges.get(e + 1) == t && edges.get(e + 2) == EV_UNDEF) {
             edges.set(e + 2, f);
         } else if (edges.get(e + 1) == s && edges.get(e + 0) == t && edges.get(e + 3) == EV_UNDEF) {
@@ -353,7 +352,7 @@ public class RecastMeshDetail {
         return false;
     }
 
-    private static boolean overlapEdges(float[] pts, List<Integer> edges, int s1, int t1) {
+    private static boolean overlapEdges(float[] pts, IntArray edges, int s1, int t1) {
         for (int i = 0; i < edges.size() / 4; ++i) {
             int s0 = edges.get(i * 4 + 0);
             int t0 = edges.get(i * 4 + 1);
@@ -368,7 +367,7 @@ public class RecastMeshDetail {
         return false;
     }
 
-    static int completeFacet(Telemetry ctx, float[] pts, int npts, List<Integer> edges, int maxEdges, int nfaces, int e) {
+    static int completeFacet(Telemetry ctx, float[] pts, int npts, IntArray edges, int maxEdges, int nfaces, int e) {
         float EPS = 1e-5f;
 
         int edge = e * 4;
@@ -454,10 +453,11 @@ public class RecastMeshDetail {
         return nfaces;
     }
 
-    private static void delaunayHull(Telemetry ctx, int npts, float[] pts, int nhull, int[] hull, List<Integer> tris) {
+    private static void delaunayHull(Telemetry ctx, int npts, float[] pts, int nhull, int[] hull, IntArray tris,
+            IntArray edges) {
         int nfaces = 0;
         int maxEdges = npts * 10;
-        List<Integer> edges = new ArrayList<>(64);
+        edges.clear();
         for (int i = 0, j = nhull - 1; i < nhull; j = i++) {
             addEdge(ctx, edges, maxEdges, hull[j], hull[i], EV_HULL, EV_UNDEF);
         }
@@ -514,10 +514,10 @@ public class RecastMeshDetail {
                 tris.set(t + 1, tris.get(tris.size() - 3));
                 tris.set(t + 2, tris.get(tris.size() - 2));
                 tris.set(t + 3, tris.get(tris.size() - 1));
-                tris.remove(tris.size() - 1);
-                tris.remove(tris.size() - 1);
-                tris.remove(tris.size() - 1);
-                tris.remove(tris.size() - 1);
+                tris.pop();
+                tris.pop();
+                tris.pop();
+                tris.pop();
                 --i;
             }
         }
@@ -543,7 +543,7 @@ public class RecastMeshDetail {
         return (float) Math.sqrt(minDist);
     }
 
-    private static void triangulateHull(int nverts, float[] verts, int nhull, int[] hull, int nin, List<Integer> tris) {
+    private static void triangulateHull(int nverts, float[] verts, int nhull, int[] hull, int nin, IntArray tris) {
         int start = 0, left = 1, right = nhull - 1;
 
         // Start from an ear with shortest perimeter.
@@ -615,9 +615,8 @@ public class RecastMeshDetail {
     }
 
     static int buildPolyDetail(Telemetry ctx, float[] in, int nin, float sampleDist, float sampleMaxError,
-            int heightSearchRadius, CompactHeightfield chf, HeightPatch hp, float[] verts, List<Integer> tris) {
-
-        List<Integer> samples = new ArrayList<>(512);
+            int heightSearchRadius, CompactHeightfield chf, HeightPatch hp, float[] verts, IntArray tris,
+            IntArray samples, IntArray edges) {
 
         int nverts = 0;
         float[] edge = new float[(MAX_VERTS_PER_EDGE + 1) * 3];
@@ -834,15 +833,13 @@ public class RecastMeshDetail {
 
                 // Create new triangulation.
                 // TODO: Incremental add instead of full rebuild.
-                delaunayHull(ctx, nverts, verts, nhull, hull, tris);
+                delaunayHull(ctx, nverts, verts, nhull, hull, tris, edges);
             }
         }
 
         int ntris = tris.size() / 4;
         if (ntris > MAX_TRIS) {
-            List<Integer> subList = tris.subList(0, MAX_TRIS * 4);
-            tris.clear();
-            tris.addAll(subList);
+            tris.resize(MAX_TRIS * 4);
             throw new RuntimeException(
                     "rcBuildPolyMeshDetail: Shrinking triangle count from " + ntris + " to max " + MAX_TRIS);
         }
@@ -851,7 +848,7 @@ public class RecastMeshDetail {
     }
 
     // Find edges that lie on hull and mark them as such.
-    static void setTriFlags(List<Integer> tris, int nhull, int[] hull) {
+    static void setTriFlags(IntArray tris, int nhull, int[] hull) {
         // Matches DT_DETAIL_EDGE_BOUNDARY
 
         for (int i = 0; i < tris.size(); i += 4) {
@@ -880,7 +877,7 @@ public class RecastMeshDetail {
     }
 
     static void seedArrayWithPolyCenter(Telemetry ctx, CompactHeightfield chf, int[] meshpoly, int poly, int npoly,
-            int[] verts, int bs, HeightPatch hp, List<Integer> array) {
+            int[] verts, int bs, HeightPatch hp, IntArray array) {
         // Note: Reads to the compact heightfield are offset by border size (bs)
         // since border size offset is already removed from the polymesh vertices.
 
@@ -922,9 +919,7 @@ public class RecastMeshDetail {
         pcy /= npoly;
 
         array.clear();
-        array.add(startCellX);
-        array.add(startCellY);
-        array.add(startSpanIndex);
+        array.add(startCellX, startCellY, startSpanIndex);
         int dirs[] = { 0, 1, 2, 3 };
         Arrays.fill(hp.data, 0, hp.width * hp.height, 0);
         // DFS to move to the center. Note that we need a DFS here and can not just move
@@ -937,9 +932,9 @@ public class RecastMeshDetail {
                 ctx.warn("Walk towards polygon center failed to reach center");
                 break;
             }
-            ci = array.remove(array.size() - 1);
-            cy = array.remove(array.size() - 1);
-            cx = array.remove(array.size() - 1);
+            ci = array.pop();
+            cy = array.pop();
+            cx = array.pop();
 
             // Check if close to center of the polygon.
             if (cx == pcx && cy == pcy) {
@@ -982,9 +977,7 @@ public class RecastMeshDetail {
 
                 hp.data[hpx + hpy * hp.width] = 1;
 
-                array.add(newX);
-                array.add(newY);
-                array.add(chf.cells[(newX + bs) + (newY + bs) * chf.width].index + GetCon(cs, dir));
+                array.add(newX, newY, chf.cells[(newX + bs) + (newY + bs) * chf.width].index + GetCon(cs, dir));
             }
 
             tmp = dirs[3];
@@ -995,9 +988,7 @@ public class RecastMeshDetail {
 
         array.clear();
         // getHeightData seeds are given in coordinates with borders
-        array.add(cx + bs);
-        array.add(cy + bs);
-        array.add(ci);
+        array.add(cx + bs, cy + bs, ci);
         Arrays.fill(hp.data, 0, hp.width * hp.height, RC_UNSET_HEIGHT);
         CompactSpan cs = chf.spans[ci];
         hp.data[cx - hp.xmin + (cy - hp.ymin) * hp.width] = cs.y;
@@ -1005,18 +996,12 @@ public class RecastMeshDetail {
 
     static final int RETRACT_SIZE = 256;
 
-    static void push3(List<Integer> queue, int v1, int v2, int v3) {
-        queue.add(v1);
-        queue.add(v2);
-        queue.add(v3);
-    }
-
     static void getHeightData(Telemetry ctx, CompactHeightfield chf, int[] meshpolys, int poly, int npoly, int[] verts,
-            int bs, HeightPatch hp, int region) {
+            int bs, HeightPatch hp, int region, IntArray queue) {
         // Note: Reads to the compact heightfield are offset by border size (bs)
         // since border size offset is already removed from the polymesh vertices.
 
-        List<Integer> queue = new ArrayList<>(512);
+        queue.clear();
         Arrays.fill(hp.data, 0, hp.width * hp.height, RC_UNSET_HEIGHT);
 
         boolean empty = true;
@@ -1054,7 +1039,7 @@ public class RecastMeshDetail {
                                 }
                             }
                             if (border) {
-                                push3(queue, x, y, i);
+                                queue.add(x, y, i);
                             }
                             break;
                         }
@@ -1082,7 +1067,7 @@ public class RecastMeshDetail {
             head++;
             if (head >= RETRACT_SIZE) {
                 head = 0;
-                queue = queue.subList(RETRACT_SIZE * 3, queue.size());
+                queue.removeRange(0, RETRACT_SIZE * 3);
             }
 
             CompactSpan cs = chf.spans[ci];
@@ -1108,7 +1093,7 @@ public class RecastMeshDetail {
                 CompactSpan as = chf.spans[ai];
 
                 hp.data[hx + hy * hp.width] = as.y;
-                push3(queue, ax, ay, ai);
+                queue.add(ax, ay, ai);
             }
         }
     }
@@ -1120,6 +1105,13 @@ public class RecastMeshDetail {
     /// @see rcAllocPolyMeshDetail, rcPolyMesh, rcCompactHeightfield, rcPolyMeshDetail, rcConfig
     public static PolyMeshDetail buildPolyMeshDetail(Telemetry ctx, PolyMesh mesh, CompactHeightfield chf,
             float sampleDist, float sampleMaxError) {
+        return buildPolyMeshDetail(ctx, mesh, chf, sampleDist, sampleMaxError, null);
+    }
+
+    /// Builds the detail mesh, building the polygons in parallel when an executor is given. The sub meshes are stored
+    /// in polygon order afterwards, so the result is identical to the serial build.
+    public static PolyMeshDetail buildPolyMeshDetail(Telemetry ctx, PolyMesh mesh, CompactHeightfield chf,
+            float sampleDist, float sampleMaxError, Executor executor) {
 
         ctx.startTimer("POLYMESHDETAIL");
         if (mesh.nverts == 0 || mesh.npolys == 0) {
@@ -1128,20 +1120,12 @@ public class RecastMeshDetail {
 
         PolyMeshDetail dmesh = new PolyMeshDetail();
         int nvp = mesh.nvp;
-        float cs = mesh.cs;
-        float ch = mesh.ch;
-        float[] orig = mesh.bmin;
-        int borderSize = mesh.borderSize;
         int heightSearchRadius = (int) Math.max(1, Math.ceil(mesh.maxEdgeError));
 
-        List<Integer> tris = new ArrayList<>(512);
-        float verts[] = new float[256 * 3];
-        HeightPatch hp = new HeightPatch();
         int nPolyVerts = 0;
         int maxhw = 0, maxhh = 0;
 
         int[] bounds = new int[mesh.npolys * 4];
-        float[] poly = new float[nvp * 3];
 
         // Find max size for a polygon area.
         for (int i = 0; i < mesh.npolys; ++i) {
@@ -1171,7 +1155,7 @@ public class RecastMeshDetail {
             maxhw = Math.max(maxhw, bounds[i * 4 + 1] - bounds[i * 4 + 0]);
             maxhh = Math.max(maxhh, bounds[i * 4 + 3] - bounds[i * 4 + 2]);
         }
-        hp.data = new int[maxhw * maxhh];
+        int heightDataSize = maxhw * maxhh;
 
         dmesh.nmeshes = mesh.npolys;
         dmesh.nverts = 0;
@@ -1186,98 +1170,164 @@ public class RecastMeshDetail {
         dmesh.ntris = 0;
         dmesh.tris = new int[tcap * 4];
 
-        for (int i = 0; i < mesh.npolys; ++i) {
-            int p = i * nvp * 2;
-
-            // Store polygon vertices for processing.
-            int npoly = 0;
-            for (int j = 0; j < nvp; ++j) {
-                if (mesh.polys[p + j] == RC_MESH_NULL_IDX) {
-                    break;
-                }
-                int v = mesh.polys[p + j] * 3;
-                poly[j * 3 + 0] = mesh.verts[v + 0] * cs;
-                poly[j * 3 + 1] = mesh.verts[v + 1] * ch;
-                poly[j * 3 + 2] = mesh.verts[v + 2] * cs;
-                npoly++;
+        if (RecastParallel.parts(executor, mesh.npolys) <= 1) {
+            RecastBuildContext context = RecastBuildContext.of(ctx);
+            DetailScratch scratch = new DetailScratch(context.intArray(RecastBuildContext.DETAIL_TRIS, 512),
+                    context.intArray(RecastBuildContext.DETAIL_SAMPLES, 512),
+                    context.intArray(RecastBuildContext.DETAIL_EDGES, 64),
+                    context.intArray(RecastBuildContext.DETAIL_QUEUE, 512), nvp,
+                    context.ints(RecastBuildContext.DETAIL_HEIGHT, heightDataSize));
+            for (int i = 0; i < mesh.npolys; ++i) {
+                int nverts = buildSubmesh(ctx, mesh, chf, i, bounds, sampleDist, sampleMaxError, heightSearchRadius,
+                        scratch);
+                storeSubmesh(dmesh, i, scratch.verts, nverts, scratch.tris);
             }
-
-            // Get the height data from the area of the polygon.
-            hp.xmin = bounds[i * 4 + 0];
-            hp.ymin = bounds[i * 4 + 2];
-            hp.width = bounds[i * 4 + 1] - bounds[i * 4 + 0];
-            hp.height = bounds[i * 4 + 3] - bounds[i * 4 + 2];
-            getHeightData(ctx, chf, mesh.polys, p, npoly, mesh.verts, borderSize, hp, mesh.regs[i]);
-
-            // Build detail mesh.
-            int nverts = buildPolyDetail(ctx, poly, npoly, sampleDist, sampleMaxError, heightSearchRadius, chf, hp,
-                    verts, tris);
-
-            // Move detail verts to world space.
-            for (int j = 0; j < nverts; ++j) {
-                verts[j * 3 + 0] += orig[0];
-                verts[j * 3 + 1] += orig[1] + chf.ch; // Is this offset necessary? See
-                                                      // https://groups.google.com/d/msg/recastnavigation/UQFN6BGCcV0/-1Ny4koOBpkJ
-                verts[j * 3 + 2] += orig[2];
+        } else {
+            float[][] submeshVerts = new float[mesh.npolys][];
+            IntArray[] submeshTris = new IntArray[mesh.npolys];
+            RecastParallel.forEach(executor, mesh.npolys,
+                    () -> new DetailScratch(new IntArray(512), new IntArray(512), new IntArray(64), new IntArray(512), nvp,
+                            new int[heightDataSize]),
+                    (scratch, i) -> {
+                        int nverts = buildSubmesh(ctx, mesh, chf, i, bounds, sampleDist, sampleMaxError,
+                                heightSearchRadius, scratch);
+                        submeshVerts[i] = Arrays.copyOf(scratch.verts, nverts * 3);
+                        submeshTris[i] = new IntArray(scratch.tris);
+                    });
+            for (int i = 0; i < mesh.npolys; ++i) {
+                storeSubmesh(dmesh, i, submeshVerts[i], submeshVerts[i].length / 3, submeshTris[i]);
             }
-            // Offset poly too, will be used to flag checking.
-            for (int j = 0; j < npoly; ++j) {
-                poly[j * 3 + 0] += orig[0];
-                poly[j * 3 + 1] += orig[1];
-                poly[j * 3 + 2] += orig[2];
+        }
+
+        ctx.stopTimer("POLYMESHDETAIL");
+        return dmesh;
+
+    }
+
+    /// Scratch buffers of one detail mesh worker.
+    private static class DetailScratch {
+        final IntArray tris;
+        final IntArray samples;
+        final IntArray edges;
+        final IntArray queue;
+        final float[] verts = new float[256 * 3];
+        final float[] poly;
+        final HeightPatch hp = new HeightPatch();
+
+        DetailScratch(IntArray tris, IntArray samples, IntArray edges, IntArray queue, int nvp, int[] heightData) {
+            this.tris = tris;
+            this.samples = samples;
+            this.edges = edges;
+            this.queue = queue;
+            poly = new float[nvp * 3];
+            hp.data = heightData;
+        }
+    }
+
+    /// Builds the detail mesh of polygon @p i into the scratch buffers and returns its vertex count.
+    private static int buildSubmesh(Telemetry ctx, PolyMesh mesh, CompactHeightfield chf, int i, int[] bounds,
+            float sampleDist, float sampleMaxError, int heightSearchRadius, DetailScratch scratch) {
+        int nvp = mesh.nvp;
+        float cs = mesh.cs;
+        float ch = mesh.ch;
+        float[] orig = mesh.bmin;
+        int borderSize = mesh.borderSize;
+        float[] poly = scratch.poly;
+        float[] verts = scratch.verts;
+        HeightPatch hp = scratch.hp;
+        int p = i * nvp * 2;
+
+        // Store polygon vertices for processing.
+        int npoly = 0;
+        for (int j = 0; j < nvp; ++j) {
+            if (mesh.polys[p + j] == RC_MESH_NULL_IDX) {
+                break;
             }
+            int v = mesh.polys[p + j] * 3;
+            poly[j * 3 + 0] = mesh.verts[v + 0] * cs;
+            poly[j * 3 + 1] = mesh.verts[v + 1] * ch;
+            poly[j * 3 + 2] = mesh.verts[v + 2] * cs;
+            npoly++;
+        }
+
+        // Get the height data from the area of the polygon.
+        hp.xmin = bounds[i * 4 + 0];
+        hp.ymin = bounds[i * 4 + 2];
+        hp.width = bounds[i * 4 + 1] - bounds[i * 4 + 0];
+        hp.height = bounds[i * 4 + 3] - bounds[i * 4 + 2];
+        getHeightData(ctx, chf, mesh.polys, p, npoly, mesh.verts, borderSize, hp, mesh.regs[i], scratch.queue);
+
+        // Build detail mesh.
+        int nverts = buildPolyDetail(ctx, poly, npoly, sampleDist, sampleMaxError, heightSearchRadius, chf, hp, verts,
+                scratch.tris, scratch.samples, scratch.edges);
+
+        // Move detail verts to world space.
+        for (int j = 0; j < nverts; ++j) {
+            verts[j * 3 + 0] += orig[0];
+            verts[j * 3 + 1] += orig[1] + chf.ch; // Is this offset necessary? See
+                                                  // https://groups.google.com/d/msg/recastnavigation/UQFN6BGCcV0/-1Ny4koOBpkJ
+            verts[j * 3 + 2] += orig[2];
+        }
+        // Offset poly too, will be used to flag checking.
+        for (int j = 0; j < npoly; ++j) {
+            poly[j * 3 + 0] += orig[0];
+            poly[j * 3 + 1] += orig[1];
+            poly[j * 3 + 2] += orig[2];
+        }
+        return nverts;
+    }
 
-            // Store detail submesh.
-            int ntris = tris.size() / 4;
+    /// Appends the detail mesh of polygon @p i, growing the detail mesh arrays when necessary.
+    private static void storeSubmesh(PolyMeshDetail dmesh, int i, float[] verts, int nverts, IntArray tris) {
+        int vcap = dmesh.verts.length / 3;
+        int tcap = dmesh.tris.length / 4;
 
-            dmesh.meshes[i * 4 + 0] = dmesh.nverts;
-            dmesh.meshes[i * 4 + 1] = nverts;
-            dmesh.meshes[i * 4 + 2] = dmesh.ntris;
-            dmesh.meshes[i * 4 + 3] = ntris;
+        // Store detail submesh.
+        int ntris = tris.size() / 4;
 
-            // Store vertices, allocate more memory if necessary.
-            if (dmesh.nverts + nverts > vcap) {
-                while (dmesh.nverts + nverts > vcap) {
-                    vcap += 256;
-                }
+        dmesh.meshes[i * 4 + 0] = dmesh.nverts;
+        dmesh.meshes[i * 4 + 1] = nverts;
+        dmesh.meshes[i * 4 + 2] = dmesh.ntris;
+        dmesh.meshes[i * 4 + 3] = ntris;
 
-                float[] newv = new float[vcap * 3];
-                if (dmesh.nverts != 0) {
-                    System.arraycopy(dmesh.verts, 0, newv, 0, 3 * dmesh.nverts);
-                }
-                dmesh.verts = newv;
+        // Store vertices, allocate more memory if necessary.
+        if (dmesh.nverts + nverts > vcap) {
+            while (dmesh.nverts + nverts > vcap) {
+                vcap += 256;
             }
-            for (int j = 0; j < nverts; ++j) {
-                dmesh.verts[dmesh.nverts * 3 + 0] = verts[j * 3 + 0];
-                dmesh.verts[dmesh.nverts * 3 + 1] = verts[j * 3 + 1];
-                dmesh.verts[dmesh.nverts * 3 + 2] = verts[j * 3 + 2];
-                dmesh.nverts++;
+
+            float[] newv = new float[vcap * 3];
+            if (dmesh.nverts != 0) {
+                System.arraycopy(dmesh.verts, 0, newv, 0, 3 * dmesh.nverts);
             }
+            dmesh.verts = newv;
+        }
+        for (int j = 0; j < nverts; ++j) {
+            dmesh.verts[dmesh.nverts * 3 + 0] = verts[j * 3 + 0];
+            dmesh.verts[dmesh.nverts * 3 + 1] = verts[j * 3 + 1];
+            dmesh.verts[dmesh.nverts * 3 + 2] = verts[j * 3 + 2];
+            dmesh.nverts++;
+        }
 
-            // Store triangles, allocate more memory if necessary.
-            if (dmesh.ntris + ntris > tcap) {
-                while (dmesh.ntris + ntris > tcap) {
-                    tcap += 256;
-                }
-                int[] newt = new int[tcap * 4];
-                if (dmesh.ntris != 0) {
-                    System.arraycopy(dmesh.tris, 0, newt, 0, 4 * dmesh.ntris);
-                }
-                dmesh.tris = newt;
+        // Store triangles, allocate more memory if necessary.
+        if (dmesh.ntris + ntris > tcap) {
+            while (dmesh.ntris + ntris > tcap) {
+                tcap += 256;
             }
-            for (int j = 0; j < ntris; ++j) {
-                int t = j * 4;
-                dmesh.tris[dmesh.ntris * 4 + 0] = tris.get(t + 0);
-                dmesh.tris[dmesh.ntris * 4 + 1] = tris.get(t + 1);
-                dmesh.tris[dmesh.ntris * 4 + 2] = tris.get(t + 2);
-                dmesh.tris[dmesh.ntris * 4 + 3] = tris.get(t + 3);
-                dmesh.ntris++;
+            int[] newt = new int[tcap * 4];
+            if (dmesh.ntris != 0) {
+                System.arraycopy(dmesh.tris, 0, newt, 0, 4 * dmesh.ntris);
             }
+            dmesh.tris = newt;
+        }
+        for (int j = 0; j < ntris; ++j) {
+            int t = j * 4;
+            dmesh.tris[dmesh.ntris * 4 + 0] = tris.get(t + 0);
+            dmesh.tris[dmesh.ntris * 4 + 1] = tris.get(t + 1);
+            dmesh.tris[dmesh.ntris * 4 + 2] = tris.get(t + 2);
+            dmesh.tris[dmesh.ntris * 4 + 3] = tris.get(t + 3);
+            dmesh.ntris++;
         }
-
-        ctx.stopTimer("POLYMESHDETAIL");
-        return dmesh;
-
     }
 
     /// @see rcAllocPolyMeshDetail, rcPolyMeshDetail
@@ -0,0 +1,105 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Splits the work of a single build stage over an executor. Each worker owns its scratch state and claims indices from a
+ * shared cursor. Callers keep the output deterministic by writing every index to its own slot.
+ */
+final class RecastParallel {
+
+    private RecastParallel() {
+    }
+
+    /**
+     * Returns the number of parts to split a stage into: one per executor thread when the pool size is known, one per
+     * processor otherwise, and 1 when running without an executor.
+     */
+    static int parts(Executor executor, int count) {
+        if (executor == null) {
+            return 1;
+        }
+        int threads;
+        if (executor instanceof ForkJoinPool) {
+            threads = ((ForkJoinPool) executor).getParallelism();
+        } else if (executor instanceof ThreadPoolExecutor) {
+            threads = ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        } else {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Math.min(count, threads));
+    }
+
+    /** Calls {@code body} for every index in [0, count), see {@link #forEach(Executor, int, Supplier, ObjIntConsumer)}. */
+    static void forEach(Executor executor, int count, IntConsumer body) {
+        forEach(executor, count, () -> null, (state, i) -> body.accept(i));
+    }
+
+    /**
+     * Calls {@code body} for every index in [0, count). Runs on the calling thread when {@code executor} is null,
+     * otherwise on up to {@link #parts} workers, and returns once all indices are done.
+     */
+    static <T> void forEach(Executor executor, int count, Supplier<T> worker, ObjIntConsumer<T> body) {
+        int workers = parts(executor, count);
+        if (workers <= 1) {
+            T state = worker.get();
+            for (int i = 0; i < count; i++) {
+                body.accept(state, i);
+            }
+            return;
+        }
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            tasks[w] = CompletableFuture.runAsync(() -> {
+                T state = worker.get();
+                for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    body.accept(state, i);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /** Returns the first row of stripe {@code i} when rows [min, max) are split into {@code n} stripes. */
+    static int stripeStart(int min, int max, int n, int i) {
+        return min + (int) ((long) (max - min) * i / n);
+    }
+
+}
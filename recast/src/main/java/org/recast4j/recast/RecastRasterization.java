@@ -18,10 +18,23 @@ freely, subject to the following restrictions:
 */
 package org.recast4j.recast;
 
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 import static org.recast4j.recast.RecastConstants.SPAN_MAX_HEIGHT;
 
 public class RecastRasterization {
 
+    /**
+     * Polygon clipping scratch space, allocated once per rasterization call instead of once per triangle.
+     */
+    private static final class ClipBuffers {
+        final float[] buf = new float[7 * 3 * 4];
+        final float[] d = new float[12];
+        final float[] tmin = new float[3];
+        final float[] tmax = new float[3];
+        int nv1;
+        int nv2;
+    }
+
     /**
      * Check whether two bounding boxes overlap
      *
@@ -62,51 +75,47 @@ public class RecastRasterization {
      *            The area id of the span. [Limit: &lt;= WALKABLE_AREA)
      * @param flagMergeThreshold
      *            The merge theshold. [Limit: >= 0] [Units: vx]
-     * @see Heightfield, Span.
+     * @see Heightfield, SpanPool.
      */
     public static void addSpan(Heightfield heightfield, int x, int y, int spanMin, int spanMax, int areaId,
             int flagMergeThreshold) {
 
         int idx = x + y * heightfield.width;
-
-        Span s = new Span();
-        s.smin = spanMin;
-        s.smax = spanMax;
-        s.area = areaId;
-        s.next = null;
+        SpanPool pool = heightfield.spanPool;
 
         // Empty cell, add the first span.
-        if (heightfield.spans[idx] == null) {
-            heightfield.spans[idx] = s;
+        if (heightfield.spans[idx] == RC_NULL_SPAN) {
+            heightfield.spans[idx] = pool.alloc(spanMin, spanMax, areaId);
             return;
         }
-        Span prev = null;
-        Span cur = heightfield.spans[idx];
+        int prev = RC_NULL_SPAN;
+        int cur = heightfield.spans[idx];
 
         // Insert and merge spans.
-        while (cur != null) {
-            if (cur.smin > s.smax) {
+        while (cur != RC_NULL_SPAN) {
+            if (pool.smin(cur) > spanMax) {
                 // Current span is further than the new span, break.
                 break;
-            } else if (cur.smax < s.smin) {
+            } else if (pool.smax(cur) < spanMin) {
                 // Current span is before the new span advance.
                 prev = cur;
-                cur = cur.next;
+                cur = pool.next(cur);
             } else {
                 // Merge spans.
-                if (cur.smin < s.smin)
-                    s.smin = cur.smin;
-                if (cur.smax > s.smax)
-                    s.smax = cur.smax;
+                if (pool.smin(cur) < spanMin)
+                    spanMin = pool.smin(cur);
+                if (pool.smax(cur) > spanMax)
+                    spanMax = pool.smax(cur);
 
                 // Merge flags.
-                if (Math.abs(s.smax - cur.smax) <= flagMergeThreshold)
-                    s.area = Math.max(s.area, cur.area);
+                if (Math.abs(spanMax - pool.smax(cur)) <= flagMergeThreshold)
+                    areaId = Math.max(areaId, pool.area(cur));
 
                 // Remove current span.
-                Span next = cur.next;
-                if (prev != null)
-                    prev.next = next;
+                int next = pool.next(cur);
+                pool.free(cur);
+                if (prev != RC_NULL_SPAN)
+                    pool.setNext(prev, next);
                 else
                     heightfield.spans[idx] = next;
                 cur = next;
@@ -114,11 +123,12 @@ public class RecastRasterization {
         }
 
         // Insert new span.
-        if (prev != null) {
-            s.next = prev.next;
-            prev.next = s;
+        int s = pool.alloc(spanMin, spanMax, areaId);
+        if (prev != RC_NULL_SPAN) {
+            pool.setNext(s, pool.next(prev));
+            pool.setNext(prev, s);
         } else {
-            s.next = heightfield.spans[idx];
+            pool.setNext(s, heightfield.spans[idx]);
             heightfield.spans[idx] = s;
         }
     }
@@ -140,11 +150,12 @@ public class RecastRasterization {
      *            The offset along the specified axis
      * @param axis
      *            The separating axis
-     * @return The number of resulting polygon 1 and polygon 2 vertices
+     * @param clip
+     *            Scratch buffers, receives the number of resulting polygon 1 and polygon 2 vertices
      */
-    private static int[] dividePoly(float[] inVerts, int inVertsOffset, int inVertsCount, int outVerts1, int outVerts2, float axisOffset,
-            int axis) {
-        float d[] = new float[12];
+    private static void dividePoly(float[] inVerts, int inVertsOffset, int inVertsCount, int outVerts1, int outVerts2, float axisOffset,
+            int axis, ClipBuffers clip) {
+        float[] d = clip.d;
         for (int i = 0; i < inVertsCount; ++i)
             d[i] = axisOffset - inVerts[inVertsOffset + i * 3 + axis];
 
@@ -185,7 +196,8 @@ public class RecastRasterization {
                 n++;
             }
         }
-        return new int[] { m, n };
+        clip.nv1 = m;
+        clip.nv2 = n;
     }
 
     /**
@@ -216,11 +228,20 @@ public class RecastRasterization {
      *            1 / cellHeight
      * @param flagMergeThreshold
      *            The threshold in which area flags will be merged
+     * @param clip
+     *            Scratch buffers reused across triangles
+     * @param target
+     *            Heightfield receiving the spans, its row 0 is rowMin of hf
+     * @param rowMin
+     *            The first row of hf to rasterize
+     * @param rowMax
+     *            The last row of hf to rasterize
      */
     private static void rasterizeTri(float[] verts, int v0, int v1, int v2, int area, Heightfield hf, float[] hfBBMin,
-            float[] hfBBMax, float cellSize, float inverseCellSize, float inverseCellHeight, int flagMergeThreshold) {
+            float[] hfBBMax, float cellSize, float inverseCellSize, float inverseCellHeight, int flagMergeThreshold,
+            ClipBuffers clip, Heightfield target, int rowMin, int rowMax) {
 
-        float tmin[] = new float[3], tmax[] = new float[3];
+        float[] tmin = clip.tmin, tmax = clip.tmax;
         float by = hfBBMax[1] - hfBBMin[1];
 
         // Calculate the bounding box of the triangle.
@@ -244,9 +265,14 @@ public class RecastRasterization {
         // use -1 rather than 0 to cut the polygon properly at the start of the tile
         z0 = RecastCommon.clamp(z0, -1, h - 1);
         z1 = RecastCommon.clamp(z1, 0, h - 1);
+        if (z0 > rowMax || z1 < rowMin) {
+            return;
+        }
+        // Rows above the band are still clipped so that the remaining polygon is exactly the same as in a full pass
+        z1 = Math.min(z1, rowMax);
 
         // Clip the triangle into all grid cells it touches.
-        float buf[] = new float[7 * 3 * 4];
+        float[] buf = clip.buf;
         int in = 0;
         int inRow = 7 * 3;
         int p1 = inRow + 7 * 3;
@@ -260,9 +286,9 @@ public class RecastRasterization {
         for (int z = z0; z <= z1; ++z) {
             // Clip polygon to row. Store the remaining polygon as well
             float cellZ = hfBBMin[2] + z * cellSize;
-            int[] nvrowin = dividePoly(buf, in, nvIn, inRow, p1, cellZ + cellSize, 2);
-            nvRow = nvrowin[0];
-            nvIn = nvrowin[1];
+            dividePoly(buf, in, nvIn, inRow, p1, cellZ + cellSize, 2, clip);
+            nvRow = clip.nv1;
+            nvIn = clip.nv2;
             {
                 int temp = in;
                 in = p1;
@@ -271,7 +297,7 @@ public class RecastRasterization {
             if (nvRow < 3)
                 continue;
 
-            if (z < 0) {
+            if (z < rowMin) {
                 continue;
             }
             // find the horizontal bounds in the row
@@ -293,9 +319,9 @@ public class RecastRasterization {
             for (int x = x0; x <= x1; ++x) {
                 // Clip polygon to column. store the remaining polygon as well
                 float cx = hfBBMin[0] + x * cellSize;
-                int[] nvnv2 = dividePoly(buf, inRow, nv2, p1, p2, cx + cellSize, 0);
-                nv = nvnv2[0];
-                nv2 = nvnv2[1];
+                dividePoly(buf, inRow, nv2, p1, p2, cx + cellSize, 0, clip);
+                nv = clip.nv1;
+                nv2 = clip.nv2;
                 {
                     int temp = inRow;
                     inRow = p2;
@@ -331,7 +357,7 @@ public class RecastRasterization {
                 int spanMinCellIndex = RecastCommon.clamp((int) Math.floor(spanMin * inverseCellHeight), 0, SPAN_MAX_HEIGHT);
                 int spanMaxCellIndex = RecastCommon.clamp((int) Math.ceil(spanMax * inverseCellHeight), spanMinCellIndex + 1, SPAN_MAX_HEIGHT);
 
-                addSpan(hf, x, z, spanMinCellIndex, spanMaxCellIndex, area, flagMergeThreshold);
+                addSpan(target, x, z - rowMin, spanMinCellIndex, spanMaxCellIndex, area, flagMergeThreshold);
             }
         }
     }
@@ -365,7 +391,7 @@ public class RecastRasterization {
         float inverseCellSize = 1.0f / heightfield.cs;
         float inverseCellHeight = 1.0f / heightfield.ch;
         rasterizeTri(verts, v0, v1, v2, areaId, heightfield, heightfield.bmin, heightfield.bmax, heightfield.cs, inverseCellSize,
-                inverseCellHeight, flagMergeThreshold);
+                inverseCellHeight, flagMergeThreshold, new ClipBuffers(), heightfield, 0, heightfield.height - 1);
 
         ctx.stopTimer("RASTERIZE_TRIANGLES");
     }
@@ -395,12 +421,13 @@ public class RecastRasterization {
 
         float inverseCellSize = 1.0f / heightfield.cs;
         float inverseCellHeight = 1.0f / heightfield.ch;
+        ClipBuffers clip = new ClipBuffers();
         for (int triIndex = 0; triIndex < numTris; ++triIndex) {
             int v0 = tris[triIndex * 3 + 0];
             int v1 = tris[triIndex * 3 + 1];
             int v2 = tris[triIndex * 3 + 2];
             rasterizeTri(verts, v0, v1, v2, areaIds[triIndex], heightfield, heightfield.bmin, heightfield.bmax, heightfield.cs,
-                    inverseCellSize, inverseCellHeight, flagMergeThreshold);
+                    inverseCellSize, inverseCellHeight, flagMergeThreshold, clip, heightfield, 0, heightfield.height - 1);
         }
 
         ctx.stopTimer("RASTERIZE_TRIANGLES");
@@ -428,14 +455,37 @@ public class RecastRasterization {
 
         float inverseCellSize = 1.0f / heightfield.cs;
         float inverseCellHeight = 1.0f / heightfield.ch;
+        ClipBuffers clip = new ClipBuffers();
         for (int triIndex = 0; triIndex < numTris; ++triIndex) {
             int v0 = (triIndex * 3 + 0);
             int v1 = (triIndex * 3 + 1);
             int v2 = (triIndex * 3 + 2);
             rasterizeTri(verts, v0, v1, v2, areaIds[triIndex], heightfield, heightfield.bmin, heightfield.bmax, heightfield.cs,
-                    inverseCellSize, inverseCellHeight, flagMergeThreshold);
+                    inverseCellSize, inverseCellHeight, flagMergeThreshold, clip, heightfield, 0, heightfield.height - 1);
         }
         ctx.stopTimer("RASTERIZE_TRIANGLES");
     }
 
+    /**
+     * Rasterizes an indexed triangle mesh into the rows [rowMin, rowMin + band.height) of the heightfield. The spans
+     * are written to {@code band}, a heightfield of the same width whose row 0 is rowMin, so that several bands can be
+     * rasterized at the same time. Each column receives its spans in the same order as in
+     * {@link #rasterizeTriangles(Heightfield, float[], int[], int[], int, int, Telemetry)}, which makes the result
+     * identical.
+     */
+    static void rasterizeTriangles(Heightfield heightfield, float[] verts, int[] tris, int[] areaIds, int numTris,
+            int flagMergeThreshold, Heightfield band, int rowMin) {
+        float inverseCellSize = 1.0f / heightfield.cs;
+        float inverseCellHeight = 1.0f / heightfield.ch;
+        ClipBuffers clip = new ClipBuffers();
+        int rowMax = rowMin + band.height - 1;
+        for (int triIndex = 0; triIndex < numTris; ++triIndex) {
+            int v0 = tris[triIndex * 3 + 0];
+            int v1 = tris[triIndex * 3 + 1];
+            int v2 = tris[triIndex * 3 + 2];
+            rasterizeTri(verts, v0, v1, v2, areaIds[triIndex], heightfield, heightfield.bmin, heightfield.bmax, heightfield.cs,
+                    inverseCellSize, inverseCellHeight, flagMergeThreshold, clip, band, rowMin, rowMax);
+        }
+    }
+
 }
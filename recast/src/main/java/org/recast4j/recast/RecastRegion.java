@@ -22,14 +22,15 @@ import static org.recast4j.recast.RecastConstants.RC_BORDER_REG;
 import static org.recast4j.recast.RecastConstants.RC_NOT_CONNECTED;
 import static org.recast4j.recast.RecastConstants.RC_NULL_AREA;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 public class RecastRegion {
 
     static final int RC_NULL_NEI = 0xffff;
 
+    private static final int MIN_STRIPE_ROWS = 32;
+
     static class SweepSpan {
         int rid; // row id
         int id; // region id
@@ -38,40 +39,20 @@ public class RecastRegion {
     }
 
     public static int calculateDistanceField(CompactHeightfield chf, int[] src) {
+        return calculateDistanceField(chf, src, null);
+    }
+
+    /// The boundary cells are marked in parallel stripes when an executor is given, the distance sweeps stay serial
+    /// because every row depends on the previous one.
+    static int calculateDistanceField(CompactHeightfield chf, int[] src, Executor executor) {
         int maxDist;
         int w = chf.width;
         int h = chf.height;
 
-        // Init distance and points.
-        for (int i = 0; i < chf.spanCount; ++i) {
-            src[i] = 0xffff;
-        }
-
-        // Mark boundary cells.
-        for (int y = 0; y < h; ++y) {
-            for (int x = 0; x < w; ++x) {
-                CompactCell c = chf.cells[x + y * w];
-                for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
-                    CompactSpan s = chf.spans[i];
-                    int area = chf.areas[i];
-
-                    int nc = 0;
-                    for (int dir = 0; dir < 4; ++dir) {
-                        if (RecastCommon.GetCon(s, dir) != RC_NOT_CONNECTED) {
-                            int ax = x + RecastCommon.GetDirOffsetX(dir);
-                            int ay = y + RecastCommon.GetDirOffsetY(dir);
-                            int ai = chf.cells[ax + ay * w].index + RecastCommon.GetCon(s, dir);
-                            if (area == chf.areas[ai]) {
-                                nc++;
-                            }
-                        }
-                    }
-                    if (nc != 4) {
-                        src[i] = 0;
-                    }
-                }
-            }
-        }
+        // Init distance and mark boundary cells.
+        int nstripes = RecastParallel.parts(executor, h);
+        RecastParallel.forEach(executor, nstripes, k -> markBoundaryCells(chf, src,
+                RecastParallel.stripeStart(0, h, nstripes, k), RecastParallel.stripeStart(0, h, nstripes, k + 1)));
 
         // Pass 1
         for (int y = 0; y < h; ++y) {
@@ -183,14 +164,47 @@ public class RecastRegion {
         return maxDist;
     }
 
-    private static int[] boxBlur(CompactHeightfield chf, int thr, int[] src) {
+    private static void markBoundaryCells(CompactHeightfield chf, int[] src, int y0, int y1) {
         int w = chf.width;
+        for (int y = y0; y < y1; ++y) {
+            for (int x = 0; x < w; ++x) {
+                CompactCell c = chf.cells[x + y * w];
+                for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
+                    CompactSpan s = chf.spans[i];
+                    int area = chf.areas[i];
+                    src[i] = 0xffff;
+
+                    int nc = 0;
+                    for (int dir = 0; dir < 4; ++dir) {
+                        if (RecastCommon.GetCon(s, dir) != RC_NOT_CONNECTED) {
+                            int ax = x + RecastCommon.GetDirOffsetX(dir);
+                            int ay = y + RecastCommon.GetDirOffsetY(dir);
+                            int ai = chf.cells[ax + ay * w].index + RecastCommon.GetCon(s, dir);
+                            if (area == chf.areas[ai]) {
+                                nc++;
+                            }
+                        }
+                    }
+                    if (nc != 4) {
+                        src[i] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] boxBlur(CompactHeightfield chf, int thr, int[] src, int[] dst, Executor executor) {
         int h = chf.height;
-        int[] dst = new int[chf.spanCount];
+        int nstripes = RecastParallel.parts(executor, h);
+        RecastParallel.forEach(executor, nstripes, k -> boxBlur(chf, thr * 2, src, dst,
+                RecastParallel.stripeStart(0, h, nstripes, k), RecastParallel.stripeStart(0, h, nstripes, k + 1)));
+        return dst;
+    }
 
-        thr *= 2;
+    private static void boxBlur(CompactHeightfield chf, int thr, int[] src, int[] dst, int y0, int y1) {
+        int w = chf.width;
 
-        for (int y = 0; y < h; ++y) {
+        for (int y = y0; y < y1; ++y) {
             for (int x = 0; x < w; ++x) {
                 CompactCell c = chf.cells[x + y * w];
                 for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
@@ -227,20 +241,17 @@ public class RecastRegion {
                 }
             }
         }
-        return dst;
     }
 
     private static boolean floodRegion(int x, int y, int i, int level, int r, CompactHeightfield chf, int[] srcReg,
-            int[] srcDist, List<Integer> stack) {
+            int[] srcDist, IntArray stack) {
         int w = chf.width;
 
         int area = chf.areas[i];
 
         // Flood fill mark region.
         stack.clear();
-        stack.add(x);
-        stack.add(y);
-        stack.add(i);
+        stack.add(x, y, i);
         srcReg[i] = r;
         srcDist[i] = 0;
 
@@ -248,9 +259,9 @@ public class RecastRegion {
         int count = 0;
 
         while (stack.size() > 0) {
-            int ci = stack.remove(stack.size() - 1);
-            int cy = stack.remove(stack.size() - 1);
-            int cx = stack.remove(stack.size() - 1);
+            int ci = stack.pop();
+            int cy = stack.pop();
+            int cx = stack.pop();
 
             CompactSpan cs = chf.spans[ci];
 
@@ -311,9 +322,7 @@ public class RecastRegion {
                     if (chf.dist[ai] >= lev && srcReg[ai] == 0) {
                         srcReg[ai] = r;
                         srcDist[ai] = 0;
-                        stack.add(ax);
-                        stack.add(ay);
-                        stack.add(ai);
+                        stack.add(ax, ay, ai);
                     }
                 }
             }
@@ -323,7 +332,7 @@ public class RecastRegion {
     }
 
     private static int[] expandRegions(int maxIter, int level, CompactHeightfield chf, int[] srcReg, int[] srcDist,
-            List<Integer> stack, boolean fillStack) {
+            IntArray stack, boolean fillStack) {
         int w = chf.width;
         int h = chf.height;
 
@@ -335,9 +344,7 @@ public class RecastRegion {
                     CompactCell c = chf.cells[x + y * w];
                     for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
                         if (chf.dist[i] >= level && srcReg[i] == 0 && chf.areas[i] != RC_NULL_AREA) {
-                            stack.add(x);
-                            stack.add(y);
-                            stack.add(i);
+                            stack.add(x, y, i);
                         }
                     }
                 }
@@ -353,7 +360,7 @@ public class RecastRegion {
             }
         }
 
-        List<Integer> dirtyEntries = new ArrayList<>();
+        IntArray dirtyEntries = new IntArray();
         int iter = 0;
         while (stack.size() > 0) {
             int failed = 0;
@@ -391,9 +398,7 @@ public class RecastRegion {
                 }
                 if (r != 0) {
                     stack.set(j + 2, -1); // mark as used
-                    dirtyEntries.add(i);
-                    dirtyEntries.add(r);
-                    dirtyEntries.add(d2);
+                    dirtyEntries.add(i, r, d2);
                 } else {
                     failed++;
                 }
@@ -422,14 +427,14 @@ public class RecastRegion {
     }
 
     private static void sortCellsByLevel(int startLevel, CompactHeightfield chf, int[] srcReg, int nbStacks,
-            List<List<Integer>> stacks, int loglevelsPerStack) // the levels per stack (2 in our case) as a bit shift
+            IntArray[] stacks, int loglevelsPerStack) // the levels per stack (2 in our case) as a bit shift
     {
         int w = chf.width;
         int h = chf.height;
         startLevel = startLevel >> loglevelsPerStack;
 
         for (int j = 0; j < nbStacks; ++j) {
-            stacks.get(j).clear();
+            stacks[j].clear();
         }
 
         // put all cells in the level range into the appropriate stacks
@@ -450,23 +455,19 @@ public class RecastRegion {
                         sId = 0;
                     }
 
-                    stacks.get(sId).add(x);
-                    stacks.get(sId).add(y);
-                    stacks.get(sId).add(i);
+                    stacks[sId].add(x, y, i);
                 }
             }
         }
     }
 
-    private static void appendStacks(List<Integer> srcStack, List<Integer> dstStack, int[] srcReg) {
+    private static void appendStacks(IntArray srcStack, IntArray dstStack, int[] srcReg) {
         for (int j = 0; j < srcStack.size(); j += 3) {
             int i = srcStack.get(j + 2);
             if ((i < 0) || (srcReg[i] != 0)) {
                 continue;
             }
-            dstStack.add(srcStack.get(j));
-            dstStack.add(srcStack.get(j + 1));
-            dstStack.add(srcStack.get(j + 2));
+            dstStack.add(srcStack.get(j), srcStack.get(j + 1), i);
         }
     }
 
@@ -479,14 +480,14 @@ public class RecastRegion {
         boolean overlap;
         boolean connectsToBorder;
         int ymin, ymax;
-        List<Integer> connections;
-        List<Integer> floors;
+        IntArray connections;
+        IntArray floors;
 
         Region(int i) {
             id = i;
             ymin = 0xFFFF;
-            connections = new ArrayList<>();
-            floors = new ArrayList<>();
+            connections = new IntArray();
+            floors = new IntArray();
         }
 
     }
@@ -553,8 +554,8 @@ public class RecastRegion {
         int bid = regb.id;
 
         // Duplicate current neighbourhood.
-        List<Integer> acon = new ArrayList<>(rega.connections);
-        List<Integer> bcon = regb.connections;
+        IntArray acon = new IntArray(rega.connections);
+        IntArray bcon = regb.connections;
 
         // Find insertion point on A.
         int insa = -1;
@@ -624,7 +625,7 @@ public class RecastRegion {
     }
 
     private static void walkContour(int x, int y, int i, int dir, CompactHeightfield chf, int[] srcReg,
-            List<Integer> cont) {
+            IntArray cont) {
         int startDir = dir;
         int starti = i;
 
@@ -694,7 +695,7 @@ public class RecastRegion {
     }
 
     private static int mergeAndFilterRegions(Telemetry ctx, int minRegionArea, int mergeRegionSize, int maxRegionId,
-            CompactHeightfield chf, int[] srcReg, List<Integer> overlaps) {
+            CompactHeightfield chf, int[] srcReg, IntArray overlaps) {
         int w = chf.width;
         int h = chf.height;
 
@@ -760,8 +761,8 @@ public class RecastRegion {
         }
 
         // Remove too small regions.
-        List<Integer> stack = new ArrayList<>(32);
-        List<Integer> trace = new ArrayList<>(32);
+        IntArray stack = new IntArray(32);
+        IntArray trace = new IntArray(32);
         for (int i = 0; i < nreg; ++i) {
             Region reg = regions[i];
             if (reg.id == 0 || (reg.id & RC_BORDER_REG) != 0) {
@@ -786,7 +787,7 @@ public class RecastRegion {
 
             while (stack.size() > 0) {
                 // Pop
-                int ri = stack.remove(stack.size() - 1);
+                int ri = stack.pop();
 
                 Region creg = regions[ri];
 
@@ -942,7 +943,7 @@ public class RecastRegion {
     }
 
     private static int mergeAndFilterLayerRegions(Telemetry ctx, int minRegionArea, int maxRegionId,
-            CompactHeightfield chf, int[] srcReg, List<Integer> overlaps) {
+            CompactHeightfield chf, int[] srcReg, IntArray overlaps) {
         int w = chf.width;
         int h = chf.height;
 
@@ -955,7 +956,7 @@ public class RecastRegion {
         }
 
         // Find region neighbours and overlapping regions.
-        List<Integer> lregs = new ArrayList<>(32);
+        IntArray lregs = new IntArray(32);
         for (int y = 0; y < h; ++y) {
             for (int x = 0; x < w; ++x) {
                 CompactCell c = chf.cells[x + y * w];
@@ -1018,7 +1019,7 @@ public class RecastRegion {
         }
 
         // Merge montone regions to create non-overlapping areas.
-        List<Integer> stack = new ArrayList<>(32);
+        IntArray stack = new IntArray(32);
         for (int i = 1; i < nreg; ++i) {
             Region root = regions[i];
             // Skip already visited.
@@ -1032,9 +1033,9 @@ public class RecastRegion {
             stack.clear();
             stack.add(i);
 
-            while (stack.size() > 0) {
+            for (int head = 0; head < stack.size();) {
                 // Pop front
-                Region reg = regions[stack.remove(0)];
+                Region reg = regions[stack.get(head++)];
 
                 int ncons = reg.connections.size();
                 for (int j = 0; j < ncons; ++j) {
@@ -1141,12 +1142,19 @@ public class RecastRegion {
     ///
     /// @see rcCompactHeightfield, rcBuildRegions, rcBuildRegionsMonotone
     public static void buildDistanceField(Telemetry ctx, CompactHeightfield chf) {
+        buildDistanceField(ctx, chf, null);
+    }
+
+    /// Builds the distance field, running the per span passes in parallel stripes when an executor is given. The
+    /// result is identical to the serial build.
+    public static void buildDistanceField(Telemetry ctx, CompactHeightfield chf, Executor executor) {
 
         ctx.startTimer("DISTANCEFIELD");
-        int[] src = new int[chf.spanCount];
+        RecastBuildContext context = RecastBuildContext.of(ctx);
+        int[] src = context.ints(RecastBuildContext.DIST_SRC, chf.spanCount);
         ctx.startTimer("DISTANCEFIELD_DIST");
 
-        int maxDist = calculateDistanceField(chf, src);
+        int maxDist = calculateDistanceField(chf, src, executor);
         chf.maxDistance = maxDist;
 
         ctx.stopTimer("DISTANCEFIELD_DIST");
@@ -1154,7 +1162,7 @@ public class RecastRegion {
         ctx.startTimer("DISTANCEFIELD_BLUR");
 
         // Blur
-        src = boxBlur(chf, 1, src);
+        src = boxBlur(chf, 1, src, context.ints(RecastBuildContext.DIST_BLUR, chf.spanCount), executor);
 
         // Store distance.
         chf.dist = src;
@@ -1201,6 +1209,14 @@ public class RecastRegion {
     /// @see rcCompactHeightfield, rcCompactSpan, rcBuildDistanceField, rcBuildRegionsMonotone, rcConfig
     public static void buildRegionsMonotone(Telemetry ctx, CompactHeightfield chf, int minRegionArea,
             int mergeRegionArea) {
+        buildRegionsMonotone(ctx, chf, minRegionArea, mergeRegionArea, null);
+    }
+
+    /// Builds monotone regions, sweeping stripes of rows in parallel when an executor is given. Each stripe except the
+    /// first is swept with its own ids and then linked to the stripe above it, which numbers the regions exactly like
+    /// the serial sweep.
+    public static void buildRegionsMonotone(Telemetry ctx, CompactHeightfield chf, int minRegionArea,
+            int mergeRegionArea, Executor executor) {
         ctx.startTimer("REGIONS");
 
         int w = chf.width;
@@ -1208,13 +1224,7 @@ public class RecastRegion {
         int borderSize = chf.borderSize;
         int id = 1;
 
-        int[] srcReg = new int[chf.spanCount];
-
-        int nsweeps = Math.max(chf.width, chf.height);
-        SweepSpan[] sweeps = new SweepSpan[nsweeps];
-        for (int i = 0; i < sweeps.length; i++) {
-            sweeps[i] = new SweepSpan();
-        }
+        int[] srcReg = RecastBuildContext.of(ctx).ints(RecastBuildContext.REGION_SRC_REG, chf.spanCount);
 
         // Mark border regions.
         if (borderSize > 0) {
@@ -1233,10 +1243,57 @@ public class RecastRegion {
 
         }
 
+        int y0 = borderSize;
+        int y1 = h - borderSize;
+        int nstripes = RecastParallel.parts(executor, (y1 - y0) / MIN_STRIPE_ROWS);
+        int[] stripeIds = new int[nstripes];
+        int firstId = id;
+        RecastParallel.forEach(executor, nstripes, k -> {
+            int sy0 = RecastParallel.stripeStart(y0, y1, nstripes, k);
+            int sy1 = RecastParallel.stripeStart(y0, y1, nstripes, k + 1);
+            stripeIds[k] = k == 0 ? sweepRows(chf, srcReg, sy0, sy1, firstId, true) : sweepRows(chf, srcReg, sy0, sy1, 1, false);
+        });
+        id = stripeIds[0];
+        for (int k = 1; k < nstripes; k++) {
+            id = linkStripe(chf, srcReg, RecastParallel.stripeStart(y0, y1, nstripes, k),
+                    RecastParallel.stripeStart(y0, y1, nstripes, k + 1), stripeIds[k], id);
+        }
+
+        ctx.startTimer("REGIONS_FILTER");
+
+        // Merge regions and filter out small regions.
+        IntArray overlaps = new IntArray();
+        chf.maxRegions = mergeAndFilterRegions(ctx, minRegionArea, mergeRegionArea, id, chf, srcReg, overlaps);
+
+        // Monotone partitioning does not generate overlapping regions.
+
+        ctx.stopTimer("REGIONS_FILTER");
+
+        // Store the result out.
+        for (int i = 0; i < chf.spanCount; ++i) {
+            chf.spans[i].reg = srcReg[i];
+        }
+
+        ctx.stopTimer("REGIONS");
+
+    }
+
+    /// Sweeps the rows [y0, y1) assigning region ids from @p id and returns the next free id. When @p linkFirstRow is
+    /// false the first row does not connect to the row above it, see #linkStripe.
+    private static int sweepRows(CompactHeightfield chf, int[] srcReg, int y0, int y1, int id, boolean linkFirstRow) {
+        int w = chf.width;
+        int borderSize = chf.borderSize;
+
+        int nsweeps = Math.max(chf.width, chf.height);
+        SweepSpan[] sweeps = new SweepSpan[nsweeps];
+        for (int i = 0; i < sweeps.length; i++) {
+            sweeps[i] = new SweepSpan();
+        }
+
         int[] prev = new int[1024];
 
         // Sweep one line at a time.
-        for (int y = borderSize; y < h - borderSize; ++y) {
+        for (int y = y0; y < y1; ++y) {
             // Collect spans from this row.
             if (prev.length < id * 2) {
                 prev = new int[id * 2];
@@ -1273,7 +1330,7 @@ public class RecastRegion {
                     }
 
                     // -y
-                    if (RecastCommon.GetCon(s, 3) != RC_NOT_CONNECTED) {
+                    if ((linkFirstRow || y > y0) && RecastCommon.GetCon(s, 3) != RC_NOT_CONNECTED) {
                         int ax = x + RecastCommon.GetDirOffsetX(3);
                         int ay = y + RecastCommon.GetDirOffsetY(3);
                         int ai = chf.cells[ax + ay * w].index + RecastCommon.GetCon(s, 3);
@@ -1316,24 +1373,64 @@ public class RecastRegion {
                 }
             }
         }
+        return id;
+    }
 
-        ctx.startTimer("REGIONS_FILTER");
-
-        // Merge regions and filter out small regions.
-        List<Integer> overlaps = new ArrayList<>();
-        chf.maxRegions = mergeAndFilterRegions(ctx, minRegionArea, mergeRegionArea, id, chf, srcReg, overlaps);
-
-        // Monotone partitioning does not generate overlapping regions.
-
-        ctx.stopTimer("REGIONS_FILTER");
+    /// Links a stripe that was swept with its own ids [1, @p localIds) to the final ids of the row above it and
+    /// returns the next free id. The first row is connected upwards exactly like the serial sweep does, the remaining
+    /// local ids get new ids in the order the serial sweep would have created them.
+    private static int linkStripe(CompactHeightfield chf, int[] srcReg, int y0, int y1, int localIds, int id) {
+        int w = chf.width;
+        int borderSize = chf.borderSize;
+        int[] nei = new int[localIds];
+        int[] ns = new int[localIds];
+        int[] prev = new int[id];
 
-        // Store the result out.
-        for (int i = 0; i < chf.spanCount; ++i) {
-            chf.spans[i].reg = srcReg[i];
+        for (int x = borderSize; x < w - borderSize; ++x) {
+            CompactCell c = chf.cells[x + y0 * w];
+            for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
+                CompactSpan s = chf.spans[i];
+                if (chf.areas[i] == RC_NULL_AREA || RecastCommon.GetCon(s, 3) == RC_NOT_CONNECTED) {
+                    continue;
+                }
+                int rid = srcReg[i];
+                int ax = x + RecastCommon.GetDirOffsetX(3);
+                int ay = y0 + RecastCommon.GetDirOffsetY(3);
+                int ai = chf.cells[ax + ay * w].index + RecastCommon.GetCon(s, 3);
+                if (srcReg[ai] != 0 && (srcReg[ai] & RC_BORDER_REG) == 0 && chf.areas[i] == chf.areas[ai]) {
+                    int nr = srcReg[ai];
+                    if (nei[rid] == 0 || nei[rid] == nr) {
+                        nei[rid] = nr;
+                        ns[rid]++;
+                        prev[nr]++;
+                    } else {
+                        nei[rid] = RC_NULL_NEI;
+                    }
+                }
+            }
         }
 
-        ctx.stopTimer("REGIONS");
+        // Local ids of the first row are its row ids, later rows only ever create new ones.
+        int[] map = new int[localIds];
+        for (int i = 1; i < localIds; ++i) {
+            if (nei[i] != RC_NULL_NEI && nei[i] != 0 && prev[nei[i]] == ns[i]) {
+                map[i] = nei[i];
+            } else {
+                map[i] = id++;
+            }
+        }
 
+        for (int y = y0; y < y1; ++y) {
+            for (int x = borderSize; x < w - borderSize; ++x) {
+                CompactCell c = chf.cells[x + y * w];
+                for (int i = c.index, ni = c.index + c.count; i < ni; ++i) {
+                    if (srcReg[i] > 0 && srcReg[i] < localIds && (srcReg[i] & RC_BORDER_REG) == 0) {
+                        srcReg[i] = map[srcReg[i]];
+                    }
+                }
+            }
+        }
+        return id;
     }
 
     /// @par
@@ -1367,15 +1464,16 @@ public class RecastRegion {
 
         int LOG_NB_STACKS = 3;
         int NB_STACKS = 1 << LOG_NB_STACKS;
-        List<List<Integer>> lvlStacks = new ArrayList<>();
+        RecastBuildContext context = RecastBuildContext.of(ctx);
+        IntArray[] lvlStacks = new IntArray[NB_STACKS];
         for (int i = 0; i < NB_STACKS; ++i) {
-            lvlStacks.add(new ArrayList<>(1024));
+            lvlStacks[i] = context.intArray(RecastBuildContext.REGION_LEVEL_STACK + i, 1024);
         }
 
-        List<Integer> stack = new ArrayList<>(1024);
+        IntArray stack = context.intArray(RecastBuildContext.REGION_STACK, 1024);
 
-        int[] srcReg = new int[chf.spanCount];
-        int[] srcDist = new int[chf.spanCount];
+        int[] srcReg = context.ints(RecastBuildContext.REGION_SRC_REG, chf.spanCount);
+        int[] srcDist = context.ints(RecastBuildContext.REGION_SRC_DIST, chf.spanCount);
 
         int regionId = 1;
         int level = (chf.maxDistance + 1) & ~1;
@@ -1414,7 +1512,7 @@ public class RecastRegion {
             if (sId == 0) {
                 sortCellsByLevel(level, chf, srcReg, NB_STACKS, lvlStacks, 1);
             } else {
-                appendStacks(lvlStacks.get(sId - 1), lvlStacks.get(sId), srcReg); // copy left overs from last level
+                appendStacks(lvlStacks[sId - 1], lvlStacks[sId], srcReg); // copy left overs from last level
             }
 
             // ctx->stopTimer(RC_TIMER_DIVIDE_TO_LEVELS);
@@ -1422,17 +1520,17 @@ public class RecastRegion {
             ctx.startTimer("REGIONS_EXPAND");
 
             // Expand current regions until no empty connected cells found.
-            expandRegions(expandIters, level, chf, srcReg, srcDist, lvlStacks.get(sId), false);
+            expandRegions(expandIters, level, chf, srcReg, srcDist, lvlStacks[sId], false);
 
             ctx.stopTimer("REGIONS_EXPAND");
 
             ctx.startTimer("REGIONS_FLOOD");
 
             // Mark new regions with IDs.
-            for (int j = 0; j < lvlStacks.get(sId).size(); j += 3) {
-                int x = lvlStacks.get(sId).get(j);
-                int y = lvlStacks.get(sId).get(j + 1);
-                int i = lvlStacks.get(sId).get(j + 2);
+            for (int j = 0; j < lvlStacks[sId].size(); j += 3) {
+                int x = lvlStacks[sId].get(j);
+                int y = lvlStacks[sId].get(j + 1);
+                int i = lvlStacks[sId].get(j + 2);
                 if (i >= 0 && srcReg[i] == 0) {
                     if (floodRegion(x, y, i, level, regionId, chf, srcReg, srcDist, stack)) {
                         regionId++;
@@ -1451,7 +1549,7 @@ public class RecastRegion {
         ctx.startTimer("REGIONS_FILTER");
 
         // Merge regions and filter out small regions.
-        List<Integer> overlaps = new ArrayList<>();
+        IntArray overlaps = new IntArray();
         chf.maxRegions = mergeAndFilterRegions(ctx, minRegionArea, mergeRegionArea, regionId, chf, srcReg, overlaps);
 
         // If overlapping regions were found during merging, split those regions.
@@ -1479,7 +1577,7 @@ public class RecastRegion {
         int borderSize = chf.borderSize;
         int id = 1;
 
-        int[] srcReg = new int[chf.spanCount];
+        int[] srcReg = RecastBuildContext.of(ctx).ints(RecastBuildContext.REGION_SRC_REG, chf.spanCount);
         int nsweeps = Math.max(chf.width, chf.height);
         SweepSpan[] sweeps = new SweepSpan[nsweeps];
         for (int i = 0; i < sweeps.length; i++) {
@@ -1590,7 +1688,7 @@ public class RecastRegion {
         ctx.startTimer("REGIONS_FILTER");
 
         // Merge monotone regions to layers and remove small regions.
-        List<Integer> overlaps = new ArrayList<>();
+        IntArray overlaps = new IntArray();
         chf.maxRegions = mergeAndFilterLayerRegions(ctx, minRegionArea, id, chf, srcReg, overlaps);
 
         ctx.stopTimer("REGIONS_FILTER");
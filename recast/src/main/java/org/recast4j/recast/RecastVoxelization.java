@@ -18,7 +18,11 @@ freely, subject to the following restrictions:
 
 package org.recast4j.recast;
 
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.recast4j.recast.geom.InputGeomProvider;
 import org.recast4j.recast.geom.TriMesh;
@@ -27,11 +31,24 @@ public class RecastVoxelization {
 
     public static Heightfield buildSolidHeightfield(InputGeomProvider geomProvider, RecastBuilderConfig builderCfg,
             Telemetry ctx) {
+        return buildSolidHeightfield(geomProvider, builderCfg, ctx, null);
+    }
+
+    /**
+     * Rasterizes the input geometry. With an executor the heightfield is split into bands of rows that are rasterized
+     * in parallel and then linked into one heightfield, the spans are the same as in a serial build.
+     */
+    public static Heightfield buildSolidHeightfield(InputGeomProvider geomProvider, RecastBuilderConfig builderCfg,
+            Telemetry ctx, Executor executor) {
         RecastConfig cfg = builderCfg.cfg;
 
         // Allocate voxel heightfield where we rasterize our input data to.
-        Heightfield solid = new Heightfield(builderCfg.width, builderCfg.height, builderCfg.bmin, builderCfg.bmax, cfg.cs,
-                cfg.ch, cfg.borderSize);
+        // A build context hands out its previous heightfield instead.
+        Heightfield solid = ctx instanceof RecastBuildContext
+                ? ((RecastBuildContext) ctx).heightfield(builderCfg.width, builderCfg.height, builderCfg.bmin,
+                        builderCfg.bmax, cfg.cs, cfg.ch, cfg.borderSize)
+                : new Heightfield(builderCfg.width, builderCfg.height, builderCfg.bmin, builderCfg.bmax, cfg.cs, cfg.ch,
+                        cfg.borderSize);
 
         // Allocate array that can hold triangle area types.
         // If you have multiple meshes you need to process, allocate
@@ -43,6 +60,9 @@ public class RecastVoxelization {
         // If your input data is multiple meshes, you can transform them here,
         // calculate
         // the are type for each of the meshes and rasterize them.
+        List<float[]> batchVerts = new ArrayList<>();
+        List<int[]> batchTris = new ArrayList<>();
+        List<int[]> batchAreas = new ArrayList<>();
         for (TriMesh geom : geomProvider.meshes()) {
             float[] verts = geom.getVerts();
             if (cfg.useTiles) {
@@ -57,18 +77,72 @@ public class RecastVoxelization {
                     int ntris = tris.length / 3;
                     int[] m_triareas = Recast.markWalkableTriangles(ctx, cfg.walkableSlopeAngle, verts, tris, ntris,
                             cfg.walkableAreaMod);
-                    RecastRasterization.rasterizeTriangles(solid, verts, tris, m_triareas, ntris, cfg.walkableClimb, ctx);
+                    if (executor == null) {
+                        RecastRasterization.rasterizeTriangles(solid, verts, tris, m_triareas, ntris, cfg.walkableClimb, ctx);
+                    } else {
+                        batchVerts.add(verts);
+                        batchTris.add(tris);
+                        batchAreas.add(m_triareas);
+                    }
                 }
             } else {
                 int[] tris = geom.getTris();
                 int ntris = tris.length / 3;
                 int[] m_triareas = Recast.markWalkableTriangles(ctx, cfg.walkableSlopeAngle, verts, tris, ntris,
                         cfg.walkableAreaMod);
-                RecastRasterization.rasterizeTriangles(solid, verts, tris, m_triareas, ntris, cfg.walkableClimb, ctx);
+                if (executor == null) {
+                    RecastRasterization.rasterizeTriangles(solid, verts, tris, m_triareas, ntris, cfg.walkableClimb, ctx);
+                } else {
+                    batchVerts.add(verts);
+                    batchTris.add(tris);
+                    batchAreas.add(m_triareas);
+                }
             }
         }
+        if (executor != null) {
+            rasterizeBands(solid, batchVerts, batchTris, batchAreas, cfg.walkableClimb, ctx, executor);
+        }
 
         return solid;
     }
 
+    private static void rasterizeBands(Heightfield solid, List<float[]> batchVerts, List<int[]> batchTris,
+            List<int[]> batchAreas, int flagMergeThreshold, Telemetry ctx, Executor executor) {
+        ctx.startTimer("RASTERIZE_TRIANGLES");
+        int nbands = RecastParallel.parts(executor, solid.height);
+        Heightfield[] bands = new Heightfield[nbands];
+        RecastParallel.forEach(executor, nbands, b -> {
+            int rowMin = RecastParallel.stripeStart(0, solid.height, nbands, b);
+            int rowMax = RecastParallel.stripeStart(0, solid.height, nbands, b + 1);
+            Heightfield band = new Heightfield(solid.width, rowMax - rowMin, solid.bmin, solid.bmax, solid.cs, solid.ch,
+                    solid.borderSize);
+            // Every band walks all batches in order, so each column sees its triangles in the serial order
+            for (int i = 0; i < batchTris.size(); i++) {
+                int[] tris = batchTris.get(i);
+                RecastRasterization.rasterizeTriangles(solid, batchVerts.get(i), tris, batchAreas.get(i), tris.length / 3,
+                        flagMergeThreshold, band, rowMin);
+            }
+            bands[b] = band;
+        });
+        // Link the band columns into the heightfield
+        SpanPool pool = solid.spanPool;
+        for (int b = 0; b < nbands; b++) {
+            Heightfield band = bands[b];
+            int offset = RecastParallel.stripeStart(0, solid.height, nbands, b) * solid.width;
+            for (int i = 0; i < band.spans.length; i++) {
+                int last = RC_NULL_SPAN;
+                for (int s = band.spans[i]; s != RC_NULL_SPAN; s = band.spanPool.next(s)) {
+                    int span = pool.alloc(band.spanPool.smin(s), band.spanPool.smax(s), band.spanPool.area(s));
+                    if (last == RC_NULL_SPAN) {
+                        solid.spans[offset + i] = span;
+                    } else {
+                        pool.setNext(last, span);
+                    }
+                    last = span;
+                }
+            }
+        }
+        ctx.stopTimer("RASTERIZE_TRIANGLES");
+    }
+
 }
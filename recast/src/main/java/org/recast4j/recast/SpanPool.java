@@ -0,0 +1,140 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
+
+import java.util.Arrays;
+
+/**
+ * Spans of a heightfield, stored as parallel primitive arrays instead of one object per span.
+ *
+ * A span is addressed by its index, which is stable until the span is freed. Freed spans are kept in a free list and
+ * reused by later allocations, the same way as rcSpanPool does in the original Recast.
+ *
+ * @see Heightfield
+ */
+public final class SpanPool {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The lower limits of the spans. */
+    private int[] m_smin;
+    /** The upper limits of the spans. */
+    private int[] m_smax;
+    /** The area ids assigned to the spans. */
+    private int[] m_area;
+    /** Indices of the next span higher up in the column, or the next free span. */
+    private int[] m_next;
+    private int m_size;
+    private int m_freelist = RC_NULL_SPAN;
+
+    public SpanPool() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public SpanPool(int capacity) {
+        capacity = Math.max(capacity, 1);
+        m_smin = new int[capacity];
+        m_smax = new int[capacity];
+        m_area = new int[capacity];
+        m_next = new int[capacity];
+    }
+
+    public SpanPool(SpanPool other) {
+        int capacity = Math.max(other.m_size, 1);
+        m_smin = Arrays.copyOf(other.m_smin, capacity);
+        m_smax = Arrays.copyOf(other.m_smax, capacity);
+        m_area = Arrays.copyOf(other.m_area, capacity);
+        m_next = Arrays.copyOf(other.m_next, capacity);
+        m_size = other.m_size;
+        m_freelist = other.m_freelist;
+    }
+
+    /** @return The number of allocated spans, including freed ones. */
+    public int size() {
+        return m_size;
+    }
+
+    /** @return The lower limit of the span. [Limit: &lt; smax] */
+    public int smin(int span) {
+        return m_smin[span];
+    }
+
+    /** @return The upper limit of the span. [Limit: &lt;= SPAN_MAX_HEIGHT] */
+    public int smax(int span) {
+        return m_smax[span];
+    }
+
+    /** @return The area id assigned to the span. */
+    public int area(int span) {
+        return m_area[span];
+    }
+
+    /** @return Index of the next span higher up in column, or RC_NULL_SPAN. */
+    public int next(int span) {
+        return m_next[span];
+    }
+
+    public void setArea(int span, int area) {
+        m_area[span] = area;
+    }
+
+    public void setNext(int span, int next) {
+        m_next[span] = next;
+    }
+
+    void set(int span, int smin, int smax, int area) {
+        m_smin[span] = smin;
+        m_smax[span] = smax;
+        m_area[span] = area;
+    }
+
+    /** Allocates a span that is not linked to any column and returns its index. */
+    public int alloc(int smin, int smax, int area) {
+        int span = m_freelist;
+        if (span != RC_NULL_SPAN) {
+            m_freelist = m_next[span];
+        } else {
+            if (m_size == m_smin.length) {
+                int capacity = m_size * 2;
+                m_smin = Arrays.copyOf(m_smin, capacity);
+                m_smax = Arrays.copyOf(m_smax, capacity);
+                m_area = Arrays.copyOf(m_area, capacity);
+                m_next = Arrays.copyOf(m_next, capacity);
+            }
+            span = m_size++;
+        }
+        set(span, smin, smax, area);
+        m_next[span] = RC_NULL_SPAN;
+        return span;
+    }
+
+    /** Returns the span to the free list. The caller is responsible for unlinking it from its column first. */
+    public void free(int span) {
+        m_next[span] = m_freelist;
+        m_freelist = span;
+    }
+
+    /** Frees all spans at once, keeping the allocated storage for reuse. */
+    public void clear() {
+        m_size = 0;
+        m_freelist = RC_NULL_SPAN;
+    }
+}
@@ -43,6 +43,18 @@ public class Telemetry {
         System.out.println(string);
     }
 
+    /** Returns a new telemetry holding a copy of the timings accumulated so far. */
+    public Telemetry snapshot() {
+        Telemetry copy = new Telemetry();
+        timerAccum.forEach((n, v) -> copy.timerAccum.put(n, new AtomicLong(v.get())));
+        return copy;
+    }
+
+    /** Discards the accumulated timings. */
+    public void resetTimers() {
+        timerAccum.clear();
+    }
+
     public void print() {
         timerAccum.forEach((n, v) -> System.out.println(n + ": " + v.get() / 1000000));
     }
@@ -0,0 +1,70 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class IntArrayTest {
+
+    @Test
+    public void shouldGrowAndKeepOrder() {
+        IntArray a = new IntArray(1);
+        for (int i = 0; i < 100; i++) {
+            a.add(i);
+        }
+        a.add(100, 101, 102);
+        assertThat(a.size()).isEqualTo(103);
+        assertThat(a.get(0)).isEqualTo(0);
+        assertThat(a.get(102)).isEqualTo(102);
+        assertThat(a.pop()).isEqualTo(102);
+        assertThat(a.size()).isEqualTo(102);
+        a.clear();
+        assertThat(a.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldInsertAndRemove() {
+        IntArray a = new IntArray();
+        a.add(1, 2, 4);
+        a.add(2, 3);
+        assertThat(a.toArray()).containsExactly(1, 2, 3, 4);
+        assertThat(a.remove(0)).isEqualTo(1);
+        a.removeRange(1, 2);
+        assertThat(a.toArray()).containsExactly(2, 4);
+        assertThat(a.indexOf(4)).isEqualTo(1);
+        assertThat(a.contains(3)).isFalse();
+        a.resize(4);
+        assertThat(a.toArray()).containsExactly(2, 4, 0, 0);
+        a.resize(1);
+        assertThat(a.toArray()).containsExactly(2);
+    }
+
+    @Test
+    public void copyShouldNotShareStorage() {
+        IntArray a = new IntArray();
+        a.add(1);
+        IntArray copy = new IntArray(a);
+        a.set(0, 2);
+        copy.add(3);
+        assertThat(copy.toArray()).containsExactly(1, 3);
+        assertThat(a.toArray()).containsExactly(2);
+    }
+}
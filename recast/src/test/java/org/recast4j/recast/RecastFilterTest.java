@@ -19,6 +19,7 @@ freely, subject to the following restrictions:
 package org.recast4j.recast;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 
 import org.junit.jupiter.api.Test;
 
@@ -36,104 +37,76 @@ public class RecastFilterTest {
         int walkableHeight = 5;
 
         Heightfield heightfield = new Heightfield(1, 1, new float[] { 0, 0, 0 }, new float[] { 1, 1, 1 }, 1, 1, 0);
+        SpanPool pool = heightfield.spanPool;
 
         // Span with no spans above it is unchanged
         {
-            Span span = new Span();
-            span.area = 1;
-            span.next = null;
-            span.smin = 0;
-            span.smax = 1;
+            int span = pool.alloc(0, 1, 1);
             heightfield.spans[0] = span;
 
             RecastFilter.filterLowHangingWalkableObstacles(context, walkableHeight, heightfield);
 
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
         }
 
         // Span with span above that is higher than walkableHeight is unchanged
         {
-            heightfield.spans[0] = null;
+            pool.clear();
 
-            Span secondSpan = new Span();
-            secondSpan.area = RC_NULL_AREA;
-            secondSpan.next = null;
-            secondSpan.smin = 1 + walkableHeight;
-            secondSpan.smax = secondSpan.smin + 1;
-
-            Span span = new Span();
-            span.area = 1;
-            span.next = secondSpan;
-            span.smin = 0;
-            span.smax = 1;
+            int secondSpan = pool.alloc(1 + walkableHeight, 2 + walkableHeight, RC_NULL_AREA);
+            int span = pool.alloc(0, 1, 1);
+            pool.setNext(span, secondSpan);
 
             heightfield.spans[0] = span;
 
             RecastFilter.filterLowHangingWalkableObstacles(context, walkableHeight, heightfield);
 
             // Check that nothing has changed.
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(RC_NULL_AREA);
 
             // Check again but with more clearance
-            secondSpan.smin += 10;
-            secondSpan.smax += 10;
+            pool.set(secondSpan, pool.smin(secondSpan) + 10, pool.smax(secondSpan) + 10, pool.area(secondSpan));
 
             RecastFilter.filterLowHangingWalkableObstacles(context, walkableHeight, heightfield);
 
             // Check that nothing has changed.
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(RC_NULL_AREA);
         }
 
         // Marks low obstacles walkable if they're below the walkableHeight
         {
-            heightfield.spans[0] = null;
-
-            Span secondSpan = new Span();
-            secondSpan.area = RC_NULL_AREA;
-            secondSpan.next = null;
-            secondSpan.smin = 1 + (walkableHeight - 1);
-            secondSpan.smax = secondSpan.smin + 1;
+            pool.clear();
 
-            Span span = new Span();
-            span.area = 1;
-            span.next = secondSpan;
-            span.smin = 0;
-            span.smax = 1;
+            int secondSpan = pool.alloc(1 + (walkableHeight - 1), 2 + (walkableHeight - 1), RC_NULL_AREA);
+            int span = pool.alloc(0, 1, 1);
+            pool.setNext(span, secondSpan);
 
             heightfield.spans[0] = span;
 
             RecastFilter.filterLowHangingWalkableObstacles(context, walkableHeight, heightfield);
 
             // Check that the second span was changed to walkable.
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(1);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(1);
         }
 
         // Low obstacle that overlaps the walkableHeight distance is not changed
         {
-            heightfield.spans[0] = null;
-
-            Span secondSpan = new Span();
-            secondSpan.area = RC_NULL_AREA;
-            secondSpan.next = null;
-            secondSpan.smin = 2 + (walkableHeight - 1);
-            secondSpan.smax = secondSpan.smin + 1;
+            pool.clear();
 
-            Span span = new Span();
-            span.area = 1;
-            span.next = secondSpan;
-            span.smin = 0;
-            span.smax = 1;
+            int secondSpan = pool.alloc(2 + (walkableHeight - 1), 3 + (walkableHeight - 1), RC_NULL_AREA);
+            int span = pool.alloc(0, 1, 1);
+            pool.setNext(span, secondSpan);
 
             heightfield.spans[0] = span;
 
             RecastFilter.filterLowHangingWalkableObstacles(context, walkableHeight, heightfield);
 
             // Check that the second span was not changed.
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(RC_NULL_AREA);
         }
     }
 
@@ -144,18 +117,14 @@ public class RecastFilterTest {
         int walkableHeight = 10;
 
         Heightfield heightfield = new Heightfield(10, 10, new float[] { 0, 0, 0 }, new float[] { 10, 1, 10 }, 1, 1, 0);
+        SpanPool pool = heightfield.spanPool;
 
         // Edge spans are marked unwalkable
         {
             // Create a flat plane.
             for (int x = 0; x < heightfield.width; ++x) {
                 for (int z = 0; z < heightfield.height; ++z) {
-                    Span span = new Span();
-                    span.area = 1;
-                    span.next = null;
-                    span.smin = 0;
-                    span.smax = 1;
-                    heightfield.spans[x + z * heightfield.width] = span;
+                    heightfield.spans[x + z * heightfield.width] = pool.alloc(0, 1, 1);
                 }
             }
 
@@ -163,20 +132,20 @@ public class RecastFilterTest {
 
             for (int x = 0; x < heightfield.width; ++x) {
                 for (int z = 0; z < heightfield.height; ++z) {
-                    Span span = heightfield.spans[x + z * heightfield.width];
-                    assertThat(span).isNotNull();
+                    int span = heightfield.spans[x + z * heightfield.width];
+                    assertThat(span).isNotEqualTo(RC_NULL_SPAN);
 
                     if (x == 0 || z == 0 || x == 9 || z == 9) {
-                        assertThat(span.area).isEqualTo(RC_NULL_AREA)
+                        assertThat(pool.area(span)).isEqualTo(RC_NULL_AREA)
                                 .describedAs("Edge span at (" + x + ", " + z + ") should be marked unwalkable");
                     } else {
-                        assertThat(span.area).isEqualTo(1)
+                        assertThat(pool.area(span)).isEqualTo(1)
                                 .describedAs("Interior span at (" + x + ", " + z + ") should remain walkable");
                     }
 
-                    assertThat(span.next).isNull();
-                    assertThat(span.smin).isEqualTo(0);
-                    assertThat(span.smax).isEqualTo(1);
+                    assertThat(pool.next(span)).isEqualTo(RC_NULL_SPAN);
+                    assertThat(pool.smin(span)).isEqualTo(0);
+                    assertThat(pool.smax(span)).isEqualTo(1);
                 }
             }
         }
@@ -188,65 +157,45 @@ public class RecastFilterTest {
         int walkableHeight = 5;
 
         Heightfield heightfield = new Heightfield(1, 1, new float[] { 0, 0, 0 }, new float[] { 1, 1, 1 }, 1, 1, 0);
+        SpanPool pool = heightfield.spanPool;
 
         // Span with nothing above is unchanged
         {
-            Span span = new Span();
-            span.area = 1;
-            span.next = null;
-            span.smin = 0;
-            span.smax = 1;
-            heightfield.spans[0] = span;
+            heightfield.spans[0] = pool.alloc(0, 1, 1);
 
             RecastFilter.filterWalkableLowHeightSpans(context, walkableHeight, heightfield);
 
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
         }
 
         // Span with lots of room above is unchanged
         {
-            heightfield.spans[0] = null;
-
-            Span overheadSpan = new Span();
-            overheadSpan.area = RC_NULL_AREA;
-            overheadSpan.next = null;
-            overheadSpan.smin = 10;
-            overheadSpan.smax = 11;
-
-            Span span = new Span();
-            span.area = 1;
-            span.next = overheadSpan;
-            span.smin = 0;
-            span.smax = 1;
+            pool.clear();
+
+            int overheadSpan = pool.alloc(10, 11, RC_NULL_AREA);
+            int span = pool.alloc(0, 1, 1);
+            pool.setNext(span, overheadSpan);
             heightfield.spans[0] = span;
 
             RecastFilter.filterWalkableLowHeightSpans(context, walkableHeight, heightfield);
 
-            assertThat(heightfield.spans[0].area).isEqualTo(1);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(1);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(RC_NULL_AREA);
         }
 
         // Span with low hanging obstacle is marked as unwalkable
         {
-            heightfield.spans[0] = null;
-
-            Span overheadSpan = new Span();
-            overheadSpan.area = RC_NULL_AREA;
-            overheadSpan.next = null;
-            overheadSpan.smin = 3;
-            overheadSpan.smax = 4;
-
-            Span span = new Span();
-            span.area = 1;
-            span.next = overheadSpan;
-            span.smin = 0;
-            span.smax = 1;
+            pool.clear();
+
+            int overheadSpan = pool.alloc(3, 4, RC_NULL_AREA);
+            int span = pool.alloc(0, 1, 1);
+            pool.setNext(span, overheadSpan);
             heightfield.spans[0] = span;
 
             RecastFilter.filterWalkableLowHeightSpans(context, walkableHeight, heightfield);
 
-            assertThat(heightfield.spans[0].area).isEqualTo(RC_NULL_AREA);
-            assertThat(heightfield.spans[0].next.area).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(heightfield.spans[0])).isEqualTo(RC_NULL_AREA);
+            assertThat(pool.area(pool.next(heightfield.spans[0]))).isEqualTo(RC_NULL_AREA);
         }
     }
 }
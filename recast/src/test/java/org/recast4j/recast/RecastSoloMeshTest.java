@@ -19,12 +19,19 @@ package org.recast4j.recast;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.recast4j.recast.RecastConstants.RC_MESH_NULL_IDX;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.Test;
+import org.recast4j.recast.RecastBuilder.RecastBuilderResult;
 import org.recast4j.recast.RecastConstants.PartitionType;
 import org.recast4j.recast.geom.InputGeomProvider;
 import org.recast4j.recast.geom.TriMesh;
@@ -85,6 +92,74 @@ public class RecastSoloMeshTest {
         testBuild("nav_test.obj", PartitionType.LAYERS, 0, 19, 32, 310, 150, 150, 773, 526);
     }
 
+    @Test
+    public void parallelBuildShouldMatchSerialBuild() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String filename : new String[] { "dungeon.obj", "nav_test.obj" }) {
+                for (PartitionType partitionType : PartitionType.values()) {
+                    testParallelBuild(filename, partitionType, executor);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void testParallelBuild(String filename, PartitionType partitionType, ExecutorService executor) {
+        InputGeomProvider geom = new ObjImporter().load(getClass().getResourceAsStream(filename));
+        RecastConfig cfg = new RecastConfig(partitionType, m_cellSize, m_cellHeight, m_agentHeight, m_agentRadius,
+                m_agentMaxClimb, m_agentMaxSlope, m_regionMinSize, m_regionMergeSize, m_edgeMaxLen, m_edgeMaxError,
+                m_vertsPerPoly, m_detailSampleDist, m_detailSampleMaxError, SampleAreaModifications.SAMPLE_AREAMOD_GROUND);
+        RecastBuilderConfig bcfg = new RecastBuilderConfig(cfg, geom.getMeshBoundsMin(), geom.getMeshBoundsMax());
+        RecastBuilder builder = new RecastBuilder();
+        RecastBuilderResult serial = builder.build(geom, bcfg);
+        RecastBuilderResult parallel = builder.build(geom, bcfg, executor);
+
+        Heightfield hf = serial.getSolidHeightfield();
+        Heightfield phf = parallel.getSolidHeightfield();
+        for (int i = 0; i < hf.spans.length; i++) {
+            assertThat(columnOf(phf, i)).isEqualTo(columnOf(hf, i));
+        }
+
+        CompactHeightfield chf = serial.getCompactHeightfield();
+        CompactHeightfield pchf = parallel.getCompactHeightfield();
+        assertThat(pchf.spanCount).isEqualTo(chf.spanCount);
+        assertThat(pchf.maxDistance).isEqualTo(chf.maxDistance);
+        assertThat(pchf.maxRegions).isEqualTo(chf.maxRegions);
+        for (int i = 0; i < chf.spanCount; i++) {
+            assertThat(pchf.spans[i].reg).isEqualTo(chf.spans[i].reg);
+            assertThat(pchf.spans[i].con).isEqualTo(chf.spans[i].con);
+            assertThat(pchf.areas[i]).isEqualTo(chf.areas[i]);
+        }
+        if (chf.dist != null) {
+            assertThat(Arrays.copyOf(pchf.dist, pchf.spanCount)).isEqualTo(Arrays.copyOf(chf.dist, chf.spanCount));
+        }
+
+        PolyMesh mesh = serial.getMesh();
+        PolyMesh pmesh = parallel.getMesh();
+        assertThat(pmesh.verts).isEqualTo(mesh.verts);
+        assertThat(pmesh.polys).isEqualTo(mesh.polys);
+        assertThat(pmesh.regs).isEqualTo(mesh.regs);
+        assertThat(pmesh.areas).isEqualTo(mesh.areas);
+
+        PolyMeshDetail dmesh = serial.getMeshDetail();
+        PolyMeshDetail pdmesh = parallel.getMeshDetail();
+        assertThat(pdmesh.meshes).isEqualTo(dmesh.meshes);
+        assertThat(pdmesh.verts).isEqualTo(dmesh.verts);
+        assertThat(pdmesh.tris).isEqualTo(dmesh.tris);
+    }
+
+    private List<Integer> columnOf(Heightfield hf, int column) {
+        List<Integer> spans = new ArrayList<>();
+        for (int s = hf.spans[column]; s != RC_NULL_SPAN; s = hf.spanPool.next(s)) {
+            spans.add(hf.spanPool.smin(s));
+            spans.add(hf.spanPool.smax(s));
+            spans.add(hf.spanPool.area(s));
+        }
+        return spans;
+    }
+
     public void testBuild(String filename, PartitionType partitionType, int expDistance, int expRegions,
             int expContours, int expVerts, int expPolys, int expDetMeshes, int expDetVerts, int expDetTris) {
         m_partitionType = partitionType;
@@ -18,15 +18,25 @@ freely, subject to the following restrictions:
 package org.recast4j.recast;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 import org.recast4j.recast.RecastBuilder.RecastBuilderResult;
+import org.recast4j.recast.RecastBuilder.RecastBuilderTileListener;
+import org.recast4j.recast.RecastBuilder.TileBuildFuture;
 import org.recast4j.recast.RecastConstants.PartitionType;
 import org.recast4j.recast.geom.InputGeomProvider;
 
@@ -89,6 +99,118 @@ public class RecastTileMeshTest {
         assertThat(rcResult.getMesh().nverts).isEqualTo(15);
     }
 
+    @Test
+    public void sharedContextShouldBuildSameTilesAsFreshContexts() {
+        ObjImporter importer = new ObjImporter();
+        InputGeomProvider geom = importer.load(getClass().getResourceAsStream("dungeon.obj"));
+        RecastConfig cfg = new RecastConfig(true, m_tileSize, m_tileSize, RecastConfig.calcBorder(m_agentRadius, m_cellSize),
+                m_partitionType, m_cellSize, m_cellHeight, m_agentMaxSlope, true, true, true, m_agentHeight, m_agentRadius,
+                m_agentMaxClimb, m_regionMinArea, m_regionMergeArea, m_edgeMaxLen, m_edgeMaxError, m_vertsPerPoly, true,
+                m_detailSampleDist, m_detailSampleMaxError, SampleAreaModifications.SAMPLE_AREAMOD_GROUND);
+        List<RecastBuilderResult> expected = new RecastBuilder(null, true).buildTiles(geom, cfg, Optional.empty());
+        List<RecastBuilderResult> tiles = new RecastBuilder().buildTiles(geom, cfg, Optional.empty());
+        assertThat(tiles).hasSize(expected.size());
+        for (RecastBuilderResult e : expected) {
+            RecastBuilderResult tile = getTile(tiles, e.tileX, e.tileZ);
+            assertThat(tile.getSolidHeightfield()).isNull();
+            assertThat(tile.getCompactHeightfield()).isNull();
+            // Each tile gets its own timings, not the shared context.
+            assertThat(tile.getTelemetry() instanceof RecastBuildContext).isFalse();
+            assertThat(tile.getMesh().verts).isEqualTo(e.getMesh().verts);
+            assertThat(tile.getMesh().polys).isEqualTo(e.getMesh().polys);
+            assertThat(tile.getMesh().areas).isEqualTo(e.getMesh().areas);
+            if (e.getMeshDetail() == null) {
+                assertThat(tile.getMeshDetail()).isNull();
+            } else {
+                assertThat(tile.getMeshDetail().verts).isEqualTo(e.getMeshDetail().verts);
+                assertThat(tile.getMeshDetail().tris).isEqualTo(e.getMeshDetail().tris);
+            }
+        }
+        assertThat(tiles.get(0).getTelemetry()).isNotSameAs(tiles.get(1).getTelemetry());
+    }
+
+    @Test
+    public void buildTilesAsyncShouldStreamEveryTile() throws Exception {
+        ObjImporter importer = new ObjImporter();
+        InputGeomProvider geom = importer.load(getClass().getResourceAsStream("dungeon.obj"));
+        RecastConfig cfg = createConfig();
+        List<RecastBuilderResult> expected = new RecastBuilder().buildTiles(geom, cfg, Optional.empty());
+        Queue<RecastBuilderResult> tiles = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new RecastBuilder().buildTilesAsync(geom, cfg, executor, new RecastBuilderTileListener() {
+
+                @Override
+                public void onTile(RecastBuilderResult result) {
+                    tiles.add(result);
+                }
+
+                @Override
+                public void onTileFailed(int tileX, int tileZ, RuntimeException error) {
+                    throw error;
+                }
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(tiles).hasSize(expected.size());
+        for (RecastBuilderResult e : expected) {
+            RecastBuilderResult tile = tiles.stream().filter(t -> t.tileX == e.tileX && t.tileZ == e.tileZ).findFirst().get();
+            assertThat(tile.getMesh().polys).isEqualTo(e.getMesh().polys);
+        }
+    }
+
+    @Test
+    public void buildTilesAsyncShouldStopWhenCancelled() {
+        ObjImporter importer = new ObjImporter();
+        InputGeomProvider geom = importer.load(getClass().getResourceAsStream("dungeon.obj"));
+        RecastConfig cfg = createConfig();
+        AtomicReference<TileBuildFuture> future = new AtomicReference<>();
+        AtomicInteger built = new AtomicInteger();
+        // Hold the single worker until the future has been published to the listener
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch published = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                published.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        future.set(new RecastBuilder().buildTilesAsync(geom, cfg, executor, new RecastBuilderTileListener() {
+
+            @Override
+            public void onTile(RecastBuilderResult result) {
+                built.incrementAndGet();
+                future.get().cancel(false);
+            }
+
+            @Override
+            public void onTileFailed(int tileX, int tileZ, RuntimeException error) {
+            }
+        }));
+        published.countDown();
+        assertThrows(CancellationException.class, () -> future.get().join());
+        future.get().tasksDone().join();
+        executor.shutdown();
+        assertThat(built.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void tileOrderShouldVisitEveryTileOnce() {
+        int[] order = RecastBuilder.tileOrder(5, 3);
+        assertThat(order).hasSize(15);
+        assertThat(Arrays.stream(order).distinct().count()).isEqualTo(15L);
+        assertThat(Arrays.copyOf(order, 4)).isEqualTo(new int[] { 0, 1, 5, 6 });
+    }
+
+    private RecastConfig createConfig() {
+        return new RecastConfig(true, m_tileSize, m_tileSize, RecastConfig.calcBorder(m_agentRadius, m_cellSize),
+                m_partitionType, m_cellSize, m_cellHeight, m_agentMaxSlope, true, true, true, m_agentHeight, m_agentRadius,
+                m_agentMaxClimb, m_regionMinArea, m_regionMergeArea, m_edgeMaxLen, m_edgeMaxError, m_vertsPerPoly, true,
+                m_detailSampleDist, m_detailSampleMaxError, SampleAreaModifications.SAMPLE_AREAMOD_GROUND);
+    }
+
     @Test
     public void testPerformance() {
         ObjImporter importer = new ObjImporter();
@@ -0,0 +1,77 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.recast4j.recast.RecastConstants.RC_NULL_SPAN;
+
+import org.junit.jupiter.api.Test;
+
+public class SpanPoolTest {
+
+    @Test
+    public void shouldReuseFreedSpans() {
+        SpanPool pool = new SpanPool(1);
+        for (int i = 0; i < 100; i++) {
+            assertThat(pool.alloc(i, i + 1, 1)).isEqualTo(i);
+        }
+        pool.free(42);
+        pool.free(7);
+        assertThat(pool.alloc(5, 6, 2)).isEqualTo(7);
+        assertThat(pool.alloc(8, 9, 3)).isEqualTo(42);
+        assertThat(pool.alloc(10, 11, 4)).isEqualTo(100);
+        assertThat(pool.size()).isEqualTo(101);
+        assertThat(pool.smin(42)).isEqualTo(8);
+        assertThat(pool.smax(42)).isEqualTo(9);
+        assertThat(pool.area(42)).isEqualTo(3);
+        assertThat(pool.next(42)).isEqualTo(RC_NULL_SPAN);
+    }
+
+    @Test
+    public void shouldMergeOverlappingSpans() {
+        Heightfield hf = new Heightfield(2, 1, new float[] { 0, 0, 0 }, new float[] { 2, 10, 1 }, 1, 1, 0);
+        RecastRasterization.addSpan(hf, 1, 0, 10, 12, 1, 1);
+        RecastRasterization.addSpan(hf, 1, 0, 2, 4, 1, 1);
+        RecastRasterization.addSpan(hf, 1, 0, 3, 11, 2, 1);
+        SpanPool pool = hf.spanPool;
+        int span = hf.spans[1];
+        assertThat(hf.spans[0]).isEqualTo(RC_NULL_SPAN);
+        assertThat(pool.smin(span)).isEqualTo(2);
+        assertThat(pool.smax(span)).isEqualTo(12);
+        assertThat(pool.area(span)).isEqualTo(2);
+        assertThat(pool.next(span)).isEqualTo(RC_NULL_SPAN);
+        // The two merged spans went back to the free list.
+        RecastRasterization.addSpan(hf, 0, 0, 0, 1, 1, 1);
+        RecastRasterization.addSpan(hf, 0, 0, 5, 6, 1, 1);
+        assertThat(pool.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void copyShouldNotShareStorage() {
+        Heightfield hf = new Heightfield(1, 1, new float[] { 0, 0, 0 }, new float[] { 1, 10, 1 }, 1, 1, 0);
+        RecastRasterization.addSpan(hf, 0, 0, 0, 1, 1, 1);
+        Heightfield copy = new Heightfield(hf);
+        RecastRasterization.addSpan(hf, 0, 0, 5, 6, 1, 1);
+        hf.spanPool.setArea(hf.spans[0], 0);
+        assertThat(copy.spanPool.area(copy.spans[0])).isEqualTo(1);
+        assertThat(copy.spanPool.next(copy.spans[0])).isEqualTo(RC_NULL_SPAN);
+        assertThat(copy.spanPool.size()).isEqualTo(1);
+        assertThat(hf.spanPool.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.recast4j.detour.NavMeshQuery.FRand;
+import org.recast4j.detour.io.MeshSetReader;
+
+/**
+ * Measures the main {@link NavMeshQuery} entry points on the tiled test nav meshes. Start and end points are random
+ * locations on the mesh, generated with a fixed seed so every run uses the same queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavMeshQueryBenchmark {
+
+    static final int QUERIES = 64;
+
+    @Param({ "all_tiles_navmesh.bin", "dungeon_all_tiles_navmesh.bin" })
+    public String mesh;
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+    private final float[] halfExtents = { 2, 4, 2 };
+    private NavMeshQuery query;
+    private long[] startRefs;
+    private long[] endRefs;
+    private float[][] startPos;
+    private float[][] endPos;
+    private List<List<Long>> paths;
+    private long[][] pathArrays;
+    private final float[] straightPath = new float[256 * 3];
+    private final int[] straightPathFlags = new int[256];
+    private final long[] straightPathRefs = new long[256];
+    private final float[] hit = new float[NavMeshQuery.RAYCAST_HIT_SIZE];
+    private final long[] raycastPath = new long[256];
+    private float[] nearestPositions;
+    private final long[] nearestRefs = new long[QUERIES];
+    private final float[] nearestPoints = new float[QUERIES * 3];
+
+    @Setup
+    public void setup() throws IOException {
+        NavMesh navmesh;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(mesh)) {
+            navmesh = new MeshSetReader().read(is, 6);
+        }
+        query = new NavMeshQuery(navmesh);
+        FRand frand = new FRand(1);
+        startRefs = new long[QUERIES];
+        endRefs = new long[QUERIES];
+        startPos = new float[QUERIES][];
+        endPos = new float[QUERIES][];
+        paths = new ArrayList<>(QUERIES);
+        pathArrays = new long[QUERIES][];
+        nearestPositions = new float[QUERIES * 3];
+        for (int i = 0; i < QUERIES; i++) {
+            FindRandomPointResult start = query.findRandomPoint(filter, frand).result;
+            FindRandomPointResult end = query.findRandomPoint(filter, frand).result;
+            startRefs[i] = start.getRandomRef();
+            startPos[i] = start.getRandomPt();
+            endRefs[i] = end.getRandomRef();
+            endPos[i] = end.getRandomPt();
+            paths.add(query.findPath(startRefs[i], endRefs[i], startPos[i], endPos[i], filter).result);
+            pathArrays[i] = paths.get(i).stream().mapToLong(Long::longValue).toArray();
+            System.arraycopy(endPos[i], 0, nearestPositions, i * 3, 3);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findPath(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.findPath(startRefs[i], endRefs[i], startPos[i], endPos[i], filter));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findStraightPath(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.findStraightPath(startPos[i], endPos[i], paths.get(i), 256, 0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findStraightPathIntoBuffers(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.findStraightPath(startPos[i], endPos[i], pathArrays[i], pathArrays[i].length,
+                    straightPath, straightPathFlags, straightPathRefs, 256, 0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void raycastIntoBuffers(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.raycast(startRefs[i], startPos[i], endPos[i], filter, 0, 0, hit, raycastPath,
+                    raycastPath.length));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void raycast(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.raycast(startRefs[i], startPos[i], endPos[i], filter, 0, 0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findNearestPoly(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(query.findNearestPoly(endPos[i], halfExtents, filter));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findNearestPolys(Blackhole bh) {
+        bh.consume(query.findNearestPolys(nearestPositions, QUERIES, halfExtents, filter, nearestRefs, nearestPoints));
+        bh.consume(nearestRefs);
+    }
+}
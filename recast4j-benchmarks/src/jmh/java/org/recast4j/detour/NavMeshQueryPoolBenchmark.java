@@ -0,0 +1,104 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.detour.NavMeshQuery.FRand;
+import org.recast4j.detour.NavMeshQueryPool.Lease;
+import org.recast4j.detour.io.MeshSetReader;
+
+/**
+ * Compares leasing a query from a shared {@link NavMeshQueryPool} with creating a new {@link NavMeshQuery} for every
+ * request, with several threads searching the same nav mesh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class NavMeshQueryPoolBenchmark {
+
+    @Param({ "dungeon_all_tiles_navmesh.bin" })
+    public String mesh;
+
+    private final QueryFilter filter = new DefaultQueryFilter();
+    private NavMesh navmesh;
+    private NavMeshQueryPool pool;
+    private long[] startRefs;
+    private long[] endRefs;
+    private float[][] startPos;
+    private float[][] endPos;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(mesh)) {
+            navmesh = new MeshSetReader().read(is, 6);
+        }
+        pool = new NavMeshQueryPool(navmesh, 4);
+        pool.warmUp();
+        NavMeshQuery query = new NavMeshQuery(navmesh);
+        FRand frand = new FRand(1);
+        int count = NavMeshQueryBenchmark.QUERIES;
+        startRefs = new long[count];
+        endRefs = new long[count];
+        startPos = new float[count][];
+        endPos = new float[count][];
+        for (int i = 0; i < count; i++) {
+            FindRandomPointResult start = query.findRandomPoint(filter, frand).result;
+            FindRandomPointResult end = query.findRandomPoint(filter, frand).result;
+            startRefs[i] = start.getRandomRef();
+            startPos[i] = start.getRandomPt();
+            endRefs[i] = end.getRandomRef();
+            endPos[i] = end.getRandomPt();
+        }
+    }
+
+    @Benchmark
+    public Result<List<Long>> pooledQuery() throws InterruptedException {
+        int i = ThreadLocalRandom.current().nextInt(startRefs.length);
+        try (Lease lease = pool.lease()) {
+            return lease.query().findPath(startRefs[i], endRefs[i], startPos[i], endPos[i], filter);
+        }
+    }
+
+    @Benchmark
+    public Result<List<Long>> newQueryPerRequest() {
+        int i = ThreadLocalRandom.current().nextInt(startRefs.length);
+        return new NavMeshQuery(navmesh).findPath(startRefs[i], endRefs[i], startPos[i], endPos[i], filter);
+    }
+}
@@ -0,0 +1,274 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.detour.io.MeshSetReader;
+
+/**
+ * Compares the indexed {@link NodeQueue} with the previous {@link PriorityQueue} based open list, where
+ * {@code modify()} was a linear {@code remove()} followed by {@code offer()}.
+ *
+ * The workload is a Dijkstra flood over the polygon graph of the test nav meshes, started from a fixed set of
+ * polygons, which keeps the open list as large as the mesh allows and exercises decrease-key on every shorter path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeQueueBenchmark {
+
+    private static final int SEARCHES = 16;
+
+    @Param({ "all_tiles_navmesh.bin", "dungeon_all_tiles_navmesh.bin" })
+    public String mesh;
+
+    private long[] refs;
+    private float[] centers;
+    private int[] firstEdge;
+    private int[] edges;
+    private int[] starts;
+    private int[] nodePolys;
+    private NodePool pool;
+    private final OpenList indexed = new IndexedOpenList();
+    private final OpenList legacy = new PriorityQueueOpenList();
+
+    @Setup
+    public void setup() throws IOException {
+        NavMesh navmesh;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(mesh)) {
+            navmesh = new MeshSetReader().read(is, 6);
+        }
+        Map<Long, Integer> index = new HashMap<>();
+        int polyCount = 0;
+        for (int t = 0; t < navmesh.getMaxTiles(); t++) {
+            MeshTile tile = navmesh.getTile(t);
+            if (tile != null && tile.data != null && tile.data.header != null) {
+                polyCount += tile.data.header.polyCount;
+            }
+        }
+        refs = new long[polyCount];
+        centers = new float[polyCount * 3];
+        int n = 0;
+        for (int t = 0; t < navmesh.getMaxTiles(); t++) {
+            MeshTile tile = navmesh.getTile(t);
+            if (tile == null || tile.data == null || tile.data.header == null) {
+                continue;
+            }
+            long base = navmesh.getPolyRefBase(tile);
+            for (int i = 0; i < tile.data.header.polyCount; i++) {
+                Poly poly = tile.data.polys[i];
+                for (int j = 0; j < poly.vertCount; j++) {
+                    for (int k = 0; k < 3; k++) {
+                        centers[n * 3 + k] += tile.data.verts[poly.verts[j] * 3 + k] / poly.vertCount;
+                    }
+                }
+                refs[n] = base | i;
+                index.put(refs[n], n);
+                n++;
+            }
+        }
+        firstEdge = new int[polyCount + 1];
+        int edgeCount = 0;
+        int[] neis = new int[polyCount * 8];
+        for (int t = 0; t < navmesh.getMaxTiles(); t++) {
+            MeshTile tile = navmesh.getTile(t);
+            if (tile == null || tile.data == null || tile.data.header == null) {
+                continue;
+            }
+            long base = navmesh.getPolyRefBase(tile);
+            for (int i = 0; i < tile.data.header.polyCount; i++) {
+                int p = index.get(base | i);
+                firstEdge[p] = edgeCount;
+                for (int l = tile.polyLinks[i]; l != NavMesh.DT_NULL_LINK; l = tile.links.next(l)) {
+                    Integer nei = index.get(tile.links.ref(l));
+                    if (nei != null) {
+                        if (edgeCount == neis.length) {
+                            neis = Arrays.copyOf(neis, neis.length * 2);
+                        }
+                        neis[edgeCount++] = nei;
+                    }
+                }
+            }
+        }
+        firstEdge[polyCount] = edgeCount;
+        edges = Arrays.copyOf(neis, edgeCount);
+        starts = new int[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            starts[i] = (int) ((long) i * polyCount / SEARCHES);
+        }
+        pool = new NodePool(polyCount);
+        nodePolys = new int[polyCount + 1];
+    }
+
+    @Benchmark
+    public int indexedHeap() {
+        return flood(indexed);
+    }
+
+    @Benchmark
+    public int priorityQueue() {
+        return flood(legacy);
+    }
+
+    private int flood(OpenList openList) {
+        int visited = 0;
+        for (int start : starts) {
+            pool.clear();
+            openList.clear();
+            Node startNode = pool.getNode(refs[start]);
+            nodePolys[pool.getNodeIdx(startNode)] = start;
+            startNode.total = 0;
+            startNode.flags = Node.DT_NODE_OPEN;
+            openList.push(startNode);
+            while (!openList.isEmpty()) {
+                Node best = openList.pop();
+                best.flags &= ~Node.DT_NODE_OPEN;
+                best.flags |= Node.DT_NODE_CLOSED;
+                visited++;
+                int bestIdx = pool.getNodeIdx(best);
+                int poly = nodePolys[bestIdx];
+                for (int e = firstEdge[poly]; e < firstEdge[poly + 1]; e++) {
+                    int nei = edges[e];
+                    Node neighbourNode = pool.getNode(refs[nei]);
+                    if (neighbourNode == null || (neighbourNode.flags & Node.DT_NODE_CLOSED) != 0) {
+                        continue;
+                    }
+                    float total = best.total + distance(poly, nei);
+                    if ((neighbourNode.flags & Node.DT_NODE_OPEN) != 0) {
+                        if (total >= neighbourNode.total) {
+                            continue;
+                        }
+                        neighbourNode.pidx = bestIdx;
+                        neighbourNode.total = total;
+                        openList.modify(neighbourNode);
+                    } else {
+                        neighbourNode.pidx = bestIdx;
+                        neighbourNode.total = total;
+                        neighbourNode.flags = Node.DT_NODE_OPEN;
+                        nodePolys[pool.getNodeIdx(neighbourNode)] = nei;
+                        openList.push(neighbourNode);
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    private float distance(int a, int b) {
+        float dx = centers[b * 3] - centers[a * 3];
+        float dy = centers[b * 3 + 1] - centers[a * 3 + 1];
+        float dz = centers[b * 3 + 2] - centers[a * 3 + 2];
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private interface OpenList {
+        void clear();
+
+        void push(Node node);
+
+        Node pop();
+
+        void modify(Node node);
+
+        boolean isEmpty();
+    }
+
+    private static class IndexedOpenList implements OpenList {
+
+        private final NodeQueue m_queue = new NodeQueue();
+
+        @Override
+        public void clear() {
+            m_queue.clear();
+        }
+
+        @Override
+        public void push(Node node) {
+            m_queue.push(node);
+        }
+
+        @Override
+        public Node pop() {
+            return m_queue.pop();
+        }
+
+        @Override
+        public void modify(Node node) {
+            m_queue.modify(node);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return m_queue.isEmpty();
+        }
+    }
+
+    /** The open list as it was implemented before the indexed heap, kept here as the baseline. */
+    private static class PriorityQueueOpenList implements OpenList {
+
+        private final PriorityQueue<Node> m_heap = new PriorityQueue<>((n1, n2) -> Float.compare(n1.total, n2.total));
+
+        @Override
+        public void clear() {
+            m_heap.clear();
+        }
+
+        @Override
+        public void push(Node node) {
+            m_heap.offer(node);
+        }
+
+        @Override
+        public Node pop() {
+            return m_heap.poll();
+        }
+
+        @Override
+        public void modify(Node node) {
+            m_heap.remove(node);
+            m_heap.offer(node);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return m_heap.isEmpty();
+        }
+    }
+}
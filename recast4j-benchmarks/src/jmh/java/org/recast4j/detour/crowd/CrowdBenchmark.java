@@ -0,0 +1,113 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.crowd;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.detour.DefaultQueryFilter;
+import org.recast4j.detour.FindRandomPointResult;
+import org.recast4j.detour.NavMesh;
+import org.recast4j.detour.NavMeshQuery;
+import org.recast4j.detour.NavMeshQuery.FRand;
+import org.recast4j.detour.QueryFilter;
+import org.recast4j.detour.crowd.ObstacleAvoidanceQuery.ObstacleAvoidanceParams;
+import org.recast4j.detour.io.MeshSetReader;
+
+/**
+ * Measures a single {@link Crowd#update(float, CrowdAgentDebugInfo)} step. The crowd is rebuilt before every
+ * measurement iteration with agents placed at random locations and moving towards random targets, so each iteration
+ * starts from the same state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrowdBenchmark {
+
+    private static final float DT = 1.0f / 30.0f;
+
+    @Param({ "100", "1000", "5000" })
+    public int agents;
+
+    @Param({ "dungeon_all_tiles_navmesh.bin" })
+    public String mesh;
+
+    private NavMesh navmesh;
+    private Crowd crowd;
+
+    @Setup(Level.Trial)
+    public void loadMesh() throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(mesh)) {
+            navmesh = new MeshSetReader().read(is, 6);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupCrowd() {
+        crowd = new Crowd(new CrowdConfig(0.6f), navmesh);
+        ObstacleAvoidanceParams params = new ObstacleAvoidanceParams();
+        params.velBias = 0.5f;
+        params.adaptiveDivs = 5;
+        params.adaptiveRings = 2;
+        params.adaptiveDepth = 1;
+        crowd.setObstacleAvoidanceParams(0, params);
+        CrowdAgentParams ap = new CrowdAgentParams();
+        ap.radius = 0.6f;
+        ap.height = 2f;
+        ap.maxAcceleration = 8.0f;
+        ap.maxSpeed = 3.5f;
+        ap.collisionQueryRange = ap.radius * 12f;
+        ap.pathOptimizationRange = ap.radius * 30f;
+        ap.updateFlags = CrowdAgentParams.DT_CROWD_ANTICIPATE_TURNS | CrowdAgentParams.DT_CROWD_OBSTACLE_AVOIDANCE
+                | CrowdAgentParams.DT_CROWD_SEPARATION | CrowdAgentParams.DT_CROWD_OPTIMIZE_VIS
+                | CrowdAgentParams.DT_CROWD_OPTIMIZE_TOPO;
+        ap.obstacleAvoidanceType = 0;
+        ap.separationWeight = 2f;
+        NavMeshQuery query = new NavMeshQuery(navmesh);
+        QueryFilter filter = new DefaultQueryFilter();
+        FRand frand = new FRand(1);
+        for (int i = 0; i < agents; i++) {
+            FindRandomPointResult start = query.findRandomPoint(filter, frand).result;
+            FindRandomPointResult target = query.findRandomPoint(filter, frand).result;
+            CrowdAgent ag = crowd.addAgent(start.getRandomPt(), ap);
+            crowd.requestMoveTarget(ag, target.getRandomRef(), target.getRandomPt());
+        }
+    }
+
+    @Benchmark
+    public CrowdTelemetry update() {
+        return crowd.update(DT, null);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.detour.tilecache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.detour.DefaultQueryFilter;
+import org.recast4j.detour.NavMeshQuery;
+import org.recast4j.detour.NavMeshQuery.FRand;
+import org.recast4j.detour.QueryFilter;
+import org.recast4j.detour.tilecache.io.TileCacheReader;
+
+/**
+ * Measures {@link TileCache#update()} under obstacle churn: every invocation adds a batch of cylinder obstacles at
+ * random locations, updates the cache until it is up to date, then removes the obstacles and updates it again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileCacheBenchmark {
+
+    @Param({ "all_tiles_tilecache.bin", "dungeon_all_tiles_tilecache.bin" })
+    public String tileCache;
+
+    @Param({ "8", "32" })
+    public int obstacles;
+
+    private TileCache tc;
+    private float[][] positions;
+    private long[] refs;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(tileCache)) {
+            tc = new TileCacheReader().read(is, 6, params -> {
+                for (int i = 0; i < params.polyCount; ++i) {
+                    params.polyFlags[i] = 1;
+                }
+            });
+        }
+        NavMeshQuery query = new NavMeshQuery(tc.getNavMesh());
+        QueryFilter filter = new DefaultQueryFilter();
+        FRand frand = new FRand(1);
+        positions = new float[obstacles][];
+        for (int i = 0; i < obstacles; i++) {
+            positions[i] = query.findRandomPoint(filter, frand).result.getRandomPt();
+        }
+        refs = new long[obstacles];
+    }
+
+    @Benchmark
+    public int obstacleChurn() {
+        int updates = 0;
+        for (int i = 0; i < obstacles; i++) {
+            refs[i] = tc.addObstacle(positions[i], 1f, 2f);
+        }
+        while (!tc.update()) {
+            updates++;
+        }
+        for (int i = 0; i < obstacles; i++) {
+            tc.removeObstacle(refs[i]);
+        }
+        while (!tc.update()) {
+            updates++;
+        }
+        return updates;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.dynamic;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.detour.DefaultQueryFilter;
+import org.recast4j.detour.NavMeshQuery;
+import org.recast4j.detour.NavMeshQuery.FRand;
+import org.recast4j.dynamic.collider.SphereCollider;
+import org.recast4j.dynamic.io.VoxelFile;
+import org.recast4j.recast.ObjImporter;
+import org.recast4j.recast.RecastBuilder;
+import org.recast4j.recast.RecastBuilder.RecastBuilderResult;
+import org.recast4j.recast.RecastBuilderBenchmark;
+import org.recast4j.recast.RecastConfig;
+import org.recast4j.recast.SampleAreaModifications;
+import org.recast4j.recast.geom.InputGeomProvider;
+
+/**
+ * Measures incremental {@link DynamicNavMesh#update()} after adding and removing a sphere collider. The voxels are
+ * produced by a tiled Recast build of the test geometry, which is equivalent to loading them from a voxel file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicNavMeshBenchmark {
+
+    private static final int POSITIONS = 16;
+
+    @Param({ "dungeon.obj" })
+    public String geometry;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private DynamicNavMesh mesh;
+    private ExecutorService executor;
+    private float[][] positions;
+    private int next;
+
+    @Setup
+    public void setup() {
+        InputGeomProvider geom = new ObjImporter().load(getClass().getClassLoader().getResourceAsStream(geometry));
+        RecastConfig cfg = RecastBuilderBenchmark.createConfig();
+        List<RecastBuilderResult> results = new RecastBuilder(null, true).buildTiles(geom, cfg, Optional.empty());
+        mesh = new DynamicNavMesh(VoxelFile.from(cfg, results));
+        mesh.build();
+        NavMeshQuery query = new NavMeshQuery(mesh.navMesh());
+        FRand frand = new FRand(1);
+        positions = new float[POSITIONS][];
+        for (int i = 0; i < POSITIONS; i++) {
+            positions[i] = query.findRandomPoint(new DefaultQueryFilter(), frand).result.getRandomPt();
+        }
+        executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean addAndRemoveCollider() throws InterruptedException, ExecutionException {
+        float[] pos = positions[next++ % POSITIONS];
+        long id = mesh.addCollider(new SphereCollider(pos, 2f, SampleAreaModifications.SAMPLE_POLYAREA_TYPE_GROUND, 0.1f));
+        boolean changed = update();
+        mesh.removeCollider(id);
+        return update() | changed;
+    }
+
+    private boolean update() throws InterruptedException, ExecutionException {
+        return executor != null ? mesh.update(executor).get() : mesh.update();
+    }
+}
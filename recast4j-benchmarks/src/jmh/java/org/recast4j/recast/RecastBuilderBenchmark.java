@@ -0,0 +1,109 @@
+/*
+Copyright (c) 2009-2010 Mikko Mononen memon@inside.org
+recast4j copyright (c) 2015-2019 Piotr Piastucki piotr@jtilia.org
+
+This software is provided 'as-is', without any express or implied
+warranty.  In no event will the authors be held liable for any damages
+arising from the use of this software.
+Permission is granted to anyone to use this software for any purpose,
+including commercial applications, and to alter it and redistribute it
+freely, subject to the following restrictions:
+1. The origin of this software must not be misrepresented; you must not
+ claim that you wrote the original software. If you use this software
+ in a product, an acknowledgment in the product documentation would be
+ appreciated but is not required.
+2. Altered source versions must be plainly marked as such, and must not be
+ misrepresented as being the original software.
+3. This notice may not be removed or altered from any source distribution.
+*/
+package org.recast4j.recast;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.recast4j.recast.RecastBuilder.RecastBuilderResult;
+import org.recast4j.recast.RecastConstants.PartitionType;
+import org.recast4j.recast.geom.InputGeomProvider;
+
+/**
+ * Measures {@link RecastBuilder#buildTiles(InputGeomProvider, RecastConfig, Optional)} on the test geometry. A single
+ * thread runs the serial build, more threads run the same build on a fixed thread pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecastBuilderBenchmark {
+
+    private static final float m_cellSize = 0.3f;
+    private static final float m_cellHeight = 0.2f;
+    private static final float m_agentHeight = 2.0f;
+    private static final float m_agentRadius = 0.6f;
+    private static final float m_agentMaxClimb = 0.9f;
+    private static final float m_agentMaxSlope = 45.0f;
+    private static final int m_regionMinSize = 8;
+    private static final int m_regionMergeSize = 20;
+    private static final float m_regionMinArea = m_regionMinSize * m_regionMinSize * m_cellSize * m_cellSize;
+    private static final float m_regionMergeArea = m_regionMergeSize * m_regionMergeSize * m_cellSize * m_cellSize;
+    private static final float m_edgeMaxLen = 12.0f;
+    private static final float m_edgeMaxError = 1.3f;
+    private static final int m_vertsPerPoly = 6;
+    private static final float m_detailSampleDist = 6.0f;
+    private static final float m_detailSampleMaxError = 1.0f;
+    private static final int m_tileSize = 32;
+
+    @Param({ "dungeon.obj", "nav_test.obj" })
+    public String geometry;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private InputGeomProvider geom;
+    private RecastConfig cfg;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        geom = new ObjImporter().load(getClass().getClassLoader().getResourceAsStream(geometry));
+        cfg = createConfig();
+        executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<RecastBuilderResult> buildTiles() {
+        return new RecastBuilder().buildTiles(geom, cfg, Optional.<Executor>ofNullable(executor));
+    }
+
+    public static RecastConfig createConfig() {
+        return new RecastConfig(true, m_tileSize, m_tileSize, RecastConfig.calcBorder(m_agentRadius, m_cellSize),
+                PartitionType.WATERSHED, m_cellSize, m_cellHeight, m_agentMaxSlope, true, true, true, m_agentHeight,
+                m_agentRadius, m_agentMaxClimb, m_regionMinArea, m_regionMergeArea, m_edgeMaxLen, m_edgeMaxError,
+                m_vertsPerPoly, true, m_detailSampleDist, m_detailSampleMaxError,
+                SampleAreaModifications.SAMPLE_AREAMOD_GROUND);
+    }
+}